@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.core.config.ConfigurationService;
+import org.opensaml.core.metrics.MetricsSupport;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.Timer.Context;
+
+import net.shibboleth.shared.annotation.constraint.NotEmpty;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+
+/**
+ * Support code for scheduling background tasks, such as metadata refresh and storage cleanup.
+ * 
+ * <p>
+ * Components which run background tasks use the {@link ScheduledExecutorService} supplied to them, or if none
+ * was supplied, the default executor returned by {@link #getDefaultExecutor()}. The default executor may be
+ * replaced by registering a {@link ScheduledExecutorService} with the {@link ConfigurationService}. Otherwise
+ * a shared, bounded pool of daemon threads is created on first use, and instrumented via the
+ * {@link MetricRegistry} installed into the runtime, if any.
+ * </p>
+ * 
+ * <p>
+ * Tasks scheduled via this class are guarded so that an exception thrown by one execution is logged
+ * and does not suppress subsequent executions of a periodic task, nor affect other tasks sharing the executor.
+ * </p>
+ */
+public final class BackgroundTaskSupport {
+    
+    /** Base name of the metrics for the default executor. */
+    @Nonnull @NotEmpty public static final String METRIC_BASE_NAME = BackgroundTaskSupport.class.getName();
+    
+    /** Metric name for the timer of background task executions. */
+    @Nonnull @NotEmpty public static final String METRIC_TIMER_TASK_EXECUTION = "timer.taskExecution";
+    
+    /** Metric name for the gauge of the number of threads actively executing tasks in the default executor. */
+    @Nonnull @NotEmpty public static final String METRIC_GAUGE_ACTIVE_COUNT = "gauge.defaultExecutor.activeCount";
+    
+    /** Metric name for the gauge of the number of tasks queued in the default executor. */
+    @Nonnull @NotEmpty public static final String METRIC_GAUGE_QUEUE_SIZE = "gauge.defaultExecutor.queueSize";
+    
+    /** Metric name for the gauge of the number of tasks completed by the default executor. */
+    @Nonnull @NotEmpty public static final String METRIC_GAUGE_COMPLETED_COUNT = "gauge.defaultExecutor.completedCount";
+    
+    /** Number of threads in the default executor. */
+    public static final int DEFAULT_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    
+    /** Class logger. */
+    @Nonnull private static final Logger LOG = LoggerFactory.getLogger(BackgroundTaskSupport.class);
+    
+    /** The lazily-created default executor. */
+    @Nullable private static ScheduledThreadPoolExecutor defaultExecutor;
+
+    /** Constructor. */
+    private BackgroundTaskSupport() {
+        
+    }
+    
+    /**
+     * Get the default executor for background tasks.
+     * 
+     * <p>
+     * This is the {@link ScheduledExecutorService} registered with the {@link ConfigurationService}, if any,
+     * otherwise the shared pool created on first use.
+     * </p>
+     * 
+     * @return the default executor
+     */
+    @Nonnull public static ScheduledExecutorService getDefaultExecutor() {
+        final ScheduledExecutorService configured = ConfigurationService.get(ScheduledExecutorService.class);
+        if (configured != null) {
+            return configured;
+        }
+        
+        synchronized (BackgroundTaskSupport.class) {
+            if (defaultExecutor == null) {
+                defaultExecutor = createDefaultExecutor();
+            }
+            assert defaultExecutor != null;
+            return defaultExecutor;
+        }
+    }
+    
+    /**
+     * Schedule a one-shot task.
+     * 
+     * @param executor the executor on which to schedule the task
+     * @param task the task to run
+     * @param delay the delay before the task runs
+     * 
+     * @return the future representing the scheduled task, used to cancel it
+     */
+    @Nonnull public static ScheduledFuture<?> schedule(@Nonnull final ScheduledExecutorService executor,
+            @Nonnull final Runnable task, @Nonnull final Duration delay) {
+        Constraint.isNotNull(executor, "Executor cannot be null");
+        Constraint.isNotNull(task, "Task cannot be null");
+        Constraint.isNotNull(delay, "Delay cannot be null");
+        
+        return executor.schedule(guard(task), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Schedule a periodic task, with the given delay between the end of one execution and the start of the next.
+     * 
+     * @param executor the executor on which to schedule the task
+     * @param task the task to run
+     * @param initialDelay the delay before the first execution
+     * @param delay the delay between executions
+     * 
+     * @return the future representing the scheduled task, used to cancel it
+     */
+    @Nonnull public static ScheduledFuture<?> scheduleWithFixedDelay(@Nonnull final ScheduledExecutorService executor,
+            @Nonnull final Runnable task, @Nonnull final Duration initialDelay, @Nonnull final Duration delay) {
+        Constraint.isNotNull(executor, "Executor cannot be null");
+        Constraint.isNotNull(task, "Task cannot be null");
+        Constraint.isNotNull(initialDelay, "Initial delay cannot be null");
+        Constraint.isNotNull(delay, "Delay cannot be null");
+        
+        return executor.scheduleWithFixedDelay(guard(task), initialDelay.toMillis(), delay.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Wrap a task so that its executions are timed, and any exception it throws is logged rather than
+     * propagated to the executor.
+     * 
+     * @param task the task to wrap
+     * 
+     * @return the wrapped task
+     */
+    @Nonnull private static Runnable guard(@Nonnull final Runnable task) {
+        return () -> {
+            final MetricRegistry registry = MetricsSupport.getMetricRegistry();
+            final Timer timer = registry != null
+                    ? registry.timer(MetricRegistry.name(METRIC_BASE_NAME, METRIC_TIMER_TASK_EXECUTION)) : null;
+            final Context context = MetricsSupport.startTimer(timer);
+            try {
+                task.run();
+            } catch (final Throwable t) {
+                LOG.error("Background task {} failed", task, t);
+            } finally {
+                MetricsSupport.stopTimer(context);
+            }
+        };
+    }
+    
+    /**
+     * Create and instrument the default executor.
+     * 
+     * @return the new executor
+     */
+    @Nonnull private static ScheduledThreadPoolExecutor createDefaultExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(DEFAULT_POOL_SIZE, r -> {
+            final Thread thread = new Thread(r, "opensaml-background-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        
+        LOG.debug("Created default background task executor with {} threads", DEFAULT_POOL_SIZE);
+        
+        MetricsSupport.register(MetricRegistry.name(METRIC_BASE_NAME, METRIC_GAUGE_ACTIVE_COUNT),
+                (Gauge<Integer>) executor::getActiveCount, true);
+        MetricsSupport.register(MetricRegistry.name(METRIC_BASE_NAME, METRIC_GAUGE_QUEUE_SIZE),
+                (Gauge<Integer>) () -> executor.getQueue().size(), true);
+        MetricsSupport.register(MetricRegistry.name(METRIC_BASE_NAME, METRIC_GAUGE_COMPLETED_COUNT),
+                (Gauge<Long>) executor::getCompletedTaskCount, true);
+        
+        return executor;
+    }
+
+}
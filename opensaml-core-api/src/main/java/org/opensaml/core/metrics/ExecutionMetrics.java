@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import net.shibboleth.shared.annotation.constraint.NotEmpty;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.StringSupport;
+
+/**
+ * Low-overhead latency and allocation metrics for repeatedly executed components.
+ *
+ * <p>
+ * An instance records the duration of each execution in a {@link Timer} with the supplied name and, if the runtime
+ * supports it, the bytes allocated by the executing thread in a {@link Histogram} with that name suffixed by
+ * {@link #ALLOCATED_BYTES_SUFFIX}. The metrics are resolved from the registry periodically rather than on each
+ * execution, and a metric which the registry does not actually register, as with the disabled metrics returned by
+ * a filtering registry, is not sampled at all.
+ * </p>
+ *
+ * <p>
+ * Because a registry's filter, or the registry itself, may change at runtime, the metrics are re-resolved after a
+ * refresh interval, by default {@link #DEFAULT_REFRESH_INTERVAL}.
+ * </p>
+ */
+public final class ExecutionMetrics {
+
+    /** Suffix of the histogram name recording allocated bytes. */
+    @Nonnull @NotEmpty public static final String ALLOCATED_BYTES_SUFFIX = "allocatedBytes";
+
+    /** Default interval after which metrics are re-resolved from the registry. */
+    @Nonnull public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    /** Shared instances, by name. */
+    @Nonnull private static final Map<String,ExecutionMetrics> INSTANCES = new ConcurrentHashMap<>();
+
+    /** Thread allocation counter, if supported and enabled. */
+    @Nullable private static final com.sun.management.ThreadMXBean THREAD_BEAN = getThreadBean();
+
+    /** Timer name. */
+    @Nonnull @NotEmpty private final String timerName;
+
+    /** Allocated bytes histogram name. */
+    @Nonnull @NotEmpty private final String allocatedBytesName;
+
+    /** Source of the registry. */
+    @Nonnull private final Supplier<MetricRegistry> registrySupplier;
+
+    /** Refresh interval in nanoseconds. */
+    private final long refreshNanos;
+
+    /** Currently resolved metrics. */
+    @Nullable private volatile Handles handles;
+
+    /**
+     * Constructor.
+     *
+     * @param name name of the timer
+     * @param supplier source of the registry, which may supply null
+     * @param refreshInterval interval after which metrics are re-resolved from the registry
+     */
+    public ExecutionMetrics(@Nonnull @NotEmpty final String name, @Nonnull final Supplier<MetricRegistry> supplier,
+            @Nonnull final Duration refreshInterval) {
+        timerName = Constraint.isNotNull(StringSupport.trimOrNull(name), "Name cannot be null or empty");
+        allocatedBytesName = MetricRegistry.name(timerName, ALLOCATED_BYTES_SUFFIX);
+        registrySupplier = Constraint.isNotNull(supplier, "Registry supplier cannot be null");
+        refreshNanos = Constraint.isNotNull(refreshInterval, "Refresh interval cannot be null").toNanos();
+    }
+
+    /**
+     * Get the shared instance for a name, using the registry from {@link MetricsSupport#getMetricRegistry()}.
+     *
+     * @param name name of the timer
+     *
+     * @return the shared instance
+     */
+    @Nonnull public static ExecutionMetrics forName(@Nonnull @NotEmpty final String name) {
+        return INSTANCES.computeIfAbsent(name,
+                n -> new ExecutionMetrics(n, MetricsSupport::getMetricRegistry, DEFAULT_REFRESH_INTERVAL));
+    }
+
+    /**
+     * Get the timer name.
+     *
+     * @return the timer name
+     */
+    @Nonnull @NotEmpty public String getName() {
+        return timerName;
+    }
+
+    /**
+     * Begin sampling an execution.
+     *
+     * @return the sample to pass to {@link #stop(Sample)}, or null if no metric is enabled
+     */
+    @Nullable public Sample start() {
+        final long now = System.nanoTime();
+        Handles current = handles;
+        if (current == null || now - current.resolved() >= refreshNanos) {
+            current = resolve(now);
+        }
+        if (current.timer() == null && current.allocatedBytes() == null) {
+            return null;
+        }
+        return new Sample(current, now, current.allocatedBytes() != null ? allocatedBytes() : 0);
+    }
+
+    /**
+     * Finish sampling an execution.
+     *
+     * @param sample the sample returned by {@link #start()}, may be null
+     */
+    public void stop(@Nullable final Sample sample) {
+        if (sample == null) {
+            return;
+        }
+        final Timer timer = sample.handles.timer();
+        if (timer != null) {
+            timer.update(System.nanoTime() - sample.startNanos, TimeUnit.NANOSECONDS);
+        }
+        final Histogram histogram = sample.handles.allocatedBytes();
+        if (histogram != null) {
+            histogram.update(allocatedBytes() - sample.startBytes);
+        }
+    }
+
+    /**
+     * Resolve the metrics from the registry.
+     *
+     * @param now current value of {@link System#nanoTime()}
+     *
+     * @return the resolved metrics
+     */
+    @Nonnull private Handles resolve(final long now) {
+        final MetricRegistry registry = registrySupplier.get();
+        Timer timer = null;
+        Histogram histogram = null;
+        if (registry != null) {
+            final Timer candidateTimer = registry.timer(timerName);
+            if (MetricsSupport.isMetricInstanceRegisteredUnderName(timerName, candidateTimer, registry)) {
+                timer = candidateTimer;
+            }
+            if (THREAD_BEAN != null) {
+                final Histogram candidateHistogram = registry.histogram(allocatedBytesName);
+                if (MetricsSupport.isMetricInstanceRegisteredUnderName(allocatedBytesName, candidateHistogram,
+                        registry)) {
+                    histogram = candidateHistogram;
+                }
+            }
+        }
+        final Handles resolved = new Handles(timer, histogram, now);
+        handles = resolved;
+        return resolved;
+    }
+
+    /**
+     * Get the bytes allocated so far by the current thread.
+     *
+     * @return allocated bytes
+     */
+    private static long allocatedBytes() {
+        final com.sun.management.ThreadMXBean bean = THREAD_BEAN;
+        return bean != null ? bean.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * Get the thread allocation counter, if supported and enabled.
+     *
+     * @return the counter or null
+     */
+    @Nullable private static com.sun.management.ThreadMXBean getThreadBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        } catch (final RuntimeException | LinkageError e) {
+            // Unsupported runtime, so fall through.
+        }
+        return null;
+    }
+
+    /**
+     * Resolved metrics.
+     *
+     * @param timer enabled timer, or null
+     * @param allocatedBytes enabled allocation histogram, or null
+     * @param resolved time of resolution, from {@link System#nanoTime()}
+     */
+    private record Handles(@Nullable Timer timer, @Nullable Histogram allocatedBytes, long resolved) {
+    }
+
+    /** An in-progress execution sample. */
+    public static final class Sample {
+
+        /** Metrics to update. */
+        @Nonnull private final Handles handles;
+
+        /** Start time. */
+        private final long startNanos;
+
+        /** Allocated bytes at start. */
+        private final long startBytes;
+
+        /**
+         * Constructor.
+         *
+         * @param metrics metrics to update
+         * @param nanos start time
+         * @param bytes allocated bytes at start
+         */
+        private Sample(@Nonnull final Handles metrics, final long nanos, final long bytes) {
+            handles = metrics;
+            startNanos = nanos;
+            startBytes = bytes;
+        }
+    }
+
+}
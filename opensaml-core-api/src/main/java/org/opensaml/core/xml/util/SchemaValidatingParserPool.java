@@ -0,0 +1,444 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.Schema;
+import javax.xml.validation.TypeInfoProvider;
+import javax.xml.validation.ValidatorHandler;
+
+import org.slf4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.Attributes2;
+import org.xml.sax.helpers.DefaultHandler;
+
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+import net.shibboleth.shared.xml.ParserPool;
+import net.shibboleth.shared.xml.XMLParserException;
+import net.shibboleth.shared.xml.impl.BasicParserPool;
+
+/**
+ * A {@link ParserPool} that validates documents against a schema as they are parsed.
+ *
+ * <p>
+ * Rather than building a DOM and then walking it a second time to validate it, the document is parsed as a SAX
+ * stream which passes through a pooled {@link ValidatorHandler} on its way to DOM construction, so that an invalid
+ * document is rejected without ever being fully built. Documents produced by {@link #parse(InputStream)} and
+ * {@link #parse(Reader)} are marked with the schema used, which components such as schema validation handlers may
+ * check via {@link #isValidated(Node, Schema)} to avoid validating the same DOM again.
+ * </p>
+ *
+ * <p>
+ * The stream parser is namespace-aware and rejects DTDs and external entities. Attributes defaulted by the schema
+ * are not added to the resulting DOM, attributes of schema type ID are registered as such, and whitespace is
+ * preserved, so that the DOM is suitable for signature verification. Comments are not preserved, and CDATA sections
+ * are merged into the surrounding text. All other operations, including the creation of empty documents, are
+ * delegated to the wrapped pool.
+ * </p>
+ *
+ * <p>
+ * If the wrapped pool is a {@link BasicParserPool}, its builder features and attributes are applied to the stream
+ * parser, except for any the stream parser does not recognize or support, which are ignored. Settings which would
+ * relax the protection against DTDs and external entities, or which cannot be honoured by the stream parser (DTD
+ * validation, XInclude processing, preserving comments, and disabling namespace awareness) are rejected.
+ * </p>
+ */
+public class SchemaValidatingParserPool implements ParserPool {
+
+    /** Key of the DOM user data identifying the schema against which a document was validated. */
+    @Nonnull public static final String VALIDATED_SCHEMA_KEY =
+            "org.opensaml.core.xml.util.SchemaValidatingParserPool.schema";
+
+    /** Features which protect the stream parser against DTDs and external entities. */
+    @Nonnull private static final Map<String,Boolean> SECURE_FEATURES = Map.of(
+            XMLConstants.FEATURE_SECURE_PROCESSING, true,
+            "http://apache.org/xml/features/disallow-doctype-decl", true,
+            "http://xml.org/sax/features/external-general-entities", false,
+            "http://xml.org/sax/features/external-parameter-entities", false);
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(SchemaValidatingParserPool.class);
+
+    /** Wrapped pool. */
+    @Nonnull private final ParserPool parserPool;
+
+    /** Pooled validators. */
+    @Nonnull private final SchemaValidatorPool validatorPool;
+
+    /** Factory for stream parsers. */
+    @Nonnull private final SAXParserFactory saxParserFactory;
+
+    /** Properties to set on each stream parser, from the wrapped pool's builder attributes. */
+    @Nonnull private final Map<String,Object> saxParserProperties;
+
+    /** Idle stream parsers. */
+    @Nonnull private final Deque<SAXParser> saxParsers;
+
+    /** Number of idle stream parsers. */
+    @Nonnull private final AtomicInteger saxParserCount;
+
+    /**
+     * Constructor.
+     *
+     * @param pool wrapped pool
+     * @param schema schema against which to validate documents
+     */
+    public SchemaValidatingParserPool(@Nonnull final ParserPool pool, @Nonnull final Schema schema) {
+        this(pool, new SchemaValidatorPool(schema));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pool wrapped pool
+     * @param validators pooled validators for the schema against which to validate documents
+     */
+    public SchemaValidatingParserPool(@Nonnull final ParserPool pool, @Nonnull final SchemaValidatorPool validators) {
+        parserPool = Constraint.isNotNull(pool, "ParserPool cannot be null");
+        validatorPool = Constraint.isNotNull(validators, "SchemaValidatorPool cannot be null");
+        saxParsers = new ConcurrentLinkedDeque<>();
+        saxParserCount = new AtomicInteger();
+
+        saxParserProperties = new HashMap<>();
+
+        saxParserFactory = SAXParserFactory.newInstance();
+        saxParserFactory.setNamespaceAware(true);
+        saxParserFactory.setValidating(false);
+        saxParserFactory.setXIncludeAware(false);
+        try {
+            for (final Map.Entry<String,Boolean> feature : SECURE_FEATURES.entrySet()) {
+                saxParserFactory.setFeature(feature.getKey(), feature.getValue());
+            }
+            if (pool instanceof BasicParserPool basicPool) {
+                applySettings(basicPool);
+            }
+        } catch (final ParserConfigurationException | SAXException e) {
+            throw new IllegalStateException("Unable to configure secure SAX parser", e);
+        }
+    }
+
+    /**
+     * Apply the settings of a wrapped {@link BasicParserPool} to the stream parser.
+     *
+     * @param pool the wrapped pool
+     *
+     * @throws ParserConfigurationException if the stream parser cannot be configured
+     * @throws SAXException if the stream parser cannot be configured
+     */
+    private void applySettings(@Nonnull final BasicParserPool pool) throws ParserConfigurationException, SAXException {
+        Constraint.isTrue(pool.isNamespaceAware(), "Schema-validating parsing requires namespace awareness");
+        Constraint.isFalse(pool.isDTDValidating(), "Schema-validating parsing does not support DTD validation");
+        Constraint.isFalse(pool.isXincludeAware(), "Schema-validating parsing does not support XInclude");
+        Constraint.isTrue(pool.isIgnoreComments(), "Schema-validating parsing does not preserve comments");
+
+        for (final Map.Entry<String,Boolean> feature : pool.getBuilderFeatures().entrySet()) {
+            final Boolean secure = SECURE_FEATURES.get(feature.getKey());
+            if (secure != null) {
+                Constraint.isTrue(secure.equals(feature.getValue()),
+                        "Schema-validating parsing cannot relax feature " + feature.getKey());
+                continue;
+            }
+            try {
+                saxParserFactory.setFeature(feature.getKey(), Boolean.TRUE.equals(feature.getValue()));
+            } catch (final SAXNotRecognizedException | SAXNotSupportedException e) {
+                log.debug("Builder feature {} does not apply to schema-validating parsing", feature.getKey());
+            }
+        }
+
+        final SAXParser probe = saxParserFactory.newSAXParser();
+        for (final Map.Entry<String,Object> attribute : pool.getBuilderAttributes().entrySet()) {
+            try {
+                probe.setProperty(attribute.getKey(), attribute.getValue());
+                saxParserProperties.put(attribute.getKey(), attribute.getValue());
+            } catch (final SAXNotRecognizedException | SAXNotSupportedException e) {
+                log.debug("Builder attribute {} does not apply to schema-validating parsing", attribute.getKey());
+            }
+        }
+    }
+
+    /**
+     * Get the schema against which documents are validated.
+     *
+     * @return the schema
+     */
+    @Nonnull public Schema getSchema() {
+        return validatorPool.getSchema();
+    }
+
+    /**
+     * Check whether a node belongs to a document that was validated against a schema while being parsed.
+     *
+     * @param node the node to check
+     * @param schema the schema
+     *
+     * @return true iff the node's document was validated against the same schema instance
+     */
+    public static boolean isValidated(@Nullable final Node node, @Nonnull final Schema schema) {
+        if (node == null) {
+            return false;
+        }
+        final Document document = node instanceof Document ? (Document) node : node.getOwnerDocument();
+        return document != null && document.getUserData(VALIDATED_SCHEMA_KEY) == schema;
+    }
+
+    /** {@inheritDoc} */
+    @Nonnull public DocumentBuilder getBuilder() throws XMLParserException {
+        return parserPool.getBuilder();
+    }
+
+    /** {@inheritDoc} */
+    public void returnBuilder(@Nullable final DocumentBuilder builder) {
+        parserPool.returnBuilder(builder);
+    }
+
+    /** {@inheritDoc} */
+    @Nonnull public Document newDocument() throws XMLParserException {
+        return parserPool.newDocument();
+    }
+
+    /** {@inheritDoc} */
+    @Nonnull public Document parse(@Nonnull final InputStream input) throws XMLParserException {
+        return parse(new InputSource(input));
+    }
+
+    /** {@inheritDoc} */
+    @Nonnull public Document parse(@Nonnull final Reader input) throws XMLParserException {
+        return parse(new InputSource(input));
+    }
+
+    /**
+     * Parse and validate a document.
+     *
+     * @param input the input to parse
+     *
+     * @return the parsed document
+     *
+     * @throws XMLParserException if the input cannot be parsed or is not valid
+     */
+    @Nonnull private Document parse(@Nonnull final InputSource input) throws XMLParserException {
+        final Document document = parserPool.newDocument();
+        final ValidatorHandler validatorHandler = validatorPool.obtainValidatorHandler();
+        SAXParser saxParser = null;
+        try {
+            saxParser = obtainSAXParser();
+            validatorHandler.setContentHandler(
+                    new DOMBuildingHandler(document, validatorHandler.getTypeInfoProvider()));
+            final XMLReader reader = saxParser.getXMLReader();
+            reader.setContentHandler(validatorHandler);
+            reader.setErrorHandler(null);
+            reader.parse(input);
+            releaseSAXParser(saxParser);
+        } catch (final SAXException e) {
+            log.debug("Document failed to parse or was not schema valid: {}", e.getMessage());
+            throw new XMLParserException("Unable to parse and validate document", e);
+        } catch (final IOException | ParserConfigurationException e) {
+            throw new XMLParserException("Unable to parse document", e);
+        } finally {
+            validatorPool.releaseValidatorHandler(validatorHandler);
+        }
+
+        document.setUserData(VALIDATED_SCHEMA_KEY, validatorPool.getSchema(), null);
+        return document;
+    }
+
+    /**
+     * Get a stream parser.
+     *
+     * @return a stream parser
+     *
+     * @throws ParserConfigurationException if a parser cannot be created
+     * @throws SAXException if a parser cannot be created
+     */
+    @Nonnull private SAXParser obtainSAXParser() throws ParserConfigurationException, SAXException {
+        SAXParser parser = saxParsers.pollFirst();
+        if (parser != null) {
+            saxParserCount.decrementAndGet();
+        } else {
+            synchronized (saxParserFactory) {
+                parser = saxParserFactory.newSAXParser();
+            }
+        }
+        // Properties don't survive a reset, so are applied on every use.
+        for (final Map.Entry<String,Object> property : saxParserProperties.entrySet()) {
+            parser.setProperty(property.getKey(), property.getValue());
+        }
+        return parser;
+    }
+
+    /**
+     * Return a stream parser after successful use.
+     *
+     * @param parser the stream parser
+     */
+    private void releaseSAXParser(@Nonnull final SAXParser parser) {
+        parser.reset();
+        if (saxParserCount.incrementAndGet() <= SchemaValidatorPool.DEFAULT_MAX_POOL_SIZE) {
+            saxParsers.offerFirst(parser);
+        } else {
+            saxParserCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Builds a DOM from validated SAX events.
+     */
+    private static final class DOMBuildingHandler extends DefaultHandler {
+
+        /** Document being built. */
+        @Nonnull private final Document document;
+
+        /** Source of type information for the current element. */
+        @Nullable private final TypeInfoProvider typeInfoProvider;
+
+        /** Node to which content is currently being added. */
+        @Nonnull private Node current;
+
+        /** Namespace declarations for the next element, as prefix and URI pairs. */
+        @Nonnull private final List<String> namespaces;
+
+        /**
+         * Constructor.
+         *
+         * @param doc the empty document to build
+         * @param typeInfo source of type information for the current element
+         */
+        DOMBuildingHandler(@Nonnull final Document doc, @Nullable final TypeInfoProvider typeInfo) {
+            document = doc;
+            typeInfoProvider = typeInfo;
+            current = doc;
+            namespaces = new ArrayList<>();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) {
+            namespaces.add(prefix != null ? prefix : "");
+            namespaces.add(uri != null ? uri : "");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startElement(final String uri, final String localName, final String qName,
+                final Attributes attributes) {
+            final Element element = document.createElementNS(uri == null || uri.isEmpty() ? null : uri,
+                    qName == null || qName.isEmpty() ? localName : qName);
+
+            for (int i = 0; i < namespaces.size(); i += 2) {
+                final String prefix = namespaces.get(i);
+                element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                        prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ':' + prefix,
+                        namespaces.get(i + 1));
+            }
+            namespaces.clear();
+
+            final Attributes2 attributes2 = attributes instanceof Attributes2 ? (Attributes2) attributes : null;
+            for (int i = 0; i < attributes.getLength(); i++) {
+                if (attributes2 != null && !attributes2.isSpecified(i)) {
+                    // Don't augment the DOM with schema defaults.
+                    continue;
+                }
+                final String attrNamespace = attributes.getURI(i);
+                final String attrURI = attrNamespace == null || attrNamespace.isEmpty() ? null : attrNamespace;
+                final String attrQName = attributes.getQName(i);
+                element.setAttributeNS(attrURI,
+                        attrQName == null || attrQName.isEmpty() ? attributes.getLocalName(i) : attrQName,
+                        attributes.getValue(i));
+                if (typeInfoProvider != null && typeInfoProvider.isIdAttribute(i)) {
+                    // Allow same-document references to be resolved, as a schema-aware DocumentBuilder would.
+                    element.setIdAttributeNS(attrURI, attributes.getLocalName(i), true);
+                }
+            }
+
+            current.appendChild(element);
+            current = element;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) {
+            final Node parent = current.getParentNode();
+            if (parent != null) {
+                current = parent;
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            appendText(ch, start, length);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) {
+            // Whitespace is significant for signature verification.
+            appendText(ch, start, length);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void processingInstruction(final String target, final String data) {
+            current.appendChild(document.createProcessingInstruction(target, data));
+        }
+
+        /**
+         * Append character data to the current node, merging it with any adjacent text.
+         *
+         * @param ch characters
+         * @param start start offset
+         * @param length number of characters
+         */
+        private void appendText(@Nonnull final char[] ch, final int start, final int length) {
+            if (current == document) {
+                // Text outside the document element is not representable.
+                return;
+            }
+            final Node last = current.getLastChild();
+            if (last instanceof Text) {
+                ((Text) last).appendData(new String(ch, start, length));
+            } else {
+                current.appendChild(document.createTextNode(new String(ch, start, length)));
+            }
+        }
+    }
+
+}
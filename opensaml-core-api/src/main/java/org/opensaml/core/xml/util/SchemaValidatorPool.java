@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.xml.util;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.SAXException;
+
+import net.shibboleth.shared.annotation.constraint.Positive;
+import net.shibboleth.shared.logic.Constraint;
+
+/**
+ * A thread-safe pool of reusable {@link Validator} and {@link ValidatorHandler} instances for a single
+ * {@link Schema}.
+ *
+ * <p>
+ * Creating a validator from a compiled schema is relatively expensive compared to validating a small document.
+ * Instances obtained here should be returned via the corresponding <code>release</code> method once validation has
+ * completed, whether or not it succeeded; any handlers installed on an instance are removed when it is released.
+ * </p>
+ */
+public class SchemaValidatorPool {
+
+    /** Default maximum number of idle instances of each type to retain. */
+    public static final int DEFAULT_MAX_POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /** Schema for which instances are pooled. */
+    @Nonnull private final Schema schema;
+
+    /** Maximum number of idle instances of each type to retain. */
+    private final int maxPoolSize;
+
+    /** Idle validators. */
+    @Nonnull private final Deque<Validator> validators;
+
+    /** Number of idle validators. */
+    @Nonnull private final AtomicInteger validatorCount;
+
+    /** Idle validator handlers. */
+    @Nonnull private final Deque<ValidatorHandler> handlers;
+
+    /** Number of idle validator handlers. */
+    @Nonnull private final AtomicInteger handlerCount;
+
+    /**
+     * Constructor.
+     *
+     * @param validationSchema schema for which instances are pooled
+     */
+    public SchemaValidatorPool(@Nonnull final Schema validationSchema) {
+        this(validationSchema, DEFAULT_MAX_POOL_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param validationSchema schema for which instances are pooled
+     * @param max maximum number of idle instances of each type to retain
+     */
+    public SchemaValidatorPool(@Nonnull final Schema validationSchema, @Positive final int max) {
+        schema = Constraint.isNotNull(validationSchema, "Schema cannot be null");
+        maxPoolSize = Constraint.isGreaterThan(0, max, "Maximum pool size must be greater than 0");
+        validators = new ConcurrentLinkedDeque<>();
+        validatorCount = new AtomicInteger();
+        handlers = new ConcurrentLinkedDeque<>();
+        handlerCount = new AtomicInteger();
+    }
+
+    /**
+     * Get the schema for which instances are pooled.
+     *
+     * @return the schema
+     */
+    @Nonnull public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Get a {@link Validator} for the schema.
+     *
+     * @return a validator
+     */
+    @Nonnull public Validator obtainValidator() {
+        final Validator validator = validators.pollFirst();
+        if (validator != null) {
+            validatorCount.decrementAndGet();
+            return validator;
+        }
+        return schema.newValidator();
+    }
+
+    /**
+     * Return a {@link Validator} obtained from {@link #obtainValidator()}.
+     *
+     * @param validator the validator
+     */
+    public void releaseValidator(@Nonnull final Validator validator) {
+        validator.reset();
+        if (validatorCount.incrementAndGet() <= maxPoolSize) {
+            validators.offerFirst(validator);
+        } else {
+            validatorCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get a {@link ValidatorHandler} for the schema.
+     *
+     * @return a validator handler
+     */
+    @Nonnull public ValidatorHandler obtainValidatorHandler() {
+        final ValidatorHandler handler = handlers.pollFirst();
+        if (handler != null) {
+            handlerCount.decrementAndGet();
+            return handler;
+        }
+        return schema.newValidatorHandler();
+    }
+
+    /**
+     * Return a {@link ValidatorHandler} obtained from {@link #obtainValidatorHandler()}.
+     *
+     * @param handler the validator handler
+     */
+    public void releaseValidatorHandler(@Nonnull final ValidatorHandler handler) {
+        handler.setContentHandler(null);
+        handler.setErrorHandler(null);
+        handler.setResourceResolver(null);
+        if (handlerCount.incrementAndGet() <= maxPoolSize) {
+            handlers.offerFirst(handler);
+        } else {
+            handlerCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Validate a source against the schema using a pooled {@link Validator}.
+     *
+     * @param source the source to validate
+     *
+     * @throws SAXException if the source is not valid
+     * @throws IOException if the source cannot be read
+     */
+    public void validate(@Nonnull final Source source) throws SAXException, IOException {
+        final Validator validator = obtainValidator();
+        try {
+            validator.validate(source);
+        } finally {
+            releaseValidator(validator);
+        }
+    }
+
+}
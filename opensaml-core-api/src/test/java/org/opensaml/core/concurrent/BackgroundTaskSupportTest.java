@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link BackgroundTaskSupport}.
+ */
+@SuppressWarnings("javadoc")
+public class BackgroundTaskSupportTest {
+    
+    @Test
+    public void testDefaultExecutorIsShared() {
+        final ScheduledExecutorService executor = BackgroundTaskSupport.getDefaultExecutor();
+        Assert.assertNotNull(executor);
+        Assert.assertSame(BackgroundTaskSupport.getDefaultExecutor(), executor);
+    }
+    
+    @Test
+    public void testOneShot() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        BackgroundTaskSupport.schedule(BackgroundTaskSupport.getDefaultExecutor(), latch::countDown, Duration.ZERO);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testPeriodicTaskSurvivesFailure() throws InterruptedException {
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(3);
+        final ScheduledFuture<?> future = BackgroundTaskSupport.scheduleWithFixedDelay(
+                BackgroundTaskSupport.getDefaultExecutor(), () -> {
+                    latch.countDown();
+                    if (count.incrementAndGet() == 1) {
+                        throw new RuntimeException("Simulated task failure");
+                    }
+                }, Duration.ZERO, Duration.ofMillis(10));
+        try {
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertFalse(future.isDone());
+        } finally {
+            future.cancel(false);
+        }
+    }
+
+}
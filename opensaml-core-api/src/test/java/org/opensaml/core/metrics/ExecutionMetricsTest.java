@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+
+/** Unit test for {@link ExecutionMetrics}. */
+public class ExecutionMetricsTest {
+
+    @Test
+    public void testEnabled() {
+        final MetricRegistry registry = new MetricRegistry();
+        final ExecutionMetrics metrics = new ExecutionMetrics("test", () -> registry, Duration.ofMinutes(1));
+
+        final ExecutionMetrics.Sample sample = metrics.start();
+        Assert.assertNotNull(sample);
+        metrics.stop(sample);
+        metrics.stop(metrics.start());
+
+        Assert.assertEquals(registry.timer("test").getCount(), 2);
+        final Histogram histogram = registry.getHistograms().get("test." + ExecutionMetrics.ALLOCATED_BYTES_SUFFIX);
+        if (histogram != null) {
+            Assert.assertEquals(histogram.getCount(), 2);
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        final MetricRegistry registry = new MetricRegistry() {
+            @Override public Timer timer(final String name) {
+                return new Timer();
+            }
+            @Override public Histogram histogram(final String name) {
+                return new Histogram(new UniformReservoir());
+            }
+        };
+        final ExecutionMetrics metrics = new ExecutionMetrics("test", () -> registry, Duration.ofMinutes(1));
+
+        Assert.assertNull(metrics.start());
+        metrics.stop(null);
+        Assert.assertTrue(registry.getMetrics().isEmpty());
+
+        Assert.assertNull(new ExecutionMetrics("test", () -> null, Duration.ofMinutes(1)).start());
+    }
+
+    @Test
+    public void testRefresh() {
+        final AtomicReference<MetricRegistry> registry = new AtomicReference<>(new MetricRegistry());
+        final ExecutionMetrics metrics = new ExecutionMetrics("test", registry::get, Duration.ZERO);
+
+        metrics.stop(metrics.start());
+        final MetricRegistry first = registry.get();
+        registry.set(new MetricRegistry());
+        metrics.stop(metrics.start());
+
+        Assert.assertEquals(first.timer("test").getCount(), 1);
+        Assert.assertEquals(registry.get().timer("test").getCount(), 1);
+    }
+
+    @Test
+    public void testShared() {
+        Assert.assertSame(ExecutionMetrics.forName("test"), ExecutionMetrics.forName("test"));
+        Assert.assertEquals(ExecutionMetrics.forName("test").getName(), "test");
+    }
+
+}
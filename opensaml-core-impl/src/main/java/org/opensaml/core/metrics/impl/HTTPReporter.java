@@ -14,13 +14,27 @@
 
 package org.opensaml.core.metrics.impl;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -31,19 +45,25 @@ import org.apache.hc.client5.http.entity.EntityBuilder;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpRequest;
-import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.opensaml.security.httpclient.HttpClientSecurityParameters;
 import org.opensaml.security.httpclient.HttpClientSecuritySupport;
 import org.slf4j.Logger;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Counting;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metered;
+import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Sampling;
 import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.json.MetricsModule;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -52,23 +72,62 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import net.shibboleth.shared.annotation.ParameterName;
+import net.shibboleth.shared.annotation.constraint.NonNegative;
 import net.shibboleth.shared.annotation.constraint.NonnullAfterInit;
 import net.shibboleth.shared.annotation.constraint.NotEmpty;
 import net.shibboleth.shared.component.ComponentInitializationException;
 import net.shibboleth.shared.component.InitializableComponent;
-import net.shibboleth.shared.component.UninitializedComponentException;
+import net.shibboleth.shared.component.UnmodifiableComponentException;
 import net.shibboleth.shared.logic.Constraint;
 import net.shibboleth.shared.primitive.LoggerFactory;
 import net.shibboleth.shared.primitive.StringSupport;
 
 /**
- * A metrics reporter that runs at scheduled times and posts a JSON feed of metrics to a designated endpoint.
+ * A metrics reporter that runs at scheduled times and posts a feed of metrics to a designated endpoint.
+ *
+ * <p>
+ * By default each report is a JSON document of every metric, posted synchronously on the reporting thread. The
+ * feed may instead be restricted to those metrics which have changed since the previous report, written in the
+ * OpenMetrics text format, and/or gzip-compressed, and may be posted by a background thread so that reporting
+ * never blocks on the collector.
+ * </p>
+ *
+ * <p>
+ * By default a report which cannot be delivered is discarded. Optionally, reports which fail to be delivered due to
+ * an I/O error or a server error may be retained in a bounded buffer and retried, oldest first, on subsequent
+ * reports. If the buffer is full, the oldest report is discarded.
+ * </p>
  */
 public class HTTPReporter extends ScheduledReporter implements InitializableComponent {
 
+    /** Supported output formats. */
+    public enum Format {
+        /** JSON, as produced by the metrics JSON module. */
+        JSON,
+        /** OpenMetrics text exposition format. */
+        OPENMETRICS,
+    }
+
     /** Default date/time format string. */
     @Nonnull @NotEmpty public static final String DEFAULT_DT_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZZ";
 
+    /** Default number of undelivered reports to retain. */
+    public static final int DEFAULT_RETRY_BUFFER_SIZE = 0;
+
+    /** Default number of times to retry an undelivered report. */
+    public static final int DEFAULT_MAX_RETRIES = 0;
+
+    /** Time to wait on stop for reports queued for background delivery, in seconds. */
+    private static final long STOP_TIMEOUT = 1;
+
+    /** Content type of the OpenMetrics format. */
+    @Nonnull private static final ContentType OPENMETRICS_CONTENT_TYPE =
+            ContentType.create("application/openmetrics-text", StandardCharsets.UTF_8).withParameters(
+                    new BasicNameValuePair("version", "1.0.0"));
+
+    /** Quantiles to report for sampling metrics in the OpenMetrics format. */
+    @Nonnull private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.98, 0.99, 0.999};
+
     /** Class logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(HTTPReporter.class);
 
@@ -99,6 +158,36 @@ public class HTTPReporter extends ScheduledReporter implements InitializableComp
     /** Formatting string for {@link DateFormat} fields. */
     @Nullable private String dateTimeFormat;
 
+    /** Output format. */
+    @Nonnull private Format reportFormat;
+
+    /** Whether to report only those metrics which have changed. */
+    private boolean deltaReporting;
+
+    /** Whether to compress the output. */
+    private boolean compression;
+
+    /** Whether to post reports on a background thread. */
+    private boolean asynchronous;
+
+    /** Maximum number of undelivered reports to retain. */
+    @NonNegative private int retryBufferSize;
+
+    /** Maximum number of times to retry an undelivered report. */
+    @NonNegative private int maxRetries;
+
+    /** State of each metric as of the previous report, for delta reporting. */
+    @Nonnull private Map<String,Object> reportedState;
+
+    /** Reports awaiting delivery. */
+    @Nonnull private final Deque<Payload> pending;
+
+    /** Lock serializing delivery of pending reports. */
+    @Nonnull private final Object deliveryLock = new Object();
+
+    /** Executor used to post reports in the background. */
+    @Nullable private ExecutorService sender;
+
     /** Whether this component has been initialized. */
     private boolean isInitialized;
 
@@ -117,6 +206,11 @@ public class HTTPReporter extends ScheduledReporter implements InitializableComp
         metricFilter = filter != null ? filter : MetricFilter.ALL;
         rateUnit = TimeUnit.SECONDS;
         durationUnit = TimeUnit.SECONDS;
+        reportFormat = Format.JSON;
+        retryBufferSize = DEFAULT_RETRY_BUFFER_SIZE;
+        maxRetries = DEFAULT_MAX_RETRIES;
+        reportedState = new HashMap<>();
+        pending = new ArrayDeque<>();
     }
 
     /**
@@ -138,6 +232,11 @@ public class HTTPReporter extends ScheduledReporter implements InitializableComp
         metricFilter = filter != null ? filter : MetricFilter.ALL;
         rateUnit = rUnit;
         durationUnit = dUnit;
+        reportFormat = Format.JSON;
+        retryBufferSize = DEFAULT_RETRY_BUFFER_SIZE;
+        maxRetries = DEFAULT_MAX_RETRIES;
+        reportedState = new HashMap<>();
+        pending = new ArrayDeque<>();
     }
 
 // Checkstyle: ParameterNumber OFF
@@ -162,6 +261,11 @@ public class HTTPReporter extends ScheduledReporter implements InitializableComp
         metricFilter = filter != null ? filter : MetricFilter.ALL;
         rateUnit = rUnit;
         durationUnit = dUnit;
+        reportFormat = Format.JSON;
+        retryBufferSize = DEFAULT_RETRY_BUFFER_SIZE;
+        maxRetries = DEFAULT_MAX_RETRIES;
+        reportedState = new HashMap<>();
+        pending = new ArrayDeque<>();
     }
 // Checkstyle: ParameterNumber ON
 
@@ -205,13 +309,92 @@ public class HTTPReporter extends ScheduledReporter implements InitializableComp
         dateTimeFormat = StringSupport.trimOrNull(format);
     }
     
+    /**
+     * Set the output format.
+     * 
+     * <p>Defaults to {@link Format#JSON}.</p>
+     * 
+     * @param outputFormat output format
+     */
+    public void setFormat(@Nonnull final Format outputFormat) {
+        doSetterPreconditions();
+        reportFormat = Constraint.isNotNull(outputFormat, "Format cannot be null");
+    }
+
+    /**
+     * Set whether to report only those metrics which have changed since the previous report.
+     * 
+     * <p>
+     * A counting metric has changed if its count has changed, and a gauge if its value has changed. Metrics are
+     * considered reported once a report has been produced, whether or not it is eventually delivered.
+     * </p>
+     * 
+     * <p>Defaults to false.</p>
+     * 
+     * @param flag flag to set
+     */
+    public void setDeltaReporting(final boolean flag) {
+        doSetterPreconditions();
+        deltaReporting = flag;
+    }
+
+    /**
+     * Set whether to gzip-compress the output.
+     * 
+     * <p>Defaults to false.</p>
+     * 
+     * @param flag flag to set
+     */
+    public void setCompression(final boolean flag) {
+        doSetterPreconditions();
+        compression = flag;
+    }
+
+    /**
+     * Set whether to post reports on a background thread rather than the reporting thread.
+     * 
+     * <p>Defaults to false.</p>
+     * 
+     * @param flag flag to set
+     */
+    public void setAsynchronous(final boolean flag) {
+        doSetterPreconditions();
+        asynchronous = flag;
+    }
+
+    /**
+     * Set the maximum number of undelivered reports to retain for retry, in addition to the current report.
+     * 
+     * <p>Defaults to {@link #DEFAULT_RETRY_BUFFER_SIZE}, in which case a new report replaces any report which has
+     * not yet been delivered.</p>
+     * 
+     * @param size buffer size
+     */
+    public void setRetryBufferSize(@NonNegative final int size) {
+        doSetterPreconditions();
+        retryBufferSize = Constraint.isGreaterThanOrEqual(0, size, "Retry buffer size cannot be negative");
+    }
+
+    /**
+     * Set the maximum number of times to retry an undelivered report.
+     * 
+     * <p>Retries take place on subsequent reports, so require a non-zero retry buffer size.</p>
+     * 
+     * <p>Defaults to {@link #DEFAULT_MAX_RETRIES}.</p>
+     * 
+     * @param retries maximum retries
+     */
+    public void setMaxRetries(@NonNegative final int retries) {
+        doSetterPreconditions();
+        maxRetries = Constraint.isGreaterThanOrEqual(0, retries, "Maximum retries cannot be negative");
+    }
+
     /**
      * Helper for a setter method to check the standard preconditions.
      */
     private final void doSetterPreconditions() {
-        if (!isInitialized()) {
-            throw new UninitializedComponentException(
-                    "HTTPReported has not yet been initialized and cannot be used.");
+        if (isInitialized()) {
+            throw new UnmodifiableComponentException("HTTPReporter has already been initialized");
         }
     }
     
@@ -232,15 +415,48 @@ public class HTTPReporter extends ScheduledReporter implements InitializableComp
             jsonMapper.registerModule(new JavaTimeModule());
             jsonMapper.setDateFormat(new SimpleDateFormat(dateTimeFormat != null ? dateTimeFormat : DEFAULT_DT_FORMAT));
             jsonMapper.configure(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS, false);
-            
+
+            if (asynchronous) {
+                sender = Executors.newSingleThreadExecutor(r -> {
+                    final Thread thread = new Thread(r, "HTTPReporter-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+
             isInitialized = true;
         }
     }
     
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * Reports already queued for background delivery are given a short time to be posted. Any reports which are
+     * still undelivered after that, including those awaiting retry, are discarded.
+     * </p>
+     */
     @Override
     public void stop() {
         super.stop();
+        final ExecutorService executor = sender;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (final InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (pending) {
+            if (!pending.isEmpty()) {
+                log.warn("Reporter stopped, discarding {} undelivered report(s)", pending.size());
+                pending.clear();
+            }
+        }
         httpClient = null;
         httpClientSecurityParameters = null;
     }
@@ -249,34 +465,349 @@ public class HTTPReporter extends ScheduledReporter implements InitializableComp
     @Override
     public void report() {
         synchronized (this) {
+            final Payload payload;
             try {
-                final HttpPost httpRequest = new HttpPost(collectorURL);
-                final HttpClientContext httpContext = buildHttpContext(httpRequest);
+                payload = buildPayload();
+            } catch (final IOException e) {
+                log.error("Error serializing metric registry", e);
+                return;
+            }
+            if (payload == null) {
+                log.debug("No metrics have changed since the previous report");
+                return;
+            }
 
-                final ByteArrayOutputStream output = new ByteArrayOutputStream(4096);
+            synchronized (pending) {
+                while (pending.size() > retryBufferSize) {
+                    pending.pollFirst();
+                    log.warn("Retry buffer is full, discarding oldest undelivered report");
+                }
+                pending.addLast(payload);
+            }
+        }
+
+        final ExecutorService executor = sender;
+        if (executor != null) {
+            try {
+                executor.execute(this::deliverPending);
+            } catch (final RejectedExecutionException e) {
+                log.debug("Reporter is stopping, report not sent");
+            }
+        } else {
+            deliverPending();
+        }
+    }
+
+    /**
+     * Produce a report.
+     * 
+     * @return the report, or null if delta reporting is enabled and nothing has changed
+     * 
+     * @throws IOException if the report cannot be serialized
+     */
+    @Nullable Payload buildPayload() throws IOException {
+        final MetricRegistry source = deltaReporting ? getChangedMetrics() : metricRegistry;
+        if (source.getMetrics().isEmpty() && deltaReporting) {
+            return null;
+        }
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(4096);
+        try (final OutputStream stream = compression ? new GZIPOutputStream(output) : output) {
+            if (reportFormat == Format.OPENMETRICS) {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+                writeOpenMetrics(source, writer);
+                writer.flush();
+            } else {
                 final ObjectWriter writer = jsonMapper.writer();
-                writer.writeValue(output, metricRegistry);
-
-                // Construct streamed request body.
-                final EntityBuilder entityBuilder = EntityBuilder.create();
-                entityBuilder.setContentType(ContentType.APPLICATION_JSON);
-                entityBuilder.setBinary(output.toByteArray());
-                httpRequest.setEntity(entityBuilder.build());
-
-                try (final ClassicHttpResponse response = httpClient.executeOpen(null, httpRequest, httpContext)) {
-                    HttpClientSecuritySupport.checkTLSCredentialEvaluated(httpContext, httpRequest.getScheme());
-                    if (response.getCode() == HttpStatus.SC_OK) {
-                        log.debug("Metrics delivered successfully to collector");
-                    } else {
-                        log.error("Collector responded with HTTP status {}", response.getCode());
+                writer.writeValue(stream, source);
+            }
+        }
+
+        final ContentType contentType =
+                reportFormat == Format.OPENMETRICS ? OPENMETRICS_CONTENT_TYPE : ContentType.APPLICATION_JSON;
+        return new Payload(output.toByteArray(), contentType, compression);
+    }
+
+    /**
+     * Build a registry of the metrics which have changed since the previous report, and record their state.
+     * 
+     * <p>
+     * Gauges are evaluated only once, and are represented in the result by a gauge returning that value.
+     * </p>
+     * 
+     * @return the changed metrics
+     */
+    @Nonnull private MetricRegistry getChangedMetrics() {
+        final MetricRegistry changed = new MetricRegistry();
+        final Map<String,Object> state = new HashMap<>();
+        for (final Map.Entry<String,Metric> entry : metricRegistry.getMetrics().entrySet()) {
+            final String name = entry.getKey();
+            final Metric metric = entry.getValue();
+            if (!metricFilter.matches(name, metric)) {
+                continue;
+            }
+
+            final Object current;
+            if (metric instanceof Gauge<?> gauge) {
+                final Object value = gauge.getValue();
+                current = value;
+                if (!Objects.equals(current, reportedState.get(name))) {
+                    changed.register(name, (Gauge<Object>) () -> value);
+                }
+            } else if (metric instanceof Counting counting) {
+                current = counting.getCount();
+                if (!Objects.equals(current, reportedState.get(name))) {
+                    changed.register(name, metric);
+                }
+            } else {
+                current = null;
+                changed.register(name, metric);
+            }
+            if (current != null) {
+                state.put(name, current);
+            }
+        }
+        reportedState = state;
+        return changed;
+    }
+
+    /**
+     * Write metrics in the OpenMetrics text format.
+     * 
+     * @param source the metrics to write
+     * @param writer the output
+     * 
+     * @throws IOException if the output cannot be written
+     */
+    private void writeOpenMetrics(@Nonnull final MetricRegistry source, @Nonnull final Writer writer)
+            throws IOException {
+        final double durationFactor = 1.0 / durationUnit.toNanos(1);
+        final double rateFactor = rateUnit.toSeconds(1);
+
+        for (@SuppressWarnings("rawtypes") final Map.Entry<String,Gauge> entry
+                : source.getGauges(metricFilter).entrySet()) {
+            final Object value = entry.getValue().getValue();
+            final double number;
+            if (value instanceof Number n) {
+                number = n.doubleValue();
+            } else if (value instanceof Boolean b) {
+                number = b ? 1 : 0;
+            } else {
+                continue;
+            }
+            final String name = sanitize(entry.getKey());
+            writeType(writer, name, "gauge");
+            writeSample(writer, name, null, number);
+        }
+
+        for (final Map.Entry<String,Counter> entry : source.getCounters(metricFilter).entrySet()) {
+            final String name = sanitize(entry.getKey());
+            writeType(writer, name, "counter");
+            writeSample(writer, name + "_total", null, entry.getValue().getCount());
+        }
+
+        for (final Map.Entry<String,Meter> entry : source.getMeters(metricFilter).entrySet()) {
+            writeMetered(writer, sanitize(entry.getKey()), entry.getValue(), rateFactor);
+        }
+
+        for (final Map.Entry<String,Histogram> entry : source.getHistograms(metricFilter).entrySet()) {
+            writeSampling(writer, sanitize(entry.getKey()), entry.getValue(), entry.getValue().getCount(), 1.0);
+        }
+
+        for (final Map.Entry<String,Timer> entry : source.getTimers(metricFilter).entrySet()) {
+            final String name = sanitize(entry.getKey());
+            writeSampling(writer, name, entry.getValue(), entry.getValue().getCount(), durationFactor);
+            writeMetered(writer, name + "_calls", entry.getValue(), rateFactor);
+        }
+
+        writer.write("# EOF\n");
+    }
+
+    /**
+     * Write a metered metric as a counter and a gauge of its one-minute rate.
+     * 
+     * @param writer the output
+     * @param name sanitized metric name
+     * @param metered the metric
+     * @param rateFactor factor to convert a per-second rate to the rate unit
+     * 
+     * @throws IOException if the output cannot be written
+     */
+    private void writeMetered(@Nonnull final Writer writer, @Nonnull final String name,
+            @Nonnull final Metered metered, final double rateFactor) throws IOException {
+        writeType(writer, name, "counter");
+        writeSample(writer, name + "_total", null, metered.getCount());
+        writeType(writer, name + "_m1_rate", "gauge");
+        writeSample(writer, name + "_m1_rate", null, metered.getOneMinuteRate() * rateFactor);
+    }
+
+    /**
+     * Write a sampling metric as a summary.
+     * 
+     * @param writer the output
+     * @param name sanitized metric name
+     * @param sampling the metric
+     * @param count the number of samples
+     * @param factor factor to apply to sampled values
+     * 
+     * @throws IOException if the output cannot be written
+     */
+    private void writeSampling(@Nonnull final Writer writer, @Nonnull final String name,
+            @Nonnull final Sampling sampling, final long count, final double factor) throws IOException {
+        final Snapshot snapshot = sampling.getSnapshot();
+        writeType(writer, name, "summary");
+        for (final double quantile : QUANTILES) {
+            writeSample(writer, name, "quantile=\"" + quantile + "\"", snapshot.getValue(quantile) * factor);
+        }
+        writeSample(writer, name + "_count", null, count);
+    }
+
+    /**
+     * Write a metric family type line.
+     * 
+     * @param writer the output
+     * @param name sanitized metric name
+     * @param type metric type
+     * 
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeType(@Nonnull final Writer writer, @Nonnull final String name,
+            @Nonnull final String type) throws IOException {
+        writer.write("# TYPE ");
+        writer.write(name);
+        writer.write(' ');
+        writer.write(type);
+        writer.write('\n');
+    }
+
+    /**
+     * Write a sample line.
+     * 
+     * @param writer the output
+     * @param name sanitized sample name
+     * @param labels label set, without braces, or null
+     * @param value sample value
+     * 
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeSample(@Nonnull final Writer writer, @Nonnull final String name,
+            @Nullable final String labels, final double value) throws IOException {
+        writer.write(name);
+        if (labels != null) {
+            writer.write('{');
+            writer.write(labels);
+            writer.write('}');
+        }
+        writer.write(' ');
+        if (value == (long) value) {
+            writer.write(Long.toString((long) value));
+        } else {
+            writer.write(Double.toString(value));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Convert a metric name into a valid OpenMetrics name.
+     * 
+     * @param name metric name
+     * 
+     * @return sanitized name
+     */
+    @Nonnull static String sanitize(@Nonnull final String name) {
+        final StringBuilder builder = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            builder.append('_');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+                    || c == ':') {
+                builder.append(c);
+            } else {
+                builder.append('_');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Post pending reports, oldest first, until one fails or none remain.
+     */
+    private void deliverPending() {
+        synchronized (deliveryLock) {
+            Payload payload;
+            while ((payload = peekPending()) != null) {
+                if (!post(payload)) {
+                    if (payload.attempts++ < maxRetries) {
+                        return;
+                    }
+                    if (maxRetries > 0) {
+                        log.warn("Discarding report after {} failed delivery attempts", payload.attempts);
+                    }
+                }
+                synchronized (pending) {
+                    // The report may already have been evicted from a full buffer.
+                    if (pending.peekFirst() == payload) {
+                        pending.pollFirst();
                     }
                 }
-            } catch (final IOException e) {
-                log.error("Error sending metric registry to collection point {}", collectorURL, e);
             }
         }
     }
-    
+
+    /**
+     * Get the oldest pending report.
+     * 
+     * @return the oldest pending report, or null
+     */
+    @Nullable private Payload peekPending() {
+        synchronized (pending) {
+            return pending.peekFirst();
+        }
+    }
+
+    /**
+     * Post a report to the collector.
+     * 
+     * @param payload the report
+     * 
+     * @return true if the report was delivered or rejected by the collector, false if it should be retried
+     */
+    private boolean post(@Nonnull final Payload payload) {
+        final HttpClient client = httpClient;
+        if (client == null) {
+            return true;
+        }
+
+        try {
+            final HttpPost httpRequest = new HttpPost(collectorURL);
+            final HttpClientContext httpContext = buildHttpContext(httpRequest);
+
+            final EntityBuilder entityBuilder = EntityBuilder.create();
+            entityBuilder.setContentType(payload.contentType);
+            entityBuilder.setBinary(payload.body);
+            httpRequest.setEntity(entityBuilder.build());
+            if (payload.compressed) {
+                httpRequest.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+
+            try (final ClassicHttpResponse response = client.executeOpen(null, httpRequest, httpContext)) {
+                HttpClientSecuritySupport.checkTLSCredentialEvaluated(httpContext, httpRequest.getScheme());
+                final int status = response.getCode();
+                if (status >= 200 && status < 300) {
+                    log.debug("Metrics delivered successfully to collector");
+                    return true;
+                }
+                log.error("Collector responded with HTTP status {}", status);
+                return status < 500;
+            }
+        } catch (final IOException e) {
+            log.error("Error sending metric registry to collection point {}", collectorURL, e);
+            return false;
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void report(@SuppressWarnings("rawtypes") final SortedMap<String, Gauge> gauges,
@@ -299,4 +830,51 @@ public class HTTPReporter extends ScheduledReporter implements InitializableComp
         return clientContext;
     }
 
-}
\ No newline at end of file
+    /** A serialized report. */
+    static final class Payload {
+
+        /** Report body. */
+        @Nonnull private final byte[] body;
+
+        /** Content type. */
+        @Nonnull private final ContentType contentType;
+
+        /** Whether the body is gzip-compressed. */
+        private final boolean compressed;
+
+        /** Number of failed delivery attempts. */
+        private int attempts;
+
+        /**
+         * Constructor.
+         * 
+         * @param data report body
+         * @param type content type
+         * @param gzip whether the body is gzip-compressed
+         */
+        Payload(@Nonnull final byte[] data, @Nonnull final ContentType type, final boolean gzip) {
+            body = data;
+            contentType = type;
+            compressed = gzip;
+        }
+
+        /**
+         * Get the report body.
+         * 
+         * @return report body
+         */
+        @Nonnull byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * Get the content type.
+         * 
+         * @return content type
+         */
+        @Nonnull ContentType getContentType() {
+            return contentType;
+        }
+    }
+
+}
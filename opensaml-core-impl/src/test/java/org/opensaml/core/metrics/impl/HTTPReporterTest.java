@@ -0,0 +1,410 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.core.metrics.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+import net.shibboleth.shared.component.UnmodifiableComponentException;
+
+/** Unit test for {@link HTTPReporter}. */
+public class HTTPReporterTest {
+
+    @Test
+    public void testOpenMetrics() throws ComponentInitializationException, IOException {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("org.example.requests").inc(3);
+        registry.register("1st.gauge", (Gauge<Boolean>) () -> true);
+        registry.timer("org.example.latency");
+
+        final HTTPReporter reporter = newReporter(registry);
+        reporter.setFormat(HTTPReporter.Format.OPENMETRICS);
+        reporter.initialize();
+
+        final HTTPReporter.Payload payload = reporter.buildPayload();
+        Assert.assertNotNull(payload);
+        Assert.assertEquals(payload.getContentType().getMimeType(), "application/openmetrics-text");
+        final String body = new String(payload.getBody(), StandardCharsets.UTF_8);
+        Assert.assertTrue(body.contains("# TYPE org_example_requests counter\norg_example_requests_total 3\n"));
+        Assert.assertTrue(body.contains("_1st_gauge 1\n"));
+        Assert.assertTrue(body.contains("# TYPE org_example_latency summary\n"));
+        Assert.assertTrue(body.contains("org_example_latency_count 0\n"));
+        Assert.assertTrue(body.endsWith("# EOF\n"));
+
+        Assert.assertThrows(UnmodifiableComponentException.class, () -> reporter.setCompression(true));
+    }
+
+    @Test
+    public void testDelta() throws ComponentInitializationException, IOException {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("a").inc();
+        registry.counter("b").inc();
+
+        final HTTPReporter reporter = newReporter(registry);
+        reporter.setFormat(HTTPReporter.Format.OPENMETRICS);
+        reporter.setDeltaReporting(true);
+        reporter.initialize();
+
+        HTTPReporter.Payload payload = reporter.buildPayload();
+        Assert.assertNotNull(payload);
+        String body = new String(payload.getBody(), StandardCharsets.UTF_8);
+        Assert.assertTrue(body.contains("a_total 1\n"));
+        Assert.assertTrue(body.contains("b_total 1\n"));
+
+        Assert.assertNull(reporter.buildPayload());
+
+        registry.counter("b").inc();
+        payload = reporter.buildPayload();
+        Assert.assertNotNull(payload);
+        body = new String(payload.getBody(), StandardCharsets.UTF_8);
+        Assert.assertFalse(body.contains("a_total"));
+        Assert.assertTrue(body.contains("b_total 2\n"));
+    }
+
+    @Test
+    public void testCompressedJSON() throws ComponentInitializationException, IOException {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("a").inc();
+
+        final HTTPReporter reporter = newReporter(registry);
+        reporter.setCompression(true);
+        reporter.initialize();
+
+        final HTTPReporter.Payload payload = reporter.buildPayload();
+        Assert.assertNotNull(payload);
+        Assert.assertEquals(payload.getContentType().getMimeType(), "application/json");
+        try (final GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(payload.getBody()))) {
+            final String body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            Assert.assertTrue(body.contains("\"counters\""));
+        }
+    }
+
+    @Test
+    public void testCompressedPost() throws ComponentInitializationException, IOException, InterruptedException {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("a").inc();
+
+        try (final Collector collector = new Collector()) {
+            final HTTPReporter reporter = newReporter(registry, collector);
+            reporter.setCompression(true);
+            reporter.initialize();
+            reporter.report();
+
+            final Request request = collector.take();
+            Assert.assertEquals(request.encoding(), "gzip");
+            try (final GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(request.body()))) {
+                Assert.assertTrue(new String(input.readAllBytes(), StandardCharsets.UTF_8).contains("\"counters\""));
+            }
+            reporter.stop();
+        }
+    }
+
+    @Test
+    public void testNoRetryByDefault() throws ComponentInitializationException, IOException, InterruptedException {
+        final MetricRegistry registry = new MetricRegistry();
+        final Counter counter = registry.counter("n");
+
+        try (final Collector collector = new Collector()) {
+            final HTTPReporter reporter = newReporter(registry, collector);
+            reporter.setFormat(HTTPReporter.Format.OPENMETRICS);
+            reporter.initialize();
+
+            collector.status = 503;
+            counter.inc();
+            reporter.report();
+            Assert.assertEquals(collector.take().count(), 1);
+
+            collector.status = 200;
+            counter.inc();
+            reporter.report();
+            Assert.assertEquals(collector.take().count(), 2);
+            Assert.assertNull(collector.poll());
+            reporter.stop();
+        }
+    }
+
+    @Test
+    public void testRetryAndEviction() throws ComponentInitializationException, IOException, InterruptedException {
+        final MetricRegistry registry = new MetricRegistry();
+        final Counter counter = registry.counter("n");
+
+        try (final Collector collector = new Collector()) {
+            final HTTPReporter reporter = newReporter(registry, collector);
+            reporter.setFormat(HTTPReporter.Format.OPENMETRICS);
+            reporter.setRetryBufferSize(1);
+            reporter.setMaxRetries(5);
+            reporter.initialize();
+
+            // Each failed delivery leaves the report at the head of the buffer.
+            collector.status = 503;
+            for (int i = 1; i <= 3; i++) {
+                counter.inc();
+                reporter.report();
+            }
+            Assert.assertEquals(collector.take().count(), 1);
+            Assert.assertEquals(collector.take().count(), 1);
+            Assert.assertEquals(collector.take().count(), 2);
+
+            // The fourth report evicts the second, leaving the third to be retried first.
+            collector.status = 200;
+            counter.inc();
+            reporter.report();
+            Assert.assertEquals(collector.take().count(), 3);
+            Assert.assertEquals(collector.take().count(), 4);
+            Assert.assertNull(collector.poll());
+            reporter.stop();
+        }
+    }
+
+    @Test
+    public void testAsynchronous() throws ComponentInitializationException, IOException, InterruptedException {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("n").inc();
+
+        try (final Collector collector = new Collector()) {
+            collector.gate = new CountDownLatch(1);
+            final HTTPReporter reporter = newReporter(registry, collector);
+            reporter.setFormat(HTTPReporter.Format.OPENMETRICS);
+            reporter.setAsynchronous(true);
+            reporter.initialize();
+
+            // The collector holds its response, which would block a synchronous report.
+            reporter.report();
+            Assert.assertEquals(collector.take().count(), 1);
+            Assert.assertEquals(collector.responses.get(), 0);
+            collector.gate.countDown();
+            reporter.stop();
+            Assert.assertEquals(collector.responses.get(), 1);
+        }
+    }
+
+    @Test
+    public void testStopFlushesQueue() throws ComponentInitializationException, IOException, InterruptedException {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.counter("n").inc();
+
+        try (final Collector collector = new Collector()) {
+            final HTTPReporter reporter = newReporter(registry, collector);
+            reporter.setFormat(HTTPReporter.Format.OPENMETRICS);
+            reporter.setAsynchronous(true);
+            reporter.initialize();
+
+            reporter.report();
+            reporter.stop();
+            Assert.assertEquals(collector.take().count(), 1);
+        }
+    }
+
+    @Test
+    public void testStopDropsUndelivered() throws ComponentInitializationException, IOException,
+            InterruptedException {
+        final MetricRegistry registry = new MetricRegistry();
+        final Counter counter = registry.counter("n");
+
+        try (final Collector collector = new Collector()) {
+            collector.gate = new CountDownLatch(1);
+            final HTTPReporter reporter = newReporter(registry, collector);
+            reporter.setFormat(HTTPReporter.Format.OPENMETRICS);
+            reporter.setAsynchronous(true);
+            reporter.setRetryBufferSize(1);
+            reporter.initialize();
+
+            // The first report is held by the collector beyond the stop timeout, so the second is never sent.
+            counter.inc();
+            reporter.report();
+            counter.inc();
+            reporter.report();
+            reporter.stop();
+            collector.gate.countDown();
+            Assert.assertEquals(collector.take().count(), 1);
+            Assert.assertNull(collector.poll());
+        }
+    }
+
+    @Test
+    public void testSanitize() {
+        Assert.assertEquals(HTTPReporter.sanitize("org.example-metric:total"), "org_example_metric:total");
+        Assert.assertEquals(HTTPReporter.sanitize("9lives"), "_9lives");
+    }
+
+    /**
+     * Create a reporter that posts to an unused local endpoint.
+     *
+     * @param registry registry to report
+     *
+     * @return the reporter
+     */
+    @Nonnull private HTTPReporter newReporter(@Nonnull final MetricRegistry registry) {
+        final HTTPReporter reporter = new HTTPReporter(registry, "test", null);
+        reporter.setHttpClient(HttpClientBuilder.create().build());
+        reporter.setCollectorURL("http://localhost/metrics");
+        return reporter;
+    }
+
+    /**
+     * Create a reporter that posts to a local collector.
+     *
+     * @param registry registry to report
+     * @param collector collector to post to
+     *
+     * @return the reporter
+     */
+    @Nonnull private HTTPReporter newReporter(@Nonnull final MetricRegistry registry,
+            @Nonnull final Collector collector) {
+        final HTTPReporter reporter = newReporter(registry);
+        reporter.setCollectorURL(collector.getURL());
+        return reporter;
+    }
+
+    /**
+     * A request received by the collector.
+     *
+     * @param encoding content encoding
+     * @param body request body
+     */
+    private record Request(@Nullable String encoding, @Nonnull byte[] body) {
+
+        /**
+         * Get the value of the "n" counter from an uncompressed OpenMetrics body.
+         *
+         * @return counter value
+         */
+        int count() {
+            final String text = new String(body, StandardCharsets.UTF_8);
+            final int start = text.indexOf("n_total ") + "n_total ".length();
+            return Integer.parseInt(text.substring(start, text.indexOf('\n', start)));
+        }
+    }
+
+    /** A local collector which records each request it receives. */
+    private static final class Collector implements AutoCloseable {
+
+        /** Status to respond with. */
+        private volatile int status = 200;
+
+        /** Latch to wait on before responding, if any. */
+        @Nullable private volatile CountDownLatch gate;
+
+        /** Requests received. */
+        @Nonnull private final BlockingQueue<Request> received = new LinkedBlockingQueue<>();
+
+        /** Number of responses sent. */
+        @Nonnull private final AtomicInteger responses = new AtomicInteger();
+
+        /** Server. */
+        @Nonnull private final HttpServer server;
+
+        /**
+         * Constructor.
+         *
+         * @throws IOException if the server cannot be started
+         */
+        Collector() throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/metrics", this::handle);
+            server.start();
+        }
+
+        /**
+         * Get the collector URL.
+         *
+         * @return URL
+         */
+        @Nonnull String getURL() {
+            return "http://" + server.getAddress().getHostString() + ':' + server.getAddress().getPort()
+                    + "/metrics";
+        }
+
+        /**
+         * Wait for the next request.
+         *
+         * @return the request
+         *
+         * @throws InterruptedException if interrupted
+         */
+        @Nonnull Request take() throws InterruptedException {
+            final Request request = received.poll(10, TimeUnit.SECONDS);
+            Assert.assertNotNull(request, "No request received");
+            return request;
+        }
+
+        /**
+         * Wait briefly for another request.
+         *
+         * @return the request, or null
+         *
+         * @throws InterruptedException if interrupted
+         */
+        @Nullable Request poll() throws InterruptedException {
+            return received.poll(500, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Handle a request.
+         *
+         * @param exchange the exchange
+         *
+         * @throws IOException if an error occurs
+         */
+        private void handle(@Nonnull final HttpExchange exchange) throws IOException {
+            try (final InputStream input = exchange.getRequestBody()) {
+                received.add(new Request(exchange.getRequestHeaders().getFirst("Content-Encoding"),
+                        input.readAllBytes()));
+            }
+            final CountDownLatch latch = gate;
+            if (latch != null) {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            responses.incrementAndGet();
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+
+}
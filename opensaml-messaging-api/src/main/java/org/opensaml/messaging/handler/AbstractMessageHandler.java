@@ -18,9 +18,12 @@ import java.util.function.Predicate;
 
 import javax.annotation.Nonnull;
 
+import org.opensaml.core.metrics.ExecutionMetrics;
 import org.opensaml.messaging.context.MessageContext;
 import org.slf4j.Logger;
 
+import com.codahale.metrics.MetricRegistry;
+
 import net.shibboleth.shared.annotation.Prototype;
 import net.shibboleth.shared.annotation.constraint.NotEmpty;
 import net.shibboleth.shared.component.AbstractInitializableComponent;
@@ -30,16 +33,28 @@ import net.shibboleth.shared.primitive.LoggerFactory;
 
 /**
  * A base abstract implementation of {@link MessageHandler}.
+ * 
+ * <p>
+ * Each invocation is recorded by an {@link ExecutionMetrics} instance named for the handler's class, suffixed by
+ * {@link #INVOCATION_METRIC_SUFFIX}, which does nothing unless the metric registry enables those metrics.
+ * </p>
  */
 @Prototype
 public abstract class AbstractMessageHandler extends AbstractInitializableComponent implements MessageHandler {
-    
+
+    /** Suffix appended to the class name to name the invocation metrics. */
+    @Nonnull @NotEmpty public static final String INVOCATION_METRIC_SUFFIX = "invoke";
+
     /** Logger. */
     @Nonnull private Logger log = LoggerFactory.getLogger(AbstractMessageHandler.class);
     
     /** Condition dictating whether to run or not. */
     @Nonnull private Predicate<MessageContext> activationCondition;
     
+    /** Invocation metrics for this handler's class. */
+    @Nonnull private final ExecutionMetrics executionMetrics =
+            ExecutionMetrics.forName(MetricRegistry.name(getClass(), INVOCATION_METRIC_SUFFIX));
+
     /** Has {@link #doPostInvoke(MessageContext)} been called?. Only ever set to true */
     private boolean preInvokeCalled;
 
@@ -87,33 +102,38 @@ public abstract class AbstractMessageHandler extends AbstractInitializableCompon
         // The original exception is logged, and can be accessed from the suppressing
         // error object using the Java 7 API.
 
-        if (doPreInvoke(messageContext)) {
-            preInvokeCalled = true;
-            try {
-                doInvoke(messageContext);
-            } catch (final MessageHandlerException e) {
+        final ExecutionMetrics.Sample sample = executionMetrics.start();
+        try {
+            if (doPreInvoke(messageContext)) {
+                preInvokeCalled = true;
                 try {
-                    doPostInvoke(messageContext, e);
+                    doInvoke(messageContext);
+                } catch (final MessageHandlerException e) {
+                    try {
+                        doPostInvoke(messageContext, e);
+                    } catch (final Throwable t) {
+                        log.warn("{} Unchecked exception/error thrown by doPostInvoke, "
+                                + "superseding a MessageHandlerException ", getLogPrefix(), e);
+                        t.addSuppressed(e);
+                        throw t;
+                    }
+                    throw e;
                 } catch (final Throwable t) {
-                    log.warn("{} Unchecked exception/error thrown by doPostInvoke, "
-                            + "superseding a MessageHandlerException ", getLogPrefix(), e);
-                    t.addSuppressed(e);
+                    try {
+                        doPostInvoke(messageContext);
+                    } catch (final Throwable t2) {
+                        log.warn("{} Unchecked exception/error thrown by doPostInvoke, "
+                                + "superseding an unchecked exception/error ", getLogPrefix(), t);
+                        t2.addSuppressed(t);
+                        throw t2;
+                    }
                     throw t;
                 }
-                throw e;
-            } catch (final Throwable t) {
-                try {
-                    doPostInvoke(messageContext);
-                } catch (final Throwable t2) {
-                    log.warn("{} Unchecked exception/error thrown by doPostInvoke, "
-                            + "superseding an unchecked exception/error ", getLogPrefix(), t);
-                    t2.addSuppressed(t);
-                    throw t2;
-                }
-                throw t;
-            }
 
-            doPostInvoke(messageContext);
+                doPostInvoke(messageContext);
+            }
+        } finally {
+            executionMetrics.stop(sample);
         }
     }
 
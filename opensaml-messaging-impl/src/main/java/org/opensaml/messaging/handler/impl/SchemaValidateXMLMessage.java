@@ -19,9 +19,10 @@ import java.io.IOException;
 import javax.annotation.Nonnull;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.Validator;
 
 import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.util.SchemaValidatingParserPool;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.handler.AbstractMessageHandler;
 import org.opensaml.messaging.handler.MessageHandlerException;
@@ -34,6 +35,9 @@ import net.shibboleth.shared.primitive.LoggerFactory;
 /**
  * A handler that schema validates an XML-based message.
  * 
+ * <p>Messages parsed by a {@link SchemaValidatingParserPool} configured with the same schema instance were already
+ * validated during parsing, and are not validated again.</p>
+ * 
  * @pre <pre>MessageContext.getMessage().getDOM() != null</pre>
  */
 public class SchemaValidateXMLMessage extends AbstractMessageHandler {
@@ -44,6 +48,9 @@ public class SchemaValidateXMLMessage extends AbstractMessageHandler {
     /** Schema used to validate incoming messages. */
     @Nonnull private final Schema validationSchema;
 
+    /** Pooled validators for the schema. */
+    @Nonnull private final SchemaValidatorPool validatorPool;
+
     /**
      * Constructor.
      * 
@@ -51,6 +58,7 @@ public class SchemaValidateXMLMessage extends AbstractMessageHandler {
      */
     public SchemaValidateXMLMessage(@Nonnull final Schema schema) {
         validationSchema = Constraint.isNotNull(schema, "Schema cannot be null");
+        validatorPool = new SchemaValidatorPool(validationSchema);
     }
 
     /**
@@ -90,10 +98,13 @@ public class SchemaValidateXMLMessage extends AbstractMessageHandler {
             throw new MessageHandlerException("Message doesn't contain a DOM, unable to proceed.");
         }
         
+        if (SchemaValidatingParserPool.isValidated(message.getDOM(), validationSchema)) {
+            log.debug("{} Message {} was validated during parsing", getLogPrefix(), message.getElementQName());
+            return;
+        }
         
         try {
-            final Validator schemaValidator = validationSchema.newValidator();
-            schemaValidator.validate(new DOMSource(message.getDOM()));
+            validatorPool.validate(new DOMSource(message.getDOM()));
         } catch (final SAXException e) {
             log.debug("{} Message {} is not schema-valid: {}", getLogPrefix(), message.getElementQName(),
                     e.getMessage());
@@ -14,7 +14,26 @@
 
 package org.opensaml.messaging.handler.impl;
 
+import java.io.StringReader;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.crypto.dsig.CanonicalizationMethod;
+import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.SignatureMethod;
+import javax.xml.crypto.dsig.SignedInfo;
+import javax.xml.crypto.dsig.Transform;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMSignContext;
+import javax.xml.crypto.dsig.dom.DOMValidateContext;
+import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
+import javax.xml.crypto.dsig.spec.TransformParameterSpec;
 import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
 
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.handler.MessageHandlerException;
@@ -22,13 +41,22 @@ import org.opensaml.core.testing.XMLObjectBaseTestCase;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.mock.SimpleXMLObject;
 import org.opensaml.core.xml.mock.SimpleXMLObjectBuilder;
+import org.opensaml.core.xml.util.SchemaValidatingParserPool;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
 import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
+import net.shibboleth.shared.logic.ConstraintViolationException;
 import net.shibboleth.shared.xml.SchemaBuilder;
+import net.shibboleth.shared.xml.SerializeSupport;
+import net.shibboleth.shared.xml.XMLParserException;
+import net.shibboleth.shared.xml.impl.BasicParserPool;
 
 /** Unit test for {@link SchemaValidateXMLMessage}. */
 public class SchemaValidateXMLMessageTest extends XMLObjectBaseTestCase {
@@ -140,4 +168,142 @@ public class SchemaValidateXMLMessageTest extends XMLObjectBaseTestCase {
         
         handler.invoke(messageContext);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test validation of a valid xml file during parsing.
+     * 
+     * @throws Exception if something bad happens
+     */
+    @Test public void testValidDuringParse() throws Exception {
+
+        final SchemaValidateXMLMessage handler = new SchemaValidateXMLMessage(schema);
+        handler.initialize();
+
+        final SchemaValidatingParserPool validatingPool = new SchemaValidatingParserPool(parserPool, schema);
+
+        final MessageContext messageContext = new MessageContext();
+
+        final Resource validXmlResource = new ClassPathResource(VALID_XML_FILE);
+
+        final XMLObject validXml =
+                XMLObjectSupport.unmarshallFromInputStream(validatingPool, validXmlResource.getInputStream());
+        Assert.assertTrue(SchemaValidatingParserPool.isValidated(validXml.getDOM(), schema));
+
+        messageContext.setMessage(validXml);
+        
+        handler.invoke(messageContext);
+    }
+
+    /**
+     * Test rejection of an invalid xml file during parsing.
+     * 
+     * @throws Exception if something bad happens
+     */
+    @Test(expectedExceptions=XMLParserException.class)
+    public void testInvalidDuringParse() throws Exception {
+
+        final SchemaValidatingParserPool validatingPool = new SchemaValidatingParserPool(parserPool, schema);
+
+        final Resource invalidXmlResource = new ClassPathResource(INVALID_XML_FILE);
+
+        XMLObjectSupport.unmarshallFromInputStream(validatingPool, invalidXmlResource.getInputStream());
+    }
+
+    /**
+     * Test that parsing during validation preserves namespaces and content.
+     * 
+     * @throws Exception if something bad happens
+     */
+    @Test public void testParsedContent() throws Exception {
+
+        final SchemaValidatingParserPool validatingPool = new SchemaValidatingParserPool(parserPool, schema);
+
+        final String xml = "<test:SimpleElement xmlns:test=\"http://www.example.org/testObjects\">"
+                + "  some &amp; text  </test:SimpleElement>";
+        final Document document = validatingPool.parse(new StringReader(xml));
+        final Element root = document.getDocumentElement();
+
+        Assert.assertEquals(root.getNamespaceURI(), "http://www.example.org/testObjects");
+        Assert.assertEquals(root.getPrefix(), "test");
+        Assert.assertEquals(root.getAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "test"),
+                "http://www.example.org/testObjects");
+        Assert.assertEquals(root.getTextContent(), "  some & text  ");
+    }
+
+    /**
+     * Test that a signature over a document still verifies after parsing during validation.
+     * 
+     * @throws Exception if something bad happens
+     */
+    @Test public void testSignatureAfterParse() throws Exception {
+
+        final SchemaValidatingParserPool validatingPool = new SchemaValidatingParserPool(parserPool, schema);
+
+        final String xml = "<test:SignedElement xmlns:test=\"http://www.example.org/testObjects\" ID=\"signed\">\n"
+                + "    <test:SimpleElement>  some text  </test:SimpleElement>\n</test:SignedElement>";
+        final Document unsigned = parserPool.parse(new StringReader(xml));
+        unsigned.getDocumentElement().setIdAttributeNS(null, "ID", true);
+
+        final KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        final XMLSignatureFactory factory = XMLSignatureFactory.getInstance("DOM");
+        final Reference reference = factory.newReference("#signed", factory.newDigestMethod(DigestMethod.SHA256, null),
+                List.of(factory.newTransform(Transform.ENVELOPED, (TransformParameterSpec) null),
+                        factory.newTransform(CanonicalizationMethod.EXCLUSIVE, (TransformParameterSpec) null)),
+                null, null);
+        final SignedInfo signedInfo = factory.newSignedInfo(
+                factory.newCanonicalizationMethod(CanonicalizationMethod.EXCLUSIVE, (C14NMethodParameterSpec) null),
+                factory.newSignatureMethod(SignatureMethod.RSA_SHA256, null), List.of(reference));
+        factory.newXMLSignature(signedInfo, null).sign(
+                new DOMSignContext(keyPair.getPrivate(), unsigned.getDocumentElement()));
+
+        // The ID attribute is not registered by hand, so the reference resolves only if parsing registered it.
+        final Document signed = validatingPool.parse(new StringReader(SerializeSupport.nodeToString(unsigned)));
+        Assert.assertTrue(SchemaValidatingParserPool.isValidated(signed, schema));
+        final Element signature = (Element) signed.getElementsByTagNameNS(XMLSignature.XMLNS, "Signature").item(0);
+        Assert.assertNotNull(signature);
+        final DOMValidateContext validateContext = new DOMValidateContext(keyPair.getPublic(), signature);
+        Assert.assertTrue(factory.unmarshalXMLSignature(validateContext).validate(validateContext));
+    }
+
+    /**
+     * Test that a document with a DOCTYPE and external entity is rejected.
+     * 
+     * @throws Exception if something bad happens
+     */
+    @Test(expectedExceptions=XMLParserException.class)
+    public void testDoctypeRejected() throws Exception {
+
+        final SchemaValidatingParserPool validatingPool = new SchemaValidatingParserPool(parserPool, schema);
+
+        final String xml = "<!DOCTYPE test:SimpleElement [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+                + "<test:SimpleElement xmlns:test=\"http://www.example.org/testObjects\">&xxe;</test:SimpleElement>";
+        validatingPool.parse(new StringReader(xml));
+    }
+
+    /**
+     * Test that a wrapped pool whose settings cannot be honoured is rejected.
+     * 
+     * @throws Exception if something bad happens
+     */
+    @Test(expectedExceptions=ConstraintViolationException.class)
+    public void testUnsupportedSettings() throws Exception {
+
+        final BasicParserPool commentsPool = new BasicParserPool();
+        commentsPool.setIgnoreComments(false);
+        commentsPool.initialize();
+
+        new SchemaValidatingParserPool(commentsPool, schema);
+    }
+
+    /**
+     * Test that pooled validators are reused.
+     */
+    @Test public void testValidatorPool() {
+
+        final SchemaValidatorPool pool = new SchemaValidatorPool(schema);
+        final Validator validator = pool.obtainValidator();
+        pool.releaseValidator(validator);
+        Assert.assertSame(pool.obtainValidator(), validator);
+    }
+
+}
@@ -17,12 +17,15 @@ package org.opensaml.profile.action;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.opensaml.core.metrics.ExecutionMetrics;
 import org.opensaml.profile.context.EventContext;
 import org.opensaml.profile.context.MetricContext;
 import org.opensaml.profile.context.PreviousEventContext;
 import org.opensaml.profile.context.ProfileRequestContext;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import net.shibboleth.shared.annotation.Prototype;
@@ -34,10 +37,22 @@ import net.shibboleth.shared.primitive.NonnullSupplier;
  * Base class for profile actions.
  * 
  * This base class is annotated with {@link Prototype} to indicate that it is stateful.
+ * 
+ * <p>
+ * Each execution is recorded by an {@link ExecutionMetrics} instance named for the action's class, suffixed by
+ * {@link #EXECUTION_METRIC_SUFFIX}, which does nothing unless the metric registry enables those metrics.
+ * </p>
  */
 @Prototype
 public abstract class AbstractProfileAction extends AbstractInitializableComponent implements ProfileAction {
 
+    /** Suffix appended to the class name to name the execution metrics. */
+    @Nonnull @NotEmpty public static final String EXECUTION_METRIC_SUFFIX = "execute";
+
+    /** Execution metrics for this action's class. */
+    @Nonnull private final ExecutionMetrics executionMetrics =
+            ExecutionMetrics.forName(MetricRegistry.name(getClass(), EXECUTION_METRIC_SUFFIX));
+
     /** Cached log prefix. */
     @Nullable private String logPrefix;
     
@@ -164,28 +179,33 @@ public abstract class AbstractProfileAction extends AbstractInitializableCompone
         // The original exception is logged, and can be accessed from the suppressing
         // error object using the Java 7 API.
 
-        if (doPreExecute(profileRequestContext)) {
-            preExecuted = true;
-            try {
-                doExecute(profileRequestContext);
-            } catch (final Throwable t) {
+        final ExecutionMetrics.Sample sample = executionMetrics.start();
+        try {
+            if (doPreExecute(profileRequestContext)) {
+                preExecuted = true;
                 try {
-                    if (t instanceof Exception) {
-                        doPostExecute(profileRequestContext, (Exception) t);
-                    } else {
-                        doPostExecute(profileRequestContext);
+                    doExecute(profileRequestContext);
+                } catch (final Throwable t) {
+                    try {
+                        if (t instanceof Exception) {
+                            doPostExecute(profileRequestContext, (Exception) t);
+                        } else {
+                            doPostExecute(profileRequestContext);
+                        }
+                    } catch (final Throwable t2) {
+                        LoggerFactory.getLogger(AbstractProfileAction.class).warn(
+                                getLogPrefix() + " Unchecked exception/error thrown by doPostInvoke, "
+                                        + "superseding earlier exception/error ", t);
+                        t2.addSuppressed(t);
+                        throw t2;
                     }
-                } catch (final Throwable t2) {
-                    LoggerFactory.getLogger(AbstractProfileAction.class).warn(
-                            getLogPrefix() + " Unchecked exception/error thrown by doPostInvoke, "
-                                    + "superseding earlier exception/error ", t);
-                    t2.addSuppressed(t);
-                    throw t2;
+                    throw t;
                 }
-                throw t;
-            }
 
-            doPostExecute(profileRequestContext);
+                doPostExecute(profileRequestContext);
+            }
+        } finally {
+            executionMetrics.stop(sample);
         }
     }
 
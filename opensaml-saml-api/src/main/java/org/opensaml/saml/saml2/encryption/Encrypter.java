@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.xml.namespace.QName;
 
 import net.shibboleth.shared.collection.CollectionSupport;
@@ -32,6 +33,7 @@ import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.XMLObjectBuilderFactory;
 import org.opensaml.core.xml.config.XMLObjectProviderRegistrySupport;
 import org.opensaml.core.xml.io.MarshallingException;
+import org.opensaml.core.xml.io.UnmarshallingException;
 import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.opensaml.saml.saml2.core.Assertion;
 import org.opensaml.saml.saml2.core.Attribute;
@@ -97,6 +99,13 @@ import com.google.common.base.Strings;
  * </p>
  * 
  * <p>
+ * If an {@link EncryptionSession} is supplied, the data encryption key and the results of key transport are reused
+ * across all elements encrypted for the same recipients within that session, for example the assertions and
+ * identifiers of a single message. Each element still receives its own EncryptedKey elements, linked according to
+ * the key placement option.
+ * </p>
+ * 
+ * <p>
  * For information on other parameters and options, and general XML Encryption issues, see
  * {@link org.opensaml.xmlsec.encryption.support.Encrypter}.
  * </p>
@@ -152,6 +161,9 @@ public class Encrypter extends org.opensaml.xmlsec.encryption.support.Encrypter
     /** The option for where to place the generated EncryptedKey elements. */
     @Nonnull private KeyPlacement keyPlacement = KeyPlacement.PEER;
 
+    /** Optional session within which keys are reused. */
+    @Nullable private EncryptionSession encryptionSession;
+
     /**
      * Constructor.
      * 
@@ -247,6 +259,24 @@ public class Encrypter extends org.opensaml.xmlsec.encryption.support.Encrypter
         keyPlacement = Constraint.isNotNull(newKeyPlacement, "KeyPlacement cannot be null");
     }
 
+    /**
+     * Get the session within which data encryption keys and EncryptedKeys are reused.
+     * 
+     * @return the encryption session, or null
+     */
+    @Nullable public EncryptionSession getEncryptionSession() {
+        return encryptionSession;
+    }
+
+    /**
+     * Set the session within which data encryption keys and EncryptedKeys are reused.
+     * 
+     * @param session the encryption session, or null to generate new keys for each element
+     */
+    public void setEncryptionSession(@Nullable final EncryptionSession session) {
+        encryptionSession = session;
+    }
+
     /**
      * Encrypt the specified Assertion.
      * 
@@ -367,7 +397,7 @@ public class Encrypter extends org.opensaml.xmlsec.encryption.support.Encrypter
         final Credential encryptionCred = encParams.getEncryptionCredential();
         Key encryptionKey = encryptionCred != null ? CredentialSupport.extractEncryptionKey(encryptionCred) : null;
         if (encryptionKey == null) {
-            encryptionKey = generateEncryptionKey(encryptionAlgorithmURI);
+            encryptionKey = resolveDataEncryptionKey(encryptionAlgorithmURI);
         }
 
         final EncryptedData encryptedData = encryptElement(xmlObject, encryptionKey, encryptionAlgorithmURI, false);
@@ -384,12 +414,96 @@ public class Encrypter extends org.opensaml.xmlsec.encryption.support.Encrypter
 
         final List<EncryptedKey> encryptedKeys = new ArrayList<>();
         if (kekParamsList != null && !kekParamsList.isEmpty()) {
-            encryptedKeys.addAll(encryptKey(encryptionKey, kekParamsList, ownerDocument));
+            if (encryptionSession != null) {
+                encryptedKeys.addAll(encryptKeyInSession(encryptionSession, encryptionKey, ownerDocument));
+            } else {
+                encryptedKeys.addAll(encryptKey(encryptionKey, kekParamsList, ownerDocument));
+            }
         }
 
         return processElements(encElement, encryptedData, encryptedKeys);
     }
 
+    /**
+     * Obtain the data encryption key, reusing one previously generated within the encryption session if possible.
+     * 
+     * @param encryptionAlgorithmURI the data encryption algorithm URI
+     * 
+     * @return the data encryption key
+     * 
+     * @throws EncryptionException if a key can not be generated
+     */
+    @Nonnull private Key resolveDataEncryptionKey(@Nonnull final String encryptionAlgorithmURI)
+            throws EncryptionException {
+        final EncryptionSession session = encryptionSession;
+        if (session == null) {
+            return generateEncryptionKey(encryptionAlgorithmURI);
+        }
+
+        final List<KeyEncryptionParameters> keks =
+                kekParamsList != null ? kekParamsList : CollectionSupport.emptyList();
+        Key key = session.getDataEncryptionKey(encryptionAlgorithmURI, keks);
+        if (key == null) {
+            key = generateEncryptionKey(encryptionAlgorithmURI);
+            session.setDataEncryptionKey(encryptionAlgorithmURI, keks, key);
+        } else {
+            log.debug("Reusing data encryption key from encryption session");
+        }
+        return key;
+    }
+
+    /**
+     * Encrypt the data encryption key for each set of key encryption parameters, reusing the result of a prior key
+     * transport within the encryption session where possible.
+     * 
+     * <p>A reused EncryptedKey is a copy of the original as it was before being linked to its EncryptedData.</p>
+     * 
+     * @param session the encryption session
+     * @param encryptionKey the data encryption key
+     * @param ownerDocument the document that will own newly created EncryptedKey objects
+     * 
+     * @return the list of EncryptedKey objects
+     * 
+     * @throws EncryptionException thrown when encryption generates an error
+     */
+    @Nonnull private List<EncryptedKey> encryptKeyInSession(@Nonnull final EncryptionSession session,
+            @Nonnull final Key encryptionKey, @Nonnull final Document ownerDocument) throws EncryptionException {
+        checkParams(kekParamsList, false);
+
+        final List<EncryptedKey> encKeys = new ArrayList<>(kekParamsList.size());
+        for (final KeyEncryptionParameters kekParams : kekParamsList) {
+            assert kekParams != null;
+            final EncryptedKey template = session.getEncryptedKey(encryptionKey, kekParams);
+            if (template != null) {
+                log.debug("Reusing EncryptedKey for recipient '{}' from encryption session",
+                        kekParams.getRecipient());
+                encKeys.add(cloneEncryptedKey(template));
+            } else {
+                final EncryptedKey encKey = encryptKey(encryptionKey, kekParams, ownerDocument);
+                session.setEncryptedKey(encryptionKey, kekParams, cloneEncryptedKey(encKey));
+                encKeys.add(encKey);
+            }
+        }
+        return encKeys;
+    }
+
+    /**
+     * Copy an EncryptedKey.
+     * 
+     * @param encKey the EncryptedKey to copy
+     * 
+     * @return the copy
+     * 
+     * @throws EncryptionException if the EncryptedKey can not be copied
+     */
+    @Nonnull private EncryptedKey cloneEncryptedKey(@Nonnull final EncryptedKey encKey) throws EncryptionException {
+        try {
+            return XMLObjectSupport.cloneXMLObject(encKey);
+        } catch (final MarshallingException | UnmarshallingException e) {
+            throw new EncryptionException("Error copying EncryptedKey for reuse", e);
+        }
+    }
+
     /**
      * Handle post-processing of generated EncryptedData and EncryptedKey(s) and storage in the appropriate
      * EncryptedElementType instance.
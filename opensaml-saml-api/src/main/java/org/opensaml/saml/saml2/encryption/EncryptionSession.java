@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.saml2.encryption;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.security.credential.Credential;
+import org.opensaml.xmlsec.encryption.EncryptedKey;
+import org.opensaml.xmlsec.encryption.support.KeyEncryptionParameters;
+import org.opensaml.xmlsec.encryption.support.RSAOAEPParameters;
+import org.opensaml.xmlsec.keyinfo.KeyInfoGenerator;
+
+/**
+ * State shared by one or more {@link Encrypter} instances while encrypting the elements of a single message.
+ *
+ * <p>
+ * Within a session, a data encryption key generated for a given data encryption algorithm and set of key encryption
+ * parameters is reused for every element encrypted with that same combination, and the key transport for each
+ * recipient is performed only once per data encryption key. Subsequent elements receive copies of the original
+ * EncryptedKey, which are then linked to their EncryptedData according to the encrypter's key placement option
+ * in the usual way.
+ * </p>
+ *
+ * <p>
+ * Key encryption parameters are considered equivalent if they use the same credential instance, algorithm,
+ * RSA-OAEP parameters, KeyInfo generator instance and recipient. A data encryption key is never shared between
+ * elements encrypted for different sets of recipients.
+ * </p>
+ *
+ * <p>
+ * A session should be scoped to a single message and is not thread-safe.
+ * </p>
+ */
+public class EncryptionSession {
+
+    /** Generated data encryption keys. */
+    @Nonnull private final Map<DataKeyID,Key> dataEncryptionKeys;
+
+    /** Template EncryptedKey for each data encryption key and recipient. */
+    @Nonnull private final Map<EncryptedKeyID,EncryptedKey> encryptedKeys;
+
+    /** Constructor. */
+    public EncryptionSession() {
+        dataEncryptionKeys = new HashMap<>();
+        encryptedKeys = new HashMap<>();
+    }
+
+    /**
+     * Get a previously generated data encryption key.
+     *
+     * @param algorithm the data encryption algorithm URI
+     * @param kekParamsList the key encryption parameters with which the key will be encrypted
+     *
+     * @return the data encryption key, or null
+     */
+    @Nullable public Key getDataEncryptionKey(@Nonnull final String algorithm,
+            @Nonnull final List<KeyEncryptionParameters> kekParamsList) {
+        return dataEncryptionKeys.get(new DataKeyID(algorithm, buildKEKIDs(kekParamsList)));
+    }
+
+    /**
+     * Record a generated data encryption key.
+     *
+     * @param algorithm the data encryption algorithm URI
+     * @param kekParamsList the key encryption parameters with which the key will be encrypted
+     * @param key the data encryption key
+     */
+    public void setDataEncryptionKey(@Nonnull final String algorithm,
+            @Nonnull final List<KeyEncryptionParameters> kekParamsList, @Nonnull final Key key) {
+        dataEncryptionKeys.put(new DataKeyID(algorithm, buildKEKIDs(kekParamsList)), key);
+    }
+
+    /**
+     * Get the template EncryptedKey previously produced by encrypting a data encryption key.
+     *
+     * <p>The returned object must not be modified or added to a parent; callers should use a copy.</p>
+     *
+     * @param key the data encryption key
+     * @param kekParams the key encryption parameters
+     *
+     * @return the template EncryptedKey, or null
+     */
+    @Nullable public EncryptedKey getEncryptedKey(@Nonnull final Key key,
+            @Nonnull final KeyEncryptionParameters kekParams) {
+        return encryptedKeys.get(new EncryptedKeyID(key, KEKID.of(kekParams)));
+    }
+
+    /**
+     * Record the template EncryptedKey produced by encrypting a data encryption key.
+     *
+     * <p>The supplied object must be unlinked from any EncryptedData and should not have a parent.</p>
+     *
+     * @param key the data encryption key
+     * @param kekParams the key encryption parameters
+     * @param encryptedKey the template EncryptedKey
+     */
+    public void setEncryptedKey(@Nonnull final Key key, @Nonnull final KeyEncryptionParameters kekParams,
+            @Nonnull final EncryptedKey encryptedKey) {
+        encryptedKeys.put(new EncryptedKeyID(key, KEKID.of(kekParams)), encryptedKey);
+    }
+
+    /** Discard all state held by the session. */
+    public void clear() {
+        dataEncryptionKeys.clear();
+        encryptedKeys.clear();
+    }
+
+    /**
+     * Build the equivalence keys for a list of key encryption parameters.
+     *
+     * @param kekParamsList the key encryption parameters
+     *
+     * @return the corresponding equivalence keys
+     */
+    @Nonnull private List<KEKID> buildKEKIDs(@Nonnull final List<KeyEncryptionParameters> kekParamsList) {
+        final List<KEKID> ids = new ArrayList<>(kekParamsList.size());
+        for (final KeyEncryptionParameters kekParams : kekParamsList) {
+            ids.add(KEKID.of(kekParams));
+        }
+        return ids;
+    }
+
+    /**
+     * Equivalence key for a set of key encryption parameters.
+     *
+     * @param credential the key encryption credential
+     * @param algorithm the key transport algorithm URI
+     * @param digestMethod the RSA-OAEP digest method
+     * @param mgf the RSA-OAEP mask generation function
+     * @param oaepParams the RSA-OAEP parameters
+     * @param keyInfoGenerator the KeyInfo generator
+     * @param recipient the recipient
+     */
+    private record KEKID(@Nullable Credential credential, @Nullable String algorithm, @Nullable String digestMethod,
+            @Nullable String mgf, @Nullable String oaepParams, @Nullable KeyInfoGenerator keyInfoGenerator,
+            @Nullable String recipient) {
+
+        /**
+         * Build the equivalence key for a set of key encryption parameters.
+         *
+         * @param params the key encryption parameters
+         *
+         * @return the equivalence key
+         */
+        @Nonnull static KEKID of(@Nonnull final KeyEncryptionParameters params) {
+            final RSAOAEPParameters oaep = params.getRSAOAEPParameters();
+            return new KEKID(params.getEncryptionCredential(), params.getAlgorithm(),
+                    oaep != null ? oaep.getDigestMethod() : null,
+                    oaep != null ? oaep.getMaskGenerationFunction() : null,
+                    oaep != null ? oaep.getOAEPParams() : null,
+                    params.getKeyInfoGenerator(), params.getRecipient());
+        }
+    }
+
+    /**
+     * Equivalence key for a data encryption key.
+     *
+     * @param algorithm the data encryption algorithm URI
+     * @param kekIDs the key encryption parameters with which the key will be encrypted
+     */
+    private record DataKeyID(@Nonnull String algorithm, @Nonnull List<KEKID> kekIDs) {
+    }
+
+    /**
+     * Equivalence key for an EncryptedKey.
+     *
+     * @param key the data encryption key
+     * @param kekID the key encryption parameters
+     */
+    private record EncryptedKeyID(@Nonnull Key key, @Nonnull KEKID kekID) {
+    }
+
+}
@@ -18,6 +18,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.opensaml.messaging.context.BaseContext;
+import org.opensaml.saml.saml2.encryption.EncryptionSession;
 import org.opensaml.xmlsec.EncryptionParameters;
 
 /**
@@ -36,6 +37,9 @@ public final class EncryptionContext extends BaseContext {
 
     /** Parameters for attribute encrytion. */
     @Nullable private EncryptionParameters attributeEncParams;
+
+    /** Session within which encryption keys may be reused across the elements of the message. */
+    @Nullable private EncryptionSession encryptionSession;
     
     /**
      * Get the encryption parameters to use for encryption of assertions.
@@ -100,4 +104,25 @@ public final class EncryptionContext extends BaseContext {
         return this;
     }
 
-}
\ No newline at end of file
+    /**
+     * Get the session within which encryption keys may be reused across the elements of the message.
+     * 
+     * @return the encryption session
+     */
+    @Nullable public EncryptionSession getEncryptionSession() {
+        return encryptionSession;
+    }
+
+    /**
+     * Set the session within which encryption keys may be reused across the elements of the message.
+     * 
+     * @param session the encryption session
+     * 
+     * @return this context
+     */
+    @Nonnull public EncryptionContext setEncryptionSession(@Nullable final EncryptionSession session) {
+        encryptionSession = session;
+        return this;
+    }
+
+}
@@ -19,13 +19,15 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.opensaml.core.concurrent.BackgroundTaskSupport;
 import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.binding.artifact.ExpiringSAMLArtifactMapEntry;
 import org.opensaml.saml.common.binding.artifact.SAMLArtifactMap;
@@ -37,7 +39,6 @@ import net.shibboleth.shared.component.AbstractInitializableComponent;
 import net.shibboleth.shared.component.ComponentInitializationException;
 import net.shibboleth.shared.logic.Constraint;
 import net.shibboleth.shared.primitive.LoggerFactory;
-import net.shibboleth.shared.primitive.TimerSupport;
 
 /** Basic artifact map implementation. */
 public class BasicSAMLArtifactMap extends AbstractInitializableComponent implements
@@ -58,11 +59,14 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
     /** Time between cleanup checks. Default value: (5 mins) */
     @Nonnull private Duration cleanupInterval;
 
-    /** Timer used to schedule cleanup tasks. */
-    @NonnullAfterInit private Timer cleanupTaskTimer;
+    /** Executor used to schedule cleanup tasks. */
+    @Nullable private ScheduledExecutorService cleanupTaskExecutor;
 
     /** Task that cleans up expired records. */
     @Nullable private TimerTask cleanupTask;
+    
+    /** Future for the scheduled cleanup task. */
+    @Nullable private ScheduledFuture<?> cleanupTaskFuture;
 
     /** Constructor. */
     public BasicSAMLArtifactMap() {
@@ -77,9 +81,11 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
         artifactStore = new ConcurrentHashMap<>();
 
         if (!cleanupInterval.isZero()) {
-            cleanupTask = new Cleanup();
-            cleanupTaskTimer = new Timer(TimerSupport.getTimerName(this), true);
-            cleanupTaskTimer.schedule(cleanupTask, cleanupInterval.toMillis(), cleanupInterval.toMillis());
+            final Cleanup task = new Cleanup();
+            cleanupTask = task;
+            cleanupTaskFuture = BackgroundTaskSupport.scheduleWithFixedDelay(
+                    cleanupTaskExecutor != null ? cleanupTaskExecutor : BackgroundTaskSupport.getDefaultExecutor(),
+                    task, cleanupInterval, cleanupInterval);
         }
     }
 
@@ -88,7 +94,10 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
         if (cleanupTask != null) {
             cleanupTask.cancel();
             cleanupTask = null;
-            cleanupTaskTimer = null;
+        }
+        if (cleanupTaskFuture != null) {
+            cleanupTaskFuture.cancel(false);
+            cleanupTaskFuture = null;
         }
         artifactStore = null;
         
@@ -139,6 +148,21 @@ public class BasicSAMLArtifactMap extends AbstractInitializableComponent impleme
         cleanupInterval = interval;
     }
     
+    /**
+     * Set the executor used to schedule cleanup tasks.
+     * 
+     * <p>
+     * If not set, the shared default executor from {@link BackgroundTaskSupport#getDefaultExecutor()} is used.
+     * </p>
+     * 
+     * @param executor cleanup task executor
+     */
+    public void setCleanupTaskExecutor(@Nullable final ScheduledExecutorService executor) {
+        checkSetterPreconditions();
+
+        cleanupTaskExecutor = executor;
+    }
+    
     /**
      * Set the map entry factory.
      * 
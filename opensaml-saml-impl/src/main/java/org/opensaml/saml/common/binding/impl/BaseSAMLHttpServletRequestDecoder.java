@@ -14,17 +14,263 @@
 
 package org.opensaml.saml.common.binding.impl;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+
+import javax.annotation.Nonnull;
+
 import org.opensaml.messaging.decoder.servlet.BaseHttpServletRequestXMLMessageDecoder;
 
+import net.shibboleth.shared.codec.DecodingException;
+import net.shibboleth.shared.logic.Constraint;
+
 /**
  * Abstract base decoder for SAML decoders.
  */
 public abstract class BaseSAMLHttpServletRequestDecoder extends BaseHttpServletRequestXMLMessageDecoder {
 
+    /** Default maximum size in bytes of a decoded message: 10 MiB. */
+    public static final long DEFAULT_MAX_MESSAGE_SIZE = 10 * 1024 * 1024;
+
+    /** Maximum size in bytes of a decoded message. */
+    private long maxMessageSize;
+
     /** Constructor. */
     public BaseSAMLHttpServletRequestDecoder() {
         super();
         setProtocolMessageLoggerSubCategory("SAML");
+        maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
+    }
+
+    /**
+     * Get the maximum size in bytes of a decoded message.
+     *
+     * <p>Defaults to {@link #DEFAULT_MAX_MESSAGE_SIZE}. A value of 0 means no limit.</p>
+     *
+     * @return maximum message size
+     */
+    public long getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    /**
+     * Set the maximum size in bytes of a decoded message.
+     *
+     * <p>The limit is enforced while the message is being decoded, and applies both to the result of base64 decoding
+     * and to the result of any decompression.</p>
+     *
+     * <p>Defaults to {@link #DEFAULT_MAX_MESSAGE_SIZE}. A value of 0 means no limit.</p>
+     *
+     * @param size maximum message size
+     */
+    public void setMaxMessageSize(final long size) {
+        checkSetterPreconditions();
+        maxMessageSize = Constraint.isGreaterThanOrEqual(0, size, "Maximum message size cannot be negative");
+    }
+
+    /**
+     * Get a stream which base64-decodes the supplied data as it is read, subject to the maximum message size.
+     *
+     * <p>The encoded data is validated and then read directly from the supplied string, so neither it nor the
+     * decoded data is copied into an intermediate array.</p>
+     *
+     * @param encoded the base64-encoded data
+     *
+     * @return the decoding stream
+     * 
+     * @throws DecodingException if the data is not valid base64
+     */
+    @Nonnull protected InputStream getBase64DecodingStream(@Nonnull final CharSequence encoded)
+            throws DecodingException {
+        validateBase64(encoded);
+        return applyMessageSizeLimit(Base64.getMimeDecoder().wrap(new CharSequenceInputStream(encoded)));
+    }
+
+    /**
+     * Check that the supplied data is valid base64, without decoding it.
+     * 
+     * <p>Whitespace is ignored. Padding is optional, but if present must be correct, and the unused bits of the
+     * final encoded character must be zero.</p>
+     *
+     * @param encoded the base64-encoded data
+     * 
+     * @throws DecodingException if the data is not valid base64
+     */
+    protected void validateBase64(@Nonnull final CharSequence encoded) throws DecodingException {
+        int significant = 0;
+        int padding = 0;
+        int last = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            final char c = encoded.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                continue;
+            } else if (c == '=') {
+                padding++;
+            } else if (padding == 0 && ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')
+                    || (c >= '0' && c <= '9') || c == '+' || c == '/')) {
+                significant++;
+                last = c;
+            } else {
+                throw new DecodingException("Invalid base64 character at position " + i);
+            }
+        }
+        
+        final int remainder = significant % 4;
+        if (significant == 0 || remainder == 1 || padding > 2 || (padding > 0 && remainder + padding != 4)) {
+            throw new DecodingException("Invalid base64 data length or padding");
+        }
+        
+        final int lastValue;
+        if (last >= 'A' && last <= 'Z') {
+            lastValue = last - 'A';
+        } else if (last >= 'a' && last <= 'z') {
+            lastValue = last - 'a' + 26;
+        } else if (last >= '0' && last <= '9') {
+            lastValue = last - '0' + 52;
+        } else {
+            lastValue = last == '+' ? 62 : 63;
+        }
+        if ((remainder == 2 && (lastValue & 0x0f) != 0) || (remainder == 3 && (lastValue & 0x03) != 0)) {
+            throw new DecodingException("Invalid trailing bits in base64 data");
+        }
+    }
+
+    /**
+     * Wrap the supplied stream so that reading more than the maximum message size from it fails.
+     *
+     * @param input the stream to wrap
+     *
+     * @return the wrapped stream, or the original if there is no limit
+     */
+    @Nonnull protected InputStream applyMessageSizeLimit(@Nonnull final InputStream input) {
+        if (maxMessageSize <= 0) {
+            return input;
+        }
+        return new SizeLimitedInputStream(input, maxMessageSize);
+    }
+
+    /** Stream over the characters of a {@link CharSequence}, which are truncated to bytes. */
+    private static final class CharSequenceInputStream extends InputStream {
+
+        /** Data to read. */
+        @Nonnull private final CharSequence data;
+
+        /** Current position. */
+        private int position;
+
+        /**
+         * Constructor.
+         *
+         * @param chars data to read, which is expected to contain only ASCII characters
+         */
+        CharSequenceInputStream(@Nonnull final CharSequence chars) {
+            data = chars;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read() {
+            if (position >= data.length()) {
+                return -1;
+            }
+            return data.charAt(position++) & 0xff;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            final int count = Math.min(len, data.length() - position);
+            if (count <= 0) {
+                return -1;
+            }
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) data.charAt(position++);
+            }
+            return count;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int available() {
+            return data.length() - position;
+        }
+    }
+
+    /** Stream which fails once more than a fixed number of bytes have been read from it. */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+
+        /** Number of bytes which may still be read. */
+        private long remaining;
+
+        /** Maximum number of bytes. */
+        private final long limit;
+
+        /**
+         * Constructor.
+         *
+         * @param in underlying stream
+         * @param max maximum number of bytes which may be read
+         */
+        SizeLimitedInputStream(@Nonnull final InputStream in, final long max) {
+            super(in);
+            limit = max;
+            remaining = max;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int count = super.read(b, off, len);
+            if (count > 0) {
+                consumed(count);
+            }
+            return count;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long skip(final long n) throws IOException {
+            final long count = super.skip(n);
+            if (count > 0) {
+                consumed(count);
+            }
+            return count;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * Account for bytes read from the underlying stream.
+         *
+         * @param count number of bytes read
+         *
+         * @throws IOException if the limit has been exceeded
+         */
+        private void consumed(final long count) throws IOException {
+            remaining -= count;
+            if (remaining < 0) {
+                throw new IOException("Message exceeded maximum size of " + limit + " bytes");
+            }
+        }
     }
 
 }
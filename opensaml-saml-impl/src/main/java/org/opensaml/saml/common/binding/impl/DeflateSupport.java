@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.binding.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Support for raw (RFC 1951, "no-wrap") DEFLATE compression as used by the SAML 2 HTTP-Redirect binding.
+ *
+ * <p>{@link Deflater} and {@link Inflater} instances hold native zlib state which is relatively expensive to create
+ * and release, so instances are pooled and reused across messages. The pool is bounded, and the most recently
+ * returned instance is reused first; instances returned to a full pool are released.</p>
+ */
+public final class DeflateSupport {
+
+    /** Maximum number of idle instances of each type to retain. */
+    private static final int MAX_POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /** Idle deflaters. */
+    @Nonnull private static final Deque<Deflater> DEFLATERS = new ConcurrentLinkedDeque<>();
+
+    /** Number of idle deflaters. */
+    @Nonnull private static final AtomicInteger DEFLATER_COUNT = new AtomicInteger();
+
+    /** Idle inflaters. */
+    @Nonnull private static final Deque<Inflater> INFLATERS = new ConcurrentLinkedDeque<>();
+
+    /** Number of idle inflaters. */
+    @Nonnull private static final AtomicInteger INFLATER_COUNT = new AtomicInteger();
+
+    /** Constructor. */
+    private DeflateSupport() {
+    }
+
+    /**
+     * Get a no-wrap deflater with the specified compression level, which must be returned with
+     * {@link #releaseDeflater(Deflater)} once it is no longer needed.
+     *
+     * @param level the compression level (0-9)
+     *
+     * @return a deflater
+     */
+    @Nonnull public static Deflater obtainDeflater(final int level) {
+        final Deflater deflater = DEFLATERS.pollFirst();
+        if (deflater == null) {
+            return new Deflater(level, true);
+        }
+        DEFLATER_COUNT.decrementAndGet();
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    /**
+     * Return a deflater obtained from {@link #obtainDeflater(int)}.
+     *
+     * <p>The deflater must not be used after being returned.</p>
+     *
+     * @param deflater the deflater
+     */
+    public static void releaseDeflater(@Nonnull final Deflater deflater) {
+        deflater.reset();
+        if (DEFLATER_COUNT.incrementAndGet() <= MAX_POOL_SIZE) {
+            DEFLATERS.offerFirst(deflater);
+        } else {
+            DEFLATER_COUNT.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    /**
+     * Get a no-wrap inflater, which must be returned with {@link #releaseInflater(Inflater)} once it is no
+     * longer needed.
+     *
+     * @return an inflater
+     */
+    @Nonnull public static Inflater obtainInflater() {
+        final Inflater inflater = INFLATERS.pollFirst();
+        if (inflater == null) {
+            return new Inflater(true);
+        }
+        INFLATER_COUNT.decrementAndGet();
+        return inflater;
+    }
+
+    /**
+     * Return an inflater obtained from {@link #obtainInflater()}.
+     *
+     * <p>The inflater must not be used after being returned.</p>
+     *
+     * @param inflater the inflater
+     */
+    public static void releaseInflater(@Nonnull final Inflater inflater) {
+        inflater.reset();
+        if (INFLATER_COUNT.incrementAndGet() <= MAX_POOL_SIZE) {
+            INFLATERS.offerFirst(inflater);
+        } else {
+            INFLATER_COUNT.decrementAndGet();
+            inflater.end();
+        }
+    }
+
+    /**
+     * Get a stream which compresses data written to it using a pooled no-wrap deflater.
+     *
+     * <p>The deflater is returned to the pool when the stream is closed, which also closes the underlying
+     * stream.</p>
+     *
+     * @param out the underlying stream
+     * @param level the compression level (0-9)
+     *
+     * @return the compressing stream
+     */
+    @Nonnull public static DeflaterOutputStream newDeflaterOutputStream(@Nonnull final OutputStream out,
+            final int level) {
+        return new PooledDeflaterOutputStream(out, obtainDeflater(level));
+    }
+
+    /**
+     * Get a stream which decompresses data read from the underlying stream using a pooled no-wrap inflater.
+     *
+     * <p>The inflater is returned to the pool when the stream is closed, which also closes the underlying
+     * stream.</p>
+     *
+     * @param in the underlying stream
+     *
+     * @return the decompressing stream
+     */
+    @Nonnull public static InflaterInputStream newInflaterInputStream(@Nonnull final InputStream in) {
+        return new PooledInflaterInputStream(in, obtainInflater());
+    }
+
+    /** A {@link DeflaterOutputStream} which returns its deflater to the pool when closed. */
+    private static final class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+        /** Whether the deflater has been returned. */
+        private boolean released;
+
+        /**
+         * Constructor.
+         *
+         * @param out the underlying stream
+         * @param deflater the pooled deflater
+         */
+        PooledDeflaterOutputStream(@Nonnull final OutputStream out, @Nonnull final Deflater deflater) {
+            super(out, deflater);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!released) {
+                    released = true;
+                    releaseDeflater(def);
+                }
+            }
+        }
+    }
+
+    /** An {@link InflaterInputStream} which returns its inflater to the pool when closed. */
+    private static final class PooledInflaterInputStream extends InflaterInputStream {
+
+        /** Whether the inflater has been returned. */
+        private boolean released;
+
+        /**
+         * Constructor.
+         *
+         * @param in the underlying stream
+         * @param inflater the pooled inflater
+         */
+        PooledInflaterInputStream(@Nonnull final InputStream in, @Nonnull final Inflater inflater) {
+            super(in, inflater);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!released) {
+                    released = true;
+                    releaseInflater(inf);
+                }
+            }
+        }
+    }
+
+}
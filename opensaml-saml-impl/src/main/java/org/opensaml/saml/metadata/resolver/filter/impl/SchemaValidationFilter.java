@@ -17,9 +17,11 @@ package org.opensaml.saml.metadata.resolver.filter.impl;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.validation.Validator;
+import javax.xml.validation.Schema;
 
 import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.util.SchemaValidatingParserPool;
+import org.opensaml.core.xml.util.SchemaValidatorPool;
 import org.opensaml.saml.common.xml.SAMLSchemaBuilder;
 import org.opensaml.saml.metadata.resolver.filter.AbstractMetadataFilter;
 import org.opensaml.saml.metadata.resolver.filter.FilterException;
@@ -33,6 +35,9 @@ import net.shibboleth.shared.primitive.LoggerFactory;
 
 /**
  * A metadata filter that schema validates an incoming metadata file.
+ * 
+ * <p>Metadata parsed by a {@link SchemaValidatingParserPool} configured with the same schema instance was already
+ * validated during parsing, and is not validated again.</p>
  */
 public class SchemaValidationFilter extends AbstractMetadataFilter {
 
@@ -41,6 +46,9 @@ public class SchemaValidationFilter extends AbstractMetadataFilter {
 
     /** SAML schema source. */
     @Nonnull private SAMLSchemaBuilder samlSchemaBuilder;
+
+    /** Pooled validators for the most recently used schema. */
+    @Nullable private volatile SchemaValidatorPool validatorPool;
         
     /**
      * Constructor.
@@ -60,16 +68,27 @@ public class SchemaValidationFilter extends AbstractMetadataFilter {
             return null;
         }
         
-        final Validator schemaValidator;
+        final Schema schema;
         try {
-            schemaValidator = samlSchemaBuilder.getSAMLSchema().newValidator();
+            schema = samlSchemaBuilder.getSAMLSchema();
         } catch (final SAXException e) {
             log.error("Unable to build metadata validation schema: {}", e.getMessage());
             throw new FilterException("Unable to build metadata validation schema", e);
         }
 
+        if (SchemaValidatingParserPool.isValidated(metadata.getDOM(), schema)) {
+            log.debug("Incoming metadata was validated during parsing");
+            return metadata;
+        }
+
+        SchemaValidatorPool pool = validatorPool;
+        if (pool == null || pool.getSchema() != schema) {
+            pool = new SchemaValidatorPool(schema);
+            validatorPool = pool;
+        }
+
         try {
-            schemaValidator.validate(new DOMSource(metadata.getDOM()));
+            pool.validate(new DOMSource(metadata.getDOM()));
         } catch (final Exception e) {
             log.error("Incoming metadata was not schema valid: {}", e.getMessage());
             throw new FilterException("Incoming metadata was not schema valid", e);
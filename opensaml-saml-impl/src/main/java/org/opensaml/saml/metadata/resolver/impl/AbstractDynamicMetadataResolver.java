@@ -19,7 +19,10 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -27,17 +30,31 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.opensaml.core.criterion.EntityIdCriterion;
+import org.opensaml.core.concurrent.BackgroundTaskSupport;
 import org.opensaml.core.metrics.MetricsSupport;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.io.MarshallingException;
@@ -121,11 +138,14 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
     /** Metrics Gauge for the persistent cache initialization.*/
     @Nullable private Gauge<PersistentCacheInitializationMetrics> gaugePersistentCacheInit;
     
-    /** Timer used to schedule background metadata update tasks. */
-    @NonnullAfterInit private Timer taskTimer;
+    /** Timer used to schedule background metadata update tasks, if supplied at construction. */
+    @Nullable private Timer taskTimer;
     
-    /** Whether we created our own task timer during object construction. */
-    private boolean createdOwnTaskTimer;
+    /** Executor used to schedule background metadata update tasks when no timer was supplied. */
+    @Nullable private ScheduledExecutorService taskExecutor;
+    
+    /** Futures for the background tasks scheduled via the executor. */
+    @Nonnull private final List<ScheduledFuture<?>> scheduledTaskFutures;
     
     /** Minimum cache duration. */
     @Nonnull private Duration minCacheDuration;
@@ -154,7 +174,7 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
     @Nonnull private Duration cleanupTaskInterval;
     
     /** The backing store cleanup sweeper background task. */
-    private BackingStoreCleanupSweeper cleanupTask;
+    @Nullable private BackingStoreCleanupSweeper cleanupTask;
     
     /** The manager for the persistent cache store for resolved metadata. */
     @Nullable private XMLObjectLoadSaveManager<EntityDescriptor> persistentCacheManager;
@@ -181,20 +201,47 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
     /** Flag used to track state of whether currently initializing or not. */
     private boolean initializing;
     
+    /** Executor used to run asynchronous resolution operations. */
+    @Nullable private Executor asyncResolutionExecutor;
+    
+    /** Executor lazily created by this resolver when no asynchronous resolution executor was supplied. */
+    @Nullable private ExecutorService ownAsyncResolutionExecutor;
+    
+    /** Maximum number of threads in the executor created when no executor was supplied. */
+    @Positive private int asyncResolutionMaxThreads;
+    
+    /** Maximum number of queued operations in the executor created when no executor was supplied. */
+    @Positive private int asyncResolutionMaxQueueSize;
+    
+    /** Maximum number of concurrent origin source fetches performed by {@link #prefetch(Collection)}. */
+    @Positive private int prefetchMaxParallelism;
+    
+    /** Map of in-flight asynchronous origin source resolutions, keyed by entityID. */
+    @Nonnull private final Map<String, CompletableFuture<Iterable<EntityDescriptor>>> inflightResolutions;
+    
     /**
      * Constructor.
+     * 
+     * <p>
+     * If a timer is not supplied, background management tasks are scheduled via the executor
+     * set with {@link #setBackgroundTaskExecutor(ScheduledExecutorService)}, or if none,
+     * the shared default executor from {@link BackgroundTaskSupport#getDefaultExecutor()}.
+     * </p>
      *
      * @param backgroundTaskTimer the {@link Timer} instance used to run resolver background management tasks
      */
     public AbstractDynamicMetadataResolver(@Nullable final Timer backgroundTaskTimer) {
         indexes = CollectionSupport.emptySet();
         
-        if (backgroundTaskTimer == null) {
-            taskTimer = new Timer(TimerSupport.getTimerName(this), true);
-            createdOwnTaskTimer = true;
-        } else {
-            taskTimer = backgroundTaskTimer;
-        }
+        inflightResolutions = new ConcurrentHashMap<>();
+        
+        asyncResolutionMaxThreads = 10;
+        asyncResolutionMaxQueueSize = 100;
+        
+        prefetchMaxParallelism = 4;
+        
+        taskTimer = backgroundTaskTimer;
+        scheduledTaskFutures = new ArrayList<>();
         
         expirationWarningThreshold = Duration.ZERO;
         
@@ -219,6 +266,29 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
         backgroundInitializationFromCacheDelay = Duration.ofSeconds(2);
     }
     
+    /**
+     * Get the executor used to schedule background management tasks when no timer was supplied at construction.
+     * 
+     * @return the executor, or null if the default executor will be used
+     */
+    @Nullable public ScheduledExecutorService getBackgroundTaskExecutor() {
+        return taskExecutor;
+    }
+    
+    /**
+     * Set the executor used to schedule background management tasks when no timer was supplied at construction.
+     * 
+     * <p>
+     * If not set, the shared default executor from {@link BackgroundTaskSupport#getDefaultExecutor()} is used.
+     * </p>
+     * 
+     * @param executor the executor, may be null
+     */
+    public void setBackgroundTaskExecutor(@Nullable final ScheduledExecutorService executor) {
+        checkSetterPreconditions();
+        taskExecutor = executor;
+    }
+    
     /**
      * Get the flag indicating whether should initialize from the persistent cache in the background.
      * 
@@ -564,6 +634,111 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
         cleanupTaskInterval = interval;
     }
     
+    /**
+     * Get the executor used to run asynchronous resolution operations.
+     * 
+     * @return the executor, or null if the resolver will create its own on first use
+     */
+    @Nullable public Executor getAsyncResolutionExecutor() {
+        return asyncResolutionExecutor;
+    }
+
+    /**
+     * Set the executor used to run asynchronous resolution operations.
+     * 
+     * <p>
+     * Fetches from the origin source may block for the duration of a network round-trip,
+     * so the executor should not be one whose threads are shared with latency-sensitive work.
+     * If not set, the resolver lazily creates a bounded pool of daemon threads with a bounded
+     * work queue on first use, which is shut down when the resolver is destroyed.
+     * </p>
+     * 
+     * @param executor the executor, may be null
+     */
+    public void setAsyncResolutionExecutor(@Nullable final Executor executor) {
+        checkSetterPreconditions();
+        asyncResolutionExecutor = executor;
+    }
+
+    /**
+     * Get the maximum number of threads in the executor created when no asynchronous resolution
+     * executor was supplied.
+     * 
+     * <p>Defaults to: 10.</p>
+     * 
+     * @return the maximum number of threads
+     */
+    @Positive public int getAsyncResolutionMaxThreads() {
+        return asyncResolutionMaxThreads;
+    }
+
+    /**
+     * Set the maximum number of threads in the executor created when no asynchronous resolution
+     * executor was supplied.
+     * 
+     * <p>Defaults to: 10.</p>
+     * 
+     * @param max the maximum number of threads
+     */
+    public void setAsyncResolutionMaxThreads(@Positive final int max) {
+        checkSetterPreconditions();
+        asyncResolutionMaxThreads = Constraint.isGreaterThan(0, max, "Max threads must be greater than 0");
+    }
+
+    /**
+     * Get the maximum number of operations queued in the executor created when no asynchronous
+     * resolution executor was supplied.
+     * 
+     * <p>Defaults to: 100.</p>
+     * 
+     * @return the maximum queue size
+     */
+    @Positive public int getAsyncResolutionMaxQueueSize() {
+        return asyncResolutionMaxQueueSize;
+    }
+
+    /**
+     * Set the maximum number of operations queued in the executor created when no asynchronous
+     * resolution executor was supplied.
+     * 
+     * <p>
+     * Once all threads are busy and the queue is full, further resolutions requiring a fetch from
+     * the origin source are rejected, and the futures returned for them complete exceptionally
+     * with a {@link RejectedExecutionException}.
+     * </p>
+     * 
+     * <p>Defaults to: 100.</p>
+     * 
+     * @param max the maximum queue size
+     */
+    public void setAsyncResolutionMaxQueueSize(@Positive final int max) {
+        checkSetterPreconditions();
+        asyncResolutionMaxQueueSize = Constraint.isGreaterThan(0, max, "Max queue size must be greater than 0");
+    }
+
+    /**
+     * Get the maximum number of concurrent origin source fetches performed by {@link #prefetch(Collection)}.
+     * 
+     * <p>Defaults to: 4.</p>
+     * 
+     * @return the maximum parallelism
+     */
+    @Positive public int getPrefetchMaxParallelism() {
+        return prefetchMaxParallelism;
+    }
+
+    /**
+     * Set the maximum number of concurrent origin source fetches performed by {@link #prefetch(Collection)}.
+     * 
+     * <p>Defaults to: 4.</p>
+     * 
+     * @param max the maximum parallelism
+     */
+    public void setPrefetchMaxParallelism(@Positive final int max) {
+        checkSetterPreconditions();
+        prefetchMaxParallelism = Constraint.isGreaterThan(0, max, "Max parallelism must be greater than 0");
+    }
+
     /**
      * Get the configured indexes.
      * 
@@ -639,35 +814,7 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
             final String entityID = resolveEntityID(criteria);
             if (entityID != null) {
                 log.debug("{} Resolved criteria to entityID: {}", getLogPrefix(), entityID);
-
-                final EntityManagementData mgmtData = ensureBackingStore().getManagementData(entityID);
-                final Lock readLock = mgmtData.getReadWriteLock().readLock();
-                try {
-                    readLock.lock();
-
-                    final List<EntityDescriptor> descriptors = lookupEntityID(entityID);
-                    if (descriptors.isEmpty()) {
-                        if (mgmtData.isNegativeLookupCacheActive()) {
-                            log.debug("{} Did not find requested metadata in backing store, " 
-                                    + "and negative lookup cache is active, returning empty result", 
-                                    getLogPrefix());
-                            return CollectionSupport.emptyList();
-                        }
-                        log.debug("{} Did not find requested metadata in backing store, " 
-                                + "attempting to resolve dynamically", 
-                                getLogPrefix());
-                    } else {
-                        if (shouldAttemptRefresh(mgmtData)) {
-                            log.debug("{} Metadata was indicated to be refreshed based on refresh trigger time", 
-                                    getLogPrefix());
-                        } else {
-                            log.debug("{} Found requested metadata in backing store", getLogPrefix());
-                            candidates = descriptors;
-                        }
-                    }
-                } finally {
-                    readLock.unlock();
-                }
+                candidates = lookupLiveEntityID(entityID);
             } else {
                 log.debug("{} Single entityID unresolveable from criteria, will resolve from origin by criteria only",
                         getLogPrefix());
@@ -683,6 +830,315 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
         }
     }
     
+    /**
+     * Resolve metadata asynchronously.
+     * 
+     * <p>
+     * Equivalent to {@link #resolveAsync(CriteriaSet, Duration)} called with a null deadline.
+     * </p>
+     * 
+     * @param criteria the input criteria set
+     * 
+     * @return a future which completes with the resolved metadata
+     */
+    @Nonnull public CompletableFuture<Iterable<EntityDescriptor>> resolveAsync(
+            @Nullable final CriteriaSet criteria) {
+        return resolveAsync(criteria, null);
+    }
+    
+    /**
+     * Resolve metadata asynchronously.
+     * 
+     * <p>
+     * If the requested metadata is already live in the backing store, or the negative lookup cache
+     * for the entity is active, the returned future is already complete. Otherwise the fetch from the origin
+     * source is run on the {@link #getAsyncResolutionExecutor()}, so the calling thread is not blocked.
+     * Concurrent calls which require an origin source fetch for the same entityID share a single
+     * in-flight fetch, with each caller's own criteria predicates applied to the shared result.
+     * </p>
+     * 
+     * <p>
+     * If a deadline is supplied, the returned future completes exceptionally with a
+     * {@link java.util.concurrent.TimeoutException} if the deadline elapses first. The underlying
+     * in-flight fetch is not aborted, and its result is still processed for the benefit of later callers.
+     * </p>
+     * 
+     * <p>
+     * Resolution errors are reported by completing the future exceptionally, with the
+     * {@link ResolverException} as the cause.
+     * </p>
+     * 
+     * @param criteria the input criteria set
+     * @param deadline the maximum time to wait for the result, may be null
+     * 
+     * @return a future which completes with the resolved metadata
+     */
+    @Nonnull public CompletableFuture<Iterable<EntityDescriptor>> resolveAsync(@Nullable final CriteriaSet criteria,
+            @Nullable final Duration deadline) {
+        checkComponentActive();
+        
+        if (!isActivated(criteria)) {
+            log.info("{} Metadata resolver bypassed due to failed activation condition", getLogPrefix());
+            return CompletableFuture.completedFuture(CollectionSupport.emptyList());
+        }
+        
+        final Context contextResolve = MetricsSupport.startTimer(timerResolve);
+        
+        CompletableFuture<Iterable<EntityDescriptor>> result;
+        try {
+            final String entityID = resolveEntityID(criteria);
+            if (entityID != null) {
+                log.debug("{} Resolved criteria to entityID: {}", getLogPrefix(), entityID);
+                final List<EntityDescriptor> candidates = lookupLiveEntityID(entityID);
+                if (candidates != null) {
+                    result = CompletableFuture.completedFuture(predicateFilterCandidates(candidates, criteria, false));
+                } else {
+                    result = getInflightResolution(criteria, entityID)
+                            .thenApply(resolved -> predicateFilterCandidatesAsync(resolved, criteria));
+                }
+            } else {
+                log.debug("{} Single entityID unresolveable from criteria, will resolve from origin by criteria only",
+                        getLogPrefix());
+                result = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return predicateFilterCandidates(resolveFromOriginSource(criteria, null), criteria, false);
+                    } catch (final ResolverException e) {
+                        throw new CompletionException(e);
+                    }
+                }, ensureAsyncResolutionExecutor());
+            }
+        } catch (final ResolverException | RejectedExecutionException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        
+        result.whenComplete((r, t) -> MetricsSupport.stopTimer(contextResolve));
+        
+        if (deadline != null && !result.isDone()) {
+            return result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+    
+    /**
+     * Get the in-flight origin source resolution for the specified entityID, starting a new one
+     * if none is currently running.
+     * 
+     * @param criteria the input criteria set
+     * @param entityID the previously resolved single entityID
+     * 
+     * @return the shared future for the in-flight resolution
+     */
+    @Nonnull private CompletableFuture<Iterable<EntityDescriptor>> getInflightResolution(
+            @Nullable final CriteriaSet criteria, @Nonnull final String entityID) {
+        
+        final CompletableFuture<Iterable<EntityDescriptor>> candidate = new CompletableFuture<>();
+        final CompletableFuture<Iterable<EntityDescriptor>> existing =
+                inflightResolutions.putIfAbsent(entityID, candidate);
+        if (existing != null) {
+            log.debug("{} Joining in-flight resolution for entityID: {}", getLogPrefix(), entityID);
+            return existing;
+        }
+        
+        try {
+            ensureAsyncResolutionExecutor().execute(() -> {
+                try {
+                    final Iterable<EntityDescriptor> resolved = resolveFromOriginSource(criteria, entityID);
+                    inflightResolutions.remove(entityID, candidate);
+                    candidate.complete(resolved);
+                } catch (final ResolverException | RuntimeException e) {
+                    inflightResolutions.remove(entityID, candidate);
+                    candidate.completeExceptionally(e);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            log.warn("{} Asynchronous resolution for entityID '{}' rejected by executor", getLogPrefix(), entityID);
+            inflightResolutions.remove(entityID, candidate);
+            // Release any callers that joined before the rejection.
+            candidate.completeExceptionally(e);
+            throw e;
+        }
+        
+        return candidate;
+    }
+    
+    /**
+     * Resolve the metadata for each of the specified entityIDs ahead of demand, using at most
+     * {@link #getPrefetchMaxParallelism()} concurrent origin source fetches.
+     * 
+     * <p>
+     * Entities whose metadata is already live and does not require refresh are not fetched.
+     * Fetches run on the {@link #getAsyncResolutionExecutor()} and share any in-flight resolution for the same
+     * entityID started by {@link #resolveAsync(CriteriaSet, Duration)}. This method blocks until all fetches
+     * have completed. If the calling thread is interrupted, no further fetches are started and the
+     * entityIDs not yet attempted are omitted from the result.
+     * </p>
+     * 
+     * <p>
+     * Typical sources of the entityIDs are an external popularity feed, or the entityIDs of the entities
+     * currently held by a previous resolver instance's persistent cache.
+     * </p>
+     * 
+     * @param entityIDs the entityIDs to prefetch
+     * 
+     * @return the outcome for each distinct entityID, in iteration order of the input
+     */
+    @Nonnull @Unmodifiable @NotLive public Map<String, PrefetchOutcome> prefetch(
+            @Nonnull final Collection<String> entityIDs) {
+        checkComponentActive();
+        Constraint.isNotNull(entityIDs, "EntityID collection cannot be null");
+        
+        log.debug("{} Prefetching metadata for {} entityIDs", getLogPrefix(), entityIDs.size());
+        
+        final Semaphore permits = new Semaphore(getPrefetchMaxParallelism());
+        final Map<String, CompletableFuture<PrefetchOutcome>> futures = new LinkedHashMap<>();
+        for (final String untrimmed : entityIDs) {
+            final String entityID = StringSupport.trimOrNull(untrimmed);
+            if (entityID == null || futures.containsKey(entityID)) {
+                continue;
+            }
+            try {
+                permits.acquire();
+            } catch (final InterruptedException e) {
+                log.warn("{} Prefetch was interrupted, remaining entityIDs will not be fetched", getLogPrefix());
+                Thread.currentThread().interrupt();
+                break;
+            }
+            final CompletableFuture<PrefetchOutcome> future = prefetchEntityID(entityID);
+            future.whenComplete((r, t) -> permits.release());
+            futures.put(entityID, future);
+        }
+        
+        final Map<String, PrefetchOutcome> outcomes = new LinkedHashMap<>(futures.size());
+        for (final Map.Entry<String, CompletableFuture<PrefetchOutcome>> entry : futures.entrySet()) {
+            outcomes.put(entry.getKey(), entry.getValue().join());
+        }
+        
+        log.info("{} Prefetched metadata for {} entityIDs: {}", getLogPrefix(), outcomes.size(), 
+                outcomes.values().stream().collect(
+                        Collectors.groupingBy(Function.identity(), Collectors.counting())));
+        
+        return Collections.unmodifiableMap(outcomes);
+    }
+    
+    /**
+     * Prefetch the metadata for a single entityID.
+     * 
+     * @param entityID the entityID to prefetch
+     * 
+     * @return a future which completes with the prefetch outcome, and never completes exceptionally
+     */
+    @Nonnull private CompletableFuture<PrefetchOutcome> prefetchEntityID(@Nonnull final String entityID) {
+        try {
+            final List<EntityDescriptor> live = lookupLiveEntityID(entityID);
+            if (live != null) {
+                return CompletableFuture.completedFuture(
+                        live.isEmpty() ? PrefetchOutcome.NOT_FOUND : PrefetchOutcome.ALREADY_LIVE);
+            }
+            return getInflightResolution(new CriteriaSet(new EntityIdCriterion(entityID)), entityID)
+                    .handle((resolved, t) -> {
+                        if (t != null) {
+                            log.warn("{} Error prefetching metadata for entityID '{}'", getLogPrefix(), entityID, t);
+                            return PrefetchOutcome.FAILED;
+                        }
+                        return resolved.iterator().hasNext() ? PrefetchOutcome.LOADED : PrefetchOutcome.NOT_FOUND;
+                    });
+        } catch (final ResolverException | RejectedExecutionException e) {
+            log.warn("{} Error prefetching metadata for entityID '{}'", getLogPrefix(), entityID, e);
+            return CompletableFuture.completedFuture(PrefetchOutcome.FAILED);
+        }
+    }
+    
+    /**
+     * Variant of {@link #predicateFilterCandidates(Iterable, CriteriaSet, boolean)} for use
+     * in asynchronous completion stages.
+     * 
+     * @param candidates the candidates to evaluate
+     * @param criteria the criteria set to evaluate
+     * 
+     * @return an iterable of the candidates filtered by the resolved predicates
+     */
+    @Nonnull private Iterable<EntityDescriptor> predicateFilterCandidatesAsync(
+            @Nonnull final Iterable<EntityDescriptor> candidates, @Nullable final CriteriaSet criteria) {
+        try {
+            return predicateFilterCandidates(candidates, criteria, false);
+        } catch (final ResolverException e) {
+            throw new CompletionException(e);
+        }
+    }
+    
+    /**
+     * Get the executor for asynchronous resolution, creating the resolver's own if none was supplied.
+     * 
+     * @return the executor
+     */
+    @Nonnull private Executor ensureAsyncResolutionExecutor() {
+        if (asyncResolutionExecutor != null) {
+            return asyncResolutionExecutor;
+        }
+        synchronized (this) {
+            if (ownAsyncResolutionExecutor == null) {
+                final String threadName = TimerSupport.getTimerName(this) + "-async";
+                final AtomicInteger threadCount = new AtomicInteger();
+                final ThreadPoolExecutor executor = new ThreadPoolExecutor(asyncResolutionMaxThreads,
+                        asyncResolutionMaxThreads, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(asyncResolutionMaxQueueSize), r -> {
+                            final Thread thread = new Thread(r, threadName + "-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }, new ThreadPoolExecutor.AbortPolicy());
+                executor.allowCoreThreadTimeOut(true);
+                ownAsyncResolutionExecutor = executor;
+            }
+            assert ownAsyncResolutionExecutor != null;
+            return ownAsyncResolutionExecutor;
+        }
+    }
+    
+    /**
+     * Look up the live metadata for the specified entityID in the backing store, without resolving
+     * from the origin source.
+     * 
+     * @param entityID the entityID to look up
+     * 
+     * @return the live metadata, an empty list if the negative lookup cache is active, or null
+     *          if the metadata needs to be resolved from the origin source
+     * 
+     * @throws ResolverException if there is a fatal error attempting to look up the metadata
+     */
+    @Nullable protected List<EntityDescriptor> lookupLiveEntityID(@Nonnull final String entityID)
+            throws ResolverException {
+        
+        final EntityManagementData mgmtData = ensureBackingStore().getManagementData(entityID);
+        final Lock readLock = mgmtData.getReadWriteLock().readLock();
+        try {
+            readLock.lock();
+
+            final List<EntityDescriptor> descriptors = lookupEntityID(entityID);
+            if (descriptors.isEmpty()) {
+                if (mgmtData.isNegativeLookupCacheActive()) {
+                    log.debug("{} Did not find requested metadata in backing store, " 
+                            + "and negative lookup cache is active, returning empty result", 
+                            getLogPrefix());
+                    return CollectionSupport.emptyList();
+                }
+                log.debug("{} Did not find requested metadata in backing store, " 
+                        + "attempting to resolve dynamically", 
+                        getLogPrefix());
+            } else {
+                if (shouldAttemptRefresh(mgmtData)) {
+                    log.debug("{} Metadata was indicated to be refreshed based on refresh trigger time", 
+                            getLogPrefix());
+                } else {
+                    log.debug("{} Found requested metadata in backing store", getLogPrefix());
+                    return descriptors;
+                }
+            }
+            return null;
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
     /**
     * Attempt to resolve the single entityID for the operation from the criteria set.
     * 
@@ -1272,25 +1728,47 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
                             getLogPrefix(), getBackgroundInitializationFromCacheDelay());
                     final TimerTask initTask = new TimerTask() {
                         public void run() {
-                            initializeFromPersistentCache();
+                            if (!isDestroyed()) {
+                                initializeFromPersistentCache();
+                            }
                         }
                     };
-                    taskTimer.schedule(initTask, getBackgroundInitializationFromCacheDelay().toMillis());
+                    if (taskTimer != null) {
+                        taskTimer.schedule(initTask, getBackgroundInitializationFromCacheDelay().toMillis());
+                    } else {
+                        scheduledTaskFutures.add(BackgroundTaskSupport.schedule(ensureBackgroundTaskExecutor(),
+                                initTask, getBackgroundInitializationFromCacheDelay()));
+                    }
                 } else {
                     log.debug("{} Initializing from the persistent cache in the foreground", getLogPrefix());
                     initializeFromPersistentCache();
                 }
             }
             
-            cleanupTask = new BackingStoreCleanupSweeper();
+            final BackingStoreCleanupSweeper sweeper = new BackingStoreCleanupSweeper();
+            cleanupTask = sweeper;
             // Start with a delay of 1 minute, run at the user-specified interval
-            taskTimer.schedule(cleanupTask, 1*60*1000, getCleanupTaskInterval().toMillis());
+            if (taskTimer != null) {
+                taskTimer.schedule(sweeper, 1*60*1000, getCleanupTaskInterval().toMillis());
+            } else {
+                scheduledTaskFutures.add(BackgroundTaskSupport.scheduleWithFixedDelay(ensureBackgroundTaskExecutor(),
+                        sweeper, Duration.ofMinutes(1), getCleanupTaskInterval()));
+            }
 
         } finally {
             initializing = false;
         }
     }
 
+    /**
+     * Get the executor on which to schedule background management tasks when no timer was supplied.
+     * 
+     * @return the configured executor, or the shared default
+     */
+    @Nonnull private ScheduledExecutorService ensureBackgroundTaskExecutor() {
+        return taskExecutor != null ? taskExecutor : BackgroundTaskSupport.getDefaultExecutor();
+    }
+
     /**
      * Initialize the Metrics-based instrumentation.
      */
@@ -1494,12 +1972,21 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
         if (cleanupTask != null) {
             cleanupTask.cancel();
         }
-        if (createdOwnTaskTimer) {
-            taskTimer.cancel();
+        for (final ScheduledFuture<?> future : scheduledTaskFutures) {
+            future.cancel(false);
         }
+        scheduledTaskFutures.clear();
         cleanupTask = null;
         taskTimer = null;
         
+        synchronized (this) {
+            if (ownAsyncResolutionExecutor != null) {
+                ownAsyncResolutionExecutor.shutdownNow();
+                ownAsyncResolutionExecutor = null;
+            }
+        }
+        asyncResolutionExecutor = null;
+        
         if (ratioGaugeFetchToResolve != null) {
             MetricsSupport.remove(MetricRegistry.name(getMetricsBaseName(), METRIC_RATIOGAUGE_FETCH_TO_RESOLVE), 
                     ratioGaugeFetchToResolve);
@@ -1859,6 +2346,25 @@ public abstract class AbstractDynamicMetadataResolver extends AbstractMetadataRe
         
     }
     
+    /**
+     * Outcome of prefetching the metadata for a single entityID.
+     */
+    public enum PrefetchOutcome {
+        
+        /** Metadata was fetched from the origin source and is now live. */
+        LOADED,
+        
+        /** Metadata was already live and did not require refresh, so was not fetched. */
+        ALREADY_LIVE,
+        
+        /** No metadata was available from the origin source, or the negative lookup cache was active. */
+        NOT_FOUND,
+        
+        /** The fetch failed with an error. */
+        FAILED
+        
+    }
+    
     /**
      * Default function for generating a cache key for loading and saving an {@link EntityDescriptor}
      * using a {@link XMLObjectLoadSaveManager}.
@@ -331,17 +331,29 @@ public abstract class AbstractMetadataResolver extends AbstractIdentifiableIniti
     /** {@inheritDoc} */
     @Nonnull public Iterable<EntityDescriptor> resolve(@Nullable final CriteriaSet criteria) throws ResolverException {
         checkComponentActive();
+        if (!isActivated(criteria)) {
+            log.info("{} Metadata resolver bypassed due to failed activation condition", getLogPrefix());
+            return CollectionSupport.emptyList();
+        }
+        
+        return doResolve(criteria);
+    }
+    
+    /**
+     * Evaluate the activation condition, if any, against the supplied criteria.
+     * 
+     * @param criteria input criteria
+     * 
+     * @return true if the resolver is active for the supplied criteria, false if not
+     */
+    protected boolean isActivated(@Nullable final CriteriaSet criteria) {
         if (activationCondition != null) {
             final ProfileRequestContextCriterion prc =
                     criteria != null ? criteria.get(ProfileRequestContextCriterion.class) : null;
             assert activationCondition != null;
-            if (!activationCondition.test(prc != null ? prc.getProfileRequestContext() : null)) {
-                log.info("{} Metadata resolver bypassed due to failed activation condition", getLogPrefix());
-                return CollectionSupport.emptyList();
-            }
+            return activationCondition.test(prc != null ? prc.getProfileRequestContext() : null);
         }
-        
-        return doResolve(criteria);
+        return true;
     }
     
     /**
@@ -15,18 +15,25 @@
 package org.opensaml.saml.metadata.resolver.impl;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.opensaml.core.concurrent.BackgroundTaskSupport;
 import org.opensaml.core.metrics.MetricsSupport;
 import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.io.UnmarshallingException;
@@ -45,7 +52,6 @@ import net.shibboleth.shared.annotation.constraint.NotEmpty;
 import net.shibboleth.shared.component.ComponentInitializationException;
 import net.shibboleth.shared.logic.Constraint;
 import net.shibboleth.shared.primitive.LoggerFactory;
-import net.shibboleth.shared.primitive.TimerSupport;
 import net.shibboleth.shared.resolver.ResolverException;
 
 /**
@@ -68,18 +74,27 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
     /** Metric name for the timer for {@link #refresh()}. */
     @Nonnull @NotEmpty public static final String METRIC_TIMER_REFRESH = "timer.refresh";
 
+    /** Minimum delay before retrying a background refresh deferred by the refresh coordinator. */
+    @Nonnull private static final Duration MIN_DEFERRAL_DELAY = Duration.ofSeconds(1);
+
     /** Class logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(AbstractReloadingMetadataResolver.class);
 
-    /** Timer used to schedule background metadata update tasks. */
-    @Nonnull private Timer taskTimer;
+    /** Timer used to schedule background metadata update tasks, if supplied at construction. */
+    @Nullable private final Timer taskTimer;
     
-    /** Whether we created our own task timer during object construction. */
-    private boolean createdOwnTaskTimer;
+    /** Executor used to schedule background metadata update tasks when no timer was supplied. */
+    @Nullable private ScheduledExecutorService taskExecutor;
+        
+    /** Optional coordinator shared with other resolvers to spread out refreshes. */
+    @Nullable private RefreshCoordinator refreshCoordinator;
         
     /** Current task to refresh metadata. */
     @Nullable private RefreshMetadataTask refreshMetadataTask;
     
+    /** Future for the current task to refresh metadata, when scheduled via the executor. */
+    @Nullable private ScheduledFuture<?> refreshMetadataFuture;
+    
     /** Factor used to compute when the next refresh interval will occur. Default value: 0.75 */
     private float refreshDelayFactor = 0.75f;
 
@@ -130,6 +145,12 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
     /**
      * Constructor.
      * 
+     * <p>
+     * If a timer is not supplied, background refresh tasks are scheduled via the executor
+     * set with {@link #setBackgroundTaskExecutor(ScheduledExecutorService)}, or if none,
+     * the shared default executor from {@link BackgroundTaskSupport#getDefaultExecutor()}.
+     * </p>
+     * 
      * @param backgroundTaskTimer time used to schedule background refresh tasks
      */
     protected AbstractReloadingMetadataResolver(@Nullable final Timer backgroundTaskTimer) {
@@ -140,12 +161,59 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
         
         expirationWarningThreshold = Duration.ZERO;
         
-        if (backgroundTaskTimer == null) {
-            taskTimer = new Timer(TimerSupport.getTimerName(this), true);
-            createdOwnTaskTimer = true;
-        } else {
-            taskTimer = backgroundTaskTimer;
-        }
+        taskTimer = backgroundTaskTimer;
+    }
+    
+    /**
+     * Get the executor used to schedule background refresh tasks when no timer was supplied at construction.
+     * 
+     * @return the executor, or null if the default executor will be used
+     */
+    @Nullable public ScheduledExecutorService getBackgroundTaskExecutor() {
+        return taskExecutor;
+    }
+    
+    /**
+     * Set the executor used to schedule background refresh tasks when no timer was supplied at construction.
+     * 
+     * <p>
+     * If not set, the shared default executor from {@link BackgroundTaskSupport#getDefaultExecutor()} is used.
+     * </p>
+     * 
+     * @param executor the executor, may be null
+     */
+    public void setBackgroundTaskExecutor(@Nullable final ScheduledExecutorService executor) {
+        checkSetterPreconditions();
+        taskExecutor = executor;
+    }
+    
+    /**
+     * Get the coordinator shared with other resolvers to spread out refreshes.
+     * 
+     * @return the coordinator, or null
+     */
+    @Nullable public RefreshCoordinator getRefreshCoordinator() {
+        return refreshCoordinator;
+    }
+    
+    /**
+     * Set the coordinator shared with other resolvers to spread out refreshes.
+     * 
+     * <p>
+     * If set, a random jitter is added to each computed next refresh time, and the fetching and processing
+     * of metadata only starts when the coordinator allows it. A background refresh for which no permit is
+     * available is rescheduled after a further jitter rather than waiting, so that it does not occupy a
+     * thread of the shared scheduler. An explicit call to {@link #refresh()}, including the initial refresh
+     * during initialization, waits for a permit on the calling thread before entering this resolver's monitor.
+     * The first background refresh is additionally delayed by up to
+     * {@link RefreshCoordinator#getMaxInitialJitter()}.
+     * </p>
+     * 
+     * @param coordinator the coordinator, may be null
+     */
+    public void setRefreshCoordinator(@Nullable final RefreshCoordinator coordinator) {
+        checkSetterPreconditions();
+        refreshCoordinator = coordinator;
     }
     
     /** {@inheritDoc} */
@@ -301,13 +369,7 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
     /** {@inheritDoc} */
     @Override
     protected void doDestroy() {
-        if (refreshMetadataTask != null) {
-            refreshMetadataTask.cancel();
-        }
-        
-        if (createdOwnTaskTimer) {
-            taskTimer.cancel();
-        }
+        cancelRefreshMetadataTask();
         
         timerRefresh = null;
         expirationTime = null;
@@ -348,14 +410,44 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
         }
     }
 
-// Checkstyle: MethodLength OFF
     /**
      * Refreshes the metadata from its source.
      * 
+     * <p>
+     * If a {@link RefreshCoordinator} is set, the calling thread first waits until the coordinator allows
+     * the refresh to start.
+     * </p>
+     * 
      * @throws ResolverException thrown is there is a problem retrieving and processing the metadata
      */
     @Override
-    public synchronized void refresh() throws ResolverException {
+    public void refresh() throws ResolverException {
+        final RefreshCoordinator coordinator = refreshCoordinator;
+        if (coordinator == null) {
+            doRefresh();
+            return;
+        }
+        
+        try {
+            coordinator.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResolverException("Interrupted while waiting to refresh", e);
+        }
+        try {
+            doRefresh();
+        } finally {
+            coordinator.release();
+        }
+    }
+
+// Checkstyle: MethodLength OFF
+    /**
+     * Refreshes the metadata from its source, once any coordinator permit has been obtained.
+     * 
+     * @throws ResolverException thrown is there is a problem retrieving and processing the metadata
+     */
+    private synchronized void doRefresh() throws ResolverException {
         Instant now = null;
         String mdId = null;
         trackRefreshSuccess = false;
@@ -370,9 +462,7 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
 
             // A manual refresh() must cancel the previously-scheduled future task, since will (re)schedule its own.
             // If this execution *is* the task, it's ok to cancel ourself, we're already running.
-            if (refreshMetadataTask != null) {
-                refreshMetadataTask.cancel();
-            }
+            cancelRefreshMetadataTask();
             
             now = Instant.now();
             mdId = getMetadataIdentifier();
@@ -417,18 +507,79 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
                 wasLastRefreshSuccess = false;
             }
             
-            refreshMetadataTask = new RefreshMetadataTask();
+            if (refreshCoordinator != null && nextRefresh != null) {
+                nextRefresh = nextRefresh.plus(refreshCoordinator.nextJitter());
+                if (lastRefresh == null) {
+                    // Spread out the first background refreshes of resolvers initialized together.
+                    nextRefresh = nextRefresh.plus(refreshCoordinator.nextInitialJitter());
+                }
+            }
             final Instant nextRefreshCopy = nextRefresh;
             // TODO: why is this actually non-null here? Needs review.
             assert nextRefreshCopy != null;
-            final long nextRefreshDelay = nextRefreshCopy.toEpochMilli() - System.currentTimeMillis();
-            taskTimer.schedule(refreshMetadataTask, nextRefreshDelay);
+            scheduleRefreshMetadataTask(nextRefreshCopy.toEpochMilli() - System.currentTimeMillis(), null);
             log.info("{} Next refresh cycle for metadata provider '{}' will occur on '{}' ('{}' local time)",
                     new Object[] {getLogPrefix(), mdId, nextRefresh, nextRefreshCopy.atZone(ZoneId.systemDefault()),});
             lastRefresh = now;
         }
     }
 // Checkstyle: MethodLength ON
+    
+    /**
+     * Schedule the background task for the next refresh.
+     * 
+     * @param delay the delay in milliseconds before the refresh
+     * @param deferredSince when the refresh was first deferred by the coordinator, or null
+     */
+    private void scheduleRefreshMetadataTask(final long delay, @Nullable final Instant deferredSince) {
+        final RefreshMetadataTask task = new RefreshMetadataTask(deferredSince);
+        refreshMetadataTask = task;
+        if (taskTimer != null) {
+            taskTimer.schedule(task, delay);
+        } else {
+            refreshMetadataFuture = BackgroundTaskSupport.schedule(
+                    taskExecutor != null ? taskExecutor : BackgroundTaskSupport.getDefaultExecutor(),
+                    task, Duration.ofMillis(Math.max(delay, 0)));
+        }
+    }
+    
+    /**
+     * Reschedule a background refresh for which the coordinator had no permit available.
+     * 
+     * @param task the task which was unable to start
+     * @param coordinator the coordinator
+     */
+    private synchronized void deferRefreshMetadataTask(@Nonnull final RefreshMetadataTask task,
+            @Nonnull final RefreshCoordinator coordinator) {
+        // Leave alone if destroyed, or if a manual refresh has since scheduled its own task.
+        if (isDestroyed() || refreshMetadataTask != task) {
+            return;
+        }
+        
+        final Duration delay = MIN_DEFERRAL_DELAY.plus(coordinator.nextJitter());
+        log.debug("{} Refresh coordinator busy, deferring refresh of metadata from '{}' by {}", getLogPrefix(),
+                getMetadataIdentifier(), delay);
+        cancelRefreshMetadataTask();
+        final Instant deferredSince = task.getDeferredSince();
+        scheduleRefreshMetadataTask(delay.toMillis(), deferredSince != null ? deferredSince : Instant.now());
+    }
+    
+    /**
+     * Cancel the currently-scheduled background refresh task, if any.
+     * 
+     * <p>
+     * If the calling thread is running the task, it is not interrupted.
+     * </p>
+     */
+    private void cancelRefreshMetadataTask() {
+        if (refreshMetadataTask != null) {
+            refreshMetadataTask.cancel();
+        }
+        if (refreshMetadataFuture != null) {
+            refreshMetadataFuture.cancel(false);
+            refreshMetadataFuture = null;
+        }
+    }
 
     /**
      * Check cached metadata for expiration or pending expiration and log appropriately.
@@ -683,16 +834,38 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
      */
     @Nonnull protected byte[] inputstreamToByteArray(@Nonnull final InputStream ins) throws ResolverException {
         try (ins) {
-            // 1 MB read buffer
-            final byte[] buffer = new byte[1024 * 1024];
-            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            return ins.readAllBytes();
+        } catch (final IOException e) {
+            throw new ResolverException(e);
+        }
+    }
 
-            int n = 0;
-            while (-1 != (n = ins.read(buffer))) {
-                output.write(buffer, 0, n);
+    /**
+     * Reads the contents of a file into a byte array sized to the file.
+     * 
+     * <p>The file is read through a {@link FileChannel} directly into the returned array, avoiding the
+     * intermediate buffering and copying of {@link #inputstreamToByteArray(InputStream)}.</p>
+     * 
+     * @param path the file to read
+     * 
+     * @return resultant byte array
+     * 
+     * @throws ResolverException thrown if there is a problem reading the file
+     */
+    @Nonnull protected byte[] fileToByteArray(@Nonnull final Path path) throws ResolverException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new ResolverException("File " + path + " is too large to be read as metadata");
             }
-
-            return output.toByteArray();
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) {
+                    // File was truncated while being read.
+                    return Arrays.copyOf(buffer.array(), buffer.position());
+                }
+            }
+            return buffer.array();
         } catch (final IOException e) {
             throw new ResolverException(e);
         }
@@ -701,6 +874,27 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
     /** Background task that refreshes metadata. */
     private class RefreshMetadataTask extends TimerTask {
 
+        /** When this refresh was first deferred by the coordinator, if it has been. */
+        @Nullable private final Instant deferredSince;
+
+        /**
+         * Constructor.
+         *
+         * @param deferred when this refresh was first deferred by the coordinator, or null
+         */
+        RefreshMetadataTask(@Nullable final Instant deferred) {
+            deferredSince = deferred;
+        }
+
+        /**
+         * Get when this refresh was first deferred by the coordinator.
+         *
+         * @return when the refresh was first deferred, or null if it has not been
+         */
+        @Nullable Instant getDeferredSince() {
+            return deferredSince;
+        }
+
         /** {@inheritDoc} */
         //CheckStyle: ReturnCount OFF
         @Override public void run() {
@@ -710,7 +904,19 @@ public abstract class AbstractReloadingMetadataResolver extends AbstractBatchMet
                     return;
                 }
                 
-                refresh();
+                // Never wait for a permit here, since this may be running on a shared scheduler thread.
+                final RefreshCoordinator coordinator = refreshCoordinator;
+                if (coordinator == null) {
+                    doRefresh();
+                } else if (coordinator.tryAcquire(deferredSince)) {
+                    try {
+                        doRefresh();
+                    } finally {
+                        coordinator.release();
+                    }
+                } else {
+                    deferRefreshMetadataTask(this, coordinator);
+                }
             } catch (final ResolverException e) {
                 // nothing to do, error message already logged by refreshMetadata()
                 return;
@@ -17,6 +17,7 @@ package org.opensaml.saml.metadata.resolver.impl;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.Instant;
@@ -32,8 +33,6 @@ import org.opensaml.saml.metadata.resolver.filter.data.impl.MetadataSource;
 import org.slf4j.Logger;
 import org.w3c.dom.Document;
 
-import com.google.common.io.Files;
-
 import net.shibboleth.shared.annotation.constraint.NonnullAfterInit;
 import net.shibboleth.shared.component.ComponentInitializationException;
 import net.shibboleth.shared.logic.Constraint;
@@ -74,6 +73,9 @@ public class FileBackedHTTPMetadataResolver extends HTTPMetadataResolver {
     
     /** Flag indicating whether metadata load during init was from backup file. */
     private boolean initializedFromBackupFile;
+
+    /** Flag indicating whether the metadata currently being processed was read from the backup file. */
+    private boolean processingBackupFile;
     
     /** Duration after which to schedule next refresh, when initialized from backup file. */
     @Nonnull private Duration backupFileInitNextRefreshDelay;
@@ -270,21 +272,23 @@ public class FileBackedHTTPMetadataResolver extends HTTPMetadataResolver {
     /** {@inheritDoc} */
     @Override
     @Nullable protected byte[] fetchMetadata() throws ResolverException {
+        processingBackupFile = false;
         if (initializing && initializeFromBackupFile && metadataBackupFile.exists()) {
             log.info("{} On initialization, detected existing backup file, attempting load from that: {}",
                         getLogPrefix(), metadataBackupFile.getAbsolutePath());
             try {
-                final byte[] backingData = Files.toByteArray(metadataBackupFile);
-                if (backingData == null || backingData.length == 0) {
+                final byte[] backingData = fileToByteArray(metadataBackupFile.toPath());
+                if (backingData.length == 0) {
                     log.info("{} Backup file byte array was null or empty, continuing with normal HTTP fetch: {}", 
                             getLogPrefix(), metadataBackupFile.getAbsolutePath());
                 } else {
                     log.info("{} Successfully initialized from backup file: {}", 
                             getLogPrefix(), metadataBackupFile.getAbsolutePath());
                     initializedFromBackupFile = true;
+                    processingBackupFile = true;
                     return backingData;
                 }
-            } catch (final IOException e) {
+            } catch (final ResolverException e) {
                 log.warn("{} Error initializing from backup file, continuing with normal HTTP fetch", 
                         getLogPrefix(), e);
             }
@@ -303,12 +307,14 @@ public class FileBackedHTTPMetadataResolver extends HTTPMetadataResolver {
                 log.warn("{} Problem reading metadata from remote source, processing existing backup file: {}", 
                         getLogPrefix(), metadataBackupFile.getAbsolutePath());
                 try {
-                    return Files.toByteArray(metadataBackupFile);
-                } catch (final IOException ioe) {
+                    final byte[] backingData = fileToByteArray(metadataBackupFile.toPath());
+                    processingBackupFile = true;
+                    return backingData;
+                } catch (final ResolverException re) {
                     final String errMsg = "Unable to retrieve metadata from backup file "
                             + metadataBackupFile.getAbsolutePath();
-                    log.error("{} {}: {}", getLogPrefix(), errMsg, ioe.getMessage());
-                    throw new ResolverException(errMsg, ioe);
+                    log.error("{} {}: {}", getLogPrefix(), errMsg, re.getMessage());
+                    throw new ResolverException(errMsg, re);
                 }
             }
             log.error("{} Unable to read metadata from remote server and backup does not exist", getLogPrefix());
@@ -348,6 +354,12 @@ public class FileBackedHTTPMetadataResolver extends HTTPMetadataResolver {
             @Nonnull final XMLObject originalMetadata, @Nullable final XMLObject filteredMetadata)
                     throws ResolverException {
 
+        if (processingBackupFile) {
+            log.debug("{} Metadata was read from the backup file, skipping rewrite of backup file", getLogPrefix());
+            super.postProcessMetadata(metadataBytes, metadataDom, originalMetadata, filteredMetadata);
+            return;
+        }
+
         final File staging = new File(metadataBackupFile.getAbsolutePath() + ".staging");
         try {
             validateBackupFile(staging);
@@ -358,7 +370,7 @@ public class FileBackedHTTPMetadataResolver extends HTTPMetadataResolver {
             }
 
             try {
-                java.nio.file.Files.move(staging.toPath(), metadataBackupFile.toPath(),
+                Files.move(staging.toPath(), metadataBackupFile.toPath(),
                         StandardCopyOption.REPLACE_EXISTING);
             } catch (final IOException e) {
                 log.warn("{} Error moving metadata backup staging file into place: {}",
@@ -15,15 +15,20 @@
 package org.opensaml.saml.metadata.resolver.impl;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Timer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.security.crypto.JCAConstants;
 import org.slf4j.Logger;
+import org.w3c.dom.Document;
 
 import net.shibboleth.shared.annotation.constraint.NonnullAfterInit;
 import net.shibboleth.shared.logic.Constraint;
@@ -44,6 +49,11 @@ import net.shibboleth.shared.resolver.ResolverException;
  * 1.0 and a min refresh delay that is not overly large, this refresh will likely occur a few times before the cache
  * expires.
  * 
+ * <p>
+ * A refresh only reads the file if its size or modification time differ from those of the last successfully
+ * loaded copy, and only parses it if the SHA-256 digest of the bytes read has also changed. The digest is computed
+ * over the same bytes that are parsed. A file that has merely been touched is therefore not reprocessed.
+ * </p>
  */
 public class FilesystemMetadataResolver extends AbstractReloadingMetadataResolver {
 
@@ -53,6 +63,24 @@ public class FilesystemMetadataResolver extends AbstractReloadingMetadataResolve
     /** The metadata file. */
     @NonnullAfterInit private File metadataFile;
 
+    /** Modification time of the last loaded (or verified unchanged) copy of the file. */
+    @Nullable private Instant loadedModifiedTime;
+
+    /** Size of the last loaded copy of the file. */
+    private long loadedSize = -1;
+
+    /** Digest of the last loaded copy of the file. */
+    @Nullable private byte[] loadedDigest;
+
+    /** Modification time of the copy of the file currently being processed. */
+    @Nullable private Instant pendingModifiedTime;
+
+    /** Size of the copy of the file currently being processed. */
+    private long pendingSize = -1;
+
+    /** Digest of the copy of the file currently being processed. */
+    @Nullable private byte[] pendingDigest;
+
     /**
      * Constructor.
      * 
@@ -96,6 +124,8 @@ public class FilesystemMetadataResolver extends AbstractReloadingMetadataResolve
     protected void doDestroy() {
         // TODO: if we pull this, becomes Nonnull.
         metadataFile = null;
+        loadedDigest = null;
+        pendingDigest = null;
           
         super.doDestroy();
     }
@@ -112,18 +142,61 @@ public class FilesystemMetadataResolver extends AbstractReloadingMetadataResolve
         try {
             validateMetadataFile(metadataFile);
             final Instant metadataUpdateTime = Instant.ofEpochMilli(metadataFile.lastModified());
-            if (getLastRefresh() == null || getLastUpdate() == null || metadataUpdateTime.isAfter(getLastUpdate())) {
-                // This closes the stream....
-                return inputstreamToByteArray(new FileInputStream(metadataFile));
+            final long metadataSize = metadataFile.length();
+            final boolean loaded = getLastRefresh() != null && getLastUpdate() != null && loadedDigest != null;
+            if (loaded && metadataSize == loadedSize && metadataUpdateTime.equals(loadedModifiedTime)) {
+                return null;
             }
 
-            return null;
+            // Digest the bytes that will be parsed, so a concurrent write can't make the two differ.
+            final byte[] metadataBytes = fileToByteArray(metadataFile.toPath());
+            final byte[] digest = digest(metadataBytes);
+            if (loaded && Arrays.equals(digest, loadedDigest)) {
+                log.debug("{} Metadata file was modified but its content is unchanged, skipping reload",
+                        getLogPrefix());
+                loadedModifiedTime = metadataUpdateTime;
+                return null;
+            }
+
+            pendingModifiedTime = metadataUpdateTime;
+            pendingSize = metadataBytes.length;
+            pendingDigest = digest;
+            return metadataBytes;
         } catch (final IOException e) {
             final String errMsg = "Unable to read metadata file " + metadataFile.getAbsolutePath();
             log.error("{} {}: {}", getLogPrefix(), errMsg, e.getMessage());
             throw new ResolverException(errMsg, e);
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void postProcessMetadata(@Nonnull final byte[] metadataBytes, @Nonnull final Document metadataDom,
+            @Nonnull final XMLObject originalMetadata, @Nullable final XMLObject filteredMetadata)
+                    throws ResolverException {
+        // Only record the file state once it has been successfully processed, so a failed load is retried.
+        loadedModifiedTime = pendingModifiedTime;
+        loadedSize = pendingSize;
+        loadedDigest = pendingDigest;
+        super.postProcessMetadata(metadataBytes, metadataDom, originalMetadata, filteredMetadata);
+    }
+
+    /**
+     * Compute the SHA-256 digest of the metadata.
+     * 
+     * @param metadataBytes the metadata
+     * 
+     * @return the digest value
+     * 
+     * @throws IOException if the digest algorithm is unavailable
+     */
+    @Nonnull private static byte[] digest(@Nonnull final byte[] metadataBytes) throws IOException {
+        try {
+            return MessageDigest.getInstance(JCAConstants.DIGEST_SHA256).digest(metadataBytes);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
     
     /**
      * Validate the basic properties of the specified metadata file, for example that it exists; 
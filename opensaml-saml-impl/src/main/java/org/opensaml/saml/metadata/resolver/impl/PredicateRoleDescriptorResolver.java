@@ -30,10 +30,12 @@ import org.opensaml.saml.criterion.ProtocolCriterion;
 import org.opensaml.saml.metadata.criteria.role.EvaluableRoleDescriptorCriterion;
 import org.opensaml.saml.metadata.criteria.role.impl.RoleDescriptorCriterionPredicateRegistry;
 import org.opensaml.saml.metadata.resolver.MetadataResolver;
+import org.opensaml.saml.metadata.resolver.RefreshableMetadataResolver;
 import org.opensaml.saml.metadata.resolver.RoleDescriptorResolver;
 import org.opensaml.saml.saml2.common.IsTimeboundSAMLObjectValidPredicate;
 import org.opensaml.saml.saml2.metadata.EntityDescriptor;
 import org.opensaml.saml.saml2.metadata.RoleDescriptor;
+import org.opensaml.security.trust.TrustInformationGenerationSource;
 import org.slf4j.Logger;
 
 import com.google.common.collect.Iterables;
@@ -67,7 +69,7 @@ import net.shibboleth.shared.resolver.ResolverSupport;
  * </p>
  */
 public class PredicateRoleDescriptorResolver extends AbstractIdentifiedInitializableComponent 
-        implements RoleDescriptorResolver {
+        implements RoleDescriptorResolver, TrustInformationGenerationSource {
     
     /** Predicate for evaluating whether a TimeboundSAMLObject is valid. */
     @Nonnull private static final Predicate<XMLObject> IS_VALID_PREDICATE = new IsTimeboundSAMLObjectValidPredicate();
@@ -228,6 +230,21 @@ public class PredicateRoleDescriptorResolver extends AbstractIdentifiedInitializ
         }
     }
     
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * This implementation returns the last update time of the wrapped metadata resolver, if it is a
+     * {@link RefreshableMetadataResolver}, otherwise null.
+     * </p>
+     */
+    @Nullable public Object getTrustInformationGeneration() {
+        if (entityDescriptorResolver instanceof RefreshableMetadataResolver refreshable) {
+            return refreshable.getLastUpdate();
+        }
+        return null;
+    }
+    
     /** {@inheritDoc} */
     @Nullable public RoleDescriptor resolveSingle(@Nullable final CriteriaSet criteria) throws ResolverException {
         checkComponentActive();
@@ -0,0 +1,342 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.metadata.resolver.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.core.metrics.MetricsSupport;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import net.shibboleth.shared.annotation.constraint.NonnullAfterInit;
+import net.shibboleth.shared.annotation.constraint.NotEmpty;
+import net.shibboleth.shared.annotation.constraint.Positive;
+import net.shibboleth.shared.component.AbstractIdentifiableInitializableComponent;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+
+/**
+ * Component shared by a set of {@link AbstractReloadingMetadataResolver} instances to spread out their
+ * refresh cycles.
+ * 
+ * <p>
+ * A random delay of up to {@link #getMaxJitter()} is added to each resolver's computed next refresh time, so that
+ * resolvers started together do not remain aligned, and at most {@link #getMaxConcurrentRefreshes()} of the
+ * resolvers fetch and process metadata at the same time. Explicit refreshes beyond that limit wait their turn,
+ * while background refreshes are deferred and counted. In both cases the time from when a refresh was due to when
+ * it started is recorded as a metric. Each resolver's first background refresh is additionally delayed by up to
+ * {@link #getMaxInitialJitter()}.
+ * </p>
+ */
+public class RefreshCoordinator extends AbstractIdentifiableInitializableComponent {
+    
+    /** Metric name for the timer of the delay waiting to start a refresh. */
+    @Nonnull @NotEmpty public static final String METRIC_TIMER_QUEUE_DELAY = "timer.queueDelay";
+    
+    /** Metric name for the gauge of the number of refreshes waiting to start. */
+    @Nonnull @NotEmpty public static final String METRIC_GAUGE_WAITING = "gauge.waiting";
+    
+    /** Metric name for the gauge of the number of refreshes in progress. */
+    @Nonnull @NotEmpty public static final String METRIC_GAUGE_ACTIVE = "gauge.active";
+    
+    /** Metric name for the counter of background refreshes deferred for lack of a permit. */
+    @Nonnull @NotEmpty public static final String METRIC_COUNTER_DEFERRED = "counter.deferred";
+    
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(RefreshCoordinator.class);
+    
+    /** Maximum number of concurrent refreshes. */
+    @Positive private int maxConcurrentRefreshes;
+    
+    /** Maximum jitter added to the next refresh time. */
+    @Nonnull private Duration maxJitter;
+    
+    /** Maximum jitter by which a resolver's initial refresh is delayed. */
+    @Nonnull private Duration maxInitialJitter;
+    
+    /** Permits for concurrent refreshes. */
+    @NonnullAfterInit private Semaphore permits;
+    
+    /** Base name for metrics. */
+    @NonnullAfterInit private String metricsBaseName;
+    
+    /** Metrics Timer for the queueing delay. */
+    @Nullable private Timer timerQueueDelay;
+    
+    /** Metrics Counter for deferred refreshes. */
+    @Nullable private Counter counterDeferred;
+    
+    /** Metrics Gauge for the number of waiting refreshes. */
+    @Nullable private Gauge<Integer> gaugeWaiting;
+    
+    /** Metrics Gauge for the number of active refreshes. */
+    @Nullable private Gauge<Integer> gaugeActive;
+    
+    /** Constructor. */
+    public RefreshCoordinator() {
+        maxConcurrentRefreshes = 2;
+        maxJitter = Duration.ofMinutes(1);
+        maxInitialJitter = Duration.ofSeconds(5);
+    }
+    
+    /**
+     * Get the maximum number of refreshes which may be in progress at the same time.
+     * 
+     * <p>Defaults to: 2.</p>
+     * 
+     * @return the maximum number of concurrent refreshes
+     */
+    @Positive public int getMaxConcurrentRefreshes() {
+        return maxConcurrentRefreshes;
+    }
+    
+    /**
+     * Set the maximum number of refreshes which may be in progress at the same time.
+     * 
+     * <p>Defaults to: 2.</p>
+     * 
+     * @param max the maximum number of concurrent refreshes
+     */
+    public void setMaxConcurrentRefreshes(@Positive final int max) {
+        checkSetterPreconditions();
+        maxConcurrentRefreshes = Constraint.isGreaterThan(0, max, "Max concurrent refreshes must be greater than 0");
+    }
+    
+    /**
+     * Get the maximum random delay added to a resolver's computed next refresh time.
+     * 
+     * <p>Defaults to: 1 minute.</p>
+     * 
+     * @return the maximum jitter
+     */
+    @Nonnull public Duration getMaxJitter() {
+        return maxJitter;
+    }
+    
+    /**
+     * Set the maximum random delay added to a resolver's computed next refresh time.
+     * 
+     * <p>Defaults to: 1 minute.</p>
+     * 
+     * @param jitter the maximum jitter, or zero for none
+     */
+    public void setMaxJitter(@Nonnull final Duration jitter) {
+        checkSetterPreconditions();
+        
+        Constraint.isNotNull(jitter, "Max jitter cannot be null");
+        Constraint.isFalse(jitter.isNegative(), "Max jitter cannot be negative");
+        
+        maxJitter = jitter;
+    }
+    
+    /**
+     * Get the maximum random delay added to a resolver's first background refresh.
+     * 
+     * <p>Defaults to: 5 seconds.</p>
+     * 
+     * @return the maximum initial jitter
+     */
+    @Nonnull public Duration getMaxInitialJitter() {
+        return maxInitialJitter;
+    }
+    
+    /**
+     * Set the maximum random delay added to a resolver's first background refresh.
+     * 
+     * <p>
+     * The initial refresh during initialization is never delayed, so this does not add to startup time.
+     * </p>
+     * 
+     * <p>Defaults to: 5 seconds.</p>
+     * 
+     * @param jitter the maximum initial jitter, or zero for none
+     */
+    public void setMaxInitialJitter(@Nonnull final Duration jitter) {
+        checkSetterPreconditions();
+        
+        Constraint.isNotNull(jitter, "Max initial jitter cannot be null");
+        Constraint.isFalse(jitter.isNegative(), "Max initial jitter cannot be negative");
+        
+        maxInitialJitter = jitter;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected void doInitialize() throws ComponentInitializationException {
+        super.doInitialize();
+        
+        permits = new Semaphore(maxConcurrentRefreshes, true);
+        metricsBaseName = MetricRegistry.name(getClass().getName(), getId());
+        
+        final MetricRegistry metricRegistry = MetricsSupport.getMetricRegistry();
+        if (metricRegistry != null) {
+            timerQueueDelay = metricRegistry.timer(MetricRegistry.name(metricsBaseName, METRIC_TIMER_QUEUE_DELAY));
+            counterDeferred = metricRegistry.counter(MetricRegistry.name(metricsBaseName, METRIC_COUNTER_DEFERRED));
+            
+            gaugeWaiting = MetricsSupport.register(MetricRegistry.name(metricsBaseName, METRIC_GAUGE_WAITING),
+                    new Gauge<Integer>() {
+                        public Integer getValue() {
+                            return permits.getQueueLength();
+                        }},
+                    true);
+            
+            gaugeActive = MetricsSupport.register(MetricRegistry.name(metricsBaseName, METRIC_GAUGE_ACTIVE),
+                    new Gauge<Integer>() {
+                        public Integer getValue() {
+                            return maxConcurrentRefreshes - permits.availablePermits();
+                        }},
+                    true);
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected void doDestroy() {
+        if (gaugeWaiting != null) {
+            MetricsSupport.remove(MetricRegistry.name(metricsBaseName, METRIC_GAUGE_WAITING), gaugeWaiting);
+        }
+        if (gaugeActive != null) {
+            MetricsSupport.remove(MetricRegistry.name(metricsBaseName, METRIC_GAUGE_ACTIVE), gaugeActive);
+        }
+        gaugeWaiting = null;
+        gaugeActive = null;
+        timerQueueDelay = null;
+        counterDeferred = null;
+        
+        super.doDestroy();
+    }
+    
+    /**
+     * Get a random jitter to add to a resolver's computed next refresh time.
+     * 
+     * @return a duration between zero and {@link #getMaxJitter()}, inclusive
+     */
+    @Nonnull public Duration nextJitter() {
+        return randomDuration(maxJitter);
+    }
+    
+    /**
+     * Get a random delay to add to a resolver's first background refresh.
+     * 
+     * @return a duration between zero and {@link #getMaxInitialJitter()}, inclusive
+     */
+    @Nonnull public Duration nextInitialJitter() {
+        return randomDuration(maxInitialJitter);
+    }
+    
+    /**
+     * Wait until a refresh may start.
+     * 
+     * <p>
+     * Each successful call must be balanced by a call to {@link #release()} once the refresh has completed.
+     * </p>
+     * 
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        checkComponentActive();
+        
+        final long start = System.nanoTime();
+        permits.acquire();
+        final long waited = System.nanoTime() - start;
+        
+        if (timerQueueDelay != null) {
+            timerQueueDelay.update(waited, TimeUnit.NANOSECONDS);
+        }
+        log.trace("Refresh waited {} ms to start", TimeUnit.NANOSECONDS.toMillis(waited));
+    }
+    
+    /**
+     * Start a refresh if a permit is available, without waiting.
+     * 
+     * <p>
+     * Each successful call must be balanced by a call to {@link #release()} once the refresh has completed.
+     * A caller which is refused should retry later, e.g. after {@link #nextJitter()}.
+     * </p>
+     * 
+     * @return true if the refresh may start, false if the maximum number of refreshes are already in progress
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(null);
+    }
+    
+    /**
+     * Start a refresh if a permit is available, without waiting, recording how long it has been deferred.
+     * 
+     * <p>
+     * Each successful call must be balanced by a call to {@link #release()} once the refresh has completed.
+     * A caller which is refused should retry later, e.g. after {@link #nextJitter()}, passing the same
+     * starting point so that the total delay is recorded once the refresh starts.
+     * </p>
+     * 
+     * @param deferredSince when the refresh was first deferred, or null if it has not been
+     * 
+     * @return true if the refresh may start, false if the maximum number of refreshes are already in progress
+     */
+    public boolean tryAcquire(@Nullable final Instant deferredSince) {
+        checkComponentActive();
+        
+        if (permits.tryAcquire()) {
+            final Duration waited = deferredSince != null ? Duration.between(deferredSince, Instant.now())
+                    : Duration.ZERO;
+            if (timerQueueDelay != null) {
+                timerQueueDelay.update(waited.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            log.trace("Refresh deferred {} ms before starting", waited.toMillis());
+            return true;
+        }
+        
+        if (counterDeferred != null) {
+            counterDeferred.inc();
+        }
+        log.trace("No permit available, refresh deferred");
+        return false;
+    }
+    
+    /**
+     * Signal that a refresh started via {@link #acquire()} or {@link #tryAcquire()} has completed.
+     */
+    public void release() {
+        permits.release();
+    }
+    
+    /**
+     * Get a random duration.
+     * 
+     * @param max the maximum duration
+     * 
+     * @return a duration between zero and the maximum, inclusive
+     */
+    @Nonnull private static Duration randomDuration(@Nonnull final Duration max) {
+        final long millis = max.toMillis();
+        if (millis <= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(millis + 1));
+    }
+
+}
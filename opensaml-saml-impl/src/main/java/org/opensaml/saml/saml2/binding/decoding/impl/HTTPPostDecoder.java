@@ -14,7 +14,6 @@
 
 package org.opensaml.saml.saml2.binding.decoding.impl;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -36,7 +35,6 @@ import com.google.common.base.Strings;
 
 import jakarta.servlet.http.HttpServletRequest;
 import net.shibboleth.shared.annotation.constraint.NotEmpty;
-import net.shibboleth.shared.codec.Base64Support;
 import net.shibboleth.shared.codec.DecodingException;
 import net.shibboleth.shared.collection.Pair;
 import net.shibboleth.shared.primitive.LoggerFactory;
@@ -91,8 +89,8 @@ public class HTTPPostDecoder extends BaseSAMLHttpServletRequestDecoder implement
         log.debug("Decoded SAML relay state of: {}", relayState);
         SAMLBindingSupport.setRelayState(messageContext, relayState);
 
-        // The default impl is a ByteArrayInputStream, which really doesn't need to be closed.  But this could
-        // be overridden, so be safe and make sure it gets closed.  Also for style and consistency.
+        // The default impl decodes from the in-memory parameter value, so really doesn't need to be closed.  But this
+        // could be overridden, so be safe and make sure it gets closed.  Also for style and consistency.
         final Pair<InputStream,String> messageData = getBase64DecodedMessage(request);
         try (final InputStream base64DecodedMessage = messageData.getFirst()) {
             assert base64DecodedMessage != null;
@@ -114,6 +112,8 @@ public class HTTPPostDecoder extends BaseSAMLHttpServletRequestDecoder implement
     /**
      * Gets the Base64 encoded message from the request and decodes it.
      * 
+     * <p>The message is decoded as the returned stream is read, subject to {@link #getMaxMessageSize()}.</p>
+     * 
      * @param request the inbound HTTP servlet request
      * 
      * @return decoded message
@@ -142,10 +142,7 @@ public class HTTPPostDecoder extends BaseSAMLHttpServletRequestDecoder implement
 
         try {
             log.trace("Base64 decoding SAML message:\n{}", encodedMessage);
-            final byte[] decodedBytes = Base64Support.decode(encodedMessage);            
-            log.trace("Decoded SAML message:\n{}", new String(decodedBytes));
-            return new Pair<>(new ByteArrayInputStream(decodedBytes), samlMessageParamName);
-            
+            return new Pair<>(getBase64DecodingStream(encodedMessage), samlMessageParamName);
         } catch (final DecodingException e) {        
             log.error("Unable to Base64 decode SAML message");
             throw new MessageDecodingException("Unable to Base64 decode SAML message",e);
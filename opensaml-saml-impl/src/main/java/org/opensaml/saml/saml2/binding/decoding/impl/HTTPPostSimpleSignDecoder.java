@@ -14,6 +14,8 @@
 
 package org.opensaml.saml.saml2.binding.decoding.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 
 import javax.annotation.Nonnull;
@@ -30,7 +32,6 @@ import com.google.common.base.Strings;
 
 import jakarta.servlet.http.HttpServletRequest;
 import net.shibboleth.shared.annotation.constraint.NotEmpty;
-import net.shibboleth.shared.codec.Base64Support;
 import net.shibboleth.shared.codec.DecodingException;
 import net.shibboleth.shared.logic.Constraint;
 import net.shibboleth.shared.primitive.LoggerFactory;
@@ -101,12 +102,12 @@ public class HTTPPostSimpleSignDecoder extends HTTPPostDecoder {
             if (request.getParameter("SAMLRequest") != null) {
                 final String paramValue = request.getParameter("SAMLRequest");
                 assert paramValue != null;
-                samlMsg = new String(Base64Support.decode(paramValue), StandardCharsets.UTF_8);
+                samlMsg = decodeParameter(paramValue);
                 builder.append("SAMLRequest=" + samlMsg);
             } else if (request.getParameter("SAMLResponse") != null) {
                 final String paramValue = request.getParameter("SAMLResponse");
                 assert paramValue != null;
-                samlMsg = new String(Base64Support.decode(paramValue), StandardCharsets.UTF_8);
+                samlMsg = decodeParameter(paramValue);
                 builder.append("SAMLResponse=" + samlMsg);
             } else {
                 log.warn("Could not extract either a SAMLRequest or a SAMLResponse from the form control data");
@@ -116,6 +117,10 @@ public class HTTPPostSimpleSignDecoder extends HTTPPostDecoder {
             log.error("Unable to Base64 decode either a SAMLRequest or a SAMLResponse from the form control data");
             throw new MessageDecodingException("Unable to Base64 decode either a SAMLRequest or a SAMLResponse "
                     + "from the form control data",e);
+        } catch (final IOException e) {
+            log.error("Unable to read SAMLRequest or SAMLResponse from the form control data: {}", e.getMessage());
+            throw new MessageDecodingException("Unable to read SAMLRequest or SAMLResponse "
+                    + "from the form control data", e);
         }
 
         // Optional
@@ -140,4 +145,20 @@ public class HTTPPostSimpleSignDecoder extends HTTPPostDecoder {
         return constructed.getBytes(StandardCharsets.UTF_8);
     }
     
+    /**
+     * Base64-decode a message parameter, subject to {@link #getMaxMessageSize()}.
+     * 
+     * @param paramValue the encoded parameter value
+     * 
+     * @return the decoded value
+     * 
+     * @throws DecodingException if the value is not valid base64
+     * @throws IOException if the decoded value exceeds the maximum message size
+     */
+    @Nonnull private String decodeParameter(@Nonnull final String paramValue) throws DecodingException, IOException {
+        try (final InputStream input = getBase64DecodingStream(paramValue)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
 }
\ No newline at end of file
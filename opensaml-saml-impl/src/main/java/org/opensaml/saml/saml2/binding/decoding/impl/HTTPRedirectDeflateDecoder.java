@@ -14,15 +14,12 @@
 
 package org.opensaml.saml.saml2.binding.decoding.impl;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
-import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -34,6 +31,7 @@ import org.opensaml.saml.common.binding.BindingDescriptor;
 import org.opensaml.saml.common.binding.SAMLBindingSupport;
 import org.opensaml.saml.common.binding.decoding.SAMLMessageDecoder;
 import org.opensaml.saml.common.binding.impl.BaseSAMLHttpServletRequestDecoder;
+import org.opensaml.saml.common.binding.impl.DeflateSupport;
 import org.opensaml.saml.common.messaging.context.SAMLBindingContext;
 import org.opensaml.saml.common.xml.SAMLConstants;
 import org.slf4j.Logger;
@@ -42,7 +40,6 @@ import com.google.common.base.Strings;
 
 import jakarta.servlet.http.HttpServletRequest;
 import net.shibboleth.shared.annotation.constraint.NotEmpty;
-import net.shibboleth.shared.codec.Base64Support;
 import net.shibboleth.shared.collection.CollectionSupport;
 import net.shibboleth.shared.collection.Pair;
 import net.shibboleth.shared.logic.Constraint;
@@ -294,6 +291,9 @@ public class HTTPRedirectDeflateDecoder extends BaseSAMLHttpServletRequestDecode
     /**
      * Base64 decodes the SAML message and then decompresses the message.
      * 
+     * <p>The message is decoded and decompressed as the returned stream is read, and both the compressed and
+     * decompressed data are subject to {@link #getMaxMessageSize()}.</p>
+     * 
      * @param message Base64 encoded, DEFALTE compressed, SAML message
      * 
      * @return the SAML message
@@ -304,8 +304,7 @@ public class HTTPRedirectDeflateDecoder extends BaseSAMLHttpServletRequestDecode
         log.debug("Base64 decoding and inflating SAML message");
 
         try {
-            final byte[] decodedBytes = Base64Support.decode(message);
-            return new NoWrapAutoEndInflaterInputStream(new ByteArrayInputStream(decodedBytes));
+            return applyMessageSizeLimit(DeflateSupport.newInflaterInputStream(getBase64DecodingStream(message)));
         } catch (final Exception e) {
             log.error("Unable to Base64 decode and inflate SAML message: {}", e.getMessage());
             throw new MessageDecodingException("Unable to Base64 decode and inflate SAML message", e);
@@ -329,29 +328,5 @@ public class HTTPRedirectDeflateDecoder extends BaseSAMLHttpServletRequestDecode
                 !Strings.isNullOrEmpty(request.getParameter("Signature")));
         bindingContext.setIntendedDestinationEndpointURIRequired(SAMLBindingSupport.isMessageSigned(messageContext));
     }
-    
-    /** A subclass of {@link InflaterInputStream} which defaults in a no-wrap {@link Inflater} instance and
-     * closes it when the stream is closed.
-     */
-    private class NoWrapAutoEndInflaterInputStream extends InflaterInputStream {
-
-        /**
-         * Creates a new input stream with a default no-wrap decompressor and buffer size.
-         *
-         * @param is the input stream
-         */
-        public NoWrapAutoEndInflaterInputStream(@Nonnull final InputStream is) {
-            super(is, new Inflater(true));
-        }
-
-        /** {@inheritDoc} */
-        public void close() throws IOException {
-            if (inf != null) {
-                inf.end();
-            }
-            super.close();
-        }
-
-    }
 
-}
\ No newline at end of file
+}
@@ -14,9 +14,15 @@
 
 package org.opensaml.saml.saml2.binding.encoding.impl;
 
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -58,6 +64,27 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder implements HTMLMess
     /** Default template ID. */
     @Nonnull @NotEmpty public static final String DEFAULT_TEMPLATE_ID = "/templates/saml2-post-binding.vm";
 
+    /** Script run when the streamed form is loaded. */
+    @Nonnull @NotEmpty protected static final String ON_LOAD = "document.forms[0].submit()";
+
+    /** Streamed form content preceding the action URL. */
+    @Nonnull private static final byte[] FORM_HEADER = ("<!DOCTYPE html>\n<html>\n    <head>\n"
+            + "        <meta charset=\"utf-8\" />\n    </head>\n    <body onload=\"" + ON_LOAD + "\">\n"
+            + "        <noscript>\n            <p>\n"
+            + "                <strong>Note:</strong> Since your browser does not support JavaScript,\n"
+            + "                you must press the Continue button once to proceed.\n"
+            + "            </p>\n        </noscript>\n        <form action=\"").getBytes(StandardCharsets.UTF_8);
+
+    /** Streamed form content between the action URL and the form controls. */
+    @Nonnull private static final byte[] FORM_START =
+            "\" method=\"post\">\n            <div>\n".getBytes(StandardCharsets.UTF_8);
+
+    /** Streamed form content following the form controls. */
+    @Nonnull private static final byte[] FORM_TRAILER = ("            </div>\n            <noscript>\n"
+            + "                <div>\n                    <input type=\"submit\" value=\"Continue\"/>\n"
+            + "                </div>\n            </noscript>\n        </form>\n    </body>\n</html>")
+                .getBytes(StandardCharsets.UTF_8);
+
     /** Class logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(HTTPPostEncoder.class);
 
@@ -72,6 +99,9 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder implements HTMLMess
 
     /** Generator for CSP nonces. */
     @Nullable private IdentifierGenerationStrategy cspNonceGenerator;
+
+    /** Whether to stream the form directly to the response instead of evaluating a Velocity template. */
+    private boolean streamingEncoding;
     
     /** Constructor. */
     public HTTPPostEncoder() {
@@ -126,6 +156,33 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder implements HTMLMess
                 "Velocity template ID cannot be null or empty");
     }
     
+    /**
+     * Get whether the form is streamed directly to the response instead of being produced by evaluating
+     * a Velocity template.
+     * 
+     * @return whether streaming encoding is in use
+     */
+    public boolean isStreamingEncoding() {
+        return streamingEncoding;
+    }
+
+    /**
+     * Set whether the form is streamed directly to the response instead of being produced by evaluating
+     * a Velocity template.
+     * 
+     * <p>In this mode the message is serialized and base64-encoded directly into the response without
+     * intermediate copies, and a fixed form equivalent to the default template is produced. The Velocity engine
+     * and template are not used, so template customizations do not apply.</p>
+     * 
+     * <p>Defaults to false.</p>
+     * 
+     * @param flag flag to set
+     */
+    public void setStreamingEncoding(final boolean flag) {
+        checkSetterPreconditions();
+        streamingEncoding = flag;
+    }
+    
     /** {@inheritDoc} */
     public void setCSPDigester(@Nullable final StringDigester digester) {
         checkSetterPreconditions();
@@ -142,7 +199,7 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder implements HTMLMess
     protected void doInitialize() throws ComponentInitializationException {
         super.doInitialize();
         
-        if (velocityEngine == null) {
+        if (velocityEngine == null && !streamingEncoding) {
             throw new ComponentInitializationException("VelocityEngine must be supplied");
         }
     }
@@ -159,7 +216,157 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder implements HTMLMess
         final String endpointURL = getEndpointURL(messageContext).toString();
         assert endpointURL != null;
 
-        postEncode(messageContext, endpointURL);
+        if (streamingEncoding) {
+            streamEncode(messageContext, endpointURL);
+        } else {
+            postEncode(messageContext, endpointURL);
+        }
+    }
+
+    /**
+     * Writes the POST form containing the outbound message directly to the outbound transport, without
+     * the use of Velocity.
+     * 
+     * @param messageContext current message context
+     * @param endpointURL endpoint URL to which to encode message
+     * 
+     * @throws MessageEncodingException thrown if there is a problem encoding the message
+     */
+    protected void streamEncode(@Nonnull final MessageContext messageContext, @Nonnull final String endpointURL)
+            throws MessageEncodingException {
+        log.debug("Streaming POST body");
+        
+        final HttpServletResponse response = getHttpServletResponse();
+        assert response != null;
+
+        HttpServletSupport.addNoCacheHeaders(response);
+        HttpServletSupport.setUTF8Encoding(response);
+        HttpServletSupport.setContentType(response, "text/html");
+        if (cspDigester != null) {
+            response.addHeader("Content-Security-Policy",
+                    "script-src-attr 'unsafe-hashes' 'sha256-" + cspDigester.apply(ON_LOAD) + "'");
+        }
+
+        try (final OutputStream out = new BufferedOutputStream(response.getOutputStream())) {
+            out.write(FORM_HEADER);
+            out.write(HTMLEncoder.encodeForHTMLAttribute(endpointURL).getBytes(StandardCharsets.UTF_8));
+            out.write(FORM_START);
+            streamFormControls(out, messageContext);
+            out.write(FORM_TRAILER);
+            out.flush();
+        } catch (final IOException e) {
+            log.error("Error writing POST body: {}", e.getMessage());
+            throw new MessageEncodingException("Error creating output document", e);
+        }
+    }
+
+    /**
+     * Write the hidden form controls carrying the outbound message and its relay state.
+     * 
+     * @param out the output stream to write to
+     * @param messageContext the SAML message context source of data
+     * 
+     * @throws IOException thrown if there is a problem writing to the output stream
+     * @throws MessageEncodingException thrown if there is a problem encoding the message
+     */
+    protected void streamFormControls(@Nonnull final OutputStream out, @Nonnull final MessageContext messageContext)
+            throws IOException, MessageEncodingException {
+        
+        final SAMLObject outboundMessage = (SAMLObject) messageContext.getMessage();
+        // Checked above.
+        assert outboundMessage != null;
+        final String parameterName = getMessageParameterName(outboundMessage);
+
+        log.debug("Marshalling and streaming Base64 encoded SAML message");
+        final Element domMessage = marshallMessage(outboundMessage);
+
+        writeRelayStateFormControl(out, messageContext);
+        writeFormControlStart(out, parameterName);
+        try (final OutputStream base64 = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+            SerializeSupport.writeNode(domMessage, base64);
+        }
+        writeFormControlEnd(out);
+    }
+
+    /**
+     * Write the hidden RelayState form control, if the message context contains valid relay state.
+     * 
+     * @param out the output stream to write to
+     * @param messageContext the SAML message context source of data
+     * 
+     * @throws IOException thrown if there is a problem writing to the output stream
+     */
+    protected void writeRelayStateFormControl(@Nonnull final OutputStream out,
+            @Nonnull final MessageContext messageContext) throws IOException {
+        final String relayState = SAMLBindingSupport.getRelayState(messageContext);
+        if (SAMLBindingSupport.checkRelayState(relayState)) {
+            final String encodedRelayState = HTMLEncoder.encodeForHTMLAttribute(relayState);
+            log.debug("Setting RelayState parameter to: '{}', encoded as '{}'", relayState, encodedRelayState);
+            writeFormControl(out, "RelayState", encodedRelayState);
+        }
+    }
+
+    /**
+     * Write a hidden form control.
+     * 
+     * @param out the output stream to write to
+     * @param name the control name
+     * @param encodedValue the control value, which must already be safe for use as an HTML attribute
+     * 
+     * @throws IOException thrown if there is a problem writing to the output stream
+     */
+    protected void writeFormControl(@Nonnull final OutputStream out, @Nonnull @NotEmpty final String name,
+            @Nonnull final String encodedValue) throws IOException {
+        writeFormControlStart(out, name);
+        out.write(encodedValue.getBytes(StandardCharsets.UTF_8));
+        writeFormControlEnd(out);
+    }
+
+    /**
+     * Write the start of a hidden form control, up to the start of its value.
+     * 
+     * @param out the output stream to write to
+     * @param name the control name
+     * 
+     * @throws IOException thrown if there is a problem writing to the output stream
+     */
+    protected void writeFormControlStart(@Nonnull final OutputStream out, @Nonnull @NotEmpty final String name)
+            throws IOException {
+        out.write(("                <input type=\"hidden\" name=\"" + name + "\" value=\"")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write the end of a hidden form control, following its value.
+     * 
+     * @param out the output stream to write to
+     * 
+     * @throws IOException thrown if there is a problem writing to the output stream
+     */
+    protected void writeFormControlEnd(@Nonnull final OutputStream out) throws IOException {
+        out.write('"');
+        out.write('/');
+        out.write('>');
+        out.write('\n');
+    }
+
+    /**
+     * Get the name of the form control carrying the outbound message.
+     * 
+     * @param outboundMessage the outbound message
+     * 
+     * @return "SAMLRequest" or "SAMLResponse"
+     * 
+     * @throws MessageEncodingException if the message is neither a request nor a response
+     */
+    @Nonnull @NotEmpty protected String getMessageParameterName(@Nonnull final SAMLObject outboundMessage)
+            throws MessageEncodingException {
+        if (outboundMessage instanceof RequestAbstractType) {
+            return "SAMLRequest";
+        } else if (outboundMessage instanceof StatusResponseType) {
+            return "SAMLResponse";
+        }
+        throw new MessageEncodingException("SAML message is neither a SAML RequestAbstractType or StatusResponseType");
     }
 
     /**
@@ -256,4 +463,32 @@ public class HTTPPostEncoder extends BaseSAML2MessageEncoder implements HTMLMess
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Stream wrapper which flushes rather than closes the underlying stream, allowing an encoding stream to be
+     * completed without closing the response.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        /**
+         * Constructor.
+         *
+         * @param out the underlying stream
+         */
+        NonClosingOutputStream(@Nonnull final OutputStream out) {
+            super(out);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+}
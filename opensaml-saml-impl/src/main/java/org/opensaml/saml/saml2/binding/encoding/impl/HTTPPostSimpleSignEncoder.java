@@ -14,7 +14,12 @@
 
 package org.opensaml.saml.saml2.binding.encoding.impl;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -25,6 +30,7 @@ import org.opensaml.core.xml.io.Marshaller;
 import org.opensaml.core.xml.io.MarshallingException;
 import org.opensaml.messaging.context.MessageContext;
 import org.opensaml.messaging.encoder.MessageEncodingException;
+import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.binding.SAMLBindingSupport;
 import org.opensaml.saml.common.messaging.SAMLMessageSecuritySupport;
 import org.opensaml.saml.common.xml.SAMLConstants;
@@ -35,6 +41,7 @@ import org.opensaml.xmlsec.crypto.XMLSigningUtil;
 import org.opensaml.xmlsec.keyinfo.KeyInfoGenerator;
 import org.opensaml.xmlsec.signature.KeyInfo;
 import org.slf4j.Logger;
+import org.w3c.dom.Element;
 
 import com.google.common.base.Strings;
 
@@ -42,6 +49,7 @@ import net.shibboleth.shared.annotation.constraint.NotEmpty;
 import net.shibboleth.shared.codec.Base64Support;
 import net.shibboleth.shared.codec.DecodingException;
 import net.shibboleth.shared.codec.EncodingException;
+import net.shibboleth.shared.codec.HTMLEncoder;
 import net.shibboleth.shared.primitive.LoggerFactory;
 import net.shibboleth.shared.xml.SerializeSupport;
 
@@ -99,6 +107,64 @@ public class HTTPPostSimpleSignEncoder extends HTTPPostEncoder {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The message is serialized once, and the same bytes are used both to compute the signature and,
+     * base64-encoded, as the value of the message form control.</p>
+     */
+    @Override
+    protected void streamFormControls(@Nonnull final OutputStream out, @Nonnull final MessageContext messageContext)
+            throws IOException, MessageEncodingException {
+        
+        final SignatureSigningParameters signingParameters = 
+                SAMLMessageSecuritySupport.getContextSigningParameters(messageContext);
+        final Credential signingCredential = signingParameters != null
+                ? signingParameters.getSigningCredential() : null;
+        if (signingParameters == null || signingCredential == null) {
+            log.debug("No signing credential was supplied, skipping HTTP-Post simple signing");
+            super.streamFormControls(out, messageContext);
+            return;
+        }
+        
+        final SAMLObject outboundMessage = (SAMLObject) messageContext.getMessage();
+        // Checked by caller.
+        assert outboundMessage != null;
+        final String parameterName = getMessageParameterName(outboundMessage);
+        final String sigAlgURI = getSignatureAlgorithmURI(signingParameters);
+
+        log.debug("Marshalling and serializing SAML message");
+        final Element domMessage = marshallMessage(outboundMessage);
+        final ByteArrayOutputStream messageBytes = new ByteArrayOutputStream(8192);
+        SerializeSupport.writeNode(domMessage, messageBytes);
+        
+        final ByteArrayOutputStream formData = new ByteArrayOutputStream(messageBytes.size() + 256);
+        formData.write((parameterName + "=").getBytes(StandardCharsets.UTF_8));
+        messageBytes.writeTo(formData);
+        final String relayState = SAMLBindingSupport.getRelayState(messageContext);
+        if (relayState != null) {
+            formData.write(("&RelayState=" + relayState).getBytes(StandardCharsets.UTF_8));
+        }
+        formData.write(("&SigAlg=" + sigAlgURI).getBytes(StandardCharsets.UTF_8));
+        
+        final String signature = generateSignature(signingCredential, sigAlgURI, formData.toByteArray());
+        
+        writeRelayStateFormControl(out, messageContext);
+        writeFormControlStart(out, parameterName);
+        out.write(Base64.getEncoder().encode(messageBytes.toByteArray()));
+        writeFormControlEnd(out);
+        writeFormControl(out, "Signature", signature);
+        writeFormControl(out, "SigAlg", HTMLEncoder.encodeForHTMLAttribute(sigAlgURI));
+        
+        final KeyInfoGenerator kiGenerator = signingParameters.getKeyInfoGenerator();
+        if (kiGenerator != null) {
+            final String kiBase64 = buildKeyInfo(signingCredential, kiGenerator);
+            if (!Strings.isNullOrEmpty(kiBase64)) {
+                writeFormControl(out, "KeyInfo", kiBase64);
+            }
+        }
+    }
+
     /**
      * Build the {@link KeyInfo} from the signing credential.
      * 
@@ -233,18 +299,33 @@ public class HTTPPostSimpleSignEncoder extends HTTPPostEncoder {
 
         log.debug("Generating signature with algorithm URI '{}' over form control string '{}'", algorithmURI, formData);
 
+        return generateSignature(signingCredential, algorithmURI, formData.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Generates the signature over the UTF-8 encoded concatenated form control data as indicated by the
+     * SimpleSign spec.
+     * 
+     * @param signingCredential credential that will be used to sign
+     * @param algorithmURI algorithm URI of the signing credential
+     * @param formData UTF-8 encoded form control data to be signed
+     * 
+     * @return base64 encoded signature of form control data
+     * 
+     * @throws MessageEncodingException there is an error computing the signature
+     */
+    @Nonnull protected String generateSignature(@Nonnull final Credential signingCredential,
+            @Nonnull final String algorithmURI, @Nonnull final byte[] formData)
+            throws MessageEncodingException {
+
         String b64Signature = null;
         try {
-            final byte[] rawSignature =
-                    XMLSigningUtil.signWithURI(signingCredential, algorithmURI, formData.getBytes("UTF-8"));
+            final byte[] rawSignature = XMLSigningUtil.signWithURI(signingCredential, algorithmURI, formData);
             b64Signature = Base64Support.encode(rawSignature, Base64Support.UNCHUNKED);
             log.debug("Generated digital signature value (base64-encoded) {}", b64Signature);
         } catch (final SecurityException e) {
             log.error("Error during URL signing process: {}", e.getMessage());
             throw new MessageEncodingException("Unable to sign form control string", e);
-        } catch (final UnsupportedEncodingException e) {
-            log.error("UTF-8 encoding is not supported, this VM is not Java compliant");
-            throw new MessageEncodingException("Unable to encode message, UTF-8 encoding is not supported");
         } catch (final EncodingException e) {
             log.error("Error base64 encoding signature of form control data: {}",e.getMessage());
             throw new MessageEncodingException("Unable to base64 encode signature of form control data",e);
@@ -253,4 +334,4 @@ public class HTTPPostSimpleSignEncoder extends HTTPPostEncoder {
         return b64Signature;
     }
 
-}
\ No newline at end of file
+}
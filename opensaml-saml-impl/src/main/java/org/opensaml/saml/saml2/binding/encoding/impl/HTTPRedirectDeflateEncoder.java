@@ -19,12 +19,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
 
 import javax.annotation.Nonnull;
 
@@ -33,6 +34,7 @@ import org.opensaml.messaging.encoder.MessageEncodingException;
 import org.opensaml.saml.common.SAMLObject;
 import org.opensaml.saml.common.SignableSAMLObject;
 import org.opensaml.saml.common.binding.SAMLBindingSupport;
+import org.opensaml.saml.common.binding.impl.DeflateSupport;
 import org.opensaml.saml.common.messaging.SAMLMessageSecuritySupport;
 import org.opensaml.saml.common.xml.SAMLConstants;
 import org.opensaml.saml.saml2.core.RequestAbstractType;
@@ -132,21 +134,15 @@ public class HTTPRedirectDeflateEncoder extends BaseSAML2MessageEncoder {
     @Nonnull protected String deflateAndBase64Encode(@Nonnull final SAMLObject message)
             throws MessageEncodingException {
         log.debug("Deflating and Base64 encoding SAML message");
-        try {
-            final String messageStr = SerializeSupport.nodeToString(marshallMessage(message));
-
-            try (final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-                    final DeflaterOutputStream deflaterStream =
-                            new NoWrapAutoEndDeflaterOutputStream(bytesOut, Deflater.DEFLATED)) {
-
-                deflaterStream.write(messageStr.getBytes("UTF-8"));
-                deflaterStream.finish();
-
-                return Base64Support.encode(bytesOut.toByteArray(), Base64Support.UNCHUNKED);
-            }            
-        } catch (final IOException | EncodingException e) {
+        // The DOM is serialized straight through the compressor and encoder, without intermediate copies.
+        final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream(2048);
+        try (final OutputStream deflaterStream = DeflateSupport.newDeflaterOutputStream(
+                Base64.getEncoder().wrap(bytesOut), Deflater.DEFLATED)) {
+            SerializeSupport.writeNode(marshallMessage(message), deflaterStream);
+        } catch (final IOException e) {
             throw new MessageEncodingException("Unable to DEFLATE and Base64 encode SAML message", e);
-        } 
+        }
+        return bytesOut.toString(StandardCharsets.US_ASCII);
     }
 
     /**
@@ -296,30 +292,4 @@ public class HTTPRedirectDeflateEncoder extends BaseSAML2MessageEncoder {
         }
     }
 
-    /** A subclass of {@link DeflaterOutputStream} which defaults in a no-wrap {@link Deflater} instance and
-     * closes it when the stream is closed.
-     */
-    private class NoWrapAutoEndDeflaterOutputStream extends DeflaterOutputStream {
-
-        /**
-         * Creates a new output stream with a default no-wrap compressor and buffer size,
-         * and the specified compression level.
-         *
-         * @param os the output stream
-         * @param level the compression level (0-9)
-         */
-        public NoWrapAutoEndDeflaterOutputStream(@Nonnull final OutputStream os, final int level) {
-            super(os, new Deflater(level, true));
-        }
-
-        /** {@inheritDoc} */
-        public void close() throws IOException {
-            if (def != null) {
-                def.end();
-            }
-            super.close();
-        }
-
-    }
-
-}
\ No newline at end of file
+}
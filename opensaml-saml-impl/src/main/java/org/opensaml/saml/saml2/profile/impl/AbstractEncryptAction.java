@@ -29,6 +29,7 @@ import org.opensaml.profile.action.EventIds;
 import org.opensaml.profile.context.ProfileRequestContext;
 import org.opensaml.profile.context.navigate.OutboundMessageContextLookup;
 import org.opensaml.saml.saml2.encryption.Encrypter;
+import org.opensaml.saml.saml2.encryption.EncryptionSession;
 import org.opensaml.saml.saml2.encryption.Encrypter.KeyPlacement;
 import org.opensaml.saml.saml2.profile.context.EncryptionContext;
 import org.opensaml.xmlsec.EncryptionParameters;
@@ -51,6 +52,10 @@ import net.shibboleth.shared.primitive.LoggerFactory;
  * strategy, by default a child of the outbound message context.</p>
  * 
  * <p>An optional recipient name is also obtained from a lookup strategy.</p> 
+ * 
+ * <p>If key reuse is enabled, the {@link EncryptionSession} attached to the {@link EncryptionContext} (created on
+ * demand) is shared by all such actions operating on the same message, so that the data encryption key and key
+ * transport for each recipient are produced once rather than for every encrypted element.</p>
  */
 public abstract class AbstractEncryptAction extends AbstractConditionalProfileAction {
 
@@ -76,6 +81,9 @@ public abstract class AbstractEncryptAction extends AbstractConditionalProfileAc
     /** Strategy used to obtain the self recipient value. */
     @Nullable private Function<ProfileRequestContext, String> selfRecipientLookupStrategy;
     
+    /** Whether to reuse keys across the encrypted elements of the message. */
+    private boolean reuseEncryptionKeys;
+    
     /** The encryption object. */
     @NonnullBeforeExec private Encrypter encrypter;
     
@@ -159,6 +167,20 @@ public abstract class AbstractEncryptAction extends AbstractConditionalProfileAc
         selfRecipientLookupStrategy = strategy;
     }
     
+    /**
+     * Set whether to reuse the data encryption key and EncryptedKeys across all the elements of the message that are
+     * encrypted for the same recipients.
+     * 
+     * <p>Defaults to false.</p>
+     * 
+     * @param flag flag to set
+     */
+    public void setReuseEncryptionKeys(final boolean flag) {
+        checkSetterPreconditions();
+        
+        reuseEncryptionKeys = flag;
+    }
+    
     /**
      * Get the encrypter.
      * 
@@ -177,8 +199,8 @@ public abstract class AbstractEncryptAction extends AbstractConditionalProfileAc
             return false;
         }
         
-        final EncryptionParameters params =
-                getApplicableParameters(encryptionCtxLookupStrategy.apply(profileRequestContext));
+        final EncryptionContext encryptionCtx = encryptionCtxLookupStrategy.apply(profileRequestContext);
+        final EncryptionParameters params = getApplicableParameters(encryptionCtx);
         if (params == null) {
             log.debug("{} No encryption parameters, nothing to do", getLogPrefix());
             return false;
@@ -224,6 +246,15 @@ public abstract class AbstractEncryptAction extends AbstractConditionalProfileAc
         encrypter = new Encrypter(dataParams, keyParams);
         encrypter.setKeyPlacement(keyPlacementLookupStrategy.apply(profileRequestContext));
         
+        if (reuseEncryptionKeys && encryptionCtx != null) {
+            EncryptionSession session = encryptionCtx.getEncryptionSession();
+            if (session == null) {
+                session = new EncryptionSession();
+                encryptionCtx.setEncryptionSession(session);
+            }
+            encrypter.setEncryptionSession(session);
+        }
+        
         return true;
     }
 // Checkstyle: CyclomaticComplexity ON
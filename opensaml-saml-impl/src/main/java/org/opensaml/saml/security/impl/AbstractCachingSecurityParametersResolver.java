@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.security.impl;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.namespace.QName;
+
+import org.opensaml.saml.criterion.RoleDescriptorCriterion;
+import org.opensaml.saml.saml2.metadata.EntityDescriptor;
+import org.opensaml.saml.saml2.metadata.RoleDescriptor;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.shibboleth.shared.annotation.constraint.Positive;
+import net.shibboleth.shared.collection.CollectionSupport;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+import net.shibboleth.shared.resolver.CriteriaSet;
+import net.shibboleth.shared.resolver.Criterion;
+import net.shibboleth.shared.resolver.Resolver;
+import net.shibboleth.shared.resolver.ResolverException;
+
+/**
+ * Base class for resolvers which memoize the security parameters produced by a delegate resolver.
+ *
+ * <p>
+ * Results are cached by the peer's entityID and role, taken from any {@link RoleDescriptorCriterion}, together with
+ * the remaining input criteria. Configuration criteria compare their configuration instances by identity, so a
+ * reloaded configuration yields new cache entries. A cached result is used only if it was produced for the same
+ * {@link RoleDescriptor} instance as that supplied, so results are implicitly invalidated when the peer's metadata
+ * is refreshed. The instance is only weakly referenced, so the cache does not retain superseded metadata.
+ * </p>
+ *
+ * <p>
+ * Only criteria of the types returned by {@link #getCacheableCriteriaTypes()} may be present for a result to be
+ * cached; any other criteria cause the delegate to be invoked directly. Results are cached in an intermediate
+ * form from which a new result is produced for each caller, so callers may modify results freely and any
+ * per-request material can be regenerated.
+ * </p>
+ *
+ * @param <ParamsType> the type of parameters resolved
+ * @param <CachedType> the form in which parameters are cached
+ */
+public abstract class AbstractCachingSecurityParametersResolver<ParamsType,CachedType>
+        implements Resolver<ParamsType,CriteriaSet> {
+
+    /** Default maximum number of cached results. */
+    public static final int DEFAULT_MAX_CACHE_SIZE = 1000;
+
+    /** Default lifetime of a cached result. */
+    @Nonnull public static final Duration DEFAULT_CACHE_LIFETIME = Duration.ofHours(1);
+
+    /** Logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(AbstractCachingSecurityParametersResolver.class);
+
+    /** The delegate resolver. */
+    @Nonnull private final Resolver<ParamsType,CriteriaSet> delegate;
+
+    /** Cached results. */
+    @Nonnull private final Cache<CacheKey,CachedResult<CachedType>> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param resolver the delegate resolver
+     * @param maxSize maximum number of cached results
+     * @param lifetime maximum lifetime of a cached result
+     */
+    protected AbstractCachingSecurityParametersResolver(@Nonnull final Resolver<ParamsType,CriteriaSet> resolver,
+            @Positive final int maxSize, @Nonnull final Duration lifetime) {
+        delegate = Constraint.isNotNull(resolver, "Delegate resolver cannot be null");
+        Constraint.isGreaterThan(0, maxSize, "Maximum cache size must be greater than 0");
+        Constraint.isNotNull(lifetime, "Cache lifetime cannot be null");
+        Constraint.isFalse(lifetime.isNegative() || lifetime.isZero(), "Cache lifetime must be positive");
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(lifetime).build();
+    }
+
+    /**
+     * Get the delegate resolver.
+     *
+     * @return the delegate resolver
+     */
+    @Nonnull public Resolver<ParamsType,CriteriaSet> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Discard all cached results, e.g. following a configuration reload.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /** {@inheritDoc} */
+    @Nonnull public Iterable<ParamsType> resolve(@Nullable final CriteriaSet criteria) throws ResolverException {
+        final ParamsType params = resolveSingle(criteria);
+        if (params != null) {
+            return CollectionSupport.singletonList(params);
+        }
+        return CollectionSupport.emptyList();
+    }
+
+    /** {@inheritDoc} */
+    @Nullable public ParamsType resolveSingle(@Nullable final CriteriaSet criteria) throws ResolverException {
+        final CacheKey key = buildCacheKey(criteria);
+        if (key == null) {
+            return delegate.resolveSingle(criteria);
+        }
+        assert criteria != null;
+
+        final RoleDescriptorCriterion roleCriterion = criteria.get(RoleDescriptorCriterion.class);
+        final RoleDescriptor role = roleCriterion != null ? roleCriterion.getRole() : null;
+
+        final CachedResult<CachedType> cached = cache.getIfPresent(key);
+        if (cached != null && cached.isFor(role)) {
+            log.trace("Returning cached parameters for entityID '{}' and role {}", key.entityID(), key.role());
+            final CachedType params = cached.params();
+            return params != null ? fromCached(params) : null;
+        }
+
+        final ParamsType params = delegate.resolveSingle(criteria);
+        final CachedType toCache = params != null ? toCached(criteria, params) : null;
+        if (params == null || toCache != null) {
+            log.trace("Caching parameters for entityID '{}' and role {}", key.entityID(), key.role());
+            cache.put(key, new CachedResult<>(role, toCache));
+        } else {
+            log.trace("Resolved parameters for entityID '{}' and role {} are not cacheable", key.entityID(),
+                    key.role());
+        }
+        return params;
+    }
+
+    /**
+     * Get the criteria types which may be present in a cacheable request.
+     *
+     * <p>
+     * Each type must implement {@link Object#equals(Object)} such that equal criteria produce equal results.
+     * {@link RoleDescriptorCriterion} is handled separately and need not be included.
+     * </p>
+     *
+     * @return the cacheable criteria types
+     */
+    @Nonnull protected abstract Set<Class<? extends Criterion>> getCacheableCriteriaTypes();
+
+    /**
+     * Convert a result produced by the delegate into the form in which it is cached.
+     *
+     * <p>The cached form must not share mutable state with the result.</p>
+     *
+     * @param criteria the input criteria
+     * @param params the result
+     *
+     * @return the cached form, or null if the result may not be cached
+     */
+    @Nullable protected abstract CachedType toCached(@Nonnull final CriteriaSet criteria,
+            @Nonnull final ParamsType params);
+
+    /**
+     * Produce a result from its cached form.
+     *
+     * <p>The result must not share mutable state with the cached form.</p>
+     *
+     * @param cached the cached form
+     *
+     * @return the result
+     */
+    @Nonnull protected abstract ParamsType fromCached(@Nonnull final CachedType cached);
+
+    /**
+     * Build the cache key for the input criteria.
+     *
+     * @param criteria the input criteria
+     *
+     * @return the key, or null if the request is not cacheable
+     */
+    @Nullable private CacheKey buildCacheKey(@Nullable final CriteriaSet criteria) {
+        if (criteria == null) {
+            return null;
+        }
+
+        final Set<Class<? extends Criterion>> cacheableTypes = getCacheableCriteriaTypes();
+        final Set<Criterion> keyCriteria = new HashSet<>(criteria.size());
+        String entityID = null;
+        QName roleType = null;
+        for (final Criterion criterion : criteria) {
+            if (criterion instanceof RoleDescriptorCriterion roleCriterion) {
+                final RoleDescriptor role = roleCriterion.getRole();
+                roleType = role.getSchemaType() != null ? role.getSchemaType() : role.getElementQName();
+                if (role.getParent() instanceof EntityDescriptor entity) {
+                    entityID = entity.getEntityID();
+                }
+            } else if (cacheableTypes.contains(criterion.getClass())) {
+                keyCriteria.add(criterion);
+            } else {
+                log.trace("Criterion of type {} is not cacheable", criterion.getClass().getName());
+                return null;
+            }
+        }
+        return new CacheKey(entityID, roleType, keyCriteria);
+    }
+
+    /**
+     * Cache key.
+     *
+     * @param entityID the peer's entityID, if known
+     * @param role the type of the peer's role, if known
+     * @param criteria the remaining input criteria
+     */
+    private record CacheKey(@Nullable String entityID, @Nullable QName role, @Nonnull Set<Criterion> criteria) {
+    }
+
+    /**
+     * Cached result.
+     *
+     * @param <T> the type of parameters resolved
+     * @param role weak reference to the role descriptor the result was resolved against, if any
+     * @param params the result
+     */
+    private record CachedResult<T>(@Nullable WeakReference<RoleDescriptor> role, @Nullable T params) {
+
+        /**
+         * Constructor.
+         *
+         * @param roleDescriptor the role descriptor the result was resolved against, if any
+         * @param result the result
+         */
+        CachedResult(@Nullable final RoleDescriptor roleDescriptor, @Nullable final T result) {
+            this(roleDescriptor != null ? new WeakReference<>(roleDescriptor) : null, result);
+        }
+
+        /**
+         * Get whether the result was resolved against a role descriptor instance.
+         *
+         * @param roleDescriptor the role descriptor, if any
+         *
+         * @return true iff the result was resolved against the same instance
+         */
+        boolean isFor(@Nullable final RoleDescriptor roleDescriptor) {
+            if (role == null) {
+                return roleDescriptor == null;
+            }
+            return roleDescriptor != null && role.get() == roleDescriptor;
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.security.impl;
+
+import java.security.KeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.security.credential.Credential;
+import org.opensaml.xmlsec.EncryptionConfiguration;
+import org.opensaml.xmlsec.EncryptionParameters;
+import org.opensaml.xmlsec.EncryptionParametersResolver;
+import org.opensaml.xmlsec.agreement.KeyAgreementCredential;
+import org.opensaml.xmlsec.algorithm.AlgorithmSupport;
+import org.opensaml.xmlsec.criterion.EncryptionConfigurationCriterion;
+import org.opensaml.xmlsec.criterion.EncryptionOptionalCriterion;
+import org.opensaml.xmlsec.criterion.KeyInfoGenerationProfileCriterion;
+import org.opensaml.xmlsec.encryption.support.RSAOAEPParameters;
+import org.slf4j.Logger;
+
+import net.shibboleth.shared.annotation.ParameterName;
+import net.shibboleth.shared.annotation.constraint.Positive;
+import net.shibboleth.shared.collection.CollectionSupport;
+import net.shibboleth.shared.primitive.LoggerFactory;
+import net.shibboleth.shared.resolver.CriteriaSet;
+import net.shibboleth.shared.resolver.Criterion;
+
+/**
+ * An {@link EncryptionParametersResolver} which memoizes the results of a delegate resolver, typically a
+ * {@link SAMLMetadataEncryptionParametersResolver}, per peer role and configuration.
+ *
+ * <p>
+ * Requests are cached if their criteria consist only of {@link EncryptionConfigurationCriterion},
+ * {@link EncryptionOptionalCriterion}, {@link KeyInfoGenerationProfileCriterion} and
+ * {@link org.opensaml.saml.criterion.RoleDescriptorCriterion}.
+ * </p>
+ *
+ * <p>
+ * Results involving key agreement are never cached, since they carry per-message key material. A data encryption
+ * credential which was auto-generated by the delegate, that is one not supplied by any of the configurations, is
+ * not reused; a new one is generated for each result returned from the cache.
+ * </p>
+ */
+public class CachingEncryptionParametersResolver
+        extends AbstractCachingSecurityParametersResolver<EncryptionParameters,
+                CachingEncryptionParametersResolver.CachedParameters>
+        implements EncryptionParametersResolver {
+
+    /** Cacheable criteria types. */
+    @Nonnull private static final Set<Class<? extends Criterion>> CACHEABLE_TYPES = CollectionSupport.setOf(
+            EncryptionConfigurationCriterion.class, EncryptionOptionalCriterion.class,
+            KeyInfoGenerationProfileCriterion.class);
+
+    /** Logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(CachingEncryptionParametersResolver.class);
+
+    /**
+     * Constructor.
+     *
+     * @param resolver the delegate resolver
+     */
+    public CachingEncryptionParametersResolver(
+            @Nonnull @ParameterName(name="resolver") final EncryptionParametersResolver resolver) {
+        this(resolver, DEFAULT_MAX_CACHE_SIZE, DEFAULT_CACHE_LIFETIME);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param resolver the delegate resolver
+     * @param maxSize maximum number of cached results
+     * @param lifetime maximum lifetime of a cached result
+     */
+    public CachingEncryptionParametersResolver(
+            @Nonnull @ParameterName(name="resolver") final EncryptionParametersResolver resolver,
+            @Positive @ParameterName(name="maxSize") final int maxSize,
+            @Nonnull @ParameterName(name="lifetime") final Duration lifetime) {
+        super(resolver, maxSize, lifetime);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull protected Set<Class<? extends Criterion>> getCacheableCriteriaTypes() {
+        return CACHEABLE_TYPES;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nullable protected CachedParameters toCached(@Nonnull final CriteriaSet criteria,
+            @Nonnull final EncryptionParameters params) {
+        final Credential dataCredential = params.getDataEncryptionCredential();
+        if (dataCredential instanceof KeyAgreementCredential
+                || params.getKeyTransportEncryptionCredential() instanceof KeyAgreementCredential) {
+            return null;
+        }
+
+        final EncryptionParameters copy = copy(params);
+        final boolean generated = dataCredential != null && !isConfiguredDataCredential(criteria, dataCredential);
+        if (generated) {
+            copy.setDataEncryptionCredential(null);
+        }
+        return new CachedParameters(copy, generated);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull protected EncryptionParameters fromCached(@Nonnull final CachedParameters cached) {
+        final EncryptionParameters params = copy(cached.params());
+        final String dataEncryptionAlgorithm = params.getDataEncryptionAlgorithm();
+        if (cached.generateDataCredential() && dataEncryptionAlgorithm != null) {
+            try {
+                params.setDataEncryptionCredential(
+                        AlgorithmSupport.generateSymmetricKeyAndCredential(dataEncryptionAlgorithm));
+            } catch (final NoSuchAlgorithmException | KeyException e) {
+                log.warn("Error generating a symmetric key credential using algorithm URI: {}",
+                        dataEncryptionAlgorithm, e);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Get whether a data encryption credential was supplied by one of the configurations.
+     *
+     * @param criteria the input criteria
+     * @param credential the data encryption credential
+     *
+     * @return true if the credential was configured, false if it was generated
+     */
+    private boolean isConfiguredDataCredential(@Nonnull final CriteriaSet criteria,
+            @Nonnull final Credential credential) {
+        final EncryptionConfigurationCriterion criterion = criteria.get(EncryptionConfigurationCriterion.class);
+        if (criterion != null) {
+            for (final EncryptionConfiguration config : criterion.getConfigurations()) {
+                for (final Credential configured : config.getDataEncryptionCredentials()) {
+                    if (configured == credential) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy a set of parameters.
+     *
+     * @param params the parameters to copy
+     *
+     * @return the copy
+     */
+    @Nonnull private EncryptionParameters copy(@Nonnull final EncryptionParameters params) {
+        final EncryptionParameters copy = new EncryptionParameters();
+        copy.setDataEncryptionCredential(params.getDataEncryptionCredential());
+        copy.setDataEncryptionAlgorithm(params.getDataEncryptionAlgorithm());
+        copy.setDataKeyInfoGenerator(params.getDataKeyInfoGenerator());
+        copy.setKeyTransportEncryptionCredential(params.getKeyTransportEncryptionCredential());
+        copy.setKeyTransportEncryptionAlgorithm(params.getKeyTransportEncryptionAlgorithm());
+        copy.setKeyTransportKeyInfoGenerator(params.getKeyTransportKeyInfoGenerator());
+        final RSAOAEPParameters rsaParams = params.getRSAOAEPParameters();
+        if (rsaParams != null) {
+            copy.setRSAOAEPParameters(new RSAOAEPParameters(rsaParams.getDigestMethod(),
+                    rsaParams.getMaskGenerationFunction(), rsaParams.getOAEPParams()));
+        }
+        return copy;
+    }
+
+    /**
+     * Cached form of a result.
+     *
+     * @param params the parameters, without any generated data encryption credential
+     * @param generateDataCredential whether to generate a data encryption credential for each result
+     */
+    protected record CachedParameters(@Nonnull EncryptionParameters params, boolean generateDataCredential) {
+    }
+
+}
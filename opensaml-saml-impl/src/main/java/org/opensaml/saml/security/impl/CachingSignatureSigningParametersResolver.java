@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.security.impl;
+
+import java.time.Duration;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.xmlsec.SignatureSigningParameters;
+import org.opensaml.xmlsec.SignatureSigningParametersResolver;
+import org.opensaml.xmlsec.criterion.KeyInfoGenerationProfileCriterion;
+import org.opensaml.xmlsec.criterion.SignatureSigningConfigurationCriterion;
+
+import net.shibboleth.shared.annotation.ParameterName;
+import net.shibboleth.shared.annotation.constraint.Positive;
+import net.shibboleth.shared.collection.CollectionSupport;
+import net.shibboleth.shared.resolver.CriteriaSet;
+import net.shibboleth.shared.resolver.Criterion;
+
+/**
+ * A {@link SignatureSigningParametersResolver} which memoizes the results of a delegate resolver, typically a
+ * {@link SAMLMetadataSignatureSigningParametersResolver}, per peer role and configuration.
+ *
+ * <p>
+ * Requests are cached if their criteria consist only of {@link SignatureSigningConfigurationCriterion},
+ * {@link KeyInfoGenerationProfileCriterion} and {@link org.opensaml.saml.criterion.RoleDescriptorCriterion}.
+ * </p>
+ */
+public class CachingSignatureSigningParametersResolver
+        extends AbstractCachingSecurityParametersResolver<SignatureSigningParameters,SignatureSigningParameters>
+        implements SignatureSigningParametersResolver {
+
+    /** Cacheable criteria types. */
+    @Nonnull private static final Set<Class<? extends Criterion>> CACHEABLE_TYPES = CollectionSupport.setOf(
+            SignatureSigningConfigurationCriterion.class, KeyInfoGenerationProfileCriterion.class);
+
+    /**
+     * Constructor.
+     *
+     * @param resolver the delegate resolver
+     */
+    public CachingSignatureSigningParametersResolver(
+            @Nonnull @ParameterName(name="resolver") final SignatureSigningParametersResolver resolver) {
+        this(resolver, DEFAULT_MAX_CACHE_SIZE, DEFAULT_CACHE_LIFETIME);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param resolver the delegate resolver
+     * @param maxSize maximum number of cached results
+     * @param lifetime maximum lifetime of a cached result
+     */
+    public CachingSignatureSigningParametersResolver(
+            @Nonnull @ParameterName(name="resolver") final SignatureSigningParametersResolver resolver,
+            @Positive @ParameterName(name="maxSize") final int maxSize,
+            @Nonnull @ParameterName(name="lifetime") final Duration lifetime) {
+        super(resolver, maxSize, lifetime);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull protected Set<Class<? extends Criterion>> getCacheableCriteriaTypes() {
+        return CACHEABLE_TYPES;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nullable protected SignatureSigningParameters toCached(@Nonnull final CriteriaSet criteria,
+            @Nonnull final SignatureSigningParameters params) {
+        return copy(params);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull protected SignatureSigningParameters fromCached(@Nonnull final SignatureSigningParameters cached) {
+        return copy(cached);
+    }
+
+    /**
+     * Copy a set of parameters.
+     *
+     * @param params the parameters to copy
+     *
+     * @return the copy
+     */
+    @Nonnull private SignatureSigningParameters copy(@Nonnull final SignatureSigningParameters params) {
+        final SignatureSigningParameters copy = new SignatureSigningParameters();
+        copy.setSigningCredential(params.getSigningCredential());
+        copy.setSignatureAlgorithm(params.getSignatureAlgorithm());
+        copy.setSignatureReferenceDigestMethod(params.getSignatureReferenceDigestMethod());
+        copy.setSignatureReferenceCanonicalizationAlgorithm(params.getSignatureReferenceCanonicalizationAlgorithm());
+        copy.setSignatureCanonicalizationAlgorithm(params.getSignatureCanonicalizationAlgorithm());
+        copy.setSignatureHMACOutputLength(params.getSignatureHMACOutputLength());
+        copy.setKeyInfoGenerator(params.getKeyInfoGenerator());
+        return copy;
+    }
+
+}
@@ -38,6 +38,7 @@ import org.opensaml.security.credential.MutableCredential;
 import org.opensaml.security.credential.UsageType;
 import org.opensaml.security.credential.impl.AbstractCriteriaFilteringCredentialResolver;
 import org.opensaml.security.criteria.UsageCriterion;
+import org.opensaml.security.trust.TrustInformationGenerationSource;
 import org.opensaml.xmlsec.keyinfo.KeyInfoCredentialResolver;
 import org.opensaml.xmlsec.keyinfo.KeyInfoCriterion;
 import org.slf4j.Logger;
@@ -99,7 +100,7 @@ import net.shibboleth.shared.resolver.ResolverException;
  * 
  */
 public class MetadataCredentialResolver extends AbstractCriteriaFilteringCredentialResolver 
-        implements InitializableComponent {
+        implements InitializableComponent, TrustInformationGenerationSource {
 
     /** Class logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(MetadataCredentialResolver.class);
@@ -204,6 +205,21 @@ public class MetadataCredentialResolver extends AbstractCriteriaFilteringCredent
         keyInfoCredentialResolver = Constraint.isNotNull(resolver, "KeyInfoCredentialResolver may not be null");
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * This implementation delegates to the {@link RoleDescriptorResolver}, if it is a
+     * {@link TrustInformationGenerationSource}, otherwise returns null.
+     * </p>
+     */
+    @Nullable public Object getTrustInformationGeneration() {
+        if (roleDescriptorResolver instanceof TrustInformationGenerationSource source) {
+            return source.getTrustInformationGeneration();
+        }
+        return null;
+    }
+
     /** {@inheritDoc} */
     @Override
     @Nonnull protected Iterable<Credential> resolveFromSource(@Nullable final CriteriaSet criteriaSet) 
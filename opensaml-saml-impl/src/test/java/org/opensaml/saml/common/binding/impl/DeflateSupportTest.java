@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.common.binding.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/** Unit test for {@link DeflateSupport}. */
+@SuppressWarnings("javadoc")
+public class DeflateSupportTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final byte[] data = "<samlp:AuthnRequest xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\"/>"
+                .repeat(50).getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i < 3; i++) {
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (final OutputStream out = DeflateSupport.newDeflaterOutputStream(compressed, Deflater.DEFLATED)) {
+                out.write(data);
+            }
+            Assert.assertTrue(compressed.size() < data.length);
+
+            // Must be raw DEFLATE, readable by a plain no-wrap inflater.
+            final Inflater plain = new Inflater(true);
+            plain.setInput(compressed.toByteArray());
+            final byte[] check = new byte[data.length];
+            Assert.assertEquals(plain.inflate(check), data.length);
+            plain.end();
+            Assert.assertEquals(check, data);
+
+            try (final InputStream in =
+                    DeflateSupport.newInflaterInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+                Assert.assertEquals(in.readAllBytes(), data);
+            }
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        final Deflater deflater = DeflateSupport.obtainDeflater(Deflater.DEFAULT_COMPRESSION);
+        DeflateSupport.releaseDeflater(deflater);
+        final Deflater reused = DeflateSupport.obtainDeflater(Deflater.BEST_SPEED);
+        Assert.assertSame(reused, deflater);
+        DeflateSupport.releaseDeflater(reused);
+
+        final Inflater inflater = DeflateSupport.obtainInflater();
+        DeflateSupport.releaseInflater(inflater);
+        final Inflater reusedInflater = DeflateSupport.obtainInflater();
+        Assert.assertSame(reusedInflater, inflater);
+        DeflateSupport.releaseInflater(reusedInflater);
+    }
+
+}
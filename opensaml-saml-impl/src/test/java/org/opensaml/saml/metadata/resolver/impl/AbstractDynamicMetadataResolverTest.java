@@ -26,6 +26,13 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Timer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -42,6 +49,7 @@ import org.opensaml.core.xml.util.XMLObjectSupport;
 import org.opensaml.saml.criterion.EntityRoleCriterion;
 import org.opensaml.saml.metadata.resolver.filter.impl.SignatureValidationFilter;
 import org.opensaml.saml.metadata.resolver.impl.AbstractDynamicMetadataResolver.DynamicEntityBackingStore;
+import org.opensaml.saml.metadata.resolver.impl.AbstractDynamicMetadataResolver.PrefetchOutcome;
 import org.opensaml.saml.metadata.resolver.index.MetadataIndex;
 import org.opensaml.saml.metadata.resolver.index.impl.FunctionDrivenMetadataIndex;
 import org.opensaml.saml.metadata.resolver.index.impl.RoleMetadataIndex;
@@ -232,6 +240,113 @@ public class AbstractDynamicMetadataResolverTest extends XMLObjectBaseTestCase {
         Assert.assertEquals(backingStore.getIndexedDescriptors().get(id3).size(), 1);
     }
     
+    @Test
+    public void testAsyncResolution() throws Exception {
+        sourceMap.put(id1, ed1);
+        
+        resolver.initialize();
+        
+        Assert.assertSame(resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id1))).get().iterator().next(),
+                ed1);
+        Assert.assertFalse(resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id2))).get().iterator().hasNext());
+        Assert.assertEquals(resolver.fetchCount.get(), 2);
+        
+        // Now live or negatively cached, no further fetches
+        final CompletableFuture<Iterable<EntityDescriptor>> future =
+                resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id1)));
+        Assert.assertTrue(future.isDone());
+        Assert.assertSame(future.get().iterator().next(), ed1);
+        Assert.assertFalse(resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id2))).get().iterator().hasNext());
+        Assert.assertEquals(resolver.fetchCount.get(), 2);
+    }
+    
+    @Test
+    public void testAsyncResolutionCoalescing() throws Exception {
+        sourceMap.put(id1, ed1);
+        resolver.fetchGate = new CountDownLatch(1);
+        
+        resolver.initialize();
+        
+        final CompletableFuture<Iterable<EntityDescriptor>> future1 =
+                resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id1)));
+        final CompletableFuture<Iterable<EntityDescriptor>> future2 =
+                resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id1)));
+        final CompletableFuture<Iterable<EntityDescriptor>> future3 =
+                resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id1)), Duration.ofMillis(10));
+        
+        try {
+            future3.get(5, TimeUnit.SECONDS);
+            Assert.fail("Deadline should have elapsed");
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        
+        resolver.fetchGate.countDown();
+        
+        Assert.assertSame(future1.get(5, TimeUnit.SECONDS).iterator().next(), ed1);
+        Assert.assertSame(future2.get(5, TimeUnit.SECONDS).iterator().next(), ed1);
+        Assert.assertEquals(resolver.fetchCount.get(), 1);
+    }
+    
+    @Test
+    public void testPrefetch() throws Exception {
+        sourceMap.put(id1, ed1);
+        sourceMap.put(id2, ed2);
+        
+        resolver.setPrefetchMaxParallelism(2);
+        resolver.initialize();
+        
+        Assert.assertSame(resolver.resolveSingle(new CriteriaSet(new EntityIdCriterion(id1))), ed1);
+        Assert.assertEquals(resolver.fetchCount.get(), 1);
+        
+        final Map<String, PrefetchOutcome> outcomes = resolver.prefetch(List.of(id1, id2, id3, "  ", id2));
+        Assert.assertEquals(outcomes.size(), 3);
+        Assert.assertEquals(outcomes.get(id1), PrefetchOutcome.ALREADY_LIVE);
+        Assert.assertEquals(outcomes.get(id2), PrefetchOutcome.LOADED);
+        Assert.assertEquals(outcomes.get(id3), PrefetchOutcome.NOT_FOUND);
+        Assert.assertEquals(resolver.fetchCount.get(), 3);
+        
+        Assert.assertTrue(resolver.ensureBackingStore().getIndexedDescriptors().containsKey(id2));
+        Assert.assertSame(resolver.resolveSingle(new CriteriaSet(new EntityIdCriterion(id2))), ed2);
+        Assert.assertEquals(resolver.fetchCount.get(), 3);
+    }
+    
+    @Test
+    public void testAsyncResolutionSaturated() throws Exception {
+        sourceMap.put(id1, ed1);
+        sourceMap.put(id2, ed2);
+        sourceMap.put(id3, ed3);
+        resolver.fetchGate = new CountDownLatch(1);
+        resolver.setAsyncResolutionMaxThreads(1);
+        resolver.setAsyncResolutionMaxQueueSize(1);
+        
+        resolver.initialize();
+        
+        final CompletableFuture<Iterable<EntityDescriptor>> future1 =
+                resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id1)));
+        final CompletableFuture<Iterable<EntityDescriptor>> future2 =
+                resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id2)));
+        final CompletableFuture<Iterable<EntityDescriptor>> future3 =
+                resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id3)));
+        
+        Assert.assertTrue(future3.isCompletedExceptionally());
+        try {
+            future3.get();
+            Assert.fail("Resolution should have been rejected");
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        
+        resolver.fetchGate.countDown();
+        
+        Assert.assertSame(future1.get(5, TimeUnit.SECONDS).iterator().next(), ed1);
+        Assert.assertSame(future2.get(5, TimeUnit.SECONDS).iterator().next(), ed2);
+        
+        // A rejected resolution is not left in flight.
+        Assert.assertSame(resolver.resolveAsync(new CriteriaSet(new EntityIdCriterion(id3))).get(5, TimeUnit.SECONDS)
+                .iterator().next(), ed3);
+    }
+    
     @Test
     public void testClear() throws ComponentInitializationException, ResolverException {
         sourceMap.put(id1, ed1);
@@ -695,6 +810,10 @@ public class AbstractDynamicMetadataResolverTest extends XMLObjectBaseTestCase {
         private Map<String,EntityDescriptor> originSourceMap;
         
         private boolean secondaryLookup;
+        
+        private final AtomicInteger fetchCount = new AtomicInteger();
+        
+        private CountDownLatch fetchGate;
 
         public MockDynamicResolver(Map<String, EntityDescriptor> map) {
             this(map, null);
@@ -710,6 +829,14 @@ public class AbstractDynamicMetadataResolverTest extends XMLObjectBaseTestCase {
         }
 
         protected XMLObject fetchFromOriginSource(@Nullable CriteriaSet criteria) throws IOException {
+            fetchCount.incrementAndGet();
+            if (fetchGate != null) {
+                try {
+                    fetchGate.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
             
             final EntityIdCriterion c1 = criteria != null ? criteria.get(EntityIdCriterion.class) : null;
             if (c1 != null) {
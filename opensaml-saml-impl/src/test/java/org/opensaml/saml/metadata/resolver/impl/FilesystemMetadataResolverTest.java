@@ -18,6 +18,8 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 
 import net.shibboleth.shared.component.ComponentInitializationException;
 import net.shibboleth.shared.logic.PredicateSupport;
@@ -31,6 +33,7 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.io.FileWriteMode;
 import com.google.common.io.Files;
 
 @SuppressWarnings("javadoc")
@@ -283,6 +286,41 @@ public class FilesystemMetadataResolverTest extends XMLObjectBaseTestCase {
         }
     }
     
+    /**
+     * Tests that a file which is touched but not modified is not reprocessed, and that a modified file is.
+     * 
+     * @throws Exception ...
+     */
+    @Test
+    public void testChangeDetection() throws Exception {
+        File targetFile = new File(System.getProperty("java.io.tmpdir"), "filesystem-md-provider-change.xml");
+        if (targetFile.exists()) {
+            Assert.assertTrue(targetFile.delete());
+        }
+        Files.copy(mdFile, targetFile);
+        
+        metadataProvider = new FilesystemMetadataResolver(targetFile);
+        metadataProvider.setParserPool(parserPool);
+        metadataProvider.setId("test");
+        metadataProvider.initialize();
+        
+        final Instant firstUpdate = metadataProvider.getLastUpdate();
+        Assert.assertNotNull(firstUpdate);
+        
+        Assert.assertTrue(targetFile.setLastModified(System.currentTimeMillis() + 60000));
+        metadataProvider.refresh();
+        Assert.assertEquals(metadataProvider.getLastUpdate(), firstUpdate);
+        
+        Files.asCharSink(targetFile, StandardCharsets.UTF_8, FileWriteMode.APPEND).write("\n");
+        Assert.assertTrue(targetFile.setLastModified(System.currentTimeMillis() + 120000));
+        metadataProvider.refresh();
+        Assert.assertNotEquals(metadataProvider.getLastUpdate(), firstUpdate);
+        Assert.assertNotNull(metadataProvider.resolveSingle(criteriaSet));
+        
+        metadataProvider.destroy();
+        Assert.assertTrue(targetFile.delete());
+    }
+    
     @Test
     public void testExpiredMetadataWithValidRequiredAndNoFailFast() throws URISyntaxException, ResolverException {
         URL mdURL = FilesystemMetadataResolverTest.class
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.metadata.resolver.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.opensaml.core.config.ConfigurationService;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+
+@SuppressWarnings("javadoc")
+public class RefreshCoordinatorTest {
+    
+    private RefreshCoordinator coordinator;
+    
+    @BeforeMethod
+    public void setUp() {
+        coordinator = new RefreshCoordinator();
+        coordinator.setId("test");
+    }
+    
+    @AfterMethod
+    public void tearDown() {
+        coordinator.destroy();
+    }
+    
+    @Test
+    public void testJitter() throws ComponentInitializationException {
+        coordinator.setMaxJitter(Duration.ofSeconds(10));
+        coordinator.initialize();
+        
+        for (int i = 0; i < 100; i++) {
+            final Duration jitter = coordinator.nextJitter();
+            Assert.assertFalse(jitter.isNegative());
+            Assert.assertTrue(jitter.compareTo(Duration.ofSeconds(10)) <= 0);
+        }
+    }
+    
+    @Test
+    public void testNoJitter() throws ComponentInitializationException {
+        coordinator.setMaxJitter(Duration.ZERO);
+        coordinator.initialize();
+        
+        Assert.assertEquals(coordinator.nextJitter(), Duration.ZERO);
+    }
+    
+    @Test
+    public void testInitialJitter() throws ComponentInitializationException {
+        coordinator.setMaxInitialJitter(Duration.ofSeconds(1));
+        coordinator.initialize();
+        
+        for (int i = 0; i < 100; i++) {
+            final Duration jitter = coordinator.nextInitialJitter();
+            Assert.assertFalse(jitter.isNegative());
+            Assert.assertTrue(jitter.compareTo(Duration.ofSeconds(1)) <= 0);
+        }
+    }
+    
+    @Test
+    public void testTryAcquire() throws ComponentInitializationException {
+        coordinator.setMaxConcurrentRefreshes(1);
+        coordinator.initialize();
+        
+        Assert.assertTrue(coordinator.tryAcquire());
+        Assert.assertFalse(coordinator.tryAcquire());
+        coordinator.release();
+        Assert.assertTrue(coordinator.tryAcquire());
+        coordinator.release();
+    }
+    
+    @Test
+    public void testDeferredQueueDelay() throws ComponentInitializationException {
+        final MetricRegistry previous = ConfigurationService.get(MetricRegistry.class);
+        final MetricRegistry registry = new MetricRegistry();
+        ConfigurationService.register(MetricRegistry.class, registry);
+        try {
+            coordinator.setMaxConcurrentRefreshes(1);
+            coordinator.initialize();
+            
+            final Timer timer = registry.timer(MetricRegistry.name(RefreshCoordinator.class.getName(), "test",
+                    RefreshCoordinator.METRIC_TIMER_QUEUE_DELAY));
+            
+            Assert.assertTrue(coordinator.tryAcquire());
+            final Instant deferredSince = Instant.now().minusSeconds(30);
+            Assert.assertFalse(coordinator.tryAcquire(deferredSince));
+            coordinator.release();
+            Assert.assertTrue(coordinator.tryAcquire(deferredSince));
+            coordinator.release();
+            
+            Assert.assertEquals(timer.getCount(), 2);
+            Assert.assertTrue(timer.getSnapshot().getMax() >= Duration.ofSeconds(30).toNanos());
+            Assert.assertEquals(registry.counter(MetricRegistry.name(RefreshCoordinator.class.getName(), "test",
+                    RefreshCoordinator.METRIC_COUNTER_DEFERRED)).getCount(), 1);
+        } finally {
+            if (previous != null) {
+                ConfigurationService.register(MetricRegistry.class, previous);
+            } else {
+                ConfigurationService.deregister(MetricRegistry.class);
+            }
+        }
+    }
+    
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        coordinator.setMaxConcurrentRefreshes(1);
+        coordinator.initialize();
+        
+        coordinator.acquire();
+        
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread waiter = new Thread(() -> {
+            try {
+                coordinator.acquire();
+                acquired.countDown();
+                coordinator.release();
+            } catch (final InterruptedException e) {
+                // fall through, test will fail
+            }
+        });
+        waiter.start();
+        
+        Assert.assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        coordinator.release();
+        Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join(5000);
+    }
+    
+}
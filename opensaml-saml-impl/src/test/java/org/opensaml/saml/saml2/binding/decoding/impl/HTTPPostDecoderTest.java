@@ -141,5 +141,25 @@ public class HTTPPostDecoderTest extends XMLObjectBaseTestCase {
 
         decoder.decode();
     }
+
+    /**
+     * Test that a message larger than the configured maximum is rejected.
+     * 
+     * @throws Exception ...
+     */
+    @Test(expectedExceptions = MessageDecodingException.class)
+    public void testMessageSizeLimit() throws Exception {
+        decoder = new HTTPPostDecoder();
+        decoder.setParserPool(parserPool);
+        decoder.setHttpServletRequestSupplier(new ConstantSupplier<>(httpRequest));
+        decoder.setMaxMessageSize(64);
+        decoder.initialize();
+
+        httpRequest.setParameter("SAMLRequest", "PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz4KPHNhbWxwOkF1dGhuUm"
+                + "VxdWVzdCBJRD0iZm9vIiBJc3N1ZUluc3RhbnQ9IjE5NzAtMDEtMDFUMDA6MDA6MDAuMDAwWiIgVmVyc2lvbj0iMi4wIiB4bW"
+                + "xuczpzYW1scD0idXJuOm9hc2lzOm5hbWVzOnRjOlNBTUw6Mi4wOnByb3RvY29sIi8+");
+        
+        decoder.decode();
+    }
     
 }
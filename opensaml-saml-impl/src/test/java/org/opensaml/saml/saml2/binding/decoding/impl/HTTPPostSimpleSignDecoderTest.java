@@ -186,4 +186,25 @@ public class HTTPPostSimpleSignDecoderTest extends XMLObjectBaseTestCase {
         decoder.decode();
     }
     
+    /**
+     * Test that the signed content is not built from a message larger than the configured maximum.
+     * 
+     * @throws Exception ...
+     */
+    @Test(expectedExceptions = MessageDecodingException.class)
+    public void testSignedContentSizeLimit() throws Exception {
+        decoder = new HTTPPostSimpleSignDecoder();
+        decoder.setParserPool(parserPool);
+        decoder.setHttpServletRequestSupplier(new ConstantSupplier<>(httpRequest));
+        decoder.setMaxMessageSize(64);
+        decoder.initialize();
+        
+        httpRequest.setParameter("SAMLRequest", "PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz4KPHNhbWxwOkF1dGhuUm"
+                + "VxdWVzdCBJRD0iZm9vIiBJc3N1ZUluc3RhbnQ9IjE5NzAtMDEtMDFUMDA6MDA6MDAuMDAwWiIgVmVyc2lvbj0iMi4wIiB4bW"
+                + "xuczpzYW1scD0idXJuOm9hc2lzOm5hbWVzOnRjOlNBTUw6Mi4wOnByb3RvY29sIi8+");
+        httpRequest.setParameter("SigAlg", "TheAlgorithm");
+        
+        decoder.getSignedContent();
+    }
+    
 }
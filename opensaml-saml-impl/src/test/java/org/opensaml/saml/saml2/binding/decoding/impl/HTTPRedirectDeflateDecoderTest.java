@@ -91,6 +91,30 @@ public class HTTPRedirectDeflateDecoderTest extends XMLObjectBaseTestCase {
         Assert.assertNull(messageContext.ensureSubcontext(SimpleSignatureContext.class).getSignedContent());
     }    
     
+    @Test
+    public void testInflatedMessageSizeLimit() throws Exception {
+        decoder = new HTTPRedirectDeflateDecoder();
+        decoder.setParserPool(parserPool);
+        decoder.setHttpServletRequestSupplier(new ConstantSupplier<>(httpRequest));
+        // The compressed message is 205 bytes and the inflated message 318 bytes.
+        decoder.setMaxMessageSize(256);
+        decoder.initialize();
+
+        httpRequest
+                .setParameter(
+                        "SAMLResponse",
+                        "fZAxa8NADIX3/opDe3yXLG2F7VASCoF2qdMM3Y6LkhrOp8PSlfz8uqYdvBTeIMHT08ert7chmi8apefUwLpyYCgFPvfp2sD78Xn1ANv2rhY/xIxvJJmTkNmTaJ+8zkefqhmtpZsfcqSKxyuYw76BC/M0iBQ6JFGfdMp/vHcrt550dA5nVc65DzCnP4TND8IElQTnpw2UMSF76QWTH0hQA3ZPry84OTGPrBw4QvuL2KnXIsttx2cyJx8L/R8msxu7EgKJgG1ruwy1yxrabw==");
+
+        populateRequestURL(httpRequest, "http://example.org");
+
+        try {
+            decoder.decode();
+            Assert.fail("Message exceeding the size limit should have failed decoding");
+        } catch (final MessageDecodingException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testRequestDecoding() throws MessageDecodingException, MessageEncodingException, 
                                                             MarshallingException, EncodingException {
@@ -284,4 +284,84 @@ public class HTTPPostEncoderTest extends XMLObjectBaseTestCase {
         Assert.assertEquals(submit.val(), "Continue");
         
     }
+
+    @Test
+    public void testStreamingResponseEncoding() throws Exception {
+        SAMLObjectBuilder<StatusCode> statusCodeBuilder =
+                (SAMLObjectBuilder<StatusCode>) builderFactory.<StatusCode>ensureBuilder(
+                        StatusCode.DEFAULT_ELEMENT_NAME);
+        StatusCode statusCode = statusCodeBuilder.buildObject();
+        statusCode.setValue(StatusCode.SUCCESS);
+
+        SAMLObjectBuilder<Status> statusBuilder =
+                (SAMLObjectBuilder<Status>) builderFactory.<Status>ensureBuilder(Status.DEFAULT_ELEMENT_NAME);
+        Status responseStatus = statusBuilder.buildObject();
+        responseStatus.setStatusCode(statusCode);
+
+        SAMLObjectBuilder<Response> responseBuilder =
+                (SAMLObjectBuilder<Response>) builderFactory.<Response>ensureBuilder(Response.DEFAULT_ELEMENT_NAME);
+        Response samlMessage = responseBuilder.buildObject();
+        samlMessage.setID("foo");
+        samlMessage.setVersion(SAMLVersion.VERSION_20);
+        samlMessage.setIssueInstant(Instant.ofEpochMilli(0));
+        samlMessage.setStatus(responseStatus);
+
+        SAMLObjectBuilder<AssertionConsumerService> endpointBuilder =
+                (SAMLObjectBuilder<AssertionConsumerService>) builderFactory.<AssertionConsumerService>ensureBuilder(
+                        AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        AssertionConsumerService samlEndpoint = endpointBuilder.buildObject();
+        samlEndpoint.setLocation("http://example.org/a?b=c&d=e");
+
+        MessageContext messageContext = new MessageContext();
+        messageContext.setMessage(samlMessage);
+        SAMLBindingSupport.setRelayState(messageContext, "relay\"<");
+        messageContext.ensureSubcontext(SAMLPeerEntityContext.class)
+            .ensureSubcontext(SAMLEndpointContext.class).setEndpoint(samlEndpoint);
+        
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        HTTPPostEncoder encoder = new HTTPPostEncoder();
+        encoder.setMessageContext(messageContext);
+        encoder.setHttpServletResponseSupplier(new ConstantSupplier<>(response));
+        encoder.setStreamingEncoding(true);
+        encoder.setCSPDigester(new StringDigester("SHA-256", OutputFormat.HEX_LOWER));
+        
+        encoder.initialize();
+        encoder.prepareContext();
+        encoder.encode();
+
+        final String csp = response.getHeader("Content-Security-Policy");
+        Assert.assertTrue(csp != null && csp.contains("script-src-attr 'unsafe-hashes' 'sha256-78f9e25449128af5ff73b5d604669faa1f2d4a9891aca8aa61ea9b1bb3754ce1"));
+
+        Assert.assertEquals(response.getContentType(), "text/html;charset=UTF-8", "Unexpected content type");
+        Assert.assertEquals(response.getHeader("Cache-control"), "no-cache, no-store", "Unexpected cache controls");
+        
+        Document webDoc = Jsoup.parse(response.getContentAsString());
+        
+        Element body = webDoc.selectFirst("html > body");
+        assert body != null;
+        Assert.assertEquals(body.attr("onload"), "document.forms[0].submit()");
+        
+        Element form = body.selectFirst("form");
+        assert form != null;
+        Assert.assertEquals(form.attr("method").toLowerCase(), "post");
+        Assert.assertEquals(form.attr("action"), "http://example.org/a?b=c&d=e");
+        
+        Element relayState = form.selectFirst("input[name=RelayState]");
+        assert relayState != null;
+        Assert.assertEquals(relayState.val(), "relay\"<");
+        
+        Element samlResponse = form.selectFirst("input[name=SAMLResponse]");
+        assert samlResponse != null;
+        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64Support.decode(samlResponse.val()))) {
+            XMLObject xmlObject = XMLObjectSupport.unmarshallFromInputStream(parserPool, inputStream);
+            Assert.assertTrue(xmlObject instanceof Response);
+            assertXMLEquals(xmlObject.ensureDOM().getOwnerDocument(), samlMessage);
+        }
+        
+        Element submit = body.selectFirst("noscript > div > input[type=submit]");
+        assert submit != null;
+        Assert.assertEquals(submit.val(), "Continue");
+    }
+    
 }
@@ -15,6 +15,7 @@
 package org.opensaml.saml.saml2.binding.encoding.impl;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.time.Instant;
 import java.util.List;
@@ -48,6 +49,7 @@ import org.opensaml.security.crypto.KeySupport;
 import org.opensaml.xmlsec.SignatureSigningParameters;
 import org.opensaml.xmlsec.config.impl.DefaultSecurityConfigurationBootstrap;
 import org.opensaml.xmlsec.context.SecurityParametersContext;
+import org.opensaml.xmlsec.crypto.XMLSigningUtil;
 import org.opensaml.xmlsec.keyinfo.KeyInfoGenerator;
 import org.opensaml.xmlsec.keyinfo.KeyInfoSupport;
 import org.opensaml.xmlsec.keyinfo.NamedKeyInfoGeneratorManager;
@@ -418,5 +420,74 @@ public class HTTPPostSimpleSignEncoderTest extends XMLObjectBaseTestCase {
         // Note: to test that actual signature is cryptographically correct, really need a known good test vector.
         // Need to verify that we're signing over the right data in the right byte[] encoded form.
     }
+
+    @Test
+    public void testStreamingRequestEncodingWithSimpleSign() throws Exception {
+        SAMLObjectBuilder<AuthnRequest> requestBuilder =
+                (SAMLObjectBuilder<AuthnRequest>) builderFactory.<AuthnRequest>ensureBuilder(AuthnRequest.DEFAULT_ELEMENT_NAME);
+        AuthnRequest samlMessage = requestBuilder.buildObject();
+        samlMessage.setID("foo");
+        samlMessage.setVersion(SAMLVersion.VERSION_20);
+        samlMessage.setIssueInstant(Instant.ofEpochMilli(0));
+
+        SAMLObjectBuilder<Endpoint> endpointBuilder =
+                (SAMLObjectBuilder<Endpoint>) builderFactory.<Endpoint>ensureBuilder(AssertionConsumerService.DEFAULT_ELEMENT_NAME);
+        Endpoint samlEndpoint = endpointBuilder.buildObject();
+        samlEndpoint.setLocation("http://example.org");
+        
+        MessageContext messageContext = new MessageContext();
+        messageContext.setMessage(samlMessage);
+        SAMLBindingSupport.setRelayState(messageContext, "relay");
+        messageContext.ensureSubcontext(SAMLPeerEntityContext.class)
+            .ensureSubcontext(SAMLEndpointContext.class).setEndpoint(samlEndpoint);
+        
+        KeyPair kp = KeySupport.generateKeyPair("RSA", 2048, null);
+        SignatureSigningParameters signingParameters = new SignatureSigningParameters();
+        final Credential signingCredential = CredentialSupport.getSimpleCredential(kp.getPublic(), kp.getPrivate());
+        signingParameters.setSigningCredential(signingCredential);
+        signingParameters.setSignatureAlgorithm(SignatureConstants.ALGO_ID_SIGNATURE_RSA_SHA256);
+        messageContext.ensureSubcontext(SecurityParametersContext.class).setSignatureSigningParameters(signingParameters);
+        
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        HTTPPostSimpleSignEncoder encoder = new HTTPPostSimpleSignEncoder();
+        encoder.setMessageContext(messageContext);
+        encoder.setHttpServletResponseSupplier(new ConstantSupplier<>(response));
+        encoder.setStreamingEncoding(true);
+        
+        encoder.initialize();
+        encoder.prepareContext();
+        encoder.encode();
+        
+        Document webDoc = Jsoup.parse(response.getContentAsString());
+        Element form = webDoc.selectFirst("html > body > form");
+        assert form != null;
+        Assert.assertEquals(form.attr("action"), "http://example.org");
+        
+        Element relayState = form.selectFirst("input[name=RelayState]");
+        assert relayState != null;
+        Assert.assertEquals(relayState.val(), "relay");
+        
+        Element samlRequest = form.selectFirst("input[name=SAMLRequest]");
+        assert samlRequest != null;
+        final byte[] messageBytes = Base64Support.decode(samlRequest.val());
+        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(messageBytes)) {
+            XMLObject xmlObject = XMLObjectSupport.unmarshallFromInputStream(parserPool, inputStream);
+            Assert.assertTrue(xmlObject instanceof AuthnRequest);
+            assertXMLEquals(xmlObject.ensureDOM().getOwnerDocument(), samlMessage);
+        }
+        
+        Element sigAlg = form.selectFirst("input[name=SigAlg]");
+        assert sigAlg != null;
+        Assert.assertEquals(sigAlg.val(), SignatureConstants.ALGO_ID_SIGNATURE_RSA_SHA256);
+        Assert.assertNull(form.selectFirst("input[name=KeyInfo]"));
+        
+        Element signature = form.selectFirst("input[name=Signature]");
+        assert signature != null;
+        final String signedContent = "SAMLRequest=" + new String(messageBytes, StandardCharsets.UTF_8)
+                + "&RelayState=relay&SigAlg=" + SignatureConstants.ALGO_ID_SIGNATURE_RSA_SHA256;
+        Assert.assertTrue(XMLSigningUtil.verifyWithURI(signingCredential, SignatureConstants.ALGO_ID_SIGNATURE_RSA_SHA256,
+                Base64Support.decode(signature.val()), signedContent.getBytes(StandardCharsets.UTF_8)));
+    }
     
 }
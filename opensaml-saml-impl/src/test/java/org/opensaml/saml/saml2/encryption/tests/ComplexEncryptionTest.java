@@ -26,8 +26,11 @@ import org.opensaml.saml.saml2.core.Assertion;
 import org.opensaml.saml.saml2.core.Attribute;
 import org.opensaml.saml.saml2.core.EncryptedAssertion;
 import org.opensaml.saml.saml2.core.EncryptedAttribute;
+import org.opensaml.saml.saml2.encryption.Decrypter;
+import org.opensaml.saml.saml2.encryption.EncryptedElementTypeEncryptedKeyResolver;
 import org.opensaml.saml.saml2.encryption.Encrypter;
 import org.opensaml.saml.saml2.encryption.Encrypter.KeyPlacement;
+import org.opensaml.saml.saml2.encryption.EncryptionSession;
 import org.opensaml.security.credential.Credential;
 import org.opensaml.xmlsec.algorithm.AlgorithmSupport;
 import org.opensaml.xmlsec.encryption.CarriedKeyName;
@@ -40,6 +43,7 @@ import org.opensaml.xmlsec.encryption.support.EncryptionConstants;
 import org.opensaml.xmlsec.encryption.support.EncryptionException;
 import org.opensaml.xmlsec.encryption.support.DataEncryptionParameters;
 import org.opensaml.xmlsec.encryption.support.KeyEncryptionParameters;
+import org.opensaml.xmlsec.keyinfo.impl.StaticKeyInfoCredentialResolver;
 import org.opensaml.xmlsec.keyinfo.impl.StaticKeyInfoGenerator;
 import org.opensaml.xmlsec.signature.KeyInfo;
 import org.opensaml.xmlsec.signature.KeyName;
@@ -380,4 +384,86 @@ public class ComplexEncryptionTest extends XMLObjectBaseTestCase {
                 "Encrypted object was not an instance of the expected type");
     }
 
-}
\ No newline at end of file
+    /** Test reuse of the data encryption key and EncryptedKey within an encryption session. */
+    @Test
+    public void testSessionKeyReuse() throws Exception {
+        final Assertion assertion = (Assertion) unmarshallElement("/org/opensaml/saml/saml2/encryption/Assertion.xml");
+        assert assertion != null;
+        
+        final Attribute target = assertion.getAttributeStatements().get(0).getAttributes().get(0);
+        final Attribute target2 = assertion.getAttributeStatements().get(0).getAttributes().get(1);
+        
+        final Credential kekCred = AlgorithmSupport.generateKeyPairAndCredential(kekURIRSA, 2048, true);
+        final KeyEncryptionParameters kekParams = new KeyEncryptionParameters();
+        kekParams.setAlgorithm(kekURIRSA);
+        kekParams.setEncryptionCredential(kekCred);
+        kekParams.setRecipient(expectedRecipientRSA);
+        kekParamsList.add(kekParams);
+        
+        encParams.setEncryptionCredential(null);
+        
+        final EncryptionSession session = new EncryptionSession();
+        encrypter = new Encrypter(encParams, kekParamsList);
+        encrypter.setKeyPlacement(KeyPlacement.PEER);
+        encrypter.setEncryptionSession(session);
+        final EncryptedAttribute encAttribute = encrypter.encrypt(target);
+        
+        // A separate encrypter sharing the session, as used by successive profile actions.
+        final Encrypter encrypter2 = new Encrypter(encParams, kekParamsList);
+        encrypter2.setKeyPlacement(KeyPlacement.INLINE);
+        encrypter2.setEncryptionSession(session);
+        final EncryptedAttribute encAttribute2 = encrypter2.encrypt(target2);
+        
+        final EncryptedKey encKey = encAttribute.getEncryptedKeys().get(0);
+        final EncryptedData encData2 = encAttribute2.getEncryptedData();
+        assert encData2 != null;
+        final KeyInfo keyInfo2 = encData2.getKeyInfo();
+        assert keyInfo2 != null;
+        Assert.assertEquals(encAttribute2.getEncryptedKeys().size(), 0, "Number of peer EncryptedKeys");
+        Assert.assertEquals(keyInfo2.getEncryptedKeys().size(), 1, "Number of inline EncryptedKeys");
+        final EncryptedKey encKey2 = keyInfo2.getEncryptedKeys().get(0);
+        
+        Assert.assertNotSame(encKey2, encKey);
+        Assert.assertNotEquals(encKey2.getID(), encKey.getID());
+        Assert.assertEquals(encKey2.getRecipient(), expectedRecipientRSA);
+        Assert.assertNull(encKey2.getReferenceList(), "Inline EncryptedKey ReferenceList wasn't null");
+        Assert.assertEquals(encKey2.getCipherData().getCipherValue().getValue(),
+                encKey.getCipherData().getCipherValue().getValue(), "EncryptedKey was not reused");
+        
+        final Decrypter decrypter = new Decrypter(null, new StaticKeyInfoCredentialResolver(kekCred),
+                new EncryptedElementTypeEncryptedKeyResolver());
+        Assert.assertEquals(decrypter.decrypt(encAttribute).getName(), target.getName());
+        Assert.assertEquals(decrypter.decrypt(encAttribute2).getName(), target2.getName());
+    }
+    
+    /** Test that a data encryption key is not shared between different recipients within a session. */
+    @Test
+    public void testSessionDistinctRecipients() throws Exception {
+        final Assertion assertion = (Assertion) unmarshallElement("/org/opensaml/saml/saml2/encryption/Assertion.xml");
+        assert assertion != null;
+        
+        final Attribute target = assertion.getAttributeStatements().get(0).getAttributes().get(0);
+        final Attribute target2 = assertion.getAttributeStatements().get(0).getAttributes().get(1);
+        
+        encParams.setEncryptionCredential(null);
+        kekParamsRSA.setRecipient(expectedRecipientRSA);
+        kekParamsAES.setRecipient(expectedRecipientAES);
+        
+        final EncryptionSession session = new EncryptionSession();
+        encrypter = new Encrypter(encParams, kekParamsRSA);
+        encrypter.setEncryptionSession(session);
+        encrypter.encrypt(target);
+        
+        final Encrypter encrypter2 = new Encrypter(encParams, kekParamsAES);
+        encrypter2.setEncryptionSession(session);
+        encrypter2.encrypt(target2);
+        
+        final String algorithm = encParams.getAlgorithm();
+        assert algorithm != null;
+        Assert.assertNotNull(session.getDataEncryptionKey(algorithm, List.of(kekParamsRSA)));
+        Assert.assertNotNull(session.getDataEncryptionKey(algorithm, List.of(kekParamsAES)));
+        Assert.assertNotEquals(session.getDataEncryptionKey(algorithm, List.of(kekParamsAES)),
+                session.getDataEncryptionKey(algorithm, List.of(kekParamsRSA)));
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.saml.security.impl;
+
+import java.security.KeyException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.core.testing.XMLObjectBaseTestCase;
+import org.opensaml.saml.criterion.RoleDescriptorCriterion;
+import org.opensaml.saml.saml2.metadata.EntityDescriptor;
+import org.opensaml.saml.saml2.metadata.RoleDescriptor;
+import org.opensaml.saml.saml2.metadata.SPSSODescriptor;
+import org.opensaml.security.credential.Credential;
+import org.opensaml.security.credential.CredentialSupport;
+import org.opensaml.security.credential.UsageType;
+import org.opensaml.security.criteria.UsageCriterion;
+import org.opensaml.security.crypto.JCAConstants;
+import org.opensaml.security.crypto.KeySupport;
+import org.opensaml.xmlsec.EncryptionParameters;
+import org.opensaml.xmlsec.EncryptionParametersResolver;
+import org.opensaml.xmlsec.algorithm.AlgorithmSupport;
+import org.opensaml.xmlsec.criterion.EncryptionConfigurationCriterion;
+import org.opensaml.xmlsec.encryption.support.EncryptionConstants;
+import org.opensaml.xmlsec.impl.BasicEncryptionConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import net.shibboleth.shared.collection.CollectionSupport;
+import net.shibboleth.shared.resolver.CriteriaSet;
+import net.shibboleth.shared.resolver.ResolverException;
+
+@SuppressWarnings({"null", "javadoc"})
+public class CachingEncryptionParametersResolverTest extends XMLObjectBaseTestCase {
+
+    private Credential rsaCred;
+
+    private BasicEncryptionConfiguration config;
+
+    private RoleDescriptor roleDesc;
+
+    private CountingResolver delegate;
+
+    private CachingEncryptionParametersResolver resolver;
+
+    @BeforeClass
+    public void buildCredentials() throws NoSuchAlgorithmException, NoSuchProviderException {
+        final KeyPair rsaKeyPair = KeySupport.generateKeyPair(JCAConstants.KEY_ALGO_RSA, 2048, null);
+        rsaCred = CredentialSupport.getSimpleCredential(rsaKeyPair.getPublic(), null);
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        config = new BasicEncryptionConfiguration();
+        roleDesc = buildRoleDescriptor("urn:test:foo");
+        delegate = new CountingResolver(() -> {
+            final EncryptionParameters params = new EncryptionParameters();
+            params.setKeyTransportEncryptionCredential(rsaCred);
+            params.setKeyTransportEncryptionAlgorithm(EncryptionConstants.ALGO_ID_KEYTRANSPORT_RSAOAEP);
+            params.setDataEncryptionAlgorithm(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128_GCM);
+            return params;
+        });
+        resolver = new CachingEncryptionParametersResolver(delegate);
+    }
+
+    @Test
+    public void testCached() throws ResolverException {
+        final CriteriaSet criteria = buildCriteria(roleDesc);
+
+        final EncryptionParameters first = resolver.resolveSingle(criteria);
+        final EncryptionParameters second = resolver.resolveSingle(buildCriteria(roleDesc));
+
+        Assert.assertEquals(delegate.count, 1);
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(second.getKeyTransportEncryptionCredential(), rsaCred);
+        Assert.assertEquals(second.getDataEncryptionAlgorithm(), EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128_GCM);
+
+        // Results are independent of the cache.
+        second.setDataEncryptionAlgorithm(null);
+        Assert.assertEquals(resolver.resolveSingle(criteria).getDataEncryptionAlgorithm(),
+                EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128_GCM);
+        Assert.assertEquals(delegate.count, 1);
+    }
+
+    @Test
+    public void testInvalidation() throws ResolverException {
+        resolver.resolveSingle(buildCriteria(roleDesc));
+
+        // Refreshed metadata.
+        resolver.resolveSingle(buildCriteria(buildRoleDescriptor("urn:test:foo")));
+        Assert.assertEquals(delegate.count, 2);
+
+        // Different peer.
+        resolver.resolveSingle(buildCriteria(buildRoleDescriptor("urn:test:bar")));
+        Assert.assertEquals(delegate.count, 3);
+
+        // Reloaded configuration.
+        config = new BasicEncryptionConfiguration();
+        resolver.resolveSingle(buildCriteria(roleDesc));
+        Assert.assertEquals(delegate.count, 4);
+
+        resolver.invalidateAll();
+        resolver.resolveSingle(buildCriteria(roleDesc));
+        Assert.assertEquals(delegate.count, 5);
+    }
+
+    @Test
+    public void testUncacheableCriteria() throws ResolverException {
+        final CriteriaSet criteria = buildCriteria(roleDesc);
+        criteria.add(new UsageCriterion(UsageType.ENCRYPTION));
+
+        resolver.resolveSingle(criteria);
+        resolver.resolveSingle(criteria);
+        Assert.assertEquals(delegate.count, 2);
+    }
+
+    @Test
+    public void testGeneratedDataCredential() throws ResolverException, NoSuchAlgorithmException, KeyException {
+        delegate = new CountingResolver(() -> {
+            final EncryptionParameters params = new EncryptionParameters();
+            params.setKeyTransportEncryptionCredential(rsaCred);
+            params.setKeyTransportEncryptionAlgorithm(EncryptionConstants.ALGO_ID_KEYTRANSPORT_RSAOAEP);
+            params.setDataEncryptionAlgorithm(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128_GCM);
+            try {
+                params.setDataEncryptionCredential(AlgorithmSupport.generateSymmetricKeyAndCredential(
+                        EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128_GCM));
+            } catch (final NoSuchAlgorithmException | KeyException e) {
+                throw new RuntimeException(e);
+            }
+            return params;
+        });
+        resolver = new CachingEncryptionParametersResolver(delegate);
+
+        final EncryptionParameters first = resolver.resolveSingle(buildCriteria(roleDesc));
+        final EncryptionParameters second = resolver.resolveSingle(buildCriteria(roleDesc));
+
+        Assert.assertEquals(delegate.count, 1);
+        Assert.assertNotNull(first.getDataEncryptionCredential());
+        Assert.assertNotNull(second.getDataEncryptionCredential());
+        Assert.assertNotSame(first.getDataEncryptionCredential(), second.getDataEncryptionCredential());
+        Assert.assertNotEquals(CredentialSupport.extractEncryptionKey(first.getDataEncryptionCredential()),
+                CredentialSupport.extractEncryptionKey(second.getDataEncryptionCredential()));
+
+        // A configured data encryption credential is reused.
+        final Credential configured = AlgorithmSupport.generateSymmetricKeyAndCredential(
+                EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128_GCM);
+        config.setDataEncryptionCredentials(CollectionSupport.singletonList(configured));
+        delegate = new CountingResolver(() -> {
+            final EncryptionParameters params = new EncryptionParameters();
+            params.setDataEncryptionCredential(configured);
+            params.setDataEncryptionAlgorithm(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128_GCM);
+            return params;
+        });
+        resolver = new CachingEncryptionParametersResolver(delegate);
+        resolver.resolveSingle(buildCriteria(roleDesc));
+        Assert.assertSame(resolver.resolveSingle(buildCriteria(roleDesc)).getDataEncryptionCredential(), configured);
+        Assert.assertEquals(delegate.count, 1);
+    }
+
+    @Test
+    public void testNoResult() throws ResolverException {
+        delegate = new CountingResolver(() -> null);
+        resolver = new CachingEncryptionParametersResolver(delegate);
+
+        Assert.assertNull(resolver.resolveSingle(buildCriteria(roleDesc)));
+        Assert.assertFalse(resolver.resolve(buildCriteria(roleDesc)).iterator().hasNext());
+        Assert.assertEquals(delegate.count, 1);
+    }
+
+    @Nonnull private CriteriaSet buildCriteria(@Nonnull final RoleDescriptor role) {
+        return new CriteriaSet(new EncryptionConfigurationCriterion(config), new RoleDescriptorCriterion(role));
+    }
+
+    @Nonnull private RoleDescriptor buildRoleDescriptor(@Nonnull final String entityID) {
+        final EntityDescriptor entityDesc = buildXMLObject(EntityDescriptor.DEFAULT_ELEMENT_NAME);
+        entityDesc.setEntityID(entityID);
+
+        final SPSSODescriptor spSSODesc = buildXMLObject(SPSSODescriptor.DEFAULT_ELEMENT_NAME);
+        spSSODesc.setParent(entityDesc);
+
+        return spSSODesc;
+    }
+
+    /** Delegate which counts resolutions. */
+    private static class CountingResolver implements EncryptionParametersResolver {
+
+        private final Supplier<EncryptionParameters> supplier;
+
+        private int count;
+
+        CountingResolver(@Nonnull final Supplier<EncryptionParameters> source) {
+            supplier = source;
+        }
+
+        @Nonnull public Iterable<EncryptionParameters> resolve(@Nullable final CriteriaSet criteria)
+                throws ResolverException {
+            final EncryptionParameters params = resolveSingle(criteria);
+            return params != null ? CollectionSupport.singletonList(params) : CollectionSupport.emptyList();
+        }
+
+        @Nullable public EncryptionParameters resolveSingle(@Nullable final CriteriaSet criteria)
+                throws ResolverException {
+            count++;
+            return supplier.get();
+        }
+    }
+
+}
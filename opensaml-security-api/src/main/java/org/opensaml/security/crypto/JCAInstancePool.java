@@ -0,0 +1,250 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.security.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Pools of reusable JCA {@link MessageDigest} instances, and of {@link Signature} instances used for verification.
+ *
+ * <p>
+ * Obtaining an instance via the JCA <code>getInstance</code> methods involves a provider lookup and reflective
+ * instantiation each time, which is significant relative to the cost of verifying or digesting a small message.
+ * Instances obtained here must be returned via the corresponding <code>release</code> method once the operation
+ * has completed successfully; instances left in an unknown state by an exception should simply be discarded.
+ * </p>
+ *
+ * <p>
+ * A {@link Signature} obtained via <code>getInstance</code> may defer the choice of provider until it is first
+ * initialized, and is then bound to the provider which accepted that key. Pooled signatures are therefore only
+ * handed out already initialized, are reused only for keys of the same class as the one which bound them, and are
+ * discarded in favour of a new instance if they reject a key. The provider of an instance is never queried, since
+ * that would force an early choice. Only verification instances are pooled, since an idle instance retains the key
+ * with which it was last initialized and that must never be a private or secret key; instances used for signing
+ * and MACs should be obtained afresh for each operation.
+ * </p>
+ *
+ * <p>
+ * The pools are discarded when a change to the set or order of installed providers is detected. Since the JCA
+ * offers no notification of such changes, the installed providers are checked at most once per second, so that
+ * obtaining an instance does not copy the provider list each time. Code which changes the installed providers may
+ * call {@link #clear()} for the change to take effect immediately.
+ * </p>
+ */
+public final class JCAInstancePool {
+
+    /** Maximum number of idle instances of each algorithm to retain. */
+    private static final int MAX_POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    /** Pooled verification signature instances, keyed by algorithm and key class. */
+    @Nonnull private static final Map<VerifierKey,Pool<Signature>> VERIFIERS = new ConcurrentHashMap<>();
+
+    /** Pooled digest instances, keyed by algorithm. */
+    @Nonnull private static final Map<String,Pool<MessageDigest>> DIGESTS = new ConcurrentHashMap<>();
+
+    /** Minimum interval between checks of the installed providers, in nanoseconds. */
+    private static final long PROVIDER_CHECK_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /** The installed providers when the pools were last validated. */
+    @Nonnull private static volatile Provider[] providers = Security.getProviders();
+
+    /** Time after which the installed providers are next checked, as a {@link System#nanoTime()} value. */
+    private static volatile long nextProviderCheck = System.nanoTime() + PROVIDER_CHECK_INTERVAL;
+
+    /** Constructor. */
+    private JCAInstancePool() {
+    }
+
+    /**
+     * Get a {@link Signature} instance for the specified algorithm, initialized for verification with the
+     * supplied key.
+     *
+     * @param jcaAlgorithmID the JCA algorithm ID
+     * @param verificationKey the public key with which to verify
+     *
+     * @return an initialized signature instance
+     *
+     * @throws GeneralSecurityException if the algorithm is not supported, or the key is not accepted
+     */
+    @Nonnull public static Signature obtainVerifier(@Nonnull final String jcaAlgorithmID,
+            @Nonnull final PublicKey verificationKey) throws GeneralSecurityException {
+        checkProviders();
+
+        final Pool<Signature> pool = VERIFIERS.get(new VerifierKey(jcaAlgorithmID, verificationKey.getClass()));
+        final Signature pooled = pool != null ? pool.poll() : null;
+        if (pooled != null) {
+            try {
+                pooled.initVerify(verificationKey);
+                return pooled;
+            } catch (final InvalidKeyException e) {
+                // Bound to a provider which does not accept this particular key, so discard.
+            }
+        }
+
+        final Signature created = Signature.getInstance(jcaAlgorithmID);
+        created.initVerify(verificationKey);
+        return created;
+    }
+
+    /**
+     * Return a {@link Signature} instance obtained from {@link #obtainVerifier(String, PublicKey)}.
+     *
+     * @param signature the signature instance
+     * @param verificationKey the public key with which it was obtained
+     */
+    public static void releaseVerifier(@Nonnull final Signature signature, @Nonnull final PublicKey verificationKey) {
+        VERIFIERS.computeIfAbsent(new VerifierKey(signature.getAlgorithm(), verificationKey.getClass()),
+                k -> new Pool<>()).offer(signature);
+    }
+
+    /**
+     * Get a {@link MessageDigest} instance for the specified algorithm.
+     *
+     * @param jcaAlgorithmID the JCA algorithm ID
+     *
+     * @return a digest instance
+     *
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     */
+    @Nonnull public static MessageDigest obtainMessageDigest(@Nonnull final String jcaAlgorithmID)
+            throws NoSuchAlgorithmException {
+        checkProviders();
+
+        final Pool<MessageDigest> pool = DIGESTS.get(jcaAlgorithmID);
+        final MessageDigest pooled = pool != null ? pool.poll() : null;
+        return pooled != null ? pooled : MessageDigest.getInstance(jcaAlgorithmID);
+    }
+
+    /**
+     * Return a {@link MessageDigest} instance obtained from {@link #obtainMessageDigest(String)}.
+     *
+     * @param digest the digest instance
+     */
+    public static void releaseMessageDigest(@Nonnull final MessageDigest digest) {
+        digest.reset();
+        DIGESTS.computeIfAbsent(digest.getAlgorithm(), k -> new Pool<>()).offer(digest);
+    }
+
+    /**
+     * Discard all idle instances.
+     *
+     * <p>This should be called after changing the installed providers.</p>
+     */
+    public static void clear() {
+        VERIFIERS.clear();
+        DIGESTS.clear();
+    }
+
+    /** Discard the pools if the installed providers have changed, unless they were checked recently. */
+    private static void checkProviders() {
+        final long now = System.nanoTime();
+        if (now - nextProviderCheck < 0) {
+            return;
+        }
+        nextProviderCheck = now + PROVIDER_CHECK_INTERVAL;
+
+        final Provider[] current = Security.getProviders();
+        if (!isSameProviders(current, providers)) {
+            providers = current;
+            clear();
+        }
+    }
+
+    /**
+     * Compare two provider lists by identity, avoiding the content comparison performed by {@link Provider#equals}.
+     *
+     * @param first first provider list
+     * @param second second provider list
+     *
+     * @return true if the lists contain the same instances in the same order
+     */
+    private static boolean isSameProviders(@Nonnull final Provider[] first, @Nonnull final Provider[] second) {
+        if (first.length != second.length) {
+            return false;
+        }
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] != second[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Key of a pool of verification signatures.
+     *
+     * @param algorithm the JCA algorithm ID
+     * @param keyClass the class of key with which the pooled instances were initialized
+     */
+    private record VerifierKey(@Nonnull String algorithm, @Nonnull Class<?> keyClass) {
+    }
+
+    /**
+     * Idle instances of a single algorithm.
+     *
+     * @param <T> instance type
+     */
+    private static final class Pool<T> {
+
+        /** Idle instances. */
+        @Nonnull private final Deque<T> idle = new ConcurrentLinkedDeque<>();
+
+        /** Number of idle instances. */
+        @Nonnull private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Take an idle instance.
+         *
+         * @return an instance, or null if none is idle
+         */
+        @Nullable T poll() {
+            final T instance = idle.pollFirst();
+            if (instance != null) {
+                count.decrementAndGet();
+            }
+            return instance;
+        }
+
+        /**
+         * Retain an instance, unless the pool is full.
+         *
+         * @param instance the instance
+         */
+        void offer(@Nonnull final T instance) {
+            if (count.incrementAndGet() <= MAX_POOL_SIZE) {
+                idle.offerFirst(instance);
+            } else {
+                count.decrementAndGet();
+            }
+        }
+    }
+
+}
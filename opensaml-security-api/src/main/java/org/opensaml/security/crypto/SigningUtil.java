@@ -207,10 +207,11 @@ public final class SigningUtil {
                 .getAlgorithm(), jcaAlgorithmID);
 
         try {
-            final Signature sig = Signature.getInstance(jcaAlgorithmID);
-            sig.initVerify(verificationKey);
+            final Signature sig = JCAInstancePool.obtainVerifier(jcaAlgorithmID, verificationKey);
             sig.update(input);
-            return sig.verify(signature);
+            final boolean verified = sig.verify(signature);
+            JCAInstancePool.releaseVerifier(sig, verificationKey);
+            return verified;
         } catch (final GeneralSecurityException e) {
             LOG.error("Error during signature verification: {}", e.getMessage());
             throw new SecurityException("Error during signature verification", e);
@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.security.trust;
+
+import javax.annotation.Nullable;
+
+/**
+ * Implemented by components which supply trusted information, such as trusted credentials or PKIX validation
+ * information, and which can report when that information has changed.
+ *
+ * <p>
+ * The value returned is opaque, and is compared for equality with the value returned previously. Any change
+ * signals that decisions based on earlier information should no longer be relied upon.
+ * </p>
+ */
+public interface TrustInformationGenerationSource {
+
+    /**
+     * Get a value identifying the current generation of the trusted information.
+     *
+     * @return the current generation, or null if it cannot be determined
+     */
+    @Nullable Object getTrustInformationGeneration();
+
+}
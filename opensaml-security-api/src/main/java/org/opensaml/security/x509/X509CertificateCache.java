@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.security.x509;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+import org.opensaml.core.config.ConfigurationService;
+import org.opensaml.security.crypto.JCAConstants;
+import org.opensaml.security.crypto.JCAInstancePool;
+
+import net.shibboleth.shared.annotation.constraint.Positive;
+import net.shibboleth.shared.logic.Constraint;
+
+/**
+ * A bounded, thread-safe cache of decoded X.509 certificates, keyed by a SHA-256 digest of their DER encoding.
+ *
+ * <p>
+ * The same certificates are typically seen repeatedly, for example embedded in the KeyInfo of every signed message
+ * from a given peer, and parsing them is far more expensive than computing their digest. Certificates are immutable,
+ * so a decoded instance may safely be shared.
+ * </p>
+ *
+ * <p>
+ * A shared instance is available via {@link #getDefault()}. When the cache is full, an arbitrary entry is evicted
+ * to make room for a new one.
+ * </p>
+ */
+public class X509CertificateCache {
+
+    /** Default maximum number of cached certificates. */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    /** Shared default instance, used if no instance is registered with the {@link ConfigurationService}. */
+    @Nonnull private static final X509CertificateCache DEFAULT_INSTANCE = new X509CertificateCache(DEFAULT_MAX_SIZE);
+
+    /** Cached certificates. */
+    @Nonnull private final Map<ByteBuffer,X509Certificate> cache;
+
+    /** Maximum number of cached certificates. */
+    private final int maxSize;
+
+    /**
+     * Constructor.
+     *
+     * @param max maximum number of certificates to cache
+     */
+    public X509CertificateCache(@Positive final int max) {
+        maxSize = Constraint.isGreaterThan(0, max, "Maximum cache size must be greater than 0");
+        cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the shared instance.
+     *
+     * <p>This is the instance registered with the {@link ConfigurationService}, if any, or else a default instance
+     * holding up to {@link #DEFAULT_MAX_SIZE} certificates.</p>
+     *
+     * @return the shared cache
+     */
+    @Nonnull public static X509CertificateCache getDefault() {
+        final X509CertificateCache configured = ConfigurationService.get(X509CertificateCache.class);
+        return configured != null ? configured : DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Get the maximum number of cached certificates.
+     *
+     * @return maximum cache size
+     */
+    @Positive public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the number of cached certificates.
+     *
+     * @return cache size
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /** Remove all cached certificates. */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Decode a DER-encoded certificate, returning a previously decoded instance if available.
+     *
+     * @param der the DER-encoded certificate
+     *
+     * @return the decoded certificate
+     *
+     * @throws CertificateException if the certificate can not be decoded
+     */
+    @Nonnull public X509Certificate decodeCertificate(@Nonnull final byte[] der) throws CertificateException {
+        final ByteBuffer key = ByteBuffer.wrap(digest(der));
+        final X509Certificate cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final X509Certificate cert = X509Support.decodeCertificate(der);
+        if (cache.size() >= maxSize) {
+            final Iterator<ByteBuffer> iterator = cache.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        final X509Certificate existing = cache.putIfAbsent(key, cert);
+        return existing != null ? existing : cert;
+    }
+
+    /**
+     * Compute the cache key digest of the supplied data.
+     *
+     * @param data the data to digest
+     *
+     * @return the digest value
+     *
+     * @throws CertificateException if the digest algorithm is unavailable
+     */
+    @Nonnull private byte[] digest(@Nonnull final byte[] data) throws CertificateException {
+        try {
+            final MessageDigest md = JCAInstancePool.obtainMessageDigest(JCAConstants.DIGEST_SHA256);
+            final byte[] digest = md.digest(data);
+            JCAInstancePool.releaseMessageDigest(md);
+            return digest;
+        } catch (final NoSuchAlgorithmException e) {
+            throw new CertificateException("SHA-256 digest algorithm is not available", e);
+        }
+    }
+
+}
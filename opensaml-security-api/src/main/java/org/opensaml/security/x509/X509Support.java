@@ -63,6 +63,7 @@ import org.cryptacular.x509.dn.NameReader;
 import org.cryptacular.x509.dn.RDNSequence;
 import org.cryptacular.x509.dn.StandardAttributeType;
 import org.opensaml.security.SecurityException;
+import org.opensaml.security.crypto.JCAInstancePool;
 import org.opensaml.security.crypto.KeySupport;
 import org.slf4j.Logger;
 
@@ -264,8 +265,11 @@ public class X509Support {
     @Nonnull public static byte[] getX509Digest(@Nonnull final X509Certificate certificate,
             @Nonnull final String jcaAlgorithm) throws SecurityException {
         try {
-            final MessageDigest hasher = MessageDigest.getInstance(jcaAlgorithm);
-            return hasher.digest(certificate.getEncoded());
+            final byte[] encoded = certificate.getEncoded();
+            final MessageDigest hasher = JCAInstancePool.obtainMessageDigest(jcaAlgorithm);
+            final byte[] digest = hasher.digest(encoded);
+            JCAInstancePool.releaseMessageDigest(hasher);
+            return digest;
         } catch (final CertificateEncodingException e) {
             LOG.error("Unable to encode certificate for digest operation", e);
             throw new SecurityException("Unable to encode certificate for digest operation", e);
@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.security.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.MessageDigestSpi;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Unit test for {@link JCAInstancePool}. */
+@SuppressWarnings("javadoc")
+public class JCAInstancePoolTest {
+
+    @BeforeMethod
+    public void setUp() {
+        JCAInstancePool.clear();
+    }
+
+    @Test
+    public void testMessageDigestReuse() throws Exception {
+        final byte[] data = "Hello, world".getBytes(StandardCharsets.UTF_8);
+        final byte[] control = MessageDigest.getInstance(JCAConstants.DIGEST_SHA256).digest(data);
+
+        final MessageDigest md = JCAInstancePool.obtainMessageDigest(JCAConstants.DIGEST_SHA256);
+        md.update(new byte[] {1, 2, 3});
+        JCAInstancePool.releaseMessageDigest(md);
+
+        final MessageDigest reused = JCAInstancePool.obtainMessageDigest(JCAConstants.DIGEST_SHA256);
+        Assert.assertSame(reused, md);
+        Assert.assertEquals(reused.digest(data), control, "Released digest should have been reset");
+        JCAInstancePool.releaseMessageDigest(reused);
+    }
+
+    @Test
+    public void testVerifierReuse() throws Exception {
+        final KeyPair keyPair = KeySupport.generateKeyPair(JCAConstants.KEY_ALGO_RSA, 2048, null);
+        final byte[] data = "Hello, world".getBytes(StandardCharsets.UTF_8);
+        final Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(keyPair.getPrivate());
+        signer.update(data);
+        final byte[] signature = signer.sign();
+
+        final Signature verifier = JCAInstancePool.obtainVerifier("SHA256withRSA", keyPair.getPublic());
+        verifier.update(data);
+        Assert.assertTrue(verifier.verify(signature));
+        JCAInstancePool.releaseVerifier(verifier, keyPair.getPublic());
+
+        final Signature reused = JCAInstancePool.obtainVerifier("SHA256withRSA", keyPair.getPublic());
+        Assert.assertSame(reused, verifier);
+        reused.update(data);
+        Assert.assertTrue(reused.verify(signature));
+        JCAInstancePool.releaseVerifier(reused, keyPair.getPublic());
+    }
+
+    @Test
+    public void testDistinctAlgorithms() throws Exception {
+        final PublicKey rsaKey = KeySupport.generateKeyPair(JCAConstants.KEY_ALGO_RSA, 2048, null).getPublic();
+        final PublicKey ecKey = KeySupport.generateKeyPair(JCAConstants.KEY_ALGO_EC, 256, null).getPublic();
+
+        final Signature rsa = JCAInstancePool.obtainVerifier("SHA256withRSA", rsaKey);
+        JCAInstancePool.releaseVerifier(rsa, rsaKey);
+
+        final Signature ec = JCAInstancePool.obtainVerifier("SHA256withECDSA", ecKey);
+        Assert.assertNotSame(ec, rsa);
+        Assert.assertEquals(ec.getAlgorithm(), "SHA256withECDSA");
+        JCAInstancePool.releaseVerifier(ec, ecKey);
+
+        // Not reused for a different class of key.
+        final PublicKey otherKey = new ForeignPublicKey(rsaKey);
+        Assert.assertThrows(InvalidKeyException.class, () -> JCAInstancePool.obtainVerifier("SHA256withRSA", otherKey));
+        Assert.assertSame(JCAInstancePool.obtainVerifier("SHA256withRSA", rsaKey), rsa);
+    }
+
+    @Test
+    public void testProviderChange() throws Exception {
+        final MessageDigest md = JCAInstancePool.obtainMessageDigest(JCAConstants.DIGEST_SHA256);
+        JCAInstancePool.releaseMessageDigest(md);
+
+        final Provider provider = new Provider("JCAInstancePoolTest", "1.0", "Test provider") {
+            private static final long serialVersionUID = 1L;
+        };
+        provider.put("MessageDigest." + JCAConstants.DIGEST_SHA256, NullDigest.class.getName());
+        Security.insertProviderAt(provider, 1);
+        try {
+            JCAInstancePool.clear();
+            final MessageDigest preferred = JCAInstancePool.obtainMessageDigest(JCAConstants.DIGEST_SHA256);
+            Assert.assertNotSame(preferred, md);
+            Assert.assertSame(preferred.getProvider(), provider);
+        } finally {
+            Security.removeProvider(provider.getName());
+            JCAInstancePool.clear();
+        }
+    }
+
+    @Test(expectedExceptions = NoSuchAlgorithmException.class)
+    public void testUnsupportedAlgorithm() throws Exception {
+        JCAInstancePool.obtainVerifier("NoSuchAlgorithm",
+                KeySupport.generateKeyPair(JCAConstants.KEY_ALGO_RSA, 2048, null).getPublic());
+    }
+
+    /** A digest which always produces an empty value. */
+    public static class NullDigest extends MessageDigestSpi {
+
+        protected void engineUpdate(final byte input) {
+        }
+
+        protected void engineUpdate(final byte[] input, final int offset, final int len) {
+        }
+
+        protected byte[] engineDigest() {
+            return new byte[0];
+        }
+
+        protected void engineReset() {
+        }
+    }
+
+    /** A public key of a class no provider recognizes. */
+    private static class ForeignPublicKey implements PublicKey {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PublicKey delegate;
+
+        ForeignPublicKey(final PublicKey key) {
+            delegate = key;
+        }
+
+        public String getAlgorithm() {
+            return "Foreign";
+        }
+
+        public String getFormat() {
+            return null;
+        }
+
+        public byte[] getEncoded() {
+            return delegate.getEncoded();
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.security.x509;
+
+import java.io.InputStream;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/** Unit test for {@link X509CertificateCache}. */
+@SuppressWarnings("javadoc")
+public class X509CertificateCacheTest {
+
+    private byte[] readResource(final String name) throws Exception {
+        try (final InputStream is = X509CertificateCacheTest.class.getResourceAsStream(name)) {
+            return is.readAllBytes();
+        }
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+        final X509CertificateCache cache = new X509CertificateCache(10);
+        final byte[] der = readResource("/data/certificate.der");
+
+        final X509Certificate first = cache.decodeCertificate(der);
+        Assert.assertEquals(first, X509Support.decodeCertificate(der));
+        Assert.assertEquals(cache.size(), 1);
+
+        // An equal but distinct array yields the same instance.
+        final X509Certificate second = cache.decodeCertificate(der.clone());
+        Assert.assertSame(second, first);
+        Assert.assertEquals(cache.size(), 1);
+
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertNotSame(cache.decodeCertificate(der), first);
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        final X509CertificateCache cache = new X509CertificateCache(1);
+        final X509Certificate cert = X509Support.decodeCertificate(readResource("/data/certificate.pem"));
+        final X509Certificate ecCert = X509Support.decodeCertificate(readResource("/data/ec-certificate.pem"));
+
+        cache.decodeCertificate(cert.getEncoded());
+        cache.decodeCertificate(ecCert.getEncoded());
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test(expectedExceptions = CertificateException.class)
+    public void testInvalid() throws Exception {
+        new X509CertificateCache(10).decodeCertificate(new byte[] {1, 2, 3});
+    }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.security.trust.impl;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.security.credential.Credential;
+import org.opensaml.security.crypto.JCAConstants;
+import org.opensaml.security.crypto.JCAInstancePool;
+import org.opensaml.security.x509.X509Credential;
+import org.slf4j.Logger;
+
+import net.shibboleth.shared.annotation.constraint.Positive;
+import net.shibboleth.shared.collection.CollectionSupport;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+import net.shibboleth.shared.resolver.Criterion;
+
+/**
+ * A bounded, time-limited cache of positive trust decisions made about untrusted credentials.
+ *
+ * <p>
+ * Entries are keyed by a fingerprint of the untrusted credential (a SHA-256 digest of its entity certificate or
+ * public key) together with the exact set of criteria which described the basis for trust. Only credentials with
+ * a public key may be cached. A cache hit means only that the credential was previously established as trusted
+ * under the same criteria; callers remain responsible for verifying that the credential is actually the one used
+ * to produce whatever is being evaluated.
+ * </p>
+ *
+ * <p>
+ * Entries expire after a fixed lifetime, or sooner if the credential is an {@link X509Credential} any of whose
+ * certificates expires earlier. In addition, a "generation" supplier may be configured whose value is recorded
+ * with each entry, so that a change in the underlying trust information invalidates prior decisions. A typical
+ * supplier is the last update time of the metadata resolver which supplies the trusted information; signature
+ * trust engines install such a supplier automatically when their resolver of trusted information is a
+ * {@link org.opensaml.security.trust.TrustInformationGenerationSource}.
+ * </p>
+ */
+public class TrustDecisionCache {
+
+    /** Default maximum number of cached decisions. */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    /** Default lifetime of a cached decision. */
+    @Nonnull public static final Duration DEFAULT_LIFETIME = Duration.ofMinutes(5);
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(TrustDecisionCache.class);
+
+    /** Cached decisions. */
+    @Nonnull private final Map<CacheKey,CacheEntry> cache;
+
+    /** Maximum number of cached decisions. */
+    private final int maxSize;
+
+    /** Lifetime of a cached decision. */
+    @Nonnull private final Duration lifetime;
+
+    /** Source of the current generation of the trust information. */
+    @Nullable private Supplier<?> generationSupplier;
+
+    /** Constructor. */
+    public TrustDecisionCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_LIFETIME);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param max maximum number of decisions to cache
+     * @param entryLifetime lifetime of a cached decision
+     */
+    public TrustDecisionCache(@Positive final int max, @Nonnull final Duration entryLifetime) {
+        maxSize = Constraint.isGreaterThan(0, max, "Maximum cache size must be greater than 0");
+        lifetime = Constraint.isNotNull(entryLifetime, "Lifetime cannot be null");
+        Constraint.isFalse(lifetime.isNegative() || lifetime.isZero(), "Lifetime must be positive");
+        cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the maximum number of cached decisions.
+     *
+     * @return maximum cache size
+     */
+    @Positive public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the lifetime of a cached decision.
+     *
+     * @return entry lifetime
+     */
+    @Nonnull public Duration getLifetime() {
+        return lifetime;
+    }
+
+    /**
+     * Get the source of the current generation of the trust information.
+     *
+     * @return generation supplier, or null
+     */
+    @Nullable public Supplier<?> getGenerationSupplier() {
+        return generationSupplier;
+    }
+
+    /**
+     * Set the source of the current generation of the trust information.
+     *
+     * <p>Cached decisions recorded under a generation value not equal to the current one are ignored.</p>
+     *
+     * @param supplier generation supplier, or null
+     */
+    public void setGenerationSupplier(@Nullable final Supplier<?> supplier) {
+        generationSupplier = supplier;
+    }
+
+    /**
+     * Get the number of cached decisions, including any which have expired but not yet been removed.
+     *
+     * @return cache size
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /** Discard all cached decisions. */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    /**
+     * Check whether the credential was previously established as trusted under the supplied criteria.
+     *
+     * @param credential the untrusted credential
+     * @param criteria the criteria describing the basis for trust
+     *
+     * @return true if a current positive decision is cached, otherwise false
+     */
+    public boolean isTrusted(@Nonnull final Credential credential, @Nonnull final Collection<Criterion> criteria) {
+        final CacheKey key = buildKey(credential, criteria);
+        if (key == null) {
+            return false;
+        }
+
+        final CacheEntry entry = cache.get(key);
+        if (entry == null) {
+            return false;
+        }
+
+        if (!Instant.now().isBefore(entry.expiration) || !Objects.equals(entry.generation, currentGeneration())) {
+            cache.remove(key, entry);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Record that the credential has been established as trusted under the supplied criteria.
+     *
+     * @param credential the untrusted credential
+     * @param criteria the criteria describing the basis for trust
+     */
+    public void recordTrusted(@Nonnull final Credential credential, @Nonnull final Collection<Criterion> criteria) {
+        final CacheKey key = buildKey(credential, criteria);
+        if (key == null) {
+            return;
+        }
+
+        final Instant now = Instant.now();
+        final Instant expiration = computeExpiration(credential, now);
+        if (!now.isBefore(expiration)) {
+            log.debug("Credential has an expired certificate, decision will not be cached");
+            return;
+        }
+
+        if (cache.size() >= maxSize) {
+            purge();
+        }
+        cache.put(key, new CacheEntry(expiration, currentGeneration()));
+    }
+
+    /**
+     * Compute the expiration of a decision about a credential, limited by the expiry of its certificates.
+     *
+     * @param credential the untrusted credential
+     * @param now the current time
+     *
+     * @return the expiration time
+     */
+    @Nonnull private Instant computeExpiration(@Nonnull final Credential credential, @Nonnull final Instant now) {
+        Instant expiration = now.plus(lifetime);
+        if (credential instanceof X509Credential x509Credential) {
+            expiration = earliest(expiration, x509Credential.getEntityCertificate());
+            for (final X509Certificate cert : x509Credential.getEntityCertificateChain()) {
+                expiration = earliest(expiration, cert);
+            }
+        }
+        return expiration;
+    }
+
+    /**
+     * Get the earlier of a time and the expiry of a certificate.
+     *
+     * @param time the time
+     * @param cert the certificate
+     *
+     * @return the earlier of the two
+     */
+    @Nonnull private static Instant earliest(@Nonnull final Instant time, @Nonnull final X509Certificate cert) {
+        final Instant notAfter = cert.getNotAfter().toInstant();
+        return notAfter.isBefore(time) ? notAfter : time;
+    }
+
+    /**
+     * Make room for a new entry by removing expired entries, or if there are none, an arbitrary entry.
+     */
+    private void purge() {
+        final Instant now = Instant.now();
+        cache.values().removeIf(e -> !now.isBefore(e.expiration));
+        if (cache.size() >= maxSize) {
+            final Iterator<CacheKey> iterator = cache.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the current generation of the trust information.
+     *
+     * @return current generation, or null
+     */
+    @Nullable private Object currentGeneration() {
+        final Supplier<?> supplier = generationSupplier;
+        return supplier != null ? supplier.get() : null;
+    }
+
+    /**
+     * Build the cache key for a credential and criteria.
+     *
+     * @param credential the untrusted credential
+     * @param criteria the criteria describing the basis for trust
+     *
+     * @return the cache key, or null if the credential can not be cached
+     */
+    @Nullable private CacheKey buildKey(@Nonnull final Credential credential,
+            @Nonnull final Collection<Criterion> criteria) {
+        final byte[] encoded;
+        if (credential instanceof X509Credential) {
+            final X509Certificate cert = ((X509Credential) credential).getEntityCertificate();
+            try {
+                encoded = cert.getEncoded();
+            } catch (final CertificateEncodingException e) {
+                log.debug("Unable to encode entity certificate, decision will not be cached", e);
+                return null;
+            }
+        } else {
+            final PublicKey key = credential.getPublicKey();
+            encoded = key != null ? key.getEncoded() : null;
+        }
+
+        if (encoded == null) {
+            return null;
+        }
+
+        try {
+            final MessageDigest md = JCAInstancePool.obtainMessageDigest(JCAConstants.DIGEST_SHA256);
+            final ByteBuffer fingerprint = ByteBuffer.wrap(md.digest(encoded));
+            JCAInstancePool.releaseMessageDigest(md);
+            return new CacheKey(fingerprint, CollectionSupport.copyToSet(criteria));
+        } catch (final NoSuchAlgorithmException e) {
+            log.debug("SHA-256 digest algorithm is not available, decision will not be cached", e);
+            return null;
+        }
+    }
+
+    /**
+     * Key of a cached decision.
+     *
+     * @param fingerprint digest of the untrusted credential
+     * @param criteria the criteria describing the basis for trust
+     */
+    private record CacheKey(@Nonnull ByteBuffer fingerprint, @Nonnull Set<Criterion> criteria) {
+    }
+
+    /**
+     * A cached decision.
+     *
+     * @param expiration time at which the decision expires
+     * @param generation generation of the trust information at the time of the decision
+     */
+    private record CacheEntry(@Nonnull Instant expiration, @Nullable Object generation) {
+    }
+
+}
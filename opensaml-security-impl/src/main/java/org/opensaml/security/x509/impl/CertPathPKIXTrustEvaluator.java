@@ -34,6 +34,7 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -52,11 +53,25 @@ import net.shibboleth.shared.annotation.ParameterName;
 import net.shibboleth.shared.logic.Constraint;
 import net.shibboleth.shared.primitive.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * An implementation of {@link PKIXTrustEvaluator} that is based on the Java CertPath API.
+ * 
+ * <p>
+ * The trust anchors and the store of CRLs derived from each {@link PKIXValidationInformation} instance are cached,
+ * so that only the material supplied by the untrusted credential is processed per validation. Entries are keyed by
+ * instance identity, are discarded once the instance is no longer referenced, and are rebuilt if the instance
+ * returns different certificate or CRL collections, if the CRL processing options change, or once any of the
+ * included CRLs expires.
+ * </p>
  */
 public class CertPathPKIXTrustEvaluator implements PKIXTrustEvaluator {
 
+    /** Maximum number of cached sets of validation material. */
+    private static final int MAX_CACHED_MATERIAL = 1000;
+
     /** Class logger. */
     @Nonnull private final Logger log = LoggerFactory.getLogger(CertPathPKIXTrustEvaluator.class);
     
@@ -69,10 +84,14 @@ public class CertPathPKIXTrustEvaluator implements PKIXTrustEvaluator {
     /** Options influencing processing behavior. */
     @Nonnull private PKIXValidationOptions options;
 
+    /** Material derived from validation information instances. */
+    @Nonnull private final Cache<PKIXValidationInformation,ValidationMaterial> materialCache;
+
     /** Constructor. */
     public CertPathPKIXTrustEvaluator() {
         options = new PKIXValidationOptions();
         x500DNHandler = new InternalX500DNHandler();
+        materialCache = CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_CACHED_MATERIAL).build();
     }
     
     /**
@@ -84,6 +103,7 @@ public class CertPathPKIXTrustEvaluator implements PKIXTrustEvaluator {
             @Nonnull final @ParameterName(name="newOptions") PKIXValidationOptions newOptions) {
         options = Constraint.isNotNull(newOptions, "PKIXValidationOptions cannot be null");
         x500DNHandler = new InternalX500DNHandler();
+        materialCache = CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_CACHED_MATERIAL).build();
     }
     
     /** {@inheritDoc} */
@@ -176,7 +196,8 @@ public class CertPathPKIXTrustEvaluator implements PKIXTrustEvaluator {
     @Nonnull protected PKIXBuilderParameters getPKIXBuilderParameters(
             @Nonnull final PKIXValidationInformation validationInfo, @Nonnull final X509Credential untrustedCredential)
                     throws GeneralSecurityException {
-        final Set<TrustAnchor> trustAnchors = getTrustAnchors(validationInfo);
+        final ValidationMaterial material = getValidationMaterial(validationInfo);
+        final Set<TrustAnchor> trustAnchors = material.trustAnchors;
         if (trustAnchors == null || trustAnchors.isEmpty()) {
             throw new GeneralSecurityException(
                     "Unable to validate X509 certificate, no trust anchors found in the PKIX validation information");
@@ -313,9 +334,80 @@ public class CertPathPKIXTrustEvaluator implements PKIXTrustEvaluator {
         return new TrustAnchor(cert, null);
     }
 
+    /**
+     * Get the cached material derived from the validation information, building it if necessary.
+     * 
+     * @param validationInfo PKIX validation information
+     * 
+     * @return the trust anchors and CRLs for the validation information
+     * 
+     * @throws GeneralSecurityException thrown if the trust anchors can not be created
+     */
+    @Nonnull private ValidationMaterial getValidationMaterial(@Nonnull final PKIXValidationInformation validationInfo)
+            throws GeneralSecurityException {
+        
+        final Date now = new Date();
+        final ValidationMaterial cached = materialCache.getIfPresent(validationInfo);
+        if (cached != null && cached.isCurrent(validationInfo, options, now)) {
+            return cached;
+        }
+
+        try {
+            materialCache.invalidate(validationInfo);
+            return materialCache.get(validationInfo, () -> buildValidationMaterial(validationInfo, now));
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) e.getCause();
+            }
+            throw new GeneralSecurityException("Unable to process PKIX validation information", e.getCause());
+        }
+    }
+
+    /**
+     * Build the material derived from the validation information.
+     * 
+     * @param validationInfo PKIX validation information
+     * @param now current date/time
+     * 
+     * @return the trust anchors and CRLs for the validation information
+     * 
+     * @throws GeneralSecurityException thrown if the trust anchors can not be created
+     */
+    @Nonnull private ValidationMaterial buildValidationMaterial(
+            @Nonnull final PKIXValidationInformation validationInfo, @Nonnull final Date now)
+                    throws GeneralSecurityException {
+        
+        final Collection<X509Certificate> certificates = validationInfo.getCertificates();
+        final Collection<X509CRL> crls = validationInfo.getCRLs();
+
+        final Set<TrustAnchor> trustAnchors = getTrustAnchors(validationInfo);
+
+        final List<Object> crlMaterial = new ArrayList<>();
+        Date refreshAfter = null;
+        if (crls != null && !crls.isEmpty()) {
+            log.trace("Processing CRLs from PKIX info set");
+            addCRLsToStoreMaterial(crlMaterial, crls, now);
+            for (final X509CRL crl : crls) {
+                final Date nextUpdate = crl.getNextUpdate();
+                if (nextUpdate != null && !nextUpdate.before(now)
+                        && (refreshAfter == null || nextUpdate.before(refreshAfter))) {
+                    refreshAfter = nextUpdate;
+                }
+            }
+        }
+
+        return new ValidationMaterial(certificates, crls, options, trustAnchors, List.copyOf(crlMaterial),
+                refreshAfter);
+    }
+
     /**
      * Creates the certificate store that will be used during validation.
      * 
+     * <p>
+     * This contains the material supplied by the untrusted credential, and the CRLs from the PKIX validation
+     * information. The latter are selected once and cached with the trust anchors, rather than for each call.
+     * </p>
+     * 
      * @param validationInfo PKIX validation information
      * @param untrustedCredential credential to be validated
      * 
@@ -341,19 +433,17 @@ public class CertPathPKIXTrustEvaluator implements PKIXTrustEvaluator {
             }
         }
         
-        final Date now = new Date();
-        
-        Collection<X509CRL> crls = validationInfo.getCRLs();
-        if (crls != null && !crls.isEmpty()) {
-            log.trace("Processing CRLs from PKIX info set");
-            addCRLsToStoreMaterial(storeMaterial, crls, now);
-        }        
-        
-        crls = untrustedCredential.getCRLs();
+        final Collection<X509CRL> crls = untrustedCredential.getCRLs();
         if (crls != null && !crls.isEmpty() && options.isProcessCredentialCRLs()) {
             log.trace("Processing CRLs from untrusted credential");
-            addCRLsToStoreMaterial(storeMaterial, crls, now);
+            addCRLsToStoreMaterial(storeMaterial, crls, new Date());
         }        
+
+        final List<Object> infoCRLs = getValidationMaterial(validationInfo).crlMaterial;
+        if (!infoCRLs.isEmpty()) {
+            log.trace("Adding {} CRL(s) from PKIX info set to cert store", infoCRLs.size());
+            storeMaterial.addAll(infoCRLs);
+        }
         
         return CertStore.getInstance("Collection", new CollectionCertStoreParameters(storeMaterial));
     }
@@ -429,4 +519,74 @@ public class CertPathPKIXTrustEvaluator implements PKIXTrustEvaluator {
         }
     }
 
+
+    /** Trust anchors and CRLs derived from a {@link PKIXValidationInformation} instance. */
+    private static final class ValidationMaterial {
+
+        /** Certificate collection from which the trust anchors were built. */
+        @Nullable private final Collection<X509Certificate> certificates;
+
+        /** CRL collection from which the CRLs were selected. */
+        @Nullable private final Collection<X509CRL> crls;
+
+        /** Options in effect when the CRLs were selected. */
+        @Nonnull private final PKIXValidationOptions options;
+
+        /** Whether empty CRLs were processed. */
+        private final boolean processEmptyCRLs;
+
+        /** Whether expired CRLs were processed. */
+        private final boolean processExpiredCRLs;
+
+        /** The trust anchors. */
+        @Nullable private final Set<TrustAnchor> trustAnchors;
+
+        /** The CRLs selected for inclusion in the cert store. */
+        @Nonnull private final List<Object> crlMaterial;
+
+        /** Earliest time at which one of the CRLs expires. */
+        @Nullable private final Date refreshAfter;
+
+        /**
+         * Constructor.
+         *
+         * @param certs source certificate collection
+         * @param crlCollection source CRL collection
+         * @param opts options in effect
+         * @param anchors the trust anchors
+         * @param crlList the CRLs selected for inclusion in the cert store
+         * @param refresh earliest time at which one of the CRLs expires
+         */
+        ValidationMaterial(@Nullable final Collection<X509Certificate> certs,
+                @Nullable final Collection<X509CRL> crlCollection, @Nonnull final PKIXValidationOptions opts,
+                @Nullable final Set<TrustAnchor> anchors, @Nonnull final List<Object> crlList,
+                @Nullable final Date refresh) {
+            certificates = certs;
+            crls = crlCollection;
+            options = opts;
+            processEmptyCRLs = opts.isProcessEmptyCRLs();
+            processExpiredCRLs = opts.isProcessExpiredCRLs();
+            trustAnchors = anchors;
+            crlMaterial = crlList;
+            refreshAfter = refresh;
+        }
+
+        /**
+         * Get whether this material is still valid for the supplied validation information.
+         *
+         * @param validationInfo PKIX validation information
+         * @param currentOptions options currently in effect
+         * @param now current date/time
+         *
+         * @return true if the material may be reused
+         */
+        boolean isCurrent(@Nonnull final PKIXValidationInformation validationInfo,
+                @Nonnull final PKIXValidationOptions currentOptions, @Nonnull final Date now) {
+            return certificates == validationInfo.getCertificates() && crls == validationInfo.getCRLs()
+                    && options == currentOptions && processEmptyCRLs == currentOptions.isProcessEmptyCRLs()
+                    && processExpiredCRLs == currentOptions.isProcessExpiredCRLs()
+                    && (refreshAfter == null || now.before(refreshAfter));
+        }
+    }
+
 }
\ No newline at end of file
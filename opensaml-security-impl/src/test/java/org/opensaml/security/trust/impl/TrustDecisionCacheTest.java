@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.security.trust.impl;
+
+import java.io.InputStream;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.opensaml.core.criterion.EntityIdCriterion;
+import org.opensaml.security.credential.BasicCredential;
+import org.opensaml.security.credential.Credential;
+import org.opensaml.security.crypto.JCAConstants;
+import org.opensaml.security.crypto.KeySupport;
+import org.opensaml.security.x509.BasicX509Credential;
+import org.opensaml.security.x509.X509Support;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import net.shibboleth.shared.resolver.CriteriaSet;
+
+/** Unit test for {@link TrustDecisionCache}. */
+@SuppressWarnings("javadoc")
+public class TrustDecisionCacheTest {
+
+    private Credential cred1;
+
+    private Credential cred2;
+
+    private CriteriaSet criteria;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        cred1 = new BasicCredential(KeySupport.generateKeyPair(JCAConstants.KEY_ALGO_RSA, 2048, null).getPublic());
+        cred2 = new BasicCredential(KeySupport.generateKeyPair(JCAConstants.KEY_ALGO_RSA, 2048, null).getPublic());
+        criteria = new CriteriaSet(new EntityIdCriterion("https://idp.example.org"));
+    }
+
+    @Test
+    public void testBasic() {
+        final TrustDecisionCache cache = new TrustDecisionCache();
+        Assert.assertFalse(cache.isTrusted(cred1, criteria));
+
+        cache.recordTrusted(cred1, criteria);
+        Assert.assertTrue(cache.isTrusted(cred1, criteria));
+        Assert.assertTrue(cache.isTrusted(cred1, new CriteriaSet(new EntityIdCriterion("https://idp.example.org"))));
+        Assert.assertFalse(cache.isTrusted(cred2, criteria));
+        Assert.assertFalse(cache.isTrusted(cred1, new CriteriaSet(new EntityIdCriterion("https://sp.example.org"))));
+
+        cache.invalidate();
+        Assert.assertFalse(cache.isTrusted(cred1, criteria));
+    }
+
+    @Test
+    public void testSecretKeyNotCached() {
+        final TrustDecisionCache cache = new TrustDecisionCache();
+        final Credential secret = new BasicCredential(new SecretKeySpec(new byte[32], JCAConstants.KEY_ALGO_AES));
+        cache.recordTrusted(secret, criteria);
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertFalse(cache.isTrusted(secret, criteria));
+    }
+
+    @Test
+    public void testGeneration() {
+        final AtomicInteger generation = new AtomicInteger();
+        final TrustDecisionCache cache = new TrustDecisionCache();
+        cache.setGenerationSupplier(generation::get);
+
+        cache.recordTrusted(cred1, criteria);
+        Assert.assertTrue(cache.isTrusted(cred1, criteria));
+
+        generation.incrementAndGet();
+        Assert.assertFalse(cache.isTrusted(cred1, criteria));
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        final TrustDecisionCache cache = new TrustDecisionCache(10, Duration.ofMillis(50));
+        cache.recordTrusted(cred1, criteria);
+        Assert.assertTrue(cache.isTrusted(cred1, criteria));
+
+        Thread.sleep(100);
+        Assert.assertFalse(cache.isTrusted(cred1, criteria));
+    }
+
+    @Test
+    public void testCertificateExpiration() throws Exception {
+        final TrustDecisionCache cache = new TrustDecisionCache();
+        final X509Certificate good = getCertificate("foo-1A1-good.crt");
+        final X509Certificate expired = getCertificate("foo-1A1-expired.crt");
+        final X509Certificate intermediate = getCertificate("inter1A1-ca.crt");
+
+        final Credential goodCred = new BasicX509Credential(good);
+        cache.recordTrusted(goodCred, criteria);
+        Assert.assertTrue(cache.isTrusted(goodCred, criteria));
+
+        final Credential expiredCred = new BasicX509Credential(expired);
+        cache.recordTrusted(expiredCred, criteria);
+        Assert.assertFalse(cache.isTrusted(expiredCred, criteria));
+
+        // An expired certificate in the chain also prevents caching.
+        final BasicX509Credential chainCred = new BasicX509Credential(intermediate);
+        chainCred.setEntityCertificateChain(List.of(intermediate, expired));
+        cache.recordTrusted(chainCred, criteria);
+        Assert.assertFalse(cache.isTrusted(chainCred, criteria));
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testBounded() {
+        final TrustDecisionCache cache = new TrustDecisionCache(1, Duration.ofMinutes(1));
+        cache.recordTrusted(cred1, criteria);
+        cache.recordTrusted(cred2, criteria);
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertTrue(cache.isTrusted(cred2, criteria));
+    }
+
+    private X509Certificate getCertificate(final String name) throws Exception {
+        try (final InputStream input = getClass().getResourceAsStream("/org/opensaml/security/x509/impl/" + name)) {
+            return X509Support.decodeCertificates(input.readAllBytes()).iterator().next();
+        }
+    }
+
+}
@@ -21,6 +21,8 @@ import net.shibboleth.shared.collection.CollectionSupport;
 import org.testng.annotations.BeforeMethod;
 import org.testng.Assert;
 import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertStore;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
@@ -243,6 +245,45 @@ public class CertPathPKIXTrustEvaluatorTest extends XMLObjectBaseTestCase {
         testValidateSuccess("Certificate was valid, V1 CRL containing other revolcations was processed", info, cred);
     }
     
+    @Test
+    public void testReusedValidationInformation() {
+        info = getPKIXInfoSet(
+                getCertificates("root1-ca.crt", "inter1A-ca.crt", "inter1A1-ca.crt"),
+                getCRLS("inter1A1-v1.crl"),
+                MAX_DEPTH );
+        
+        testValidateFailure("Specified certificate was revoked", info, getCredential("foo-1A1-revoked.crt"));
+        testValidateSuccess("Certificate was valid", info, getCredential("foo-1A1-good.crt"));
+        testValidateFailure("Specified certificate was revoked, cached CRL store was used", info,
+                getCredential("foo-1A1-revoked.crt"));
+    }
+    
+    @Test
+    public void testReusedValidationInformationOptionsChange() {
+        cred = getCredential("foo-1A1-good.crt");
+        info = getPKIXInfoSet(
+                getCertificates("root1-ca.crt", "inter1A-ca.crt", "inter1A1-ca.crt"),
+                getCRLS("inter1A1-v1-expired.crl"),
+                MAX_DEPTH );
+        
+        testValidateFailure("Certificate was valid, expired V1 CRL was processed", info, cred);
+        
+        pkixEvaluator.getPKIXValidationOptions().setProcessExpiredCRLs(false);
+        testValidateSuccess("Certificate was valid, expired V1 CRL was not processed", info, cred);
+    }
+    
+    @Test
+    public void testCertStoreIncludesInfoCRLs() throws GeneralSecurityException {
+        info = getPKIXInfoSet(
+                getCertificates("root1-ca.crt", "inter1A-ca.crt", "inter1A1-ca.crt"),
+                getCRLS("inter1A1-v1.crl"),
+                MAX_DEPTH );
+        
+        final CertStore certStore = new CertPathPKIXTrustEvaluator().buildCertStore(info,
+                getCredential("foo-1A1-good.crt"));
+        Assert.assertEquals(certStore.getCRLs(null).size(), 1);
+    }
+    
     @Test
     public void testEntityCertExpired() {
         cred = getCredential("foo-1A1-expired.crt");
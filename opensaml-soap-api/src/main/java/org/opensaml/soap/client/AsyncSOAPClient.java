@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.opensaml.messaging.context.InOutOperationContext;
+
+import net.shibboleth.shared.annotation.constraint.NotEmpty;
+
+/**
+ * An interface for a very basic SOAP client which does not block the calling thread.
+ * 
+ * <p>
+ * The returned stage completes with the supplied operation context once the response has been received and
+ * processed, or exceptionally with a {@link org.opensaml.soap.common.SOAPException} or
+ * {@link org.opensaml.security.SecurityException} under the same conditions as {@link SOAPClient#send}. Until the
+ * stage completes, the operation context must not be accessed by the caller.
+ * </p>
+ */
+@ThreadSafe
+public interface AsyncSOAPClient {
+
+    /**
+     * Sends a message and returns a stage which completes when a response has been received.
+     * 
+     * @param endpoint the endpoint to which to send the message
+     * @param context the operation context containing the outbound SOAP message
+     * 
+     * @return a stage completing with the operation context containing the inbound SOAP message
+     */
+    @Nonnull default CompletionStage<InOutOperationContext> send(@Nonnull @NotEmpty final String endpoint,
+            @Nonnull final InOutOperationContext context) {
+        return send(endpoint, context, null);
+    }
+
+    /**
+     * Sends a message and returns a stage which completes when a response has been received, or exceptionally with
+     * a {@link SOAPClientException} if the deadline passes first.
+     * 
+     * @param endpoint the endpoint to which to send the message
+     * @param context the operation context containing the outbound SOAP message
+     * @param timeout the deadline for the exchange, or null for the client's default
+     * 
+     * @return a stage completing with the operation context containing the inbound SOAP message
+     */
+    @Nonnull CompletionStage<InOutOperationContext> send(@Nonnull @NotEmpty final String endpoint,
+            @Nonnull final InOutOperationContext context, @Nullable final Duration timeout);
+
+}
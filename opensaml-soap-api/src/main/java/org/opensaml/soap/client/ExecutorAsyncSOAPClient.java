@@ -0,0 +1,255 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.opensaml.messaging.context.InOutOperationContext;
+import org.opensaml.security.SecurityException;
+import org.opensaml.soap.common.SOAPException;
+import org.slf4j.Logger;
+
+import net.shibboleth.shared.annotation.constraint.NonnullAfterInit;
+import net.shibboleth.shared.annotation.constraint.NotEmpty;
+import net.shibboleth.shared.component.AbstractInitializableComponent;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+
+/**
+ * {@link AsyncSOAPClient} which performs each exchange using a synchronous {@link SOAPClient} on a thread supplied
+ * by an {@link Executor}.
+ * 
+ * <p>
+ * With a pipeline-based client such as {@link org.opensaml.soap.client.http.PipelineFactoryHttpSOAPClient}, the
+ * complete exchange, including message encoding, decoding and handling, runs on the executor rather than on the
+ * calling thread. Connection reuse is governed by the HTTP client's connection manager, whose per-route limits
+ * should accommodate the concurrency permitted by the executor.
+ * </p>
+ * 
+ * <p>
+ * When a deadline applies and passes before the exchange completes, the returned stage completes exceptionally
+ * with a {@link SOAPClientException} and the exchange is cancelled: an exchange not yet started is skipped and one
+ * in progress has its thread interrupted. Blocking socket I/O is not interruptible and remains bounded by the HTTP
+ * client's own timeouts; the operation context must not be reused after a timeout.
+ * </p>
+ */
+@ThreadSafe
+public class ExecutorAsyncSOAPClient extends AbstractInitializableComponent implements AsyncSOAPClient {
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(ExecutorAsyncSOAPClient.class);
+
+    /** The synchronous client which performs each exchange. */
+    @NonnullAfterInit private SOAPClient soapClient;
+
+    /** The executor on which exchanges are performed. */
+    @NonnullAfterInit private Executor executor;
+
+    /** Default deadline for an exchange. */
+    @Nullable private Duration defaultTimeout;
+
+    /**
+     * Get the synchronous client which performs each exchange.
+     * 
+     * @return the client
+     */
+    @NonnullAfterInit public SOAPClient getSOAPClient() {
+        return soapClient;
+    }
+
+    /**
+     * Set the synchronous client which performs each exchange.
+     * 
+     * @param client the client
+     */
+    public void setSOAPClient(@Nonnull final SOAPClient client) {
+        checkSetterPreconditions();
+
+        soapClient = Constraint.isNotNull(client, "SOAPClient cannot be null");
+    }
+
+    /**
+     * Get the executor on which exchanges are performed.
+     * 
+     * @return the executor
+     */
+    @NonnullAfterInit public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Set the executor on which exchanges are performed.
+     * 
+     * @param exec the executor
+     */
+    public void setExecutor(@Nonnull final Executor exec) {
+        checkSetterPreconditions();
+
+        executor = Constraint.isNotNull(exec, "Executor cannot be null");
+    }
+
+    /**
+     * Get the default deadline for an exchange.
+     * 
+     * @return the default deadline, or null for none
+     */
+    @Nullable public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * Set the default deadline for an exchange.
+     * 
+     * @param timeout the default deadline, or null for none
+     */
+    public void setDefaultTimeout(@Nullable final Duration timeout) {
+        checkSetterPreconditions();
+
+        if (timeout != null) {
+            Constraint.isFalse(timeout.isNegative() || timeout.isZero(), "Timeout must be positive");
+        }
+        defaultTimeout = timeout;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doInitialize() throws ComponentInitializationException {
+        super.doInitialize();
+
+        if (soapClient == null) {
+            throw new ComponentInitializationException("SOAPClient cannot be null");
+        } else if (executor == null) {
+            throw new ComponentInitializationException("Executor cannot be null");
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public CompletionStage<InOutOperationContext> send(@Nonnull @NotEmpty final String endpoint,
+            @Nonnull final InOutOperationContext context, @Nullable final Duration timeout) {
+        checkComponentActive();
+        Constraint.isNotNull(endpoint, "Endpoint cannot be null");
+        Constraint.isNotNull(context, "Operation context cannot be null");
+
+        final CompletableFuture<InOutOperationContext> result = new CompletableFuture<>();
+        final Exchange exchange = new Exchange(endpoint, context, result);
+
+        try {
+            executor.execute(exchange);
+        } catch (final RejectedExecutionException e) {
+            log.warn("SOAP exchange with {} was rejected by executor", endpoint);
+            result.completeExceptionally(new SOAPClientException("Unable to schedule SOAP exchange with " + endpoint,
+                    e));
+            return result;
+        }
+
+        final Duration effectiveTimeout = timeout != null ? timeout : defaultTimeout;
+        if (effectiveTimeout == null) {
+            return result;
+        }
+
+        return result.orTimeout(effectiveTimeout.toMillis(), TimeUnit.MILLISECONDS).exceptionallyCompose(t -> {
+            if (t instanceof TimeoutException) {
+                log.warn("SOAP exchange with {} did not complete within {}", endpoint, effectiveTimeout);
+                exchange.cancel();
+                return CompletableFuture.failedFuture(new SOAPClientException("SOAP exchange with " + endpoint
+                        + " did not complete within " + effectiveTimeout));
+            }
+            return CompletableFuture.failedFuture(t);
+        });
+    }
+
+    /** A single exchange, run on the executor and cancellable once its deadline passes. */
+    private final class Exchange implements Runnable {
+
+        /** Endpoint of the exchange. */
+        @Nonnull private final String endpoint;
+
+        /** Operation context of the exchange. */
+        @Nonnull private final InOutOperationContext context;
+
+        /** Result of the exchange. */
+        @Nonnull private final CompletableFuture<InOutOperationContext> result;
+
+        /** Thread running the exchange, while it runs. */
+        @Nullable private Thread runner;
+
+        /** Whether the exchange has been cancelled. */
+        private boolean cancelled;
+
+        /**
+         * Constructor.
+         *
+         * @param target endpoint of the exchange
+         * @param opContext operation context of the exchange
+         * @param future result of the exchange
+         */
+        Exchange(@Nonnull final String target, @Nonnull final InOutOperationContext opContext,
+                @Nonnull final CompletableFuture<InOutOperationContext> future) {
+            endpoint = target;
+            context = opContext;
+            result = future;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (cancelled || result.isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                soapClient.send(endpoint, context);
+                result.complete(context);
+            } catch (final SOAPException | SecurityException | RuntimeException e) {
+                result.completeExceptionally(e);
+            } catch (final Error e) {
+                result.completeExceptionally(e);
+                throw e;
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (cancelled) {
+                        // Don't leak the cancellation into the executor's next task.
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        /** Cancel the exchange, interrupting it if in progress. */
+        synchronized void cancel() {
+            cancelled = true;
+            if (runner != null) {
+                log.debug("Interrupting SOAP exchange with {}", endpoint);
+                runner.interrupt();
+            }
+        }
+    }
+
+}
@@ -49,6 +49,7 @@ import org.opensaml.security.httpclient.HttpClientSecuritySupport;
 import org.opensaml.security.messaging.HttpClientSecurityContext;
 import org.opensaml.soap.client.SOAPClient;
 import org.opensaml.soap.client.SOAPClientContext;
+import org.opensaml.soap.client.SOAPClientException;
 import org.opensaml.soap.client.SOAPFaultException;
 import org.opensaml.soap.common.SOAP11FaultDecodingException;
 import org.opensaml.soap.common.SOAPException;
@@ -194,6 +195,11 @@ public abstract class AbstractPipelineHttpSOAPClient
             
             encoder.encode();
             
+            // Don't start the request if the exchange was cancelled, e.g. by an asynchronous caller's deadline.
+            if (Thread.currentThread().isInterrupted()) {
+                throw new SOAPClientException("SOAP exchange with " + endpoint + " was interrupted");
+            }
+            
             // HttpClient execution
             final HttpClientContext httpContext = buildHttpContext(httpRequest, operationContext);
             try (final ClassicHttpResponse httpResponse = getHttpClient().executeOpen(null, httpRequest, httpContext)) {
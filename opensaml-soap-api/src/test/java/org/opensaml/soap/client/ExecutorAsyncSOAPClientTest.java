@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.soap.client;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.opensaml.messaging.context.InOutOperationContext;
+import org.opensaml.messaging.context.MessageContext;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+
+/** Unit test for {@link ExecutorAsyncSOAPClient}. */
+@SuppressWarnings("javadoc")
+public class ExecutorAsyncSOAPClientTest {
+
+    private static final String ENDPOINT = "https://idp.example.org/soap";
+
+    private ExecutorService executor;
+
+    private InOutOperationContext opContext;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        opContext = new InOutOperationContext(null, new MessageContext());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSuccess() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final ExecutorAsyncSOAPClient client = buildClient((endpoint, context) -> {
+            Assert.assertNotSame(Thread.currentThread(), caller);
+            Assert.assertEquals(endpoint, ENDPOINT);
+            context.setInboundMessageContext(new MessageContext());
+        }, null);
+
+        final InOutOperationContext result = client.send(ENDPOINT, opContext).toCompletableFuture().get(5,
+                TimeUnit.SECONDS);
+        Assert.assertSame(result, opContext);
+        Assert.assertNotNull(result.getInboundMessageContext());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final ExecutorAsyncSOAPClient client = buildClient((endpoint, context) -> {
+            throw new SOAPClientException("Failed");
+        }, null);
+
+        try {
+            client.send(ENDPOINT, opContext).toCompletableFuture().get(5, TimeUnit.SECONDS);
+            Assert.fail("Exchange should have failed");
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SOAPClientException);
+            Assert.assertEquals(e.getCause().getMessage(), "Failed");
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final ExecutorAsyncSOAPClient client = buildClient((endpoint, context) -> {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+            }
+        }, Duration.ofSeconds(30));
+
+        try {
+            client.send(ENDPOINT, opContext, Duration.ofMillis(50)).toCompletableFuture().get(5, TimeUnit.SECONDS);
+            Assert.fail("Exchange should have timed out");
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SOAPClientException);
+            Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Exchange should have been interrupted");
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void testDeadlineInterruptsBlockedSend() throws Exception {
+        // Use a single thread, so the test can check that the interrupt doesn't reach the next task.
+        executor.shutdownNow();
+        executor = Executors.newSingleThreadExecutor();
+
+        final AtomicReference<Thread> sender = new AtomicReference<>();
+        final AtomicReference<Thread> interrupted = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final ExecutorAsyncSOAPClient client = buildClient((endpoint, context) -> {
+            sender.set(Thread.currentThread());
+            try {
+                Thread.sleep(10000);
+            } catch (final InterruptedException e) {
+                interrupted.set(Thread.currentThread());
+                throw new SOAPClientException("Interrupted", e);
+            } finally {
+                done.countDown();
+            }
+        }, Duration.ofMillis(500));
+
+        try {
+            client.send(ENDPOINT, opContext).toCompletableFuture().get(5, TimeUnit.SECONDS);
+            Assert.fail("Exchange should have timed out");
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SOAPClientException);
+        }
+
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS), "Exchange should have been cancelled");
+        Assert.assertNotNull(sender.get());
+        Assert.assertSame(interrupted.get(), sender.get());
+        Assert.assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expectedExceptions = ComponentInitializationException.class)
+    public void testNoExecutor() throws Exception {
+        final ExecutorAsyncSOAPClient client = new ExecutorAsyncSOAPClient();
+        client.setSOAPClient((endpoint, context) -> {});
+        client.initialize();
+    }
+
+    private ExecutorAsyncSOAPClient buildClient(final SOAPClient soapClient, final Duration timeout)
+            throws ComponentInitializationException {
+        final ExecutorAsyncSOAPClient client = new ExecutorAsyncSOAPClient();
+        client.setSOAPClient(soapClient);
+        client.setExecutor(executor);
+        client.setDefaultTimeout(timeout);
+        client.initialize();
+        return client;
+    }
+
+}
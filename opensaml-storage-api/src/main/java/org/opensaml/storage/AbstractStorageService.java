@@ -18,10 +18,13 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.opensaml.core.concurrent.BackgroundTaskSupport;
 import org.opensaml.storage.annotation.AnnotationSupport;
 
 import net.shibboleth.shared.annotation.constraint.NotEmpty;
@@ -29,7 +32,6 @@ import net.shibboleth.shared.annotation.constraint.Positive;
 import net.shibboleth.shared.component.AbstractIdentifiableInitializableComponent;
 import net.shibboleth.shared.component.ComponentInitializationException;
 import net.shibboleth.shared.logic.Constraint;
-import net.shibboleth.shared.primitive.TimerSupport;
 
 /**
  * Abstract base class for {@link StorageService} implementations.
@@ -47,11 +49,14 @@ public abstract class AbstractStorageService extends AbstractIdentifiableInitial
     /** Timer used to schedule cleanup tasks. */
     @Nullable private Timer cleanupTaskTimer;
 
-    /** Timer used to schedule cleanup tasks if no external one set. */
-    @Nullable private Timer internalTaskTimer;
+    /** Executor used to schedule cleanup tasks if no timer set. */
+    @Nullable private ScheduledExecutorService cleanupTaskExecutor;
 
     /** Task that cleans up expired records. */
     @Nullable private TimerTask cleanupTask;
+    
+    /** Future for the cleanup task, when scheduled via an executor. */
+    @Nullable private ScheduledFuture<?> cleanupTaskFuture;
 
     /** Configurable context size limit. */
     @Positive private int contextSize;
@@ -116,6 +121,33 @@ public abstract class AbstractStorageService extends AbstractIdentifiableInitial
         cleanupTaskTimer = timer;
     }
 
+    /**
+     * Gets the executor used to schedule cleanup tasks if no timer is set.
+     * 
+     * @return executor used to schedule cleanup tasks, or null if the default executor will be used
+     */
+    @Nullable public ScheduledExecutorService getCleanupTaskExecutor() {
+        return cleanupTaskExecutor;
+    }
+
+    /**
+     * Sets the executor used to schedule cleanup tasks if no timer is set.
+     * 
+     * <p>
+     * If neither a timer nor an executor is set, the shared default executor from
+     * {@link BackgroundTaskSupport#getDefaultExecutor()} is used.
+     * </p>
+     * 
+     * This setting can not be changed after the service has been initialized.
+     * 
+     * @param executor executor used to schedule cleanup tasks
+     */
+    public void setCleanupTaskExecutor(@Nullable final ScheduledExecutorService executor) {
+        checkSetterPreconditions();
+
+        cleanupTaskExecutor = executor;
+    }
+
     /**
      * Returns a cleanup task function to schedule for background cleanup.
      * 
@@ -167,16 +199,18 @@ public abstract class AbstractStorageService extends AbstractIdentifiableInitial
         super.doInitialize();
 
         if (!cleanupInterval.isZero()) {
-            cleanupTask = getCleanupTask();
-            if (cleanupTask == null) {
+            final TimerTask task = getCleanupTask();
+            if (task == null) {
                 throw new ComponentInitializationException("Cleanup task cannot be null if cleanupInterval is set.");
-            } else if (cleanupTaskTimer == null) {
-                internalTaskTimer = new Timer(TimerSupport.getTimerName(this), true);
+            }
+            cleanupTask = task;
+            if (cleanupTaskTimer != null) {
+                cleanupTaskTimer.schedule(task, cleanupInterval.toMillis(), cleanupInterval.toMillis());
             } else {
-                internalTaskTimer = cleanupTaskTimer;
+                cleanupTaskFuture = BackgroundTaskSupport.scheduleWithFixedDelay(
+                        cleanupTaskExecutor != null ? cleanupTaskExecutor : BackgroundTaskSupport.getDefaultExecutor(),
+                        task, cleanupInterval, cleanupInterval);
             }
-            assert internalTaskTimer != null;
-            internalTaskTimer.schedule(cleanupTask, cleanupInterval.toMillis(), cleanupInterval.toMillis());
         }
     }
 
@@ -185,11 +219,10 @@ public abstract class AbstractStorageService extends AbstractIdentifiableInitial
         if (cleanupTask != null) {
             cleanupTask.cancel();
             cleanupTask = null;
-            if (cleanupTaskTimer == null) {
-                assert internalTaskTimer != null;
-                internalTaskTimer.cancel();
-            }
-            internalTaskTimer = null;
+        }
+        if (cleanupTaskFuture != null) {
+            cleanupTaskFuture.cancel(false);
+            cleanupTaskFuture = null;
         }
         super.doDestroy();
     }
@@ -0,0 +1,491 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.storage.impl.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.storage.MutableStorageRecord;
+import org.opensaml.storage.impl.client.ClientStorageService.ClientStorageSource;
+import org.slf4j.Logger;
+
+import net.shibboleth.shared.annotation.constraint.NonNegative;
+import net.shibboleth.shared.annotation.constraint.NotEmpty;
+import net.shibboleth.shared.collection.CollectionSupport;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+import net.shibboleth.shared.security.DataSealerException;
+
+/**
+ * Compact binary storage for {@link ClientStorageService}.
+ *
+ * <p>
+ * The data is encoded as a version byte, a flags byte, and a body consisting of length-prefixed UTF-8 strings
+ * and variable-length integers, optionally deflated, and finally base64-encoded before being sealed. Context names
+ * that appear in a configured dictionary are encoded as a small index rather than a string. The dictionary must be
+ * the same when data is loaded as when it was saved; names may safely be appended to it, but not removed or
+ * reordered.
+ * </p>
+ *
+ * <p>
+ * Data previously saved by {@link JSONClientStorageServiceStore} is recognized on load and will be rewritten in the
+ * binary format on the next save.
+ * </p>
+ */
+public class BinaryClientStorageServiceStore extends AbstractClientStorageServiceStore {
+
+    /** Format version. */
+    private static final int VERSION = 1;
+
+    /** Flag bit indicating that the body is deflated. */
+    private static final int FLAG_DEFLATED = 0x01;
+
+    /** Upper bound on any count or string length. */
+    private static final int MAX_COUNT = 1 << 24;
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(BinaryClientStorageServiceStore.class);
+
+    /** Dictionary of well-known context names. */
+    @Nonnull private final List<String> dictionary;
+
+    /** Index of well-known context names. */
+    @Nonnull private final Map<String,Integer> dictionaryIndex;
+
+    /** Whether to compress the data. */
+    private final boolean compression;
+
+    /** Minimum size of the uncompressed body for compression to be attempted. */
+    private final int compressionThreshold;
+
+    /** Constructor. */
+    public BinaryClientStorageServiceStore() {
+        this(CollectionSupport.emptyList(), true, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param contextNames dictionary of well-known context names
+     * @param compress whether to compress the data
+     * @param threshold minimum size in bytes of the uncompressed body for compression to be attempted
+     */
+    public BinaryClientStorageServiceStore(@Nonnull final List<String> contextNames, final boolean compress,
+            @NonNegative final int threshold) {
+        dictionary = CollectionSupport.copyToList(Constraint.isNotNull(contextNames, "Dictionary cannot be null"));
+        dictionaryIndex = new HashMap<>(dictionary.size());
+        for (int i = 0; i < dictionary.size(); i++) {
+            dictionaryIndex.putIfAbsent(dictionary.get(i), i);
+        }
+        compression = compress;
+        compressionThreshold = Constraint.isGreaterThanOrEqual(0, threshold, "Threshold cannot be negative");
+    }
+
+    /** {@inheritDoc} */
+    public void doLoad(@Nullable @NotEmpty final String raw) throws IOException {
+        if (raw == null) {
+            return;
+        }
+
+        if (raw.startsWith("{")) {
+            log.debug("Converting data saved in JSON format");
+            final JSONClientStorageServiceStore legacy = new JSONClientStorageServiceStore();
+            legacy.doLoad(raw);
+            getContextMap().putAll(legacy.getContextMap());
+            setDirty(true);
+            return;
+        }
+
+        final byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(raw);
+        } catch (final IllegalArgumentException e) {
+            log.error("Unable to base64 decode data", e);
+            throw new IOException(e);
+        }
+
+        if (bytes.length < 2 || bytes[0] != VERSION) {
+            log.error("Found unsupported data format while parsing context map");
+            throw new IOException("Unsupported data format");
+        }
+
+        InputStream body = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+        Inflater inflater = null;
+        if ((bytes[1] & FLAG_DEFLATED) != 0) {
+            // The body is raw deflate data with no zlib wrapper, see deflate().
+            inflater = new Inflater(true);
+            body = new InflaterInputStream(body, inflater);
+        }
+
+        try (final DataInputStream input = new DataInputStream(body)) {
+            final int contexts = readCount(input);
+            for (int i = 0; i < contexts; i++) {
+                final String context = readContextName(input);
+
+                // Create new context if necessary.
+                final Map<String,MutableStorageRecord<?>> dataMap =
+                        getContextMap().computeIfAbsent(context, c -> new HashMap<>());
+
+                final int records = readCount(input);
+                for (int j = 0; j < records; j++) {
+                    final String key = readString(input);
+                    final String value = readString(input);
+                    final long exp = readVarLong(input);
+                    dataMap.put(key, new MutableStorageRecord<>(value, exp > 0 ? exp - 1 : null));
+                }
+            }
+        } catch (final IOException e) {
+            log.error("Found invalid data structure while parsing context map", e);
+            throw e;
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+
+        setDirty(false);
+    }
+
+//Checkstyle: CyclomaticComplexity|MethodLength OFF
+    /** {@inheritDoc} */
+    @Nullable public ClientStorageServiceOperation save(@Nonnull final ClientStorageService storageService)
+            throws IOException {
+
+        if (!isDirty()) {
+            log.trace("{} Storage state has not been modified, save operation skipped", storageService.getLogPrefix());
+            return null;
+        }
+
+        final ClientStorageSource source = getSource();
+        if (source == null) {
+            throw new IOException("Client storage medium not set");
+        }
+
+        long exp = 0L;
+        final long now = System.currentTimeMillis();
+
+        // Collect the unexpired records first, since the counts precede them.
+        final Map<String,List<Map.Entry<String,MutableStorageRecord<?>>>> live = new HashMap<>();
+        for (final Map.Entry<String,Map<String,MutableStorageRecord<?>>> context : getContextMap().entrySet()) {
+            final List<Map.Entry<String,MutableStorageRecord<?>>> records = new ArrayList<>();
+            for (final Map.Entry<String,MutableStorageRecord<?>> entry : context.getValue().entrySet()) {
+                final Long recexp = entry.getValue().getExpiration();
+                if (recexp == null || recexp > now) {
+                    records.add(entry);
+                    if (recexp != null) {
+                        exp = Math.max(exp, recexp);
+                    }
+                }
+            }
+            if (!records.isEmpty()) {
+                live.put(context.getKey(), records);
+            }
+        }
+
+        if (live.isEmpty()) {
+            log.trace("{} Data is empty", storageService.getLogPrefix());
+            setDirty(false);
+            return new ClientStorageServiceOperation(storageService.ensureId(), storageService.getStorageName(), null,
+                    source);
+        }
+
+        final ByteArrayOutputStream sink = new ByteArrayOutputStream(128);
+        final DataOutputStream output = new DataOutputStream(sink);
+        writeVarLong(output, live.size());
+        for (final Map.Entry<String,List<Map.Entry<String,MutableStorageRecord<?>>>> context : live.entrySet()) {
+            writeContextName(output, context.getKey());
+            writeVarLong(output, context.getValue().size());
+            for (final Map.Entry<String,MutableStorageRecord<?>> entry : context.getValue()) {
+                final MutableStorageRecord<?> record = entry.getValue();
+                final Long recexp = record.getExpiration();
+                writeString(output, entry.getKey());
+                writeString(output, record.getValue());
+                writeVarLong(output, recexp != null ? recexp + 1 : 0);
+            }
+        }
+        output.flush();
+
+        final byte[] body = sink.toByteArray();
+        byte[] encoded = frame(body, 0);
+        if (compression && body.length >= compressionThreshold) {
+            final byte[] deflated = deflate(body);
+            if (deflated.length < body.length) {
+                encoded = frame(deflated, FLAG_DEFLATED);
+            }
+        }
+
+        final String raw = Base64.getEncoder().encodeToString(encoded);
+
+        log.trace("{} Size of data before compression is {}", storageService.getLogPrefix(), body.length);
+        log.trace("{} Size of data before encryption is {}", storageService.getLogPrefix(), raw.length());
+        try {
+            final String wrapped = storageService.getDataSealer().wrap(raw,
+                    exp > 0 ? Instant.ofEpochMilli(exp) : Instant.now().plus(Duration.ofDays(1)));
+            log.trace("{} Size of data after encryption is {}", storageService.getLogPrefix(), wrapped.length());
+            setDirty(false);
+            return new ClientStorageServiceOperation(storageService.ensureId(), storageService.getStorageName(),
+                    wrapped, source);
+        } catch (final DataSealerException e) {
+            throw new IOException(e);
+        }
+    }
+//Checkstyle: CyclomaticComplexity|MethodLength ON
+
+    /**
+     * Write a context name, as a dictionary index if possible.
+     *
+     * @param output output to write to
+     * @param context context name
+     *
+     * @throws IOException if an error occurs
+     */
+    private void writeContextName(@Nonnull final DataOutput output, @Nonnull final String context)
+            throws IOException {
+        final Integer index = dictionaryIndex.get(context);
+        if (index != null) {
+            writeVarLong(output, index + 1);
+        } else {
+            writeVarLong(output, 0);
+            writeString(output, context);
+        }
+    }
+
+    /**
+     * Read a context name, resolving a dictionary index if present.
+     *
+     * @param input input to read from
+     *
+     * @return context name
+     *
+     * @throws IOException if an error occurs
+     */
+    @Nonnull private String readContextName(@Nonnull final DataInput input) throws IOException {
+        final long index = readVarLong(input);
+        if (index == 0) {
+            return readString(input);
+        } else if (index > dictionary.size()) {
+            throw new IOException("Context name index " + index + " is outside dictionary");
+        }
+        return dictionary.get((int) index - 1);
+    }
+
+    /**
+     * Prefix the body with the format version and flags.
+     *
+     * @param body encoded body
+     * @param flags flag bits
+     *
+     * @return framed data
+     */
+    @Nonnull private static byte[] frame(@Nonnull final byte[] body, final int flags) {
+        final byte[] framed = new byte[body.length + 2];
+        framed[0] = VERSION;
+        framed[1] = (byte) flags;
+        System.arraycopy(body, 0, framed, 2, body.length);
+        return framed;
+    }
+
+    /**
+     * Deflate the body.
+     *
+     * @param body encoded body
+     *
+     * @return compressed body
+     *
+     * @throws IOException if an error occurs
+     */
+    @Nonnull private static byte[] deflate(@Nonnull final byte[] body) throws IOException {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            final ByteArrayOutputStream sink = new ByteArrayOutputStream(body.length);
+            try (final DeflaterOutputStream output = new DeflaterOutputStream(sink, deflater)) {
+                output.write(body);
+            }
+            return sink.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Write a length-prefixed UTF-8 string.
+     *
+     * @param output output to write to
+     * @param value string value
+     *
+     * @throws IOException if an error occurs
+     */
+    private static void writeString(@Nonnull final DataOutput output, @Nonnull final String value)
+            throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(output, bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Read a length-prefixed UTF-8 string.
+     *
+     * @param input input to read from
+     *
+     * @return string value
+     *
+     * @throws IOException if an error occurs
+     */
+    @Nonnull private static String readString(@Nonnull final DataInput input) throws IOException {
+        final byte[] bytes = new byte[readCount(input)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a count or length, guarding against implausible values.
+     *
+     * @param input input to read from
+     *
+     * @return count
+     *
+     * @throws IOException if an error occurs
+     */
+    private static int readCount(@Nonnull final DataInput input) throws IOException {
+        final long count = readVarLong(input);
+        if (count > MAX_COUNT) {
+            throw new IOException("Found implausible count or length " + count);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Write a non-negative integer in a variable number of bytes, seven bits at a time.
+     *
+     * @param output output to write to
+     * @param value value to write
+     *
+     * @throws IOException if an error occurs
+     */
+    private static void writeVarLong(@Nonnull final DataOutput output, final long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            output.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        output.writeByte((int) v);
+    }
+
+    /**
+     * Read a non-negative integer written by {@link #writeVarLong(DataOutput, long)}.
+     *
+     * @param input input to read from
+     *
+     * @return value read
+     *
+     * @throws IOException if an error occurs
+     */
+    private static long readVarLong(@Nonnull final DataInput input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 63; shift += 7) {
+            final int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Found malformed variable-length integer");
+    }
+
+    /** Factory for binary store. */
+    public static class BinaryClientStorageServiceStoreFactory implements Factory {
+
+        /** Dictionary of well-known context names. */
+        @Nonnull private List<String> contextNames;
+
+        /** Whether to compress the data. */
+        private boolean compression;
+
+        /** Minimum size of the uncompressed body for compression to be attempted. */
+        @NonNegative private int compressionThreshold;
+
+        /** Constructor. */
+        public BinaryClientStorageServiceStoreFactory() {
+            contextNames = CollectionSupport.emptyList();
+            compression = true;
+            compressionThreshold = 64;
+        }
+
+        /**
+         * Set a dictionary of well-known context names to encode compactly.
+         *
+         * <p>Names may be appended to an existing dictionary, but removing or reordering them will make
+         * previously saved data unreadable.</p>
+         *
+         * @param names context names
+         */
+        public void setContextNames(@Nullable final List<String> names) {
+            contextNames = names != null ? CollectionSupport.copyToList(names) : CollectionSupport.emptyList();
+        }
+
+        /**
+         * Set whether to compress the data.
+         *
+         * <p>Defaults to true. Compressed data is only used if it is smaller.</p>
+         *
+         * @param flag flag to set
+         */
+        public void setCompression(final boolean flag) {
+            compression = flag;
+        }
+
+        /**
+         * Set the minimum size in bytes of the uncompressed data for compression to be attempted.
+         *
+         * <p>Defaults to 64.</p>
+         *
+         * @param threshold size threshold
+         */
+        public void setCompressionThreshold(@NonNegative final int threshold) {
+            compressionThreshold = Constraint.isGreaterThanOrEqual(0, threshold, "Threshold cannot be negative");
+        }
+
+        /** {@inheritDoc} */
+        @Nonnull public ClientStorageServiceStore load(@Nullable @NotEmpty final String raw,
+                @Nonnull final ClientStorageSource src) {
+            final ClientStorageServiceStore store =
+                    new BinaryClientStorageServiceStore(contextNames, compression, compressionThreshold);
+            store.load(raw, src);
+            return store;
+        }
+    }
+
+}
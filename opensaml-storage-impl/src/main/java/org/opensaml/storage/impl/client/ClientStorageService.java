@@ -31,6 +31,7 @@ import org.opensaml.storage.AbstractMapBackedStorageService;
 import org.opensaml.storage.MutableStorageRecord;
 import org.opensaml.storage.StorageCapabilities;
 import org.opensaml.storage.impl.client.ClientStorageServiceStore.Factory;
+import org.opensaml.storage.impl.client.ClientStorageServiceStore.SealingFactory;
 import org.opensaml.storage.impl.client.JSONClientStorageServiceStore.JSONClientStorageServiceStoreFactory;
 import org.slf4j.Logger;
 
@@ -110,7 +111,7 @@ public class ClientStorageService extends AbstractMapBackedStorageService implem
     @Nullable private DataSealerKeyStrategy keyStrategy;
     
     /** Factory for backing store. */
-    @Nonnull private Factory storeFactory;
+    @Nonnull private SealingFactory storeFactory;
 
     /** Constructor. */
     public ClientStorageService() {
@@ -118,7 +119,7 @@ public class ClientStorageService extends AbstractMapBackedStorageService implem
         capabilityMap = new HashMap<>(2);
         capabilityMap.put(ClientStorageSource.COOKIE, 4096);
         capabilityMap.put(ClientStorageSource.HTML_LOCAL_STORAGE, 1024 * 1024);
-        storeFactory = new JSONClientStorageServiceStoreFactory();
+        storeFactory = new UnsealingFactory(new JSONClientStorageServiceStoreFactory());
     }
 
     /** {@inheritDoc} */
@@ -246,14 +247,38 @@ public class ClientStorageService extends AbstractMapBackedStorageService implem
         keyStrategy = strategy;
     }
     
+    /**
+     * Get the {@link DataSealerKeyStrategy} to use for stale key detection.
+     * 
+     * @return {@link DataSealerKeyStrategy} to use for stale key detection
+     */
+    @Nullable DataSealerKeyStrategy getKeyStrategy() {
+        return keyStrategy;
+    }
+
     /**
      * Set the backing store {@link Factory} to use. 
      * 
+     * <p>The factory is supplied the data after it has been unsealed by this service.</p>
+     * 
      * @param factory factory to use
      */
     public void setClientStorageServiceStoreFactory(@Nonnull final Factory factory) {
         checkSetterPreconditions();
         
+        storeFactory = new UnsealingFactory(Constraint.isNotNull(factory, "Factory cannot be null"));
+    }
+
+    /**
+     * Set a backing store {@link SealingFactory} to use in place of a {@link Factory}.
+     * 
+     * <p>The factory is supplied the data before it is unsealed, and its stores seal their own data.</p>
+     * 
+     * @param factory factory to use
+     */
+    public void setSealingClientStorageServiceStoreFactory(@Nonnull final SealingFactory factory) {
+        checkSetterPreconditions();
+        
         storeFactory = Constraint.isNotNull(factory, "Factory cannot be null");
     }
 
@@ -433,43 +458,7 @@ public class ClientStorageService extends AbstractMapBackedStorageService implem
      */
     void load(@Nullable @NotEmpty final String raw, @Nonnull final ClientStorageSource source) {
 
-        ClientStorageServiceStore storageObject;
-        
-        if (raw != null) {
-            log.trace("{} Loading storage state into session", getLogPrefix());
-            try {
-                final StringBuffer keyAliasUsed = new StringBuffer();
-                final String decrypted = dataSealer.unwrap(raw, keyAliasUsed);
-                
-                log.trace("{} Data after decryption: {}", getLogPrefix(), decrypted);
-                
-                storageObject = storeFactory.load(decrypted, source);
-                
-                if (keyStrategy != null) {
-                    try {
-                        if (!keyStrategy.getDefaultKeyRecord().name().equals(keyAliasUsed.toString())) {
-                            storageObject.setDirty(true);
-                        }
-                    } catch (final KeyException e) {
-                        log.error("{} Exception while accessing default key during stale key detection",
-                                getLogPrefix(), e);
-                    }
-                }
-                
-                log.debug("{} Successfully decrypted and loaded storage state from client", getLogPrefix());
-            } catch (final DataExpiredException e) {
-                log.debug("{} Secured data or key has expired", getLogPrefix());
-                storageObject = storeFactory.load(null, source);
-                storageObject.setDirty(true);
-            } catch (final DataSealerException e) {
-                log.error("{} Exception unwrapping secured data", getLogPrefix(), e);
-                storageObject = storeFactory.load(null, source);
-                storageObject.setDirty(true);
-            }
-        } else {
-            log.trace("{} Initializing empty storage state into session", getLogPrefix());
-            storageObject = storeFactory.load(null, source);
-        }
+        final ClientStorageServiceStore storageObject = storeFactory.load(raw, source, this);
         
         // The object should be loaded, and marked "clean", or in the event of just about any failure
         // it should be empty and marked "dirty" to force an overwrite of the expired or corrupted data.
@@ -530,5 +519,68 @@ public class ClientStorageService extends AbstractMapBackedStorageService implem
     @Nonnull @NotEmpty String getLogPrefix() {
         return "StorageService " + getId() + ":";
     }
+
+    /** Adapts a {@link Factory} by unsealing the data on its behalf. */
+    private static final class UnsealingFactory implements SealingFactory {
+
+        /** Class logger. */
+        @Nonnull private final Logger log = LoggerFactory.getLogger(ClientStorageService.class);
+
+        /** Factory supplied the unsealed data. */
+        @Nonnull private final Factory factory;
+
+        /**
+         * Constructor.
+         *
+         * @param wrapped factory supplied the unsealed data
+         */
+        UnsealingFactory(@Nonnull final Factory wrapped) {
+            factory = wrapped;
+        }
+
+        /** {@inheritDoc} */
+        @Nonnull public ClientStorageServiceStore load(@Nullable @NotEmpty final String raw,
+                @Nonnull final ClientStorageSource source, @Nonnull final ClientStorageService storageService) {
+            if (raw == null) {
+                log.trace("{} Initializing empty storage state into session", storageService.getLogPrefix());
+                return factory.load(null, source);
+            }
+
+            log.trace("{} Loading storage state into session", storageService.getLogPrefix());
+            ClientStorageServiceStore storageObject;
+            try {
+                final StringBuffer keyAliasUsed = new StringBuffer();
+                final String decrypted = storageService.getDataSealer().unwrap(raw, keyAliasUsed);
+                
+                log.trace("{} Data after decryption: {}", storageService.getLogPrefix(), decrypted);
+                
+                storageObject = factory.load(decrypted, source);
+                
+                final DataSealerKeyStrategy keyStrategy = storageService.getKeyStrategy();
+                if (keyStrategy != null) {
+                    try {
+                        if (!keyStrategy.getDefaultKeyRecord().name().equals(keyAliasUsed.toString())) {
+                            storageObject.setDirty(true);
+                        }
+                    } catch (final KeyException e) {
+                        log.error("{} Exception while accessing default key during stale key detection",
+                                storageService.getLogPrefix(), e);
+                    }
+                }
+                
+                log.debug("{} Successfully decrypted and loaded storage state from client",
+                        storageService.getLogPrefix());
+            } catch (final DataExpiredException e) {
+                log.debug("{} Secured data or key has expired", storageService.getLogPrefix());
+                storageObject = factory.load(null, source);
+                storageObject.setDirty(true);
+            } catch (final DataSealerException e) {
+                log.error("{} Exception unwrapping secured data", storageService.getLogPrefix(), e);
+                storageObject = factory.load(null, source);
+                storageObject.setDirty(true);
+            }
+            return storageObject;
+        }
+    }
         
 }
@@ -101,5 +101,27 @@ public interface ClientStorageServiceStore {
         @Nonnull ClientStorageServiceStore load(@Nullable @NotEmpty final String raw,
                 @Nonnull final ClientStorageSource src);
     }
+
+    /**
+     * A factory for producing new {@link ClientStorageServiceStore} instances that seal and unseal their own data.
+     * 
+     * <p>Unlike a {@link Factory}, such a factory is supplied the data exactly as received from the client rather
+     * than after unsealing, and its stores must seal any data returned by
+     * {@link ClientStorageServiceStore#save(ClientStorageService)}.</p>
+     */
+    interface SealingFactory {
+
+        /**
+         * Load raw data into a new {@link ClientStorageServiceStore} instance.
+         * 
+         * @param raw sealed data to load
+         * @param src data source
+         * @param storageService storage service that owns the data
+         * 
+         * @return new store instance
+         */
+        @Nonnull ClientStorageServiceStore load(@Nullable @NotEmpty final String raw,
+                @Nonnull final ClientStorageSource src, @Nonnull final ClientStorageService storageService);
+    }
     
 }
\ No newline at end of file
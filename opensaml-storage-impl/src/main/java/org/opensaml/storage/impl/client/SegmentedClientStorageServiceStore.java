@@ -0,0 +1,662 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.storage.impl.client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.storage.MutableStorageRecord;
+import org.opensaml.storage.impl.client.ClientStorageService.ClientStorageSource;
+import org.opensaml.storage.impl.client.JSONClientStorageServiceStore.JSONClientStorageServiceStoreFactory;
+import org.slf4j.Logger;
+
+import net.shibboleth.shared.annotation.constraint.Live;
+import net.shibboleth.shared.annotation.constraint.NotEmpty;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+import net.shibboleth.shared.security.DataExpiredException;
+import net.shibboleth.shared.security.DataSealerException;
+import net.shibboleth.shared.security.DataSealerKeyStrategy;
+
+/**
+ * Storage for {@link ClientStorageService} that seals the data for each context as a separate segment.
+ *
+ * <p>
+ * Contexts are assigned to segments by a short digest of their name, which is carried in the clear alongside each
+ * sealed segment. A segment is only unsealed when one of its contexts is first accessed, and on save, segments that
+ * were never accessed, or whose contents are unchanged, are written back exactly as they were received. Only
+ * modified segments, and those whose seal is close to expiring, are sealed again. If the manifest was sealed with a
+ * key other than the current default, every segment is unsealed and sealed again with the current key. The data
+ * within each segment is serialized by a separate {@link Factory}, by default the JSON format.
+ * </p>
+ *
+ * <p>
+ * The segments saved together are bound by a small sealed manifest, sealed again on every save, which lists the
+ * identifier, a digest and the expiration of each segment. On load, the segments must match the manifest exactly,
+ * so segments from different saves cannot be replayed or mixed.
+ * </p>
+ *
+ * <p>
+ * Because each segment carries its own sealing overhead, this layout is best suited to local storage or to small
+ * numbers of contexts. Data saved as a single sealed value by any other store is recognized on load, and will be
+ * rewritten as segments on the next save.
+ * </p>
+ */
+public class SegmentedClientStorageServiceStore extends AbstractClientStorageServiceStore {
+
+    /** Separator between segments. */
+    private static final char SEGMENT_SEPARATOR = '.';
+
+    /** Separator between a segment's identifier and its sealed data. */
+    private static final char ID_SEPARATOR = ':';
+
+    /** Number of digest bytes used to identify a segment. */
+    private static final int ID_LENGTH = 6;
+
+    /** Number of digest bytes used to bind a sealed segment to the manifest. */
+    private static final int DIGEST_LENGTH = 16;
+
+    /** Identifier of the manifest, which cannot collide with a segment identifier. */
+    @Nonnull @NotEmpty private static final String MANIFEST_ID = "m";
+
+    /** Lifetime of a seal over data without expiration, as applied by the built-in stores. */
+    @Nonnull private static final Duration DEFAULT_SEAL_LIFETIME = Duration.ofDays(1);
+
+    /** Period before its seal expires within which an unchanged segment is sealed again. */
+    @Nonnull private static final Duration RESEAL_WINDOW = Duration.ofHours(12);
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(SegmentedClientStorageServiceStore.class);
+
+    /** Owning storage service. */
+    @Nonnull private final ClientStorageService storageService;
+
+    /** Factory for the store used to serialize each segment. */
+    @Nonnull private final Factory segmentFactory;
+
+    /** Contexts that have been unsealed or created. */
+    @Nonnull private final Map<String,Map<String,MutableStorageRecord<?>>> contexts;
+
+    /** Sealed segments that have not yet been accessed, keyed by segment identifier. */
+    @Nonnull private final Map<String,SealedSegment> pending;
+
+    /** Segments as originally unsealed, keyed by segment identifier. */
+    @Nonnull private final Map<String,Segment> unsealed;
+
+    /** Lazily-populated view of the contexts. */
+    @Nonnull private final Map<String,Map<String,MutableStorageRecord<?>>> contextMap;
+
+    /** Whether the manifest was sealed with a stale key, in which case the segments may have been too. */
+    private boolean staleKey;
+
+    /**
+     * Constructor.
+     *
+     * @param service owning storage service
+     * @param factory factory for the store used to serialize each segment
+     */
+    public SegmentedClientStorageServiceStore(@Nonnull final ClientStorageService service,
+            @Nonnull final Factory factory) {
+        storageService = Constraint.isNotNull(service, "ClientStorageService cannot be null");
+        segmentFactory = Constraint.isNotNull(factory, "Segment store factory cannot be null");
+        contexts = new HashMap<>();
+        pending = new HashMap<>();
+        unsealed = new HashMap<>();
+        contextMap = new SegmentedContextMap();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull @Live public Map<String,Map<String,MutableStorageRecord<?>>> getContextMap() {
+        return contextMap;
+    }
+
+    /** {@inheritDoc} */
+    public void doLoad(@Nullable @NotEmpty final String raw) throws IOException {
+        contextMap.clear();
+        unsealed.clear();
+        staleKey = false;
+
+        if (raw == null) {
+            return;
+        }
+
+        try {
+            if (raw.indexOf(ID_SEPARATOR) < 0) {
+                loadUnsegmented(raw);
+                return;
+            }
+
+            final Map<String,String> segments = new HashMap<>();
+            for (final String segment : raw.split("\\" + SEGMENT_SEPARATOR)) {
+                final int i = segment.indexOf(ID_SEPARATOR);
+                if (i <= 0 || i == segment.length() - 1) {
+                    throw new IOException("Found invalid segment while parsing stored data");
+                }
+                segments.put(segment.substring(0, i), segment.substring(i + 1));
+            }
+
+            final String manifest = segments.remove(MANIFEST_ID);
+            if (manifest == null) {
+                throw new IOException("Stored data has no manifest");
+            }
+            setDirty(false);
+            final Map<String,ManifestEntry> entries = unsealManifest(manifest);
+            if (entries == null) {
+                return;
+            }
+            if (!entries.keySet().equals(segments.keySet())) {
+                throw new IOException("Stored segments do not match manifest");
+            }
+            for (final Map.Entry<String,String> segment : segments.entrySet()) {
+                final ManifestEntry entry = entries.get(segment.getKey());
+                if (!entry.digest().equals(digest(segment.getValue(), DIGEST_LENGTH))) {
+                    throw new IOException("Stored segment does not match manifest");
+                }
+                pending.put(segment.getKey(), new SealedSegment(segment.getValue(), entry.expiration()));
+            }
+            log.trace("{} Found {} sealed segment(s)", storageService.getLogPrefix(), pending.size());
+        } catch (final IOException e) {
+            log.error("{} Found invalid data structure while parsing stored data", storageService.getLogPrefix(), e);
+            contextMap.clear();
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Nullable public ClientStorageServiceOperation save(@Nonnull final ClientStorageService service)
+            throws IOException {
+
+        if (!isDirty()) {
+            log.trace("{} Storage state has not been modified, save operation skipped", service.getLogPrefix());
+            return null;
+        }
+
+        final ClientStorageSource source = getSource();
+        if (source == null) {
+            throw new IOException("Client storage medium not set");
+        }
+
+        final long now = System.currentTimeMillis();
+        final Map<String,Map<String,Map<String,MutableStorageRecord<?>>>> segments = new HashMap<>();
+        synchronized (contextMap) {
+            if (staleKey) {
+                // Untouched segments may still be sealed with the old key, so they must all be sealed again.
+                unsealAll();
+                staleKey = false;
+            } else {
+                // Unseal any untouched segments close to expiry so they can be sealed again.
+                for (final Map.Entry<String,SealedSegment> segment : new ArrayList<>(pending.entrySet())) {
+                    if (segment.getValue().expiration() < now + RESEAL_WINDOW.toMillis()) {
+                        unsealSegment(segment.getKey());
+                    }
+                }
+            }
+
+            for (final Map.Entry<String,Map<String,MutableStorageRecord<?>>> context : contexts.entrySet()) {
+                if (!context.getValue().isEmpty()) {
+                    segments.computeIfAbsent(getSegmentID(context.getKey()), id -> new HashMap<>())
+                        .put(context.getKey(), context.getValue());
+                }
+            }
+
+            final Map<String,SealedSegment> output = new HashMap<>(pending);
+            final Map<String,Segment> saved = new HashMap<>(segments.size());
+            int resealed = 0;
+            for (final Map.Entry<String,Map<String,Map<String,MutableStorageRecord<?>>>> segment
+                    : segments.entrySet()) {
+                final Map<String,Map<String,RecordState>> state = snapshot(segment.getValue());
+                final long expiration = getSealExpiration(state, now);
+                final Segment original = unsealed.get(segment.getKey());
+                final SealedSegment sealed;
+                if (original != null && original.state().equals(state)
+                        && (original.sealed().expiration() >= now + RESEAL_WINDOW.toMillis()
+                                || (expiration > now && original.sealed().expiration() >= expiration))) {
+                    sealed = original.sealed();
+                } else {
+                    final String value = seal(service, source, segment.getValue());
+                    sealed = value != null ? new SealedSegment(value, expiration) : null;
+                    resealed++;
+                }
+                if (sealed != null) {
+                    output.put(segment.getKey(), sealed);
+                    saved.put(segment.getKey(), new Segment(sealed, state));
+                }
+            }
+            unsealed.clear();
+            unsealed.putAll(saved);
+
+            log.trace("{} Saving {} segment(s), {} sealed", service.getLogPrefix(), output.size(), resealed);
+            final String value = output.isEmpty() ? null : sealManifest(service, output);
+            setDirty(false);
+            return new ClientStorageServiceOperation(service.ensureId(), service.getStorageName(), value, source);
+        }
+    }
+
+    /**
+     * Load data previously saved as a single sealed value.
+     *
+     * @param raw sealed data
+     *
+     * @throws IOException if the data cannot be unsealed or parsed
+     */
+    private void loadUnsegmented(@Nonnull @NotEmpty final String raw) throws IOException {
+        log.debug("{} Converting unsegmented storage state", storageService.getLogPrefix());
+        try {
+            final ClientStorageServiceStore store =
+                    segmentFactory.load(storageService.getDataSealer().unwrap(raw), getSourceOrDefault());
+            contexts.putAll(store.getContextMap());
+            setDirty(true);
+        } catch (final DataExpiredException e) {
+            log.debug("{} Secured data or key has expired", storageService.getLogPrefix());
+            setDirty(true);
+        } catch (final DataSealerException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Unseal the segment containing a context, if it has not already been unsealed.
+     *
+     * @param context context name
+     */
+    private void unseal(@Nonnull final String context) {
+        if (!pending.isEmpty()) {
+            unsealSegment(getSegmentID(context));
+        }
+    }
+
+    /** Unseal all remaining segments. */
+    private void unsealAll() {
+        for (final String id : new ArrayList<>(pending.keySet())) {
+            unsealSegment(id);
+        }
+    }
+
+    /**
+     * Unseal a segment, if it has not already been unsealed.
+     *
+     * @param id segment identifier
+     */
+    private void unsealSegment(@Nonnull final String id) {
+        final SealedSegment sealed = pending.remove(id);
+        if (sealed == null) {
+            return;
+        }
+
+        log.trace("{} Unsealing segment {}", storageService.getLogPrefix(), id);
+        try {
+            final StringBuffer keyAliasUsed = new StringBuffer();
+            final String decrypted = storageService.getDataSealer().unwrap(sealed.value(), keyAliasUsed);
+            final ClientStorageServiceStore store = segmentFactory.load(decrypted, getSourceOrDefault());
+            contexts.putAll(store.getContextMap());
+            if (store.isDirty() || isStaleKey(keyAliasUsed.toString())) {
+                // Force the segment to be sealed again.
+                setDirty(true);
+            } else {
+                unsealed.put(id, new Segment(sealed, snapshot(store.getContextMap())));
+            }
+        } catch (final DataExpiredException e) {
+            log.debug("{} Secured segment {} or key has expired", storageService.getLogPrefix(), id);
+            setDirty(true);
+        } catch (final DataSealerException e) {
+            log.error("{} Exception unwrapping secured segment {}", storageService.getLogPrefix(), id, e);
+            setDirty(true);
+        }
+    }
+
+    /**
+     * Unseal and parse the manifest.
+     *
+     * @param sealed sealed manifest
+     *
+     * @return manifest entries keyed by segment identifier, or null if the manifest has expired
+     *
+     * @throws IOException if the manifest cannot be unsealed or parsed
+     */
+    @Nullable private Map<String,ManifestEntry> unsealManifest(@Nonnull final String sealed) throws IOException {
+        final String manifest;
+        try {
+            final StringBuffer keyAliasUsed = new StringBuffer();
+            manifest = storageService.getDataSealer().unwrap(sealed, keyAliasUsed);
+            if (isStaleKey(keyAliasUsed.toString())) {
+                staleKey = true;
+                setDirty(true);
+            }
+        } catch (final DataExpiredException e) {
+            log.debug("{} Secured manifest or key has expired", storageService.getLogPrefix());
+            setDirty(true);
+            return null;
+        } catch (final DataSealerException e) {
+            throw new IOException(e);
+        }
+
+        final Map<String,ManifestEntry> entries = new HashMap<>();
+        for (final String entry : manifest.split("\\" + SEGMENT_SEPARATOR)) {
+            final String[] fields = entry.split(String.valueOf(ID_SEPARATOR));
+            if (fields.length != 3) {
+                throw new IOException("Found invalid manifest entry while parsing stored data");
+            }
+            try {
+                entries.put(fields[0], new ManifestEntry(fields[1], Long.parseLong(fields[2])));
+            } catch (final NumberFormatException e) {
+                throw new IOException(e);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Seal a manifest for a set of segments and prepend it to them.
+     *
+     * @param service storage service
+     * @param segments sealed segments keyed by segment identifier
+     *
+     * @return the value to store
+     *
+     * @throws IOException if an error occurs
+     */
+    @Nonnull @NotEmpty private String sealManifest(@Nonnull final ClientStorageService service,
+            @Nonnull final Map<String,SealedSegment> segments) throws IOException {
+        final List<String> manifest = new ArrayList<>(segments.size());
+        final List<String> output = new ArrayList<>(segments.size() + 1);
+        long expiration = 0;
+        for (final Map.Entry<String,SealedSegment> segment : segments.entrySet()) {
+            final SealedSegment sealed = segment.getValue();
+            manifest.add(segment.getKey() + ID_SEPARATOR + digest(sealed.value(), DIGEST_LENGTH) + ID_SEPARATOR
+                    + sealed.expiration());
+            output.add(segment.getKey() + ID_SEPARATOR + sealed.value());
+            expiration = Math.max(expiration, sealed.expiration());
+        }
+
+        try {
+            output.add(0, MANIFEST_ID + ID_SEPARATOR + service.getDataSealer().wrap(
+                    String.join(String.valueOf(SEGMENT_SEPARATOR), manifest), Instant.ofEpochMilli(expiration)));
+        } catch (final DataSealerException e) {
+            throw new IOException(e);
+        }
+        return String.join(String.valueOf(SEGMENT_SEPARATOR), output);
+    }
+
+    /**
+     * Check whether a segment was sealed with a key other than the current default.
+     *
+     * @param keyAliasUsed alias of the key used
+     *
+     * @return true iff the key is known to be stale
+     */
+    private boolean isStaleKey(@Nonnull final String keyAliasUsed) {
+        final DataSealerKeyStrategy keyStrategy = storageService.getKeyStrategy();
+        if (keyStrategy != null) {
+            try {
+                return !keyStrategy.getDefaultKeyRecord().name().equals(keyAliasUsed);
+            } catch (final KeyException e) {
+                log.error("{} Exception while accessing default key during stale key detection",
+                        storageService.getLogPrefix(), e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Serialize and seal the contexts in a segment.
+     *
+     * @param service storage service
+     * @param source storage source
+     * @param segment contexts in the segment
+     *
+     * @return the sealed segment, or null if it contains no unexpired data
+     *
+     * @throws IOException if an error occurs
+     */
+    @Nullable private String seal(@Nonnull final ClientStorageService service,
+            @Nonnull final ClientStorageSource source,
+            @Nonnull final Map<String,Map<String,MutableStorageRecord<?>>> segment) throws IOException {
+        final ClientStorageServiceStore store = segmentFactory.load(null, source);
+        store.getContextMap().putAll(segment);
+        store.setDirty(true);
+        final ClientStorageServiceOperation op = store.save(service);
+        return op != null ? op.getValue() : null;
+    }
+
+    /**
+     * Get the data source, defaulting to cookies if not yet set.
+     *
+     * @return data source
+     */
+    @Nonnull private ClientStorageSource getSourceOrDefault() {
+        final ClientStorageSource source = getSource();
+        return source != null ? source : ClientStorageSource.COOKIE;
+    }
+
+    /**
+     * Get the identifier of the segment containing a context.
+     *
+     * @param context context name
+     *
+     * @return segment identifier
+     */
+    @Nonnull @NotEmpty private static String getSegmentID(@Nonnull final String context) {
+        return digest(context, ID_LENGTH);
+    }
+
+    /**
+     * Compute a truncated, base64url-encoded SHA-256 digest of a string.
+     *
+     * @param value value to digest
+     * @param length number of digest bytes to retain
+     *
+     * @return encoded digest
+     */
+    @Nonnull @NotEmpty private static String digest(@Nonnull final String value, final int length) {
+        try {
+            final byte[] digest =
+                    MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, length));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 digest algorithm is not available", e);
+        }
+    }
+
+    /**
+     * Get the expiration of the seal over a segment's data.
+     *
+     * <p>This follows the built-in stores, which seal data until its latest record expiration, or for a fixed
+     * period if no record expires.</p>
+     *
+     * @param state contents of the segment
+     * @param now current time
+     *
+     * @return expiration in milliseconds since the epoch
+     */
+    private static long getSealExpiration(@Nonnull final Map<String,Map<String,RecordState>> state,
+            final long now) {
+        long expiration = 0;
+        for (final Map<String,RecordState> records : state.values()) {
+            for (final RecordState record : records.values()) {
+                final Long recexp = record.expiration();
+                if (recexp != null) {
+                    expiration = Math.max(expiration, recexp);
+                }
+            }
+        }
+        return expiration > 0 ? expiration : now + DEFAULT_SEAL_LIFETIME.toMillis();
+    }
+
+    /**
+     * Capture the contents of a set of contexts for later comparison.
+     *
+     * @param segment contexts to capture
+     *
+     * @return captured state
+     */
+    @Nonnull private static Map<String,Map<String,RecordState>> snapshot(
+            @Nonnull final Map<String,Map<String,MutableStorageRecord<?>>> segment) {
+        final Map<String,Map<String,RecordState>> state = new HashMap<>(segment.size());
+        for (final Map.Entry<String,Map<String,MutableStorageRecord<?>>> context : segment.entrySet()) {
+            if (!context.getValue().isEmpty()) {
+                final Map<String,RecordState> records = new HashMap<>(context.getValue().size());
+                for (final Map.Entry<String,MutableStorageRecord<?>> entry : context.getValue().entrySet()) {
+                    records.put(entry.getKey(),
+                            new RecordState(entry.getValue().getValue(), entry.getValue().getExpiration()));
+                }
+                state.put(context.getKey(), records);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * View of the contexts that unseals segments as their contexts are accessed.
+     *
+     * <p>Operations that span all contexts unseal every segment.</p>
+     */
+    private final class SegmentedContextMap extends AbstractMap<String,Map<String,MutableStorageRecord<?>>> {
+
+        /** {@inheritDoc} */
+        @Override
+        @Nullable public synchronized Map<String,MutableStorageRecord<?>> get(@Nullable final Object key) {
+            if (key instanceof String) {
+                unseal((String) key);
+            }
+            return contexts.get(key);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized boolean containsKey(@Nullable final Object key) {
+            if (key instanceof String) {
+                unseal((String) key);
+            }
+            return contexts.containsKey(key);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nullable public synchronized Map<String,MutableStorageRecord<?>> put(@Nonnull final String key,
+                @Nonnull final Map<String,MutableStorageRecord<?>> value) {
+            unseal(key);
+            return contexts.put(key, value);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nullable public synchronized Map<String,MutableStorageRecord<?>> remove(@Nullable final Object key) {
+            if (key instanceof String) {
+                unseal((String) key);
+            }
+            return contexts.remove(key);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized void clear() {
+            pending.clear();
+            contexts.clear();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nonnull public synchronized Set<Entry<String,Map<String,MutableStorageRecord<?>>>> entrySet() {
+            unsealAll();
+            return contexts.entrySet();
+        }
+    }
+
+    /**
+     * A segment as originally unsealed.
+     *
+     * @param sealed sealed data
+     * @param state contents of the segment
+     */
+    private record Segment(@Nonnull SealedSegment sealed, @Nonnull Map<String,Map<String,RecordState>> state) {
+    }
+
+    /**
+     * A sealed segment.
+     *
+     * @param value sealed data
+     * @param expiration expiration of the seal, in milliseconds since the epoch
+     */
+    private record SealedSegment(@Nonnull String value, long expiration) {
+    }
+
+    /**
+     * An entry in the manifest.
+     *
+     * @param digest digest of the sealed segment
+     * @param expiration expiration of the segment's seal, in milliseconds since the epoch
+     */
+    private record ManifestEntry(@Nonnull String digest, long expiration) {
+    }
+
+    /**
+     * Captured state of a record.
+     *
+     * @param value record value
+     * @param expiration record expiration
+     */
+    private record RecordState(@Nonnull String value, @Nullable Long expiration) {
+    }
+
+    /** Factory for segmented store. */
+    public static class SegmentedClientStorageServiceStoreFactory implements SealingFactory {
+
+        /** Factory for the store used to serialize each segment. */
+        @Nonnull private Factory segmentFactory;
+
+        /** Constructor. */
+        public SegmentedClientStorageServiceStoreFactory() {
+            segmentFactory = new JSONClientStorageServiceStoreFactory();
+        }
+
+        /**
+         * Set the factory for the store used to serialize the data in each segment.
+         *
+         * <p>Defaults to the JSON format.</p>
+         *
+         * @param factory segment store factory
+         */
+        public void setSegmentStoreFactory(@Nonnull final Factory factory) {
+            segmentFactory = Constraint.isNotNull(factory, "Segment store factory cannot be null");
+        }
+
+        /** {@inheritDoc} */
+        @Nonnull public ClientStorageServiceStore load(@Nullable @NotEmpty final String raw,
+                @Nonnull final ClientStorageSource src, @Nonnull final ClientStorageService storageService) {
+            final ClientStorageServiceStore store =
+                    new SegmentedClientStorageServiceStore(storageService, segmentFactory);
+            store.load(raw, src);
+            return store;
+        }
+    }
+
+}
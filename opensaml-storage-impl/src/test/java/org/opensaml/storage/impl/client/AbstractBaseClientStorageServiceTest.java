@@ -14,8 +14,11 @@
 
 package org.opensaml.storage.impl.client;
 
+import java.nio.charset.StandardCharsets;
+
 import javax.annotation.Nonnull;
 
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
 import org.testng.Assert;
 
@@ -49,6 +52,26 @@ public class AbstractBaseClientStorageServiceTest {
     }
 
     @Nonnull protected ClientStorageService getStorageService() throws ComponentInitializationException {
+        return getStorageService(versionResource, false);
+    }
+
+    /**
+     * Get a storage service whose default sealing key is a particular version, with stale key detection enabled.
+     * 
+     * @param keyVersion version of the default key
+     * 
+     * @return storage service
+     * 
+     * @throws ComponentInitializationException if initialization fails
+     */
+    @Nonnull protected ClientStorageService getStorageService(final int keyVersion)
+            throws ComponentInitializationException {
+        final byte[] version = ("CurrentVersion = " + keyVersion).getBytes(StandardCharsets.UTF_8);
+        return getStorageService(ResourceHelper.of(new ByteArrayResource(version)), true);
+    }
+
+    @Nonnull private ClientStorageService getStorageService(@Nonnull final Resource version,
+            final boolean detectStaleKeys) throws ComponentInitializationException {
         final ClientStorageService ss = new ClientStorageService();
         ss.setId("test");
         ss.setStorageName(STORAGE_NAME);
@@ -64,7 +87,7 @@ public class AbstractBaseClientStorageServiceTest {
         strategy.setKeyPassword("kpassword");
         strategy.setKeystorePassword("password");
         strategy.setKeystoreResource(keystoreResource);
-        strategy.setKeyVersionResource(versionResource);
+        strategy.setKeyVersionResource(version);
 
         final DataSealer sealer = new DataSealer();
         sealer.setKeyStrategy(strategy);
@@ -77,6 +100,9 @@ public class AbstractBaseClientStorageServiceTest {
         }
 
         ss.setDataSealer(sealer);
+        if (detectStaleKeys) {
+            ss.setKeyStrategy(strategy);
+        }
         
         ss.setHttpServletRequestSupplier(new ThreadLocalHttpServletRequestSupplier());
         ss.initialize();
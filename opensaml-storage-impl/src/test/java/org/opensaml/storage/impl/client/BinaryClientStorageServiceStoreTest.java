@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.storage.impl.client;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.opensaml.storage.MutableStorageRecord;
+import org.opensaml.storage.impl.client.BinaryClientStorageServiceStore.BinaryClientStorageServiceStoreFactory;
+import org.opensaml.storage.impl.client.ClientStorageService.ClientStorageSource;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import net.shibboleth.shared.collection.CollectionSupport;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import net.shibboleth.shared.security.DataSealerException;
+
+/** Unit test for {@link BinaryClientStorageServiceStore}. */
+@SuppressWarnings("javadoc")
+public class BinaryClientStorageServiceStoreTest extends AbstractBaseClientStorageServiceTest {
+
+    private ClientStorageService storageService;
+
+    @BeforeMethod
+    public void setUp() throws ComponentInitializationException {
+        init();
+        storageService = getStorageService();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, DataSealerException {
+        final BinaryClientStorageServiceStoreFactory factory = new BinaryClientStorageServiceStoreFactory();
+        factory.setContextNames(CollectionSupport.listOf("context1"));
+
+        final ClientStorageServiceStore store = factory.load(null, ClientStorageSource.HTML_LOCAL_STORAGE);
+        populate(store, 5);
+
+        final ClientStorageServiceOperation op = store.save(storageService);
+        assert op != null;
+        final String value = op.getValue();
+        assert value != null;
+        Assert.assertFalse(store.isDirty());
+
+        final ClientStorageServiceStore loaded = factory.load(storageService.getDataSealer().unwrap(value),
+                ClientStorageSource.HTML_LOCAL_STORAGE);
+        Assert.assertFalse(loaded.isDirty());
+        Assert.assertEquals(loaded.getContextMap().keySet(), store.getContextMap().keySet());
+        for (final Map.Entry<String,Map<String,MutableStorageRecord<?>>> context
+                : store.getContextMap().entrySet()) {
+            final Map<String,MutableStorageRecord<?>> records = loaded.getContextMap().get(context.getKey());
+            Assert.assertEquals(records.size(), context.getValue().size());
+            for (final Map.Entry<String,MutableStorageRecord<?>> entry : context.getValue().entrySet()) {
+                final MutableStorageRecord<?> record = records.get(entry.getKey());
+                Assert.assertEquals(record.getValue(), entry.getValue().getValue());
+                Assert.assertEquals(record.getExpiration(), entry.getValue().getExpiration());
+            }
+        }
+    }
+
+    @Test
+    public void testCompressedRoundTrip() throws IOException, DataSealerException {
+        final BinaryClientStorageServiceStoreFactory factory = new BinaryClientStorageServiceStoreFactory();
+        factory.setCompressionThreshold(0);
+
+        final ClientStorageServiceStore store = factory.load(null, ClientStorageSource.HTML_LOCAL_STORAGE);
+        populate(store, 10);
+
+        final ClientStorageServiceOperation op = store.save(storageService);
+        assert op != null;
+        final String value = op.getValue();
+        assert value != null;
+        final String raw = storageService.getDataSealer().unwrap(value);
+        Assert.assertEquals(Base64.getDecoder().decode(raw)[1] & 0x01, 1, "Data should have been deflated");
+
+        final ClientStorageServiceStore loaded = factory.load(raw, ClientStorageSource.HTML_LOCAL_STORAGE);
+        Assert.assertFalse(loaded.isDirty());
+        Assert.assertEquals(loaded.getContextMap().size(), 10);
+        Assert.assertEquals(loaded.getContextMap().get("context9").get("key3").getValue(), "value3");
+    }
+
+    @Test
+    public void testExpiredSkipped() throws IOException, DataSealerException {
+        final BinaryClientStorageServiceStoreFactory factory = new BinaryClientStorageServiceStoreFactory();
+        final ClientStorageServiceStore store = factory.load(null, ClientStorageSource.HTML_LOCAL_STORAGE);
+        store.getContextMap().computeIfAbsent("context", c -> new HashMap<>()).put("key",
+                new MutableStorageRecord<>("value", System.currentTimeMillis() - 1000));
+        store.setDirty(true);
+
+        final ClientStorageServiceOperation op = store.save(storageService);
+        assert op != null;
+        Assert.assertNull(op.getValue());
+    }
+
+    @Test
+    public void testJSONMigration() throws IOException, DataSealerException {
+        final ClientStorageServiceStore json = new JSONClientStorageServiceStore();
+        json.load(null, ClientStorageSource.COOKIE);
+        populate(json, 2);
+        final ClientStorageServiceOperation op = json.save(storageService);
+        assert op != null;
+        final String value = op.getValue();
+        assert value != null;
+
+        final ClientStorageServiceStore store = new BinaryClientStorageServiceStoreFactory().load(
+                storageService.getDataSealer().unwrap(value), ClientStorageSource.COOKIE);
+        Assert.assertTrue(store.isDirty());
+        Assert.assertEquals(store.getContextMap().size(), 2);
+        Assert.assertEquals(store.getContextMap().get("context0").get("key0").getValue(), "value0");
+    }
+
+    @Test
+    public void testInvalid() {
+        final ClientStorageServiceStore store =
+                new BinaryClientStorageServiceStoreFactory().load("AQB/", ClientStorageSource.COOKIE);
+        Assert.assertTrue(store.isDirty());
+        Assert.assertTrue(store.getContextMap().isEmpty());
+    }
+
+    @Test
+    public void testSmallerThanJSON() throws IOException {
+        final BinaryClientStorageServiceStoreFactory factory = new BinaryClientStorageServiceStoreFactory();
+        factory.setContextNames(CollectionSupport.listOf("context0", "context1", "context2"));
+        final ClientStorageServiceStore binary = factory.load(null, ClientStorageSource.COOKIE);
+        populate(binary, 3);
+
+        final ClientStorageServiceStore json = new JSONClientStorageServiceStore();
+        json.load(null, ClientStorageSource.COOKIE);
+        populate(json, 3);
+
+        final ClientStorageServiceOperation binaryOp = binary.save(storageService);
+        final ClientStorageServiceOperation jsonOp = json.save(storageService);
+        assert binaryOp != null && jsonOp != null;
+        final String binaryValue = binaryOp.getValue();
+        final String jsonValue = jsonOp.getValue();
+        assert binaryValue != null && jsonValue != null;
+        Assert.assertTrue(binaryValue.length() < jsonValue.length(),
+                "Binary size " + binaryValue.length() + " should be less than JSON size " + jsonValue.length());
+    }
+
+    private void populate(@Nonnull final ClientStorageServiceStore store, final int contexts) {
+        final long exp = System.currentTimeMillis() + 3600000;
+        for (int i = 0; i < contexts; i++) {
+            final Map<String,MutableStorageRecord<?>> records = new HashMap<>();
+            for (int j = 0; j < 4; j++) {
+                records.put("key" + j, new MutableStorageRecord<>("value" + j, j % 2 == 0 ? exp : null));
+            }
+            store.getContextMap().put("context" + i, records);
+        }
+        store.setDirty(true);
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.storage.impl.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.opensaml.storage.MutableStorageRecord;
+import org.opensaml.storage.impl.client.ClientStorageService.ClientStorageSource;
+import org.opensaml.storage.impl.client.SegmentedClientStorageServiceStore.SegmentedClientStorageServiceStoreFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+import net.shibboleth.shared.security.DataSealerException;
+
+/** Unit test for {@link SegmentedClientStorageServiceStore}. */
+@SuppressWarnings("javadoc")
+public class SegmentedClientStorageServiceStoreTest extends AbstractBaseClientStorageServiceTest {
+
+    private ClientStorageService storageService;
+
+    private SegmentedClientStorageServiceStoreFactory factory;
+
+    @BeforeMethod
+    public void setUp() throws ComponentInitializationException {
+        init();
+        storageService = getStorageService();
+        factory = new SegmentedClientStorageServiceStoreFactory();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final ClientStorageServiceStore store =
+                factory.load(null, ClientStorageSource.HTML_LOCAL_STORAGE, storageService);
+        populate(store, "context1", "value1");
+        populate(store, "context2", "value2");
+
+        final String value = save(store);
+        Assert.assertEquals(value.split("\\.").length, 3);
+
+        final ClientStorageServiceStore loaded =
+                factory.load(value, ClientStorageSource.HTML_LOCAL_STORAGE, storageService);
+        Assert.assertFalse(loaded.isDirty());
+        Assert.assertEquals(loaded.getContextMap().get("context1").get("key").getValue(), "value1");
+        Assert.assertEquals(loaded.getContextMap().get("context2").get("key").getValue(), "value2");
+        Assert.assertEquals(loaded.getContextMap().size(), 2);
+        Assert.assertFalse(loaded.isDirty());
+    }
+
+    @Test
+    public void testOnlyModifiedSegmentResealed() throws IOException {
+        final ClientStorageServiceStore store =
+                factory.load(null, ClientStorageSource.HTML_LOCAL_STORAGE, storageService);
+        populate(store, "context1", "value1");
+        populate(store, "context2", "value2");
+        populate(store, "context3", "value3");
+        final List<String> original = Arrays.asList(save(store).split("\\."));
+
+        final ClientStorageServiceStore loaded =
+                factory.load(String.join(".", original), ClientStorageSource.HTML_LOCAL_STORAGE, storageService);
+
+        // Read one context without change, and modify another.
+        Assert.assertEquals(loaded.getContextMap().get("context2").get("key").getValue(), "value2");
+        loaded.getContextMap().get("context1").put("key", new MutableStorageRecord<>("changed", null));
+        loaded.setDirty(true);
+
+        final List<String> updated = Arrays.asList(save(loaded).split("\\."));
+        Assert.assertEquals(updated.size(), 4);
+        int unchanged = 0;
+        for (final String segment : updated) {
+            if (original.contains(segment)) {
+                unchanged++;
+            }
+        }
+        Assert.assertEquals(unchanged, 2);
+
+        final ClientStorageServiceStore reloaded =
+                factory.load(String.join(".", updated), ClientStorageSource.HTML_LOCAL_STORAGE, storageService);
+        Assert.assertEquals(reloaded.getContextMap().get("context1").get("key").getValue(), "changed");
+        Assert.assertEquals(reloaded.getContextMap().get("context3").get("key").getValue(), "value3");
+    }
+
+    @Test
+    public void testRemovedContext() throws IOException {
+        final ClientStorageServiceStore store = factory.load(null, ClientStorageSource.COOKIE, storageService);
+        populate(store, "context1", "value1");
+        populate(store, "context2", "value2");
+
+        final ClientStorageServiceStore loaded = factory.load(save(store), ClientStorageSource.COOKIE, storageService);
+        loaded.getContextMap().remove("context1");
+        loaded.setDirty(true);
+
+        final String value = save(loaded);
+        Assert.assertEquals(value.split("\\.").length, 2);
+        final ClientStorageServiceStore reloaded = factory.load(value, ClientStorageSource.COOKIE, storageService);
+        Assert.assertNull(reloaded.getContextMap().get("context1"));
+        Assert.assertNotNull(reloaded.getContextMap().get("context2"));
+    }
+
+    @Test
+    public void testSegmentsBound() throws IOException {
+        final ClientStorageServiceStore store =
+                factory.load(null, ClientStorageSource.HTML_LOCAL_STORAGE, storageService);
+        populate(store, "context1", "value1");
+        populate(store, "context2", "value2");
+        final List<String> original = Arrays.asList(save(store).split("\\."));
+
+        final ClientStorageServiceStore loaded =
+                factory.load(String.join(".", original), ClientStorageSource.HTML_LOCAL_STORAGE, storageService);
+        populate(loaded, "context1", "changed");
+        final List<String> updated = new ArrayList<>(Arrays.asList(save(loaded).split("\\.")));
+
+        // Replay the original segment for context1 alongside the updated manifest.
+        final String stale = original.stream().filter(seg -> !updated.contains(seg)).filter(
+                seg -> !seg.startsWith("m:")).findFirst().orElseThrow();
+        final String staleID = stale.substring(0, stale.indexOf(':'));
+        updated.replaceAll(seg -> seg.startsWith(staleID + ":") ? stale : seg);
+        ClientStorageServiceStore replayed =
+                factory.load(String.join(".", updated), ClientStorageSource.HTML_LOCAL_STORAGE, storageService);
+        Assert.assertTrue(replayed.isDirty());
+        Assert.assertTrue(replayed.getContextMap().isEmpty());
+
+        // Drop a segment.
+        replayed = factory.load(String.join(".", original.subList(0, 2)), ClientStorageSource.HTML_LOCAL_STORAGE,
+                storageService);
+        Assert.assertTrue(replayed.isDirty());
+        Assert.assertTrue(replayed.getContextMap().isEmpty());
+    }
+
+    @Test
+    public void testKeyRotation() throws ComponentInitializationException, IOException, DataSealerException {
+        final ClientStorageService oldService = getStorageService(1);
+        final ClientStorageServiceStore store =
+                factory.load(null, ClientStorageSource.HTML_LOCAL_STORAGE, oldService);
+        populate(store, "context1", "value1");
+        populate(store, "context2", "value2");
+        final ClientStorageServiceOperation op = store.save(oldService);
+        assert op != null;
+        final String original = op.getValue();
+        assert original != null;
+
+        // Modify one context after the key is rotated, leaving the other unread.
+        final ClientStorageService newService = getStorageService(2);
+        final ClientStorageServiceStore loaded =
+                factory.load(original, ClientStorageSource.HTML_LOCAL_STORAGE, newService);
+        Assert.assertTrue(loaded.isDirty());
+        populate(loaded, "context1", "changed");
+        final ClientStorageServiceOperation updated = loaded.save(newService);
+        assert updated != null;
+        final String value = updated.getValue();
+        assert value != null;
+
+        final String[] segments = value.split("\\.");
+        Assert.assertEquals(segments.length, 3);
+        for (final String segment : segments) {
+            final StringBuffer keyAliasUsed = new StringBuffer();
+            newService.getDataSealer().unwrap(segment.substring(segment.indexOf(':') + 1), keyAliasUsed);
+            Assert.assertEquals(keyAliasUsed.toString(), "secret2");
+        }
+
+        final ClientStorageServiceStore reloaded =
+                factory.load(value, ClientStorageSource.HTML_LOCAL_STORAGE, newService);
+        Assert.assertFalse(reloaded.isDirty());
+        Assert.assertEquals(reloaded.getContextMap().get("context1").get("key").getValue(), "changed");
+        Assert.assertEquals(reloaded.getContextMap().get("context2").get("key").getValue(), "value2");
+    }
+
+    @Test
+    public void testUnsegmentedMigration() throws IOException {
+        final ClientStorageServiceStore json = new JSONClientStorageServiceStore();
+        json.load(null, ClientStorageSource.COOKIE);
+        populate(json, "context1", "value1");
+        final ClientStorageServiceOperation op = json.save(storageService);
+        assert op != null;
+        final String value = op.getValue();
+        assert value != null;
+
+        final ClientStorageServiceStore store = factory.load(value, ClientStorageSource.COOKIE, storageService);
+        Assert.assertTrue(store.isDirty());
+        Assert.assertEquals(store.getContextMap().get("context1").get("key").getValue(), "value1");
+    }
+
+    @Test
+    public void testInvalid() {
+        ClientStorageServiceStore store =
+                factory.load("abc:not sealed", ClientStorageSource.COOKIE, storageService);
+        Assert.assertTrue(store.isDirty());
+        Assert.assertTrue(store.getContextMap().isEmpty());
+
+        store = factory.load("m:not sealed", ClientStorageSource.COOKIE, storageService);
+        Assert.assertTrue(store.isDirty());
+        Assert.assertTrue(store.getContextMap().isEmpty());
+    }
+
+    private void populate(@Nonnull final ClientStorageServiceStore store, @Nonnull final String context,
+            @Nonnull final String value) {
+        final Map<String,MutableStorageRecord<?>> records = new HashMap<>();
+        records.put("key", new MutableStorageRecord<>(value, null));
+        store.getContextMap().put(context, records);
+        store.setDirty(true);
+    }
+
+    @Nonnull private String save(@Nonnull final ClientStorageServiceStore store) throws IOException {
+        final ClientStorageServiceOperation op = store.save(storageService);
+        assert op != null;
+        final String value = op.getValue();
+        assert value != null;
+        return value;
+    }
+
+}
@@ -14,41 +14,63 @@
 
 package org.opensaml.xacml.ctx.provider.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.opensaml.xacml.ctx.DecisionType.DECISION;
 import org.opensaml.xacml.policy.EffectType;
 import org.opensaml.xacml.policy.ObligationType;
 import org.opensaml.xacml.policy.ObligationsType;
 
-import net.shibboleth.shared.annotation.constraint.Live;
+import net.shibboleth.shared.annotation.constraint.NotLive;
 import net.shibboleth.shared.annotation.constraint.Unmodifiable;
+import net.shibboleth.shared.collection.CollectionSupport;
 import net.shibboleth.shared.logic.Constraint;
 
-/** A service for evaluating the obligations within a context. */
+/**
+ * A service for evaluating the obligations within a context.
+ *
+ * <p>
+ * The registered handlers are held in an immutable snapshot, indexed by obligation ID, which is replaced as a whole
+ * whenever a handler is added or removed. Processing obligations therefore requires no locking, and sees a
+ * consistent set of handlers even if the registrations change concurrently.
+ * </p>
+ *
+ * <p>
+ * Handlers are evaluated in order of precedence, and handlers with the same precedence in the lexical order of their
+ * obligation IDs. If an {@link Executor} is set, handlers with the same precedence are treated as independent of one
+ * another and are evaluated concurrently, with each group of handlers completing before the next begins.
+ * </p>
+ */
 public class ObligationService {
 
-    /** Read/write lock around the registered obligation handlers. */
-    @Nonnull private ReentrantReadWriteLock rwLock;
+    /** Comparator used to order obligation handlers by precedence. */
+    @Nonnull private static final Comparator<BaseObligationHandler> HANDLER_ORDER = new ObligationHandlerComparator();
+
+    /** Snapshot of the registered obligation handlers. */
+    @Nonnull private final AtomicReference<HandlerSnapshot> handlerSnapshot;
 
-    /** Registered obligation handlers. */
-    @Nonnull private Set<BaseObligationHandler> obligationHandlers;
+    /** Executor used to evaluate handlers with the same precedence concurrently. */
+    @Nullable private volatile Executor executor;
 
     /** Constructor. */
     public ObligationService() {
-        rwLock = new ReentrantReadWriteLock(true);
-        obligationHandlers = new TreeSet<>(new ObligationHandlerComparator());
+        handlerSnapshot = new AtomicReference<>(new HandlerSnapshot(new TreeSet<>(HANDLER_ORDER)));
     }
 
     /**
@@ -56,34 +78,47 @@ public class ObligationService {
      * 
      * @return registered obligation handlers
      */
-    @Nonnull @Unmodifiable @Live public Set<BaseObligationHandler> getObligationHandlers() {
-        return Collections.unmodifiableSet(obligationHandlers);
+    @Nonnull @Unmodifiable @NotLive public Set<BaseObligationHandler> getObligationHandlers() {
+        return handlerSnapshot.get().handlers();
     }
 
     /**
-     * Adds an obligation handler to the list of registered handlers
+     * Gets the executor used to evaluate handlers with the same precedence concurrently.
      * 
-     * This method waits until a write lock is obtained for the set of registered obligation handlers.
+     * @return the executor, or null if handlers are evaluated sequentially
+     */
+    @Nullable public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor used to evaluate handlers with the same precedence concurrently.
+     * 
+     * <p>
+     * Handlers sharing a precedence must not depend on one another's effects if an executor is set. The handler for
+     * each group which would otherwise run first is evaluated on the calling thread.
+     * </p>
+     * 
+     * @param handlerExecutor the executor, or null to evaluate all handlers sequentially on the calling thread
+     */
+    public void setExecutor(@Nullable final Executor handlerExecutor) {
+        executor = handlerExecutor;
+    }
+
+    /**
+     * Adds an obligation handler to the list of registered handlers
      * 
      * @param handler the handler to add to the list of registered handlers.
      */
     public void addObligationhandler(@Nonnull final BaseObligationHandler handler) {
         Constraint.isNotNull(handler, "Handler cannot be null");
 
-        final Lock writeLock = rwLock.writeLock();
-        writeLock.lock();
-        try {
-            obligationHandlers.add(handler);
-        } finally {
-            writeLock.unlock();
-        }
+        handlerSnapshot.updateAndGet(snapshot -> snapshot.with(CollectionSupport.singletonList(handler)));
     }
 
     /**
      * Adds a collection of obligation handler to the list of registered handlers
      * 
-     * This method waits until a write lock is obtained for the set of registered obligation handlers.
-     * 
      * @param handlers the collection of handlers to add to the list of registered handlers.
      */
     public void addObligationhandler(@Nonnull final Collection<BaseObligationHandler> handlers) {
@@ -92,60 +127,122 @@ public class ObligationService {
             return;
         }
 
-        final Lock writeLock = rwLock.writeLock();
-        writeLock.lock();
-        try {
-            obligationHandlers.addAll(handlers);
-        } finally {
-            writeLock.unlock();
-        }
+        final List<BaseObligationHandler> copy = CollectionSupport.copyToList(handlers);
+        handlerSnapshot.updateAndGet(snapshot -> snapshot.with(copy));
     }
 
     /**
      * Removes an obligation handler from the list of registered handlers
      * 
-     * This method waits until a write lock is obtained for the set of registered obligation handlers.
-     * 
      * @param handler the handler to remove from the list of registered handlers.
      */
     public void removeObligationHandler(@Nonnull final BaseObligationHandler handler) {
         Constraint.isNotNull(handler, "Handler cannot be null");
 
-        final Lock writeLock = rwLock.writeLock();
-        writeLock.lock();
-        try {
-            obligationHandlers.remove(handler);
-        } finally {
-            writeLock.unlock();
-        }
+        handlerSnapshot.updateAndGet(snapshot -> snapshot.without(handler));
     }
 
     /**
      * Processes the obligations within the effective XACML policy.
      * 
-     * This method waits until a read lock is obtained for the set of registered obligation handlers.
-     * 
      * @param context current processing context
      * 
      * @throws ObligationProcessingException thrown if there is a problem evaluating an obligation
      */
     public void processObligations(@Nonnull final ObligationProcessingContext context)
             throws ObligationProcessingException {
-        final Lock readLock = rwLock.readLock();
-        readLock.lock();
+        final HandlerSnapshot snapshot = handlerSnapshot.get();
+        final Map<String, ObligationType> effectiveObligations = preprocessObligations(context);
+        if (effectiveObligations.isEmpty()) {
+            return;
+        }
+
+        final List<BaseObligationHandler> handlers = new ArrayList<>();
+        for (final String obligationId : effectiveObligations.keySet()) {
+            final List<BaseObligationHandler> idHandlers = snapshot.handlersById().get(obligationId);
+            if (idHandlers != null) {
+                handlers.addAll(idHandlers);
+            }
+        }
+        handlers.sort(HANDLER_ORDER);
+
+        final Executor handlerExecutor = executor;
+        int start = 0;
+        while (start < handlers.size()) {
+            int end = start + 1;
+            if (handlerExecutor != null) {
+                final int precedence = handlers.get(start).getHandlerPrecedence();
+                while (end < handlers.size() && handlers.get(end).getHandlerPrecedence() == precedence) {
+                    end++;
+                }
+            }
+
+            if (end - start == 1) {
+                final BaseObligationHandler handler = handlers.get(start);
+                handler.evaluateObligation(context, effectiveObligations.get(handler.getObligationId()));
+            } else {
+                assert handlerExecutor != null;
+                evaluateConcurrently(context, handlers.subList(start, end), effectiveObligations, handlerExecutor);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Evaluates a group of independent handlers concurrently, waiting for all of them to complete.
+     * 
+     * @param context current processing context
+     * @param handlers the handlers to evaluate
+     * @param effectiveObligations the obligations to evaluate, by ID
+     * @param handlerExecutor the executor used to evaluate all but the first handler
+     * 
+     * @throws ObligationProcessingException thrown if there is a problem evaluating an obligation
+     */
+    private void evaluateConcurrently(@Nonnull final ObligationProcessingContext context,
+            @Nonnull final List<BaseObligationHandler> handlers,
+            @Nonnull final Map<String, ObligationType> effectiveObligations, @Nonnull final Executor handlerExecutor)
+                    throws ObligationProcessingException {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(handlers.size() - 1);
+        for (final BaseObligationHandler handler : handlers.subList(1, handlers.size())) {
+            final ObligationType obligation = effectiveObligations.get(handler.getObligationId());
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    handler.evaluateObligation(context, obligation);
+                } catch (final ObligationProcessingException e) {
+                    throw new CompletionException(e);
+                }
+            }, handlerExecutor));
+        }
+
+        Throwable failure = null;
+        final BaseObligationHandler first = handlers.get(0);
         try {
-            final Iterator<BaseObligationHandler> handlerItr = obligationHandlers.iterator();
-            final Map<String, ObligationType> effectiveObligations = preprocessObligations(context);
-
-            BaseObligationHandler handler;
-            while (handlerItr.hasNext()) {
-                handler = handlerItr.next();
-                if (effectiveObligations.containsKey(handler.getObligationId())) {
-                    handler.evaluateObligation(context, effectiveObligations.get(handler.getObligationId()));
+            first.evaluateObligation(context, effectiveObligations.get(first.getObligationId()));
+        } catch (final ObligationProcessingException | RuntimeException e) {
+            failure = e;
+        }
+
+        for (final CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (final CompletionException e) {
+                final Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
                 }
             }
-        } finally {
-            readLock.unlock();
+        }
+
+        if (failure instanceof ObligationProcessingException e) {
+            throw e;
+        } else if (failure instanceof RuntimeException e) {
+            throw e;
+        } else if (failure instanceof Error e) {
+            throw e;
+        } else if (failure != null) {
+            throw new ObligationProcessingException("Obligation handler failed", (Exception) failure);
         }
     }
 
@@ -182,8 +279,73 @@ public class ObligationService {
         return effectiveObligations;
     }
 
+    /**
+     * An immutable snapshot of the registered handlers.
+     * 
+     * @param handlers the handlers, in order of evaluation
+     * @param handlersById the handlers for each obligation ID, in order of evaluation
+     */
+    private record HandlerSnapshot(@Nonnull @Unmodifiable SortedSet<BaseObligationHandler> handlers,
+            @Nonnull @Unmodifiable Map<String, List<BaseObligationHandler>> handlersById) {
+
+        /**
+         * Constructor.
+         * 
+         * @param orderedHandlers the handlers, which must not be modified subsequently
+         */
+        HandlerSnapshot(@Nonnull final TreeSet<BaseObligationHandler> orderedHandlers) {
+            this(Collections.unmodifiableSortedSet(orderedHandlers), index(orderedHandlers));
+        }
+
+        /**
+         * Creates a snapshot with additional handlers.
+         * 
+         * @param added the handlers to add
+         * 
+         * @return the new snapshot
+         */
+        @Nonnull HandlerSnapshot with(@Nonnull final Collection<BaseObligationHandler> added) {
+            final TreeSet<BaseObligationHandler> copy = new TreeSet<>(handlers);
+            copy.addAll(added);
+            return new HandlerSnapshot(copy);
+        }
+
+        /**
+         * Creates a snapshot without a handler.
+         * 
+         * @param removed the handler to remove
+         * 
+         * @return the new snapshot, or this snapshot if the handler is not registered
+         */
+        @Nonnull HandlerSnapshot without(@Nonnull final BaseObligationHandler removed) {
+            if (!handlers.contains(removed)) {
+                return this;
+            }
+            final TreeSet<BaseObligationHandler> copy = new TreeSet<>(handlers);
+            copy.remove(removed);
+            return new HandlerSnapshot(copy);
+        }
+
+        /**
+         * Indexes handlers by obligation ID.
+         * 
+         * @param orderedHandlers the handlers
+         * 
+         * @return the index
+         */
+        @Nonnull @Unmodifiable private static Map<String, List<BaseObligationHandler>> index(
+                @Nonnull final SortedSet<BaseObligationHandler> orderedHandlers) {
+            final Map<String, List<BaseObligationHandler>> index = new HashMap<>();
+            for (final BaseObligationHandler handler : orderedHandlers) {
+                index.computeIfAbsent(handler.getObligationId(), id -> new ArrayList<>()).add(handler);
+            }
+            index.replaceAll((id, list) -> CollectionSupport.copyToList(list));
+            return Map.copyOf(index);
+        }
+    }
+
     /** Comparator used to order obligation handlers by precedence. */
-    private class ObligationHandlerComparator implements Comparator<BaseObligationHandler> {
+    private static class ObligationHandlerComparator implements Comparator<BaseObligationHandler> {
 
         /** {@inheritDoc} */
         public int compare(final BaseObligationHandler o1, final BaseObligationHandler o2) {
@@ -199,4 +361,4 @@ public class ObligationService {
             return 1;
         }
     }
-}
\ No newline at end of file
+}
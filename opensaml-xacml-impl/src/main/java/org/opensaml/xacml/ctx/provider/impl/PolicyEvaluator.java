@@ -0,0 +1,1015 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.xacml.ctx.provider.impl;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.opensaml.xacml.XACMLObject;
+import org.opensaml.xacml.ctx.AttributeType;
+import org.opensaml.xacml.ctx.DecisionType.DECISION;
+import org.opensaml.xacml.ctx.RequestType;
+import org.opensaml.xacml.ctx.ResourceType;
+import org.opensaml.xacml.policy.ActionMatchType;
+import org.opensaml.xacml.policy.ActionType;
+import org.opensaml.xacml.policy.AttributeDesignatorType;
+import org.opensaml.xacml.policy.AttributeSelectorType;
+import org.opensaml.xacml.policy.AttributeValueType;
+import org.opensaml.xacml.policy.EffectType;
+import org.opensaml.xacml.policy.EnvironmentMatchType;
+import org.opensaml.xacml.policy.EnvironmentType;
+import org.opensaml.xacml.policy.IdReferenceType;
+import org.opensaml.xacml.policy.ObligationType;
+import org.opensaml.xacml.policy.ObligationsType;
+import org.opensaml.xacml.policy.PolicySetType;
+import org.opensaml.xacml.policy.PolicyType;
+import org.opensaml.xacml.policy.ResourceMatchType;
+import org.opensaml.xacml.policy.RuleType;
+import org.opensaml.xacml.policy.SubjectAttributeDesignatorType;
+import org.opensaml.xacml.policy.SubjectMatchType;
+import org.opensaml.xacml.policy.SubjectType;
+import org.opensaml.xacml.policy.TargetType;
+import org.slf4j.Logger;
+
+import net.shibboleth.shared.annotation.constraint.NonnullElements;
+import net.shibboleth.shared.annotation.constraint.Unmodifiable;
+import net.shibboleth.shared.collection.CollectionSupport;
+import net.shibboleth.shared.logic.Constraint;
+import net.shibboleth.shared.primitive.LoggerFactory;
+
+/**
+ * An in-process evaluator for a XACML 2.0 policy or policy set.
+ *
+ * <p>
+ * The policy is compiled once, on construction, into an immutable structure in which the rules of each policy and
+ * the children of each policy set are indexed on the values of the string and URI equality matches in their targets.
+ * Only those children whose targets could match a request are evaluated, and since nothing is modified after
+ * construction an instance may be used to evaluate requests concurrently without locking.
+ * </p>
+ *
+ * <p>
+ * Only the target-matching subset of XACML is supported. Rules and policies are selected by <code>string-equal</code>,
+ * <code>anyURI-equal</code>, <code>integer-equal</code>, <code>boolean-equal</code> and
+ * <code>regexp-string-match</code> matches against attribute designators, and combined using the deny-overrides,
+ * permit-overrides, first-applicable and only-one-applicable algorithms (and their ordered variants). A policy
+ * containing a rule condition, an attribute selector, a policy reference, or any other function or algorithm is
+ * rejected with a {@link PolicyEvaluationException}.
+ * </p>
+ */
+public class PolicyEvaluator {
+
+    /** Default subject category. */
+    @Nonnull public static final String ACCESS_SUBJECT_CATEGORY =
+            "urn:oasis:names:tc:xacml:1.0:subject-category:access-subject";
+
+    /** Prefix of the standard function identifiers. */
+    @Nonnull private static final String FUNCTION_PREFIX = "urn:oasis:names:tc:xacml:1.0:function:";
+
+    /** Prefix of the XACML 1.0 rule-combining algorithm identifiers. */
+    @Nonnull private static final String RULE_ALGORITHM_PREFIX =
+            "urn:oasis:names:tc:xacml:1.0:rule-combining-algorithm:";
+
+    /** Prefix of the XACML 1.1 rule-combining algorithm identifiers. */
+    @Nonnull private static final String RULE_ALGORITHM_11_PREFIX =
+            "urn:oasis:names:tc:xacml:1.1:rule-combining-algorithm:";
+
+    /** Prefix of the XACML 1.0 policy-combining algorithm identifiers. */
+    @Nonnull private static final String POLICY_ALGORITHM_PREFIX =
+            "urn:oasis:names:tc:xacml:1.0:policy-combining-algorithm:";
+
+    /** Prefix of the XACML 1.1 policy-combining algorithm identifiers. */
+    @Nonnull private static final String POLICY_ALGORITHM_11_PREFIX =
+            "urn:oasis:names:tc:xacml:1.1:policy-combining-algorithm:";
+
+    /** Supported rule-combining algorithms, by identifier. */
+    @Nonnull private static final Map<String,CombiningAlgorithm> RULE_ALGORITHMS = Map.of(
+            RULE_ALGORITHM_PREFIX + "deny-overrides", CombiningAlgorithm.DENY_OVERRIDES,
+            RULE_ALGORITHM_11_PREFIX + "ordered-deny-overrides", CombiningAlgorithm.DENY_OVERRIDES,
+            RULE_ALGORITHM_PREFIX + "permit-overrides", CombiningAlgorithm.PERMIT_OVERRIDES,
+            RULE_ALGORITHM_11_PREFIX + "ordered-permit-overrides", CombiningAlgorithm.PERMIT_OVERRIDES,
+            RULE_ALGORITHM_PREFIX + "first-applicable", CombiningAlgorithm.FIRST_APPLICABLE);
+
+    /** Supported policy-combining algorithms, by identifier. */
+    @Nonnull private static final Map<String,CombiningAlgorithm> POLICY_ALGORITHMS = Map.of(
+            POLICY_ALGORITHM_PREFIX + "deny-overrides", CombiningAlgorithm.DENY_OVERRIDES,
+            POLICY_ALGORITHM_11_PREFIX + "ordered-deny-overrides", CombiningAlgorithm.DENY_OVERRIDES,
+            POLICY_ALGORITHM_PREFIX + "permit-overrides", CombiningAlgorithm.PERMIT_OVERRIDES,
+            POLICY_ALGORITHM_11_PREFIX + "ordered-permit-overrides", CombiningAlgorithm.PERMIT_OVERRIDES,
+            POLICY_ALGORITHM_PREFIX + "first-applicable", CombiningAlgorithm.FIRST_APPLICABLE,
+            POLICY_ALGORITHM_PREFIX + "only-one-applicable", CombiningAlgorithm.ONLY_ONE_APPLICABLE);
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(PolicyEvaluator.class);
+
+    /** The compiled root policy or policy set. */
+    @Nonnull private final PolicyNode root;
+
+    /**
+     * Constructor.
+     *
+     * @param policy the {@link PolicyType} or {@link PolicySetType} to evaluate
+     *
+     * @throws PolicyEvaluationException if the policy uses a feature that is not supported
+     */
+    public PolicyEvaluator(@Nonnull final XACMLObject policy) throws PolicyEvaluationException {
+        Constraint.isNotNull(policy, "Policy cannot be null");
+        if (policy instanceof PolicyType p) {
+            root = compilePolicy(p);
+        } else if (policy instanceof PolicySetType ps) {
+            root = compilePolicySet(ps);
+        } else {
+            throw new PolicyEvaluationException("Unsupported policy type " + policy.getElementQName());
+        }
+    }
+
+    /**
+     * Evaluates a request against the policy.
+     *
+     * @param request the request to evaluate
+     *
+     * @return the decision and the obligations to be fulfilled with it
+     */
+    @Nonnull public Result evaluate(@Nonnull final RequestType request) {
+        Constraint.isNotNull(request, "Request cannot be null");
+        final Outcome outcome = root.evaluate(new RequestContext(request));
+        log.trace("Policy evaluated to {} with {} obligation(s)", outcome.decision(), outcome.obligations().size());
+        return new Result(outcome.decision(), outcome.obligations());
+    }
+
+    /**
+     * Compiles a policy.
+     *
+     * @param policy the policy
+     *
+     * @return the compiled policy
+     *
+     * @throws PolicyEvaluationException if the policy uses a feature that is not supported
+     */
+    @Nonnull private PolicyNode compilePolicy(@Nonnull final PolicyType policy) throws PolicyEvaluationException {
+        final String id = policy.getPolicyId();
+        final String algorithmId = policy.getRuleCombiningAlgoId();
+        final CombiningAlgorithm algorithm = algorithmId != null ? RULE_ALGORITHMS.get(algorithmId) : null;
+        if (algorithm == null) {
+            throw new PolicyEvaluationException("Policy " + id + " uses unsupported rule-combining algorithm "
+                    + algorithmId);
+        }
+
+        final List<RuleNode> rules = new ArrayList<>(policy.getRules().size());
+        for (final RuleType rule : policy.getRules()) {
+            if (rule.getCondition() != null) {
+                throw new PolicyEvaluationException("Rule " + rule.getRuleId() + " in policy " + id
+                        + " has a Condition, which is not supported");
+            }
+            final EffectType effect = rule.getEffect();
+            if (effect == null) {
+                throw new PolicyEvaluationException("Rule " + rule.getRuleId() + " in policy " + id
+                        + " has no Effect");
+            }
+            rules.add(new RuleNode(compileTarget(rule.getTarget(), id), effect));
+        }
+
+        final PolicyNode node = new PolicyNode(compileTarget(policy.getTarget(), id), algorithm,
+                CollectionSupport.copyToList(rules), obligations(policy.getObligations(), EffectType.Permit),
+                obligations(policy.getObligations(), EffectType.Deny));
+        log.debug("Compiled policy {} with {} rule(s), {} unindexed", id, rules.size(),
+                node.index.unindexed.cardinality());
+        return node;
+    }
+
+    /**
+     * Compiles a policy set.
+     *
+     * @param policySet the policy set
+     *
+     * @return the compiled policy set
+     *
+     * @throws PolicyEvaluationException if the policy set uses a feature that is not supported
+     */
+    @Nonnull private PolicyNode compilePolicySet(@Nonnull final PolicySetType policySet)
+            throws PolicyEvaluationException {
+        final String id = policySet.getPolicySetId();
+        final String algorithmId = policySet.getPolicyCombiningAlgoId();
+        final CombiningAlgorithm algorithm = algorithmId != null ? POLICY_ALGORITHMS.get(algorithmId) : null;
+        if (algorithm == null) {
+            throw new PolicyEvaluationException("Policy set " + id + " uses unsupported policy-combining algorithm "
+                    + algorithmId);
+        }
+
+        final List<PolicyNode> children = new ArrayList<>(policySet.getPolicyChoiceGroup().size());
+        for (final XACMLObject child : policySet.getPolicyChoiceGroup()) {
+            if (child instanceof PolicyType p) {
+                children.add(compilePolicy(p));
+            } else if (child instanceof PolicySetType ps) {
+                children.add(compilePolicySet(ps));
+            } else if (child instanceof IdReferenceType) {
+                throw new PolicyEvaluationException("Policy set " + id + " contains a policy reference, "
+                        + "which is not supported");
+            }
+        }
+
+        final PolicyNode node = new PolicyNode(compileTarget(policySet.getTarget(), id), algorithm,
+                CollectionSupport.copyToList(children), obligations(policySet.getObligations(), EffectType.Permit),
+                obligations(policySet.getObligations(), EffectType.Deny));
+        log.debug("Compiled policy set {} with {} child(ren), {} unindexed", id, children.size(),
+                node.index.unindexed.cardinality());
+        return node;
+    }
+
+    /**
+     * Compiles a target.
+     *
+     * @param target the target, or null
+     * @param id identifier of the enclosing policy, for error reporting
+     *
+     * @return the compiled target, or null if the target matches every request
+     *
+     * @throws PolicyEvaluationException if the target uses a feature that is not supported
+     */
+    @Nullable private Target compileTarget(@Nullable final TargetType target, @Nullable final String id)
+            throws PolicyEvaluationException {
+        if (target == null) {
+            return null;
+        }
+
+        final List<List<List<MatchNode>>> sections = new ArrayList<>(4);
+        if (target.getSubjects() != null) {
+            final List<List<MatchNode>> alternatives = new ArrayList<>();
+            for (final SubjectType subject : target.getSubjects().getSubjects()) {
+                final List<MatchNode> matches = new ArrayList<>();
+                for (final SubjectMatchType match : subject.getSubjectMatches()) {
+                    matches.add(compileMatch(Section.SUBJECT, match.getMatchId(), match.getAttributeValue(),
+                            match.getSubjectAttributeDesignator(), match.getAttributeSelector(), id));
+                }
+                alternatives.add(CollectionSupport.copyToList(matches));
+            }
+            addSection(sections, alternatives);
+        }
+        if (target.getResources() != null) {
+            final List<List<MatchNode>> alternatives = new ArrayList<>();
+            for (final org.opensaml.xacml.policy.ResourceType resource : target.getResources().getResources()) {
+                final List<MatchNode> matches = new ArrayList<>();
+                for (final ResourceMatchType match : resource.getResourceMatches()) {
+                    matches.add(compileMatch(Section.RESOURCE, match.getMatchId(), match.getAttributeValue(),
+                            match.getResourceAttributeDesignator(), match.getAttributeSelector(), id));
+                }
+                alternatives.add(CollectionSupport.copyToList(matches));
+            }
+            addSection(sections, alternatives);
+        }
+        if (target.getActions() != null) {
+            final List<List<MatchNode>> alternatives = new ArrayList<>();
+            for (final ActionType action : target.getActions().getActions()) {
+                final List<MatchNode> matches = new ArrayList<>();
+                for (final ActionMatchType match : action.getActionMatches()) {
+                    matches.add(compileMatch(Section.ACTION, match.getMatchId(), match.getAttributeValue(),
+                            match.getActionAttributeDesignator(), match.getAttributeSelector(), id));
+                }
+                alternatives.add(CollectionSupport.copyToList(matches));
+            }
+            addSection(sections, alternatives);
+        }
+        if (target.getEnvironments() != null) {
+            final List<List<MatchNode>> alternatives = new ArrayList<>();
+            for (final EnvironmentType environment : target.getEnvironments().getEnvironments()) {
+                final List<MatchNode> matches = new ArrayList<>();
+                for (final EnvironmentMatchType match : environment.getEnvrionmentMatches()) {
+                    matches.add(compileMatch(Section.ENVIRONMENT, match.getMatchId(), match.getAttributeValue(),
+                            match.getEnvironmentAttributeDesignator(), match.getAttributeSelector(), id));
+                }
+                alternatives.add(CollectionSupport.copyToList(matches));
+            }
+            addSection(sections, alternatives);
+        }
+
+        return sections.isEmpty() ? null : new Target(CollectionSupport.copyToList(sections));
+    }
+
+    /**
+     * Adds a section to a target unless it matches every request.
+     *
+     * @param sections the target's sections
+     * @param alternatives the alternatives within the section
+     */
+    private void addSection(@Nonnull final List<List<List<MatchNode>>> sections,
+            @Nonnull final List<List<MatchNode>> alternatives) {
+        // An empty section, or one with an alternative with no matches, places no constraint on the request.
+        if (!alternatives.isEmpty() && alternatives.stream().noneMatch(List::isEmpty)) {
+            sections.add(CollectionSupport.copyToList(alternatives));
+        }
+    }
+
+    /**
+     * Compiles a target match.
+     *
+     * @param section target section containing the match
+     * @param matchId match function identifier
+     * @param value the policy value to match
+     * @param designator the designator of the request attribute to match
+     * @param selector attribute selector
+     * @param id identifier of the enclosing policy, for error reporting
+     *
+     * @return the compiled match
+     *
+     * @throws PolicyEvaluationException if the match uses a feature that is not supported
+     */
+    // Checkstyle: CyclomaticComplexity OFF
+    @Nonnull private MatchNode compileMatch(@Nonnull final Section section, @Nullable final String matchId,
+            @Nullable final AttributeValueType value, @Nullable final AttributeDesignatorType designator,
+            @Nullable final AttributeSelectorType selector, @Nullable final String id)
+                    throws PolicyEvaluationException {
+        if (selector != null || designator == null) {
+            throw new PolicyEvaluationException("Target in policy " + id + " uses an AttributeSelector, "
+                    + "which is not supported");
+        } else if (value == null) {
+            throw new PolicyEvaluationException("Target match in policy " + id + " has no AttributeValue");
+        }
+
+        String category = null;
+        if (section == Section.SUBJECT) {
+            if (designator instanceof SubjectAttributeDesignatorType subject && subject.getSubjectCategory() != null) {
+                category = subject.getSubjectCategory();
+            } else {
+                category = ACCESS_SUBJECT_CATEGORY;
+            }
+        }
+        final AttributeKey key = new AttributeKey(section, category, designator.getAttributeId(),
+                designator.getDataType());
+        final boolean mustBePresent = Boolean.TRUE.equals(designator.getMustBePresent());
+        final String expected = value.getValue() != null ? value.getValue() : "";
+
+        final Predicate<String> predicate;
+        String indexValue = null;
+        final String function = matchId != null && matchId.startsWith(FUNCTION_PREFIX)
+                ? matchId.substring(FUNCTION_PREFIX.length()) : "";
+        try {
+            switch (function) {
+                case "string-equal", "anyURI-equal" -> {
+                    predicate = expected::equals;
+                    // A missing attribute which must be present is Indeterminate, which the index can't represent.
+                    indexValue = mustBePresent ? null : expected;
+                }
+                case "integer-equal" -> {
+                    final BigInteger integer = new BigInteger(expected.strip());
+                    predicate = v -> integer.equals(new BigInteger(v.strip()));
+                }
+                case "boolean-equal" -> {
+                    final boolean bool = parseBoolean(expected);
+                    predicate = v -> bool == parseBoolean(v);
+                }
+                case "regexp-string-match" -> {
+                    final Pattern pattern = Pattern.compile(expected);
+                    predicate = v -> pattern.matcher(v).find();
+                }
+                default -> throw new PolicyEvaluationException("Target in policy " + id
+                        + " uses unsupported match function " + matchId);
+            }
+        } catch (final IllegalArgumentException e) {
+            // Covers NumberFormatException and PatternSyntaxException.
+            throw new PolicyEvaluationException("Target in policy " + id + " has an invalid value '" + expected
+                    + "' for match function " + matchId, e);
+        }
+
+        return new MatchNode(key, designator.getIssuer(), mustBePresent, predicate,
+                indexValue != null ? new IndexKey(key, indexValue) : null);
+    }
+    // Checkstyle: CyclomaticComplexity ON
+
+    /**
+     * Parses an XML Schema boolean.
+     *
+     * @param value the value to parse
+     *
+     * @return the parsed value
+     *
+     * @throws IllegalArgumentException if the value is not a valid boolean
+     */
+    private static boolean parseBoolean(@Nonnull final String value) {
+        switch (value.strip()) {
+            case "true", "1":
+                return true;
+            case "false", "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("Invalid boolean value: " + value);
+        }
+    }
+
+    /**
+     * Gets the obligations to be fulfilled on a given effect.
+     *
+     * @param obligations the obligations, or null
+     * @param effect the effect
+     *
+     * @return the obligations fulfilled on the effect
+     */
+    @Nonnull @NonnullElements @Unmodifiable private static List<ObligationType> obligations(
+            @Nullable final ObligationsType obligations, @Nonnull final EffectType effect) {
+        if (obligations == null) {
+            return CollectionSupport.emptyList();
+        }
+        return obligations.getObligations().stream().filter(o -> o.getFulfillOn() == effect).toList();
+    }
+
+    /**
+     * The result of an evaluation.
+     *
+     * @param decision the authorization decision
+     * @param obligations the obligations which must be fulfilled along with the decision
+     */
+    public record Result(@Nonnull DECISION decision,
+            @Nonnull @NonnullElements @Unmodifiable List<ObligationType> obligations) {
+    }
+
+    /** The result of evaluating a compiled policy. */
+    private record Outcome(@Nonnull DECISION decision,
+            @Nonnull @NonnullElements @Unmodifiable List<ObligationType> obligations) {
+
+        /** Not applicable. */
+        @Nonnull static final Outcome NOT_APPLICABLE = new Outcome(DECISION.NotApplicable,
+                CollectionSupport.emptyList());
+
+        /** Indeterminate. */
+        @Nonnull static final Outcome INDETERMINATE = new Outcome(DECISION.Indeterminate,
+                CollectionSupport.emptyList());
+
+        /** Deny without obligations. */
+        @Nonnull static final Outcome DENY = new Outcome(DECISION.Deny, CollectionSupport.emptyList());
+    }
+
+    /** Target sections. */
+    private enum Section {
+        /** Subjects. */
+        SUBJECT,
+        /** Resources. */
+        RESOURCE,
+        /** Actions. */
+        ACTION,
+        /** Environments. */
+        ENVIRONMENT
+    }
+
+    /** The result of matching a target. */
+    private enum MatchResult {
+        /** Match. */
+        MATCH,
+        /** No match. */
+        NO_MATCH,
+        /** Indeterminate. */
+        INDETERMINATE
+    }
+
+    /** Supported combining algorithms. */
+    private enum CombiningAlgorithm {
+        /** Deny overrides. */
+        DENY_OVERRIDES,
+        /** Permit overrides. */
+        PERMIT_OVERRIDES,
+        /** First applicable. */
+        FIRST_APPLICABLE,
+        /** Only one applicable. */
+        ONLY_ONE_APPLICABLE
+    }
+
+    /**
+     * Identifies a request attribute.
+     *
+     * @param section the request section containing the attribute
+     * @param category the subject category, or null outside the subject section
+     * @param attributeId the attribute ID
+     * @param dataType the attribute data type
+     */
+    private record AttributeKey(@Nonnull Section section, @Nullable String category, @Nullable String attributeId,
+            @Nullable String dataType) {
+    }
+
+    /**
+     * A request attribute value, used as an index key.
+     *
+     * @param attribute the attribute
+     * @param value the value
+     */
+    private record IndexKey(@Nonnull AttributeKey attribute, @Nonnull String value) {
+    }
+
+    /**
+     * A single value of a request attribute.
+     *
+     * @param issuer the attribute issuer
+     * @param value the value
+     */
+    private record AttributeValue(@Nullable String issuer, @Nonnull String value) {
+    }
+
+    /** The attributes of a request, organized for matching. */
+    private static final class RequestContext {
+
+        /** Attribute values by attribute. */
+        @Nonnull private final Map<AttributeKey,List<AttributeValue>> attributes;
+
+        /** Every attribute value in the request. */
+        @Nonnull private final Set<IndexKey> indexKeys;
+
+        /**
+         * Constructor.
+         *
+         * @param request the request
+         */
+        RequestContext(@Nonnull final RequestType request) {
+            attributes = new HashMap<>();
+            indexKeys = new HashSet<>();
+            for (final org.opensaml.xacml.ctx.SubjectType subject : request.getSubjects()) {
+                add(Section.SUBJECT, subject.getSubjectCategory() != null ? subject.getSubjectCategory()
+                        : ACCESS_SUBJECT_CATEGORY, subject.getAttributes());
+            }
+            for (final ResourceType resource : request.getResources()) {
+                add(Section.RESOURCE, null, resource.getAttributes());
+            }
+            if (request.getAction() != null) {
+                add(Section.ACTION, null, request.getAction().getAttributes());
+            }
+            if (request.getEnvironment() != null) {
+                add(Section.ENVIRONMENT, null, request.getEnvironment().getAttributes());
+            }
+        }
+
+        /**
+         * Adds the attributes of a request section.
+         *
+         * @param section the section
+         * @param category the subject category, or null
+         * @param sectionAttributes the attributes
+         */
+        private void add(@Nonnull final Section section, @Nullable final String category,
+                @Nonnull final List<AttributeType> sectionAttributes) {
+            for (final AttributeType attribute : sectionAttributes) {
+                final AttributeKey key =
+                        new AttributeKey(section, category, attribute.getAttributeId(), attribute.getDataType());
+                final List<AttributeValue> values = attributes.computeIfAbsent(key, k -> new ArrayList<>());
+                for (final org.opensaml.xacml.ctx.AttributeValueType value : attribute.getAttributeValues()) {
+                    if (value.getValue() != null) {
+                        values.add(new AttributeValue(attribute.getIssuer(), value.getValue()));
+                        indexKeys.add(new IndexKey(key, value.getValue()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A compiled target match.
+     *
+     * @param key the request attribute to match
+     * @param issuer the required attribute issuer, or null
+     * @param mustBePresent whether a missing attribute is an error
+     * @param predicate the match function, bound to the policy value
+     * @param indexKey the request value required for the match to succeed, or null if not indexable
+     */
+    private record MatchNode(@Nonnull AttributeKey key, @Nullable String issuer, boolean mustBePresent,
+            @Nonnull Predicate<String> predicate, @Nullable IndexKey indexKey) {
+
+        /**
+         * Evaluates the match.
+         *
+         * @param context the request
+         *
+         * @return the result
+         */
+        @Nonnull MatchResult evaluate(@Nonnull final RequestContext context) {
+            final List<AttributeValue> values = context.attributes.get(key);
+            boolean present = false;
+            boolean error = false;
+            if (values != null) {
+                for (final AttributeValue value : values) {
+                    if (issuer != null && !issuer.equals(value.issuer())) {
+                        continue;
+                    }
+                    present = true;
+                    try {
+                        if (predicate.test(value.value())) {
+                            return MatchResult.MATCH;
+                        }
+                    } catch (final IllegalArgumentException e) {
+                        error = true;
+                    }
+                }
+            }
+            return error || (!present && mustBePresent) ? MatchResult.INDETERMINATE : MatchResult.NO_MATCH;
+        }
+    }
+
+    /**
+     * A compiled target.
+     *
+     * @param sections the constrained sections, each a list of alternatives which are themselves lists of matches
+     */
+    private record Target(@Nonnull List<List<List<MatchNode>>> sections) {
+
+        /**
+         * Evaluates the target.
+         *
+         * @param context the request
+         *
+         * @return the result
+         */
+        @Nonnull MatchResult evaluate(@Nonnull final RequestContext context) {
+            MatchResult result = MatchResult.MATCH;
+            for (final List<List<MatchNode>> section : sections) {
+                MatchResult sectionResult = MatchResult.NO_MATCH;
+                for (final List<MatchNode> alternative : section) {
+                    MatchResult alternativeResult = MatchResult.MATCH;
+                    for (final MatchNode match : alternative) {
+                        final MatchResult matchResult = match.evaluate(context);
+                        if (matchResult == MatchResult.NO_MATCH) {
+                            alternativeResult = MatchResult.NO_MATCH;
+                            break;
+                        } else if (matchResult == MatchResult.INDETERMINATE) {
+                            alternativeResult = MatchResult.INDETERMINATE;
+                        }
+                    }
+                    if (alternativeResult == MatchResult.MATCH) {
+                        sectionResult = MatchResult.MATCH;
+                        break;
+                    } else if (alternativeResult == MatchResult.INDETERMINATE) {
+                        sectionResult = MatchResult.INDETERMINATE;
+                    }
+                }
+                if (sectionResult == MatchResult.NO_MATCH) {
+                    return MatchResult.NO_MATCH;
+                } else if (sectionResult == MatchResult.INDETERMINATE) {
+                    result = MatchResult.INDETERMINATE;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Gets a set of request values, at least one of which must be present for the target to match.
+         *
+         * <p>
+         * The keys are drawn from the first section in which every alternative has an indexable match; since such a
+         * match evaluates to No Match rather than Indeterminate when its value is absent, a request containing none
+         * of the keys cannot match, nor be Indeterminate for, the target.
+         * </p>
+         *
+         * @return the index keys, or null if the target cannot be indexed
+         */
+        @Nullable Set<IndexKey> getIndexKeys() {
+            for (final List<List<MatchNode>> section : sections) {
+                final Set<IndexKey> keys = new HashSet<>();
+                for (final List<MatchNode> alternative : section) {
+                    final IndexKey key = alternative.stream()
+                            .map(MatchNode::indexKey)
+                            .filter(Objects::nonNull)
+                            .findFirst()
+                            .orElse(null);
+                    if (key == null) {
+                        keys.clear();
+                        break;
+                    }
+                    keys.add(key);
+                }
+                if (!keys.isEmpty()) {
+                    return keys;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** An index of the children of a policy or policy set on the values their targets require. */
+    private static final class ChildIndex {
+
+        /** Number of children. */
+        private final int size;
+
+        /** Children which may match any request. */
+        @Nonnull private final BitSet unindexed;
+
+        /** Children which can only match a request containing a given value. */
+        @Nonnull private final Map<IndexKey,BitSet> indexed;
+
+        /**
+         * Constructor.
+         *
+         * @param targets the targets of the children, in order
+         */
+        ChildIndex(@Nonnull final List<Target> targets) {
+            size = targets.size();
+            unindexed = new BitSet(size);
+            indexed = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                final Target target = targets.get(i);
+                final Set<IndexKey> keys = target != null ? target.getIndexKeys() : null;
+                if (keys == null) {
+                    unindexed.set(i);
+                } else {
+                    for (final IndexKey key : keys) {
+                        indexed.computeIfAbsent(key, k -> new BitSet(size)).set(i);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets the children which may match a request.
+         *
+         * @param context the request
+         *
+         * @return the candidate children, by position
+         */
+        @Nonnull BitSet candidates(@Nonnull final RequestContext context) {
+            final BitSet candidates = (BitSet) unindexed.clone();
+            if (indexed.size() < context.indexKeys.size()) {
+                for (final Map.Entry<IndexKey,BitSet> entry : indexed.entrySet()) {
+                    if (context.indexKeys.contains(entry.getKey())) {
+                        candidates.or(entry.getValue());
+                    }
+                }
+            } else {
+                for (final IndexKey key : context.indexKeys) {
+                    final BitSet children = indexed.get(key);
+                    if (children != null) {
+                        candidates.or(children);
+                    }
+                }
+            }
+            return candidates;
+        }
+    }
+
+    /**
+     * A compiled rule.
+     *
+     * @param target the rule target, or null
+     * @param effect the rule effect
+     */
+    private record RuleNode(@Nullable Target target, @Nonnull EffectType effect) {
+
+        /**
+         * Evaluates the rule.
+         *
+         * @param context the request
+         *
+         * @return the decision
+         */
+        @Nonnull DECISION evaluate(@Nonnull final RequestContext context) {
+            final MatchResult match = target != null ? target.evaluate(context) : MatchResult.MATCH;
+            if (match == MatchResult.MATCH) {
+                return effect == EffectType.Permit ? DECISION.Permit : DECISION.Deny;
+            }
+            return match == MatchResult.NO_MATCH ? DECISION.NotApplicable : DECISION.Indeterminate;
+        }
+    }
+
+    /** A compiled policy or policy set. */
+    private static final class PolicyNode {
+
+        /** Target, or null. */
+        @Nullable private final Target target;
+
+        /** Combining algorithm. */
+        @Nonnull private final CombiningAlgorithm algorithm;
+
+        /** Rules of a policy. */
+        @Nonnull private final List<RuleNode> rules;
+
+        /** Children of a policy set. */
+        @Nonnull private final List<PolicyNode> children;
+
+        /** Index of the rules or children. */
+        @Nonnull private final ChildIndex index;
+
+        /** Obligations fulfilled on Permit. */
+        @Nonnull private final List<ObligationType> permitObligations;
+
+        /** Obligations fulfilled on Deny. */
+        @Nonnull private final List<ObligationType> denyObligations;
+
+        /**
+         * Constructor.
+         *
+         * @param policyTarget target, or null
+         * @param combiningAlgorithm rule- or policy-combining algorithm
+         * @param members compiled {@link RuleNode}s or {@link PolicyNode}s
+         * @param onPermit obligations fulfilled on Permit
+         * @param onDeny obligations fulfilled on Deny
+         */
+        PolicyNode(@Nullable final Target policyTarget, @Nonnull final CombiningAlgorithm combiningAlgorithm,
+                @Nonnull final List<?> members, @Nonnull final List<ObligationType> onPermit,
+                @Nonnull final List<ObligationType> onDeny) {
+            target = policyTarget;
+            algorithm = combiningAlgorithm;
+            final List<RuleNode> ruleMembers = new ArrayList<>();
+            final List<PolicyNode> childMembers = new ArrayList<>();
+            final List<Target> targets = new ArrayList<>(members.size());
+            for (final Object member : members) {
+                if (member instanceof RuleNode rule) {
+                    ruleMembers.add(rule);
+                    targets.add(rule.target());
+                } else {
+                    final PolicyNode child = (PolicyNode) member;
+                    childMembers.add(child);
+                    targets.add(child.target);
+                }
+            }
+            rules = CollectionSupport.copyToList(ruleMembers);
+            children = CollectionSupport.copyToList(childMembers);
+            index = new ChildIndex(targets);
+            permitObligations = onPermit;
+            denyObligations = onDeny;
+        }
+
+        /**
+         * Matches the target against a request.
+         *
+         * @param context the request
+         *
+         * @return the result
+         */
+        @Nonnull MatchResult match(@Nonnull final RequestContext context) {
+            return target != null ? target.evaluate(context) : MatchResult.MATCH;
+        }
+
+        /**
+         * Evaluates the policy or policy set.
+         *
+         * @param context the request
+         *
+         * @return the outcome
+         */
+        @Nonnull Outcome evaluate(@Nonnull final RequestContext context) {
+            final MatchResult match = match(context);
+            if (match == MatchResult.NO_MATCH) {
+                return Outcome.NOT_APPLICABLE;
+            } else if (match == MatchResult.INDETERMINATE) {
+                return Outcome.INDETERMINATE;
+            }
+            return evaluateMatched(context);
+        }
+
+        /**
+         * Evaluates the policy or policy set once its target is known to match.
+         *
+         * @param context the request
+         *
+         * @return the outcome
+         */
+        @Nonnull private Outcome evaluateMatched(@Nonnull final RequestContext context) {
+            final BitSet candidates = index.candidates(context);
+            final Outcome combined = rules.isEmpty() ? combinePolicies(context, candidates)
+                    : new Outcome(combineRules(context, candidates), CollectionSupport.emptyList());
+
+            final List<ObligationType> own = switch (combined.decision()) {
+                case Permit -> permitObligations;
+                case Deny -> denyObligations;
+                default -> CollectionSupport.emptyList();
+            };
+            if (own.isEmpty()) {
+                return combined;
+            } else if (combined.obligations().isEmpty()) {
+                return new Outcome(combined.decision(), own);
+            }
+            final List<ObligationType> obligations = new ArrayList<>(combined.obligations());
+            obligations.addAll(own);
+            return new Outcome(combined.decision(), CollectionSupport.copyToList(obligations));
+        }
+
+        /**
+         * Combines the rules of a policy.
+         *
+         * @param context the request
+         * @param candidates the rules which may apply
+         *
+         * @return the combined decision
+         */
+        // Checkstyle: CyclomaticComplexity OFF
+        @Nonnull private DECISION combineRules(@Nonnull final RequestContext context,
+                @Nonnull final BitSet candidates) {
+            boolean permit = false;
+            boolean deny = false;
+            boolean error = false;
+            boolean potentialPermit = false;
+            boolean potentialDeny = false;
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                final RuleNode rule = rules.get(i);
+                final DECISION decision = rule.evaluate(context);
+                if (decision == DECISION.NotApplicable) {
+                    continue;
+                } else if (algorithm == CombiningAlgorithm.FIRST_APPLICABLE) {
+                    return decision;
+                } else if (decision == DECISION.Deny) {
+                    if (algorithm == CombiningAlgorithm.DENY_OVERRIDES) {
+                        return decision;
+                    }
+                    deny = true;
+                } else if (decision == DECISION.Permit) {
+                    if (algorithm == CombiningAlgorithm.PERMIT_OVERRIDES) {
+                        return decision;
+                    }
+                    permit = true;
+                } else {
+                    error = true;
+                    potentialPermit |= rule.effect() == EffectType.Permit;
+                    potentialDeny |= rule.effect() == EffectType.Deny;
+                }
+            }
+
+            if (algorithm == CombiningAlgorithm.DENY_OVERRIDES) {
+                if (potentialDeny) {
+                    return DECISION.Indeterminate;
+                } else if (permit) {
+                    return DECISION.Permit;
+                }
+            } else if (algorithm == CombiningAlgorithm.PERMIT_OVERRIDES) {
+                if (potentialPermit) {
+                    return DECISION.Indeterminate;
+                } else if (deny) {
+                    return DECISION.Deny;
+                }
+            }
+            return error ? DECISION.Indeterminate : DECISION.NotApplicable;
+        }
+        // Checkstyle: CyclomaticComplexity ON
+
+        /**
+         * Combines the children of a policy set.
+         *
+         * @param context the request
+         * @param candidates the children which may apply
+         *
+         * @return the combined outcome
+         */
+        // Checkstyle: CyclomaticComplexity|ReturnCount OFF
+        @Nonnull private Outcome combinePolicies(@Nonnull final RequestContext context,
+                @Nonnull final BitSet candidates) {
+            if (algorithm == CombiningAlgorithm.ONLY_ONE_APPLICABLE) {
+                PolicyNode selected = null;
+                for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                    final PolicyNode child = children.get(i);
+                    final MatchResult match = child.match(context);
+                    if (match == MatchResult.INDETERMINATE || (match == MatchResult.MATCH && selected != null)) {
+                        return Outcome.INDETERMINATE;
+                    } else if (match == MatchResult.MATCH) {
+                        selected = child;
+                    }
+                }
+                return selected != null ? selected.evaluateMatched(context) : Outcome.NOT_APPLICABLE;
+            }
+
+            final List<ObligationType> obligations = new ArrayList<>();
+            DECISION deferred = null;
+            boolean error = false;
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                final Outcome outcome = children.get(i).evaluate(context);
+                final DECISION decision = outcome.decision();
+                if (decision == DECISION.NotApplicable) {
+                    continue;
+                } else if (algorithm == CombiningAlgorithm.FIRST_APPLICABLE) {
+                    return outcome;
+                } else if (decision == DECISION.Indeterminate) {
+                    if (algorithm == CombiningAlgorithm.DENY_OVERRIDES) {
+                        return Outcome.DENY;
+                    }
+                    error = true;
+                } else if (decision == DECISION.Deny && algorithm == CombiningAlgorithm.DENY_OVERRIDES
+                        || decision == DECISION.Permit && algorithm == CombiningAlgorithm.PERMIT_OVERRIDES) {
+                    return outcome;
+                } else {
+                    deferred = decision;
+                    obligations.addAll(outcome.obligations());
+                }
+            }
+
+            if (deferred != null) {
+                return new Outcome(deferred, CollectionSupport.copyToList(obligations));
+            }
+            return error ? Outcome.INDETERMINATE : Outcome.NOT_APPLICABLE;
+        }
+        // Checkstyle: CyclomaticComplexity|ReturnCount ON
+    }
+
+}
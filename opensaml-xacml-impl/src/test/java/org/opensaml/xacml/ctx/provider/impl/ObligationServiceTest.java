@@ -16,6 +16,12 @@ package org.opensaml.xacml.ctx.provider.impl;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.Test;
 import org.testng.annotations.BeforeMethod;
@@ -105,6 +111,69 @@ public class ObligationServiceTest extends XMLObjectBaseTestCase {
         Assert.assertEquals(count, 8);
     }
 
+    @Test
+    public void testHandlerSnapshot() {
+        ObligationService obligSrvc = new ObligationService();
+        BaseObligationHandler handler = new AdditiveObligationHandler("add1", 1, 1);
+        obligSrvc.addObligationhandler(handler);
+
+        Set<BaseObligationHandler> handlers = obligSrvc.getObligationHandlers();
+        obligSrvc.addObligationhandler(new AdditiveObligationHandler("add2", 1, 1));
+        obligSrvc.removeObligationHandler(handler);
+        Assert.assertEquals(handlers.size(), 1);
+        Assert.assertTrue(handlers.contains(handler));
+        Assert.assertEquals(obligSrvc.getObligationHandlers().size(), 1);
+        Assert.assertFalse(obligSrvc.getObligationHandlers().contains(handler));
+    }
+
+    @Test
+    public void testConcurrentHandlers() throws Exception {
+        ObligationService obligSrvc = new ObligationService();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        obligSrvc.setExecutor(executor);
+
+        // Both handlers in the first group must be running at once for either to complete.
+        CountDownLatch latch = new CountDownLatch(2);
+        AtomicInteger completed = new AtomicInteger();
+        obligSrvc.addObligationhandler(Arrays.asList(
+                new LatchObligationHandler("add1", 1, latch, completed),
+                new LatchObligationHandler("add2", 1, latch, completed)));
+        obligSrvc.addObligationhandler(new BaseObligationHandler("multiply1", 2) {
+            public void evaluateObligation(ObligationProcessingContext context, ObligationType obligation) {
+                count = completed.get();
+            }
+        });
+
+        try {
+            obligSrvc.processObligations(processingCtx);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(count, 2);
+    }
+
+    @Test(expectedExceptions = ObligationProcessingException.class)
+    public void testConcurrentHandlerFailure() throws Exception {
+        ObligationService obligSrvc = new ObligationService();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        obligSrvc.setExecutor(executor);
+
+        obligSrvc.addObligationhandler(new AdditiveObligationHandler("add1", 1, 1));
+        obligSrvc.addObligationhandler(new BaseObligationHandler("add2", 1) {
+            public void evaluateObligation(ObligationProcessingContext context, ObligationType obligation)
+                    throws ObligationProcessingException {
+                throw new ObligationProcessingException("Failed");
+            }
+        });
+
+        try {
+            obligSrvc.processObligations(processingCtx);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     public class AdditiveObligationHandler extends BaseObligationHandler {
 
         private int addFactor;
@@ -138,4 +207,32 @@ public class ObligationServiceTest extends XMLObjectBaseTestCase {
         }
 
     }
+
+    public class LatchObligationHandler extends BaseObligationHandler {
+
+        private CountDownLatch latch;
+
+        private AtomicInteger completed;
+
+        public LatchObligationHandler(String id, int precedence, CountDownLatch latch, AtomicInteger completed) {
+            super(id, precedence);
+            this.latch = latch;
+            this.completed = completed;
+        }
+
+        /** {@inheritDoc} */
+        public void evaluateObligation(ObligationProcessingContext context, ObligationType obligation)
+                throws ObligationProcessingException {
+            latch.countDown();
+            try {
+                if (!latch.await(10, TimeUnit.SECONDS)) {
+                    throw new ObligationProcessingException("Handlers were not evaluated concurrently");
+                }
+            } catch (InterruptedException e) {
+                throw new ObligationProcessingException(e);
+            }
+            completed.incrementAndGet();
+        }
+
+    }
 }
@@ -0,0 +1,324 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.xacml.ctx.provider.impl;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+
+import org.opensaml.core.testing.XMLObjectBaseTestCase;
+import org.opensaml.core.xml.XMLObject;
+import org.opensaml.core.xml.io.UnmarshallingException;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.xacml.XACMLConstants;
+import org.opensaml.xacml.XACMLObject;
+import org.opensaml.xacml.ctx.DecisionType.DECISION;
+import org.opensaml.xacml.ctx.RequestType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import net.shibboleth.shared.xml.XMLParserException;
+
+/** Unit test for {@link PolicyEvaluator}. */
+@SuppressWarnings("javadoc")
+public class PolicyEvaluatorTest extends XMLObjectBaseTestCase {
+
+    private static final String FUNCTION = "urn:oasis:names:tc:xacml:1.0:function:";
+
+    private static final String STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+    private static final String SUBJECT_ID = "urn:oasis:names:tc:xacml:1.0:subject:subject-id";
+
+    private static final String RESOURCE_ID = "urn:oasis:names:tc:xacml:1.0:resource:resource-id";
+
+    private static final String ACTION_ID = "urn:oasis:names:tc:xacml:1.0:action:action-id";
+
+    private static final String RULE_ALG = "urn:oasis:names:tc:xacml:1.0:rule-combining-algorithm:";
+
+    private static final String POLICY_ALG = "urn:oasis:names:tc:xacml:1.0:policy-combining-algorithm:";
+
+    @Test
+    public void testRuleDecisions() throws Exception {
+        final PolicyEvaluator evaluator = new PolicyEvaluator(parse(policy("p1", "deny-overrides",
+                target(null, resourceMatch("string-equal", "doc1"), null),
+                rule("r1", "Permit", target(subjectMatch("string-equal", "alice"), null, null)),
+                rule("r2", "Deny", target(null, null, actionMatch("string-equal", "delete"))))));
+
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "read")).decision(), DECISION.Permit);
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "delete")).decision(), DECISION.Deny);
+        Assert.assertEquals(evaluator.evaluate(request("bob", "doc1", "read")).decision(), DECISION.NotApplicable);
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc2", "read")).decision(),
+                DECISION.NotApplicable);
+    }
+
+    @Test
+    public void testRuleCombiningAlgorithms() throws Exception {
+        final String rules = rule("r1", "Permit", target(subjectMatch("string-equal", "alice"), null, null))
+                + rule("r2", "Deny", target(null, null, actionMatch("string-equal", "read")));
+
+        PolicyEvaluator evaluator = new PolicyEvaluator(parse(policy("p1", "permit-overrides", "", rules)));
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "read")).decision(), DECISION.Permit);
+        Assert.assertEquals(evaluator.evaluate(request("bob", "doc1", "read")).decision(), DECISION.Deny);
+
+        evaluator = new PolicyEvaluator(parse(policy("p1", "deny-overrides", "", rules)));
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "read")).decision(), DECISION.Deny);
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "write")).decision(), DECISION.Permit);
+
+        evaluator = new PolicyEvaluator(parse(policy("p1", "first-applicable", "",
+                rule("r2", "Deny", target(null, null, actionMatch("string-equal", "read")))
+                + rule("r1", "Permit", ""))));
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "read")).decision(), DECISION.Deny);
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "write")).decision(), DECISION.Permit);
+    }
+
+    @Test
+    public void testMatchFunctions() throws Exception {
+        final PolicyEvaluator evaluator = new PolicyEvaluator(parse(policy("p1", "first-applicable", "",
+                rule("r1", "Permit", target(subjectMatch("regexp-string-match", "^adm"), null, null))
+                + rule("r2", "Deny", target(null, resourceMatch("regexp-string-match", "secret"), null)))));
+
+        Assert.assertEquals(evaluator.evaluate(request("admin", "secret-doc", "read")).decision(), DECISION.Permit);
+        Assert.assertEquals(evaluator.evaluate(request("alice", "top-secret", "read")).decision(), DECISION.Deny);
+        Assert.assertEquals(evaluator.evaluate(request("alice", "public", "read")).decision(),
+                DECISION.NotApplicable);
+    }
+
+    @Test
+    public void testMustBePresent() throws Exception {
+        final String match = "<SubjectMatch MatchId=\"" + FUNCTION + "string-equal\">"
+                + "<AttributeValue DataType=\"" + STRING + "\">staff</AttributeValue>"
+                + "<SubjectAttributeDesignator AttributeId=\"role\" DataType=\"" + STRING
+                + "\" MustBePresent=\"true\"/></SubjectMatch>";
+        final PolicyEvaluator evaluator = new PolicyEvaluator(parse(policy("p1", "first-applicable", "",
+                rule("r1", "Permit", target(match, null, null)))));
+
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "read")).decision(), DECISION.Indeterminate);
+    }
+
+    @Test
+    public void testPolicySet() throws Exception {
+        final String permitAlice = policy("p1", "first-applicable",
+                target(subjectMatch("string-equal", "alice"), null, null), rule("r1", "Permit", ""),
+                obligation("o1", "Permit"));
+        final String denyDelete = policy("p2", "first-applicable",
+                target(null, null, actionMatch("string-equal", "delete")), rule("r1", "Deny", ""),
+                obligation("o2", "Deny"));
+
+        PolicyEvaluator evaluator = new PolicyEvaluator(parse(policySet("ps1", "deny-overrides",
+                permitAlice + denyDelete, obligation("o3", "Permit") + obligation("o4", "Deny"))));
+        PolicyEvaluator.Result result = evaluator.evaluate(request("alice", "doc1", "read"));
+        Assert.assertEquals(result.decision(), DECISION.Permit);
+        Assert.assertEquals(obligationIds(result), List.of("o1", "o3"));
+        result = evaluator.evaluate(request("alice", "doc1", "delete"));
+        Assert.assertEquals(result.decision(), DECISION.Deny);
+        Assert.assertEquals(obligationIds(result), List.of("o2", "o4"));
+        result = evaluator.evaluate(request("bob", "doc1", "read"));
+        Assert.assertEquals(result.decision(), DECISION.NotApplicable);
+        Assert.assertTrue(result.obligations().isEmpty());
+
+        evaluator = new PolicyEvaluator(parse(policySet("ps1", "permit-overrides", permitAlice + denyDelete, "")));
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "delete")).decision(), DECISION.Permit);
+
+        evaluator = new PolicyEvaluator(parse(policySet("ps1", "only-one-applicable", permitAlice + denyDelete, "")));
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "read")).decision(), DECISION.Permit);
+        Assert.assertEquals(evaluator.evaluate(request("bob", "doc1", "delete")).decision(), DECISION.Deny);
+        Assert.assertEquals(evaluator.evaluate(request("alice", "doc1", "delete")).decision(),
+                DECISION.Indeterminate);
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        final String condition = "<Rule RuleId=\"r1\" Effect=\"Permit\"><Condition>"
+                + "<Apply FunctionId=\"" + FUNCTION + "boolean-one-and-only\"/></Condition></Rule>";
+        try {
+            new PolicyEvaluator(parse(policy("p1", "first-applicable", "", condition)));
+            Assert.fail("Condition should have been rejected");
+        } catch (final PolicyEvaluationException e) {
+            // expected
+        }
+
+        try {
+            new PolicyEvaluator(parse(policy("p1", "first-applicable", "",
+                    rule("r1", "Permit", target(subjectMatch("string-regexp-match", "alice"), null, null)))));
+            Assert.fail("Unknown function should have been rejected");
+        } catch (final PolicyEvaluationException e) {
+            // expected
+        }
+
+        try {
+            new PolicyEvaluator(parse(policySet("ps1", "deny-overrides",
+                    "<PolicyIdReference>p1</PolicyIdReference>", "")));
+            Assert.fail("Policy reference should have been rejected");
+        } catch (final PolicyEvaluationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMissingRuleCombiningAlgorithm() throws Exception {
+        final String xml = policy("p1", "first-applicable", "", rule("r1", "Permit", "<Target/>"))
+                .replace(" RuleCombiningAlgId=\"" + RULE_ALG + "first-applicable\"", "");
+        try {
+            new PolicyEvaluator(parse(xml));
+            Assert.fail("Policy without a rule-combining algorithm should have been rejected");
+        } catch (final PolicyEvaluationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMissingPolicyCombiningAlgorithm() throws Exception {
+        final String xml = policySet("ps1", "first-applicable",
+                policy("p1", "first-applicable", "", rule("r1", "Permit", "<Target/>")), "")
+                .replace(" PolicyCombiningAlgId=\"" + POLICY_ALG + "first-applicable\"", "");
+        try {
+            new PolicyEvaluator(parse(xml));
+            Assert.fail("Policy set without a policy-combining algorithm should have been rejected");
+        } catch (final PolicyEvaluationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testManyPolicies() throws Exception {
+        final int policies = 1000;
+        final StringBuilder children = new StringBuilder();
+        for (int i = 0; i < policies; i++) {
+            children.append(policy("p" + i, "deny-overrides",
+                    target(null, resourceMatch("string-equal", "doc" + i), null),
+                    rule("r1", "Permit", target(subjectMatch("string-equal", "user" + i), null, null))
+                    + rule("r2", "Deny", target(null, null, actionMatch("string-equal", "delete"))),
+                    obligation("o" + i, "Permit")));
+        }
+        final PolicyEvaluator evaluator =
+                new PolicyEvaluator(parse(policySet("ps1", "first-applicable", children.toString(), "")));
+
+        final List<RequestType> requests = new ArrayList<>();
+        for (int i = 0; i < policies; i++) {
+            requests.add(request("user" + i, "doc" + i, "read"));
+            requests.add(request("user" + i, "doc" + i, "delete"));
+            requests.add(request("user" + ((i + 1) % policies), "doc" + i, "read"));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < policies; i++) {
+                        PolicyEvaluator.Result result = evaluator.evaluate(requests.get(3 * i));
+                        Assert.assertEquals(result.decision(), DECISION.Permit);
+                        Assert.assertEquals(obligationIds(result), List.of("o" + i));
+                        result = evaluator.evaluate(requests.get(3 * i + 1));
+                        Assert.assertEquals(result.decision(), DECISION.Deny);
+                        Assert.assertTrue(result.obligations().isEmpty());
+                        result = evaluator.evaluate(requests.get(3 * i + 2));
+                        Assert.assertEquals(result.decision(), DECISION.NotApplicable);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Nonnull private XACMLObject parse(@Nonnull final String xml) throws XMLParserException, UnmarshallingException {
+        final XMLObject object = XMLObjectSupport.unmarshallFromReader(parserPool, new StringReader(xml));
+        return (XACMLObject) object;
+    }
+
+    @Nonnull private RequestType request(@Nonnull final String subject, @Nonnull final String resource,
+            @Nonnull final String action) throws XMLParserException, UnmarshallingException {
+        final String xml = "<Request xmlns=\"" + XACMLConstants.XACML20CTX_NS + "\">"
+                + "<Subject>" + attribute(SUBJECT_ID, subject) + "</Subject>"
+                + "<Resource>" + attribute(RESOURCE_ID, resource) + "</Resource>"
+                + "<Action>" + attribute(ACTION_ID, action) + "</Action>"
+                + "<Environment/></Request>";
+        return (RequestType) XMLObjectSupport.unmarshallFromReader(parserPool, new StringReader(xml));
+    }
+
+    @Nonnull private String attribute(@Nonnull final String id, @Nonnull final String value) {
+        return "<Attribute AttributeId=\"" + id + "\" DataType=\"" + STRING + "\"><AttributeValue>" + value
+                + "</AttributeValue></Attribute>";
+    }
+
+    @Nonnull private String policySet(@Nonnull final String id, @Nonnull final String algorithm,
+            @Nonnull final String children, @Nonnull final String obligations) {
+        return "<PolicySet xmlns=\"" + XACMLConstants.XACML20_NS + "\" PolicySetId=\"" + id
+                + "\" PolicyCombiningAlgId=\"" + POLICY_ALG + algorithm + "\"><Target/>" + children
+                + (obligations.isEmpty() ? "" : "<Obligations>" + obligations + "</Obligations>") + "</PolicySet>";
+    }
+
+    @Nonnull private String policy(@Nonnull final String id, @Nonnull final String algorithm,
+            @Nonnull final String target, @Nonnull final String rules) {
+        return policy(id, algorithm, target, rules, "");
+    }
+
+    @Nonnull private String policy(@Nonnull final String id, @Nonnull final String algorithm,
+            @Nonnull final String target, @Nonnull final String rules, @Nonnull final String obligations) {
+        return "<Policy xmlns=\"" + XACMLConstants.XACML20_NS + "\" PolicyId=\"" + id + "\" RuleCombiningAlgId=\""
+                + RULE_ALG + algorithm + "\">" + (target.isEmpty() ? "<Target/>" : target) + rules
+                + (obligations.isEmpty() ? "" : "<Obligations>" + obligations + "</Obligations>") + "</Policy>";
+    }
+
+    @Nonnull private String rule(@Nonnull final String id, @Nonnull final String effect,
+            @Nonnull final String target) {
+        return "<Rule RuleId=\"" + id + "\" Effect=\"" + effect + "\">" + target + "</Rule>";
+    }
+
+    @Nonnull private String obligation(@Nonnull final String id, @Nonnull final String fulfillOn) {
+        return "<Obligation ObligationId=\"" + id + "\" FulfillOn=\"" + fulfillOn + "\"/>";
+    }
+
+    @Nonnull private String target(final String subjectMatch, final String resourceMatch, final String actionMatch) {
+        return "<Target>"
+                + (subjectMatch != null ? "<Subjects><Subject>" + subjectMatch + "</Subject></Subjects>" : "")
+                + (resourceMatch != null ? "<Resources><Resource>" + resourceMatch + "</Resource></Resources>" : "")
+                + (actionMatch != null ? "<Actions><Action>" + actionMatch + "</Action></Actions>" : "")
+                + "</Target>";
+    }
+
+    @Nonnull private String subjectMatch(@Nonnull final String function, @Nonnull final String value) {
+        return match("Subject", SUBJECT_ID, function, value);
+    }
+
+    @Nonnull private String resourceMatch(@Nonnull final String function, @Nonnull final String value) {
+        return match("Resource", RESOURCE_ID, function, value);
+    }
+
+    @Nonnull private String actionMatch(@Nonnull final String function, @Nonnull final String value) {
+        return match("Action", ACTION_ID, function, value);
+    }
+
+    @Nonnull private String match(@Nonnull final String section, @Nonnull final String attributeId,
+            @Nonnull final String function, @Nonnull final String value) {
+        return "<" + section + "Match MatchId=\"" + FUNCTION + function + "\"><AttributeValue DataType=\"" + STRING
+                + "\">" + value + "</AttributeValue><" + section + "AttributeDesignator AttributeId=\"" + attributeId
+                + "\" DataType=\"" + STRING + "\"/></" + section + "Match>";
+    }
+
+    @Nonnull private List<String> obligationIds(@Nonnull final PolicyEvaluator.Result result) {
+        return result.obligations().stream().map(o -> o.getObligationId()).toList();
+    }
+
+}
@@ -17,6 +17,7 @@ package org.opensaml.xmlsec.algorithm;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.Signature;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -47,6 +48,12 @@ import com.google.common.base.MoreObjects;
 
 /**
  * A registry of {@link AlgorithmDescriptor} instances, to support various use cases for working with algorithm URIs.
+ * 
+ * <p>
+ * Registration is expected to be infrequent relative to lookups. Each change to the registry publishes a new
+ * immutable {@link Snapshot} with all lookups precomputed, and all lookup methods are served from the current
+ * snapshot without locking.
+ * </p>
  */
 public class AlgorithmRegistry {
     
@@ -68,6 +75,9 @@ public class AlgorithmRegistry {
     /** Index of (KeyType,DigestType) to AlgorithmDescriptor. */
     @Nonnull private Map<SignatureAlgorithmIndex, SignatureAlgorithm> signatureAlgorithms;
     
+    /** Current snapshot of the registry. */
+    @Nonnull private volatile Snapshot snapshot;
+    
     /** Constructor. */
     public  AlgorithmRegistry() {
         descriptors = new HashMap<>();
@@ -75,6 +85,20 @@ public class AlgorithmRegistry {
         runtimeSupported = new HashSet<>();
         digestAlgorithms = new HashMap<>();
         signatureAlgorithms = new HashMap<>();
+        snapshot = new Snapshot(this);
+    }
+    
+    /**
+     * Get an immutable snapshot of the current state of the registry.
+     * 
+     * <p>
+     * Callers performing a series of lookups may use a snapshot to obtain a consistent view of the registry.
+     * </p>
+     * 
+     * @return the current snapshot
+     */
+    @Nonnull public Snapshot getSnapshot() {
+        return snapshot;
     }
     
     /**
@@ -84,12 +108,7 @@ public class AlgorithmRegistry {
      * @return the resolved algorithm descriptor or null
      */
     @Nullable public AlgorithmDescriptor get(@Nullable final String algorithmURI) {
-        final String trimmed = StringSupport.trimOrNull(algorithmURI);
-        if (trimmed == null) {
-            return null;
-        }
-        
-        return descriptors.get(trimmed);
+        return snapshot.get(algorithmURI);
     }
     
     /**
@@ -110,7 +129,7 @@ public class AlgorithmRegistry {
             return false;
         }
         
-        final boolean supported = runtimeSupported.contains(trimmed);
+        final boolean supported = snapshot.isRuntimeSupported(trimmed);
         log.debug("Runtime support eval for algorithm URI '{}': {}", trimmed, supported ? "supported" : "unsupported");
         return supported;
     }
@@ -118,11 +137,13 @@ public class AlgorithmRegistry {
     /**
      * Clear all registered algorithms.
      */
-    public void clear() {
+    public synchronized void clear() {
         descriptors.clear();
+        types.clear();
         runtimeSupported.clear();
         digestAlgorithms.clear();
         signatureAlgorithms.clear();
+        snapshot = new Snapshot(this);
     }
     
     /**
@@ -130,7 +151,7 @@ public class AlgorithmRegistry {
      * 
      * @param descriptor the algorithm
      */
-    public void register(@Nonnull final AlgorithmDescriptor descriptor) {
+    public synchronized void register(@Nonnull final AlgorithmDescriptor descriptor) {
         Constraint.isNotNull(descriptor, "AlgorithmDescriptor was null");
         
         log.debug("Registering algorithm descriptor with URI: {}", descriptor.getURI());
@@ -140,10 +161,11 @@ public class AlgorithmRegistry {
             log.debug("Registry contained existing descriptor with URI, removing old instance and re-registering: {}",
                     descriptor.getURI());
             deindex(old);
-            deregister(old);
+            descriptors.remove(old.getURI());
         }
         descriptors.put(descriptor.getURI(), descriptor);
         index(descriptor);
+        snapshot = new Snapshot(this);
     }
 
     /**
@@ -151,11 +173,12 @@ public class AlgorithmRegistry {
      * 
      * @param descriptor the algorithm
      */
-    public void deregister(@Nonnull final AlgorithmDescriptor descriptor) {
+    public synchronized void deregister(@Nonnull final AlgorithmDescriptor descriptor) {
         Constraint.isNotNull(descriptor, "AlgorithmDescriptor was null");
         if (descriptors.containsKey(descriptor.getURI())) {
             deindex(descriptor);
             descriptors.remove(descriptor.getURI());
+            snapshot = new Snapshot(this);
         } else {
             log.debug("Registry did not contain descriptor with URI, nothing to do: {}", descriptor.getURI());
         }
@@ -183,7 +206,7 @@ public class AlgorithmRegistry {
      */
     @Nullable public DigestAlgorithm getDigestAlgorithm(@Nonnull final String digestMethod) {
         Constraint.isNotNull(digestMethod, "Digest method was null");
-        return digestAlgorithms.get(digestMethod);
+        return snapshot.getDigestAlgorithm(digestMethod);
     }
     
     /**
@@ -201,7 +224,7 @@ public class AlgorithmRegistry {
             @Nonnull final String digestMethod) {
         Constraint.isNotNull(keyType, "Key type was null");
         Constraint.isNotNull(digestMethod, "Digest type was null");
-        return signatureAlgorithms.get(new SignatureAlgorithmIndex(keyType, digestMethod));
+        return snapshot.signatureAlgorithm.get(new SignatureKey(keyType.trim(), digestMethod.trim()));
     }
 
     /**
@@ -216,10 +239,7 @@ public class AlgorithmRegistry {
             @Nonnull final String digestMethod) {
         Constraint.isNotNull(keyType, "Key type was null");
         Constraint.isNotNull(digestMethod, "Digest type was null");
-        return getRegisteredByType(AlgorithmType.Signature).stream()
-                .map(SignatureAlgorithm.class::cast)
-                .filter(alg -> alg.getKey().equals(keyType) && alg.getDigest().equals(digestMethod))
-                .collect(CollectionSupport.nonnullCollector(Collectors.toUnmodifiableSet())).get();
+        return snapshot.getSignatureAlgorithms(keyType, digestMethod);
     }
 
     /**
@@ -231,11 +251,7 @@ public class AlgorithmRegistry {
      */
     @Nonnull @Unmodifiable @NotLive public Set<String> getRegisteredURIsByType(@Nonnull final AlgorithmType type) {
         Constraint.isNotNull(type, "AlgorithmType was null");
-        final Set<String> byType = types.get(type);
-        if (byType != null) {
-            return CollectionSupport.copyToSet(byType);
-        }
-        return CollectionSupport.emptySet();
+        return snapshot.getRegisteredURIsByType(type);
     }
 
     /**
@@ -247,10 +263,8 @@ public class AlgorithmRegistry {
      */
     @Nonnull @Unmodifiable @NotLive
     public Set<AlgorithmDescriptor> getRegisteredByType(@Nonnull final AlgorithmType type) {
-        return getRegisteredURIsByType(type).stream()
-                .map(this::get)
-                .filter(Objects::nonNull)
-                .collect(CollectionSupport.nonnullCollector(Collectors.toUnmodifiableSet())).get();
+        Constraint.isNotNull(type, "AlgorithmType was null");
+        return snapshot.getRegisteredByType(type);
     }
 
     /**
@@ -418,6 +432,199 @@ public class AlgorithmRegistry {
         return false;
     }
 
+    /**
+     * An immutable snapshot of the registry, with all lookups precomputed.
+     */
+    public static final class Snapshot {
+
+        /** Registered algorithms, by URI. */
+        @Nonnull private final Map<String,Entry> entries;
+
+        /** Registered algorithm URIs, by type. */
+        @Nonnull private final Map<AlgorithmType,Set<String>> urisByType;
+
+        /** Registered algorithms, by type. */
+        @Nonnull private final Map<AlgorithmType,Set<AlgorithmDescriptor>> descriptorsByType;
+
+        /** Digest algorithms, by JCA digest method ID. */
+        @Nonnull private final Map<String,DigestAlgorithm> digestAlgorithms;
+
+        /** Signature algorithms, by JCA key algorithm and digest method IDs. */
+        @Nonnull private final Map<SignatureKey,Set<SignatureAlgorithm>> signatureAlgorithms;
+
+        /** Most recently registered signature algorithm, by JCA key algorithm and digest method IDs. */
+        @Nonnull private final Map<SignatureKey,SignatureAlgorithm> signatureAlgorithm;
+
+        /**
+         * Constructor.
+         *
+         * @param registry the registry whose state to capture
+         */
+        private Snapshot(@Nonnull final AlgorithmRegistry registry) {
+            final Map<String,Entry> entryMap = new HashMap<>(registry.descriptors.size());
+            for (final AlgorithmDescriptor descriptor : registry.descriptors.values()) {
+                entryMap.put(descriptor.getURI(), new Entry(descriptor,
+                        registry.runtimeSupported.contains(descriptor.getURI()),
+                        descriptor instanceof KeyLengthSpecifiedAlgorithm keyLength ? keyLength.getKeyLength() : null));
+            }
+            entries = Map.copyOf(entryMap);
+
+            final Map<AlgorithmType,Set<String>> uriMap = new EnumMap<>(AlgorithmType.class);
+            final Map<AlgorithmType,Set<AlgorithmDescriptor>> descriptorMap = new EnumMap<>(AlgorithmType.class);
+            for (final Map.Entry<AlgorithmType,Set<String>> byType : registry.types.entrySet()) {
+                uriMap.put(byType.getKey(), Set.copyOf(byType.getValue()));
+                descriptorMap.put(byType.getKey(), byType.getValue().stream()
+                        .map(entries::get)
+                        .filter(Objects::nonNull)
+                        .map(Entry::descriptor)
+                        .collect(Collectors.toUnmodifiableSet()));
+            }
+            urisByType = uriMap;
+            descriptorsByType = descriptorMap;
+
+            final Map<SignatureKey,Set<SignatureAlgorithm>> signatureMap = new HashMap<>();
+            for (final AlgorithmDescriptor descriptor : descriptorMap.getOrDefault(AlgorithmType.Signature,
+                    CollectionSupport.emptySet())) {
+                if (descriptor instanceof SignatureAlgorithm sigAlg) {
+                    signatureMap.computeIfAbsent(new SignatureKey(sigAlg.getKey(), sigAlg.getDigest()),
+                            k -> new HashSet<>()).add(sigAlg);
+                }
+            }
+            final Map<SignatureKey,Set<SignatureAlgorithm>> immutableSignatureMap = new HashMap<>();
+            signatureMap.forEach((k, v) -> immutableSignatureMap.put(k, Set.copyOf(v)));
+            signatureAlgorithms = Map.copyOf(immutableSignatureMap);
+
+            final Map<SignatureKey,SignatureAlgorithm> latestSignatureMap = new HashMap<>();
+            for (final SignatureAlgorithm sigAlg : registry.signatureAlgorithms.values()) {
+                latestSignatureMap.put(new SignatureKey(sigAlg.getKey(), sigAlg.getDigest()), sigAlg);
+            }
+            signatureAlgorithm = Map.copyOf(latestSignatureMap);
+
+            digestAlgorithms = Map.copyOf(registry.digestAlgorithms);
+        }
+
+        /**
+         * Get the algorithm descriptor instance associated with the specified algorithm URI.
+         * 
+         * @param algorithmURI the algorithm URI to resolve
+         * 
+         * @return the resolved algorithm descriptor or null
+         */
+        @Nullable public AlgorithmDescriptor get(@Nullable final String algorithmURI) {
+            final Entry entry = getEntry(algorithmURI);
+            return entry != null ? entry.descriptor() : null;
+        }
+
+        /**
+         * Get the precomputed information associated with the specified algorithm URI.
+         * 
+         * @param algorithmURI the algorithm URI to resolve
+         * 
+         * @return the resolved information or null
+         */
+        @Nullable public Entry getEntry(@Nullable final String algorithmURI) {
+            if (algorithmURI == null) {
+                return null;
+            }
+            final Entry entry = entries.get(algorithmURI);
+            if (entry != null) {
+                return entry;
+            }
+            final String trimmed = StringSupport.trimOrNull(algorithmURI);
+            return trimmed != null && !trimmed.equals(algorithmURI) ? entries.get(trimmed) : null;
+        }
+
+        /**
+         * Retrieve indication of whether the runtime environment supports the algorithm.
+         * 
+         * @param algorithmURI the algorithm URI to evaluate
+         * 
+         * @return true if the algorithm is supported by the current runtime environment, false otherwise
+         */
+        public boolean isRuntimeSupported(@Nullable final String algorithmURI) {
+            final Entry entry = getEntry(algorithmURI);
+            return entry != null && entry.runtimeSupported();
+        }
+
+        /**
+         * Lookup a digest method algorithm descriptor by the JCA digest method ID.
+         * 
+         * @param digestMethod the JCA digest method ID.
+         * 
+         * @return the algorithm descriptor, or null
+         */
+        @Nullable public DigestAlgorithm getDigestAlgorithm(@Nonnull final String digestMethod) {
+            return digestAlgorithms.get(digestMethod);
+        }
+
+        /**
+         * Lookup signature algorithm descriptors by the JCA key algorithm and digest method IDs.
+         * 
+         * @param keyType the JCA key algorithm ID.
+         * @param digestMethod the JCA digest method ID.
+         * 
+         * @return the set of matching algorithm descriptors, possibly empty
+         */
+        @Nonnull @Unmodifiable public Set<SignatureAlgorithm> getSignatureAlgorithms(@Nonnull final String keyType,
+                @Nonnull final String digestMethod) {
+            final Set<SignatureAlgorithm> result = signatureAlgorithms.get(new SignatureKey(keyType, digestMethod));
+            return result != null ? result : CollectionSupport.emptySet();
+        }
+
+        /**
+         * Get the set of algorithm URIs registered for the given type.
+         *
+         * @param type the algorithm type
+         *
+         * @return the set of URIs for the given type, may be empty
+         */
+        @Nonnull @Unmodifiable public Set<String> getRegisteredURIsByType(@Nonnull final AlgorithmType type) {
+            final Set<String> result = urisByType.get(type);
+            return result != null ? result : CollectionSupport.emptySet();
+        }
+
+        /**
+         * Get the set of {@link AlgorithmDescriptor} registered for the given type.
+         *
+         * @param type the algorithm type
+         *
+         * @return the set of descriptors for the given type, may be empty
+         */
+        @Nonnull @Unmodifiable public Set<AlgorithmDescriptor> getRegisteredByType(@Nonnull final AlgorithmType type) {
+            final Set<AlgorithmDescriptor> result = descriptorsByType.get(type);
+            return result != null ? result : CollectionSupport.emptySet();
+        }
+
+        /**
+         * Precomputed information about a registered algorithm.
+         *
+         * @param descriptor the algorithm descriptor
+         * @param runtimeSupported whether the runtime environment supports the algorithm
+         * @param keyLength the algorithm's key length, if specified
+         */
+        public record Entry(@Nonnull AlgorithmDescriptor descriptor, boolean runtimeSupported,
+                @Nullable Integer keyLength) {
+
+            /**
+             * Get the algorithm type.
+             *
+             * @return the algorithm type
+             */
+            @Nonnull public AlgorithmType type() {
+                return descriptor.getType();
+            }
+        }
+    }
+
+    /**
+     * Snapshot index key for signature algorithm lookup.
+     *
+     * @param key the JCA key algorithm ID
+     * @param digest the JCA digest method ID
+     */
+    private record SignatureKey(@Nonnull String key, @Nonnull String digest) {
+    }
+
     /**
      * Class used as index key for signature algorithm lookup.
      */
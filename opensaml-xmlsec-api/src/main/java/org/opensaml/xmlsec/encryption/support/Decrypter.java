@@ -17,6 +17,7 @@ package org.opensaml.xmlsec.encryption.support;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -26,6 +27,7 @@ import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import net.shibboleth.shared.collection.Pair;
 import net.shibboleth.shared.logic.Constraint;
 import net.shibboleth.shared.primitive.LoggerFactory;
 import net.shibboleth.shared.primitive.StringSupport;
@@ -113,6 +115,12 @@ import com.google.common.base.Strings;
  * </ol>
  * 
  * <p>
+ * Where several EncryptedKeys and key decryption credentials are available, credentials identified by an
+ * EncryptedKey's KeyInfo (by key name, public key, or X.509 certificate, subject key identifier, issuer/serial or
+ * digest) are attempted before any others, avoiding needless private key operations with non-matching keys.
+ * </p>
+ * 
+ * <p>
  * XML Encryption can encrypt either a single {@link Element} or the contents of an Element. The caller of this class
  * must select the decryption method which is most appropriate for their specific use case.
  * </p>
@@ -684,6 +692,12 @@ public class Decrypter {
      * of the decrypted key must be supplied by the caller based on knowledge of the associated EncryptedData
      * information.
      * 
+     * <p>
+     * Each candidate credential from the KEK resolver is tried via
+     * {@link #decryptKey(EncryptedKey, String, Credential)}, which is also used when decrypting EncryptedData
+     * and is the method subclasses should override to customize key decryption with a resolved credential.
+     * </p>
+     * 
      * @param encryptedKey encrypted key element containing the encrypted key to be decrypted
      * @param algorithm the algorithm associated with the decrypted key
      * @return the decrypted key
@@ -699,25 +713,21 @@ public class Decrypter {
             throw new DecryptionException("Algorithm of encrypted key not supplied, key decryption cannot proceed");
         }
 
-        final CriteriaSet criteriaSet = buildCredentialCriteria(encryptedKey, kekResolverCriteria);
-        try {
-            assert kekResolver != null;
-            for (final Credential cred : kekResolver.resolve(criteriaSet)) {
-                try {
-                    final Key decKey = CredentialSupport.extractDecryptionKey(cred);
-                    if (decKey == null) {
-                        throw new DecryptionException("Unable to extract key decryption key");
-                    }
-                    return decryptKey(encryptedKey, algorithm, decKey);
-                } catch (final DecryptionException e) {
-                    final String msg =
-                            "Attempt to decrypt EncryptedKey using credential from KEK KeyInfo resolver failed: ";
-                    log.debug(msg, e);
-                    continue;
-                }
+        // Candidates identified by the EncryptedKey's KeyInfo are tried first.
+        final List<Credential> matched = new ArrayList<>();
+        final List<Credential> unmatched = new ArrayList<>();
+        resolveKEKCredentials(encryptedKey, matched, unmatched);
+        matched.addAll(unmatched);
+        for (final Credential cred : matched) {
+            try {
+                assert cred != null;
+                return decryptKey(encryptedKey, algorithm, cred);
+            } catch (final DecryptionException e) {
+                final String msg =
+                        "Attempt to decrypt EncryptedKey using credential from KEK KeyInfo resolver failed: ";
+                log.debug(msg, e);
+                continue;
             }
-        } catch (final ResolverException e) {
-            log.error("Error resolving credentials from EncryptedKey KeyInfo", e);
         }
 
         log.error("Failed to decrypt EncryptedKey, valid decryption key could not be resolved");
@@ -875,23 +885,134 @@ public class Decrypter {
      */
     @Nullable private DocumentFragment decryptUsingResolvedEncryptedKey(@Nonnull final EncryptedData encryptedData,
             @Nonnull final String algorithm) {
-        if (encKeyResolver != null) {
-            for (final EncryptedKey encryptedKey : encKeyResolver.resolve(encryptedData, recipients)) {
-                try {
-                    assert encryptedKey != null;
-                    final Key decryptedKey = decryptKey(encryptedKey, algorithm);
-                    return decryptDataToDOM(encryptedData, decryptedKey);
-                } catch (final DecryptionException e) {
-                    final String msg =
-                            "Attempt to decrypt EncryptedData using key extracted from EncryptedKey failed: ";
-                    log.debug(msg, e);
-                    continue;
+        if (encKeyResolver == null) {
+            return null;
+        }
+        
+        if (kekResolver == null) {
+            log.warn("No KEK KeyInfo credential resolver is available, cannot attempt EncryptedKey decryption");
+            return null;
+        }
+        
+        // First pass: try only the credentials identified by each EncryptedKey's KeyInfo, so that in the usual
+        // case a single private key operation is needed regardless of the number of keys and credentials.
+        final List<Pair<EncryptedKey,Credential>> deferred = new ArrayList<>();
+        for (final EncryptedKey encryptedKey : encKeyResolver.resolve(encryptedData, recipients)) {
+            assert encryptedKey != null;
+            final List<Credential> matched = new ArrayList<>();
+            final List<Credential> unmatched = new ArrayList<>();
+            resolveKEKCredentials(encryptedKey, matched, unmatched);
+            for (final Credential cred : matched) {
+                assert cred != null;
+                final DocumentFragment fragment =
+                        decryptUsingEncryptedKey(encryptedData, algorithm, encryptedKey, cred);
+                if (fragment != null) {
+                    return fragment;
                 }
             }
+            for (final Credential cred : unmatched) {
+                deferred.add(new Pair<>(encryptedKey, cred));
+            }
         }
+        
+        // Second pass: fall back to the remaining candidates.
+        for (final Pair<EncryptedKey,Credential> candidate : deferred) {
+            final EncryptedKey encryptedKey = candidate.getFirst();
+            final Credential cred = candidate.getSecond();
+            assert encryptedKey != null && cred != null;
+            final DocumentFragment fragment = decryptUsingEncryptedKey(encryptedData, algorithm, encryptedKey, cred);
+            if (fragment != null) {
+                return fragment;
+            }
+        }
+        
         return null;
     }
 
+    /**
+     * Attempt to decrypt using the key obtained by decrypting an EncryptedKey with a particular credential.
+     * 
+     * @param encryptedData the encrypted data to decrypt
+     * @param algorithm the algorithm of the key to be decrypted
+     * @param encryptedKey the EncryptedKey
+     * @param kekCredential the key decryption credential
+     * 
+     * @return the decrypted document fragment, or null if decryption failed
+     */
+    @Nullable private DocumentFragment decryptUsingEncryptedKey(@Nonnull final EncryptedData encryptedData,
+            @Nonnull final String algorithm, @Nonnull final EncryptedKey encryptedKey,
+            @Nonnull final Credential kekCredential) {
+        try {
+            final Key decryptedKey = decryptKey(encryptedKey, algorithm, kekCredential);
+            return decryptDataToDOM(encryptedData, decryptedKey);
+        } catch (final DecryptionException e) {
+            final String msg = "Attempt to decrypt EncryptedData using key extracted from EncryptedKey failed: ";
+            log.debug(msg, e);
+            return null;
+        }
+    }
+
+    /**
+     * Decrypt an EncryptedKey using a particular credential.
+     * 
+     * <p>
+     * This is the extension point for key decryption using a credential resolved by the KEK resolver. It is
+     * called for every such attempt, whether made by {@link #decryptKey(EncryptedKey, String)} or while
+     * decrypting EncryptedData, which tries candidates across all resolved EncryptedKeys rather than going
+     * through that method. The default implementation extracts the decryption key from the credential and
+     * calls {@link #decryptKey(EncryptedKey, String, Key)}.
+     * </p>
+     * 
+     * @param encryptedKey the EncryptedKey
+     * @param algorithm the algorithm associated with the decrypted key
+     * @param kekCredential the key decryption credential
+     * 
+     * @return the decrypted key
+     * 
+     * @throws DecryptionException if the key could not be decrypted
+     */
+    @Nonnull protected Key decryptKey(@Nonnull final EncryptedKey encryptedKey, @Nonnull final String algorithm,
+            @Nonnull final Credential kekCredential) throws DecryptionException {
+        final Key decKey = CredentialSupport.extractDecryptionKey(kekCredential);
+        if (decKey == null) {
+            throw new DecryptionException("Unable to extract key decryption key");
+        }
+        return decryptKey(encryptedKey, algorithm, decKey);
+    }
+
+    /**
+     * Resolve the candidate key decryption credentials for an EncryptedKey, separating those identified by its
+     * KeyInfo from the remainder.
+     * 
+     * @param encryptedKey the EncryptedKey
+     * @param matched receives the credentials identified by the KeyInfo, in resolution order
+     * @param unmatched receives the remaining credentials, in resolution order
+     */
+    private void resolveKEKCredentials(@Nonnull final EncryptedKey encryptedKey,
+            @Nonnull final List<Credential> matched, @Nonnull final List<Credential> unmatched) {
+        final KeyInfoCredentialResolver kekRes = kekResolver;
+        if (kekRes == null) {
+            return;
+        }
+        
+        final CriteriaSet criteriaSet = buildCredentialCriteria(encryptedKey, kekResolverCriteria);
+        try {
+            final EncryptedKeyCredentialMatcher matcher = new EncryptedKeyCredentialMatcher(encryptedKey.getKeyInfo());
+            for (final Credential cred : kekRes.resolve(criteriaSet)) {
+                if (!matcher.isEmpty() && matcher.matches(cred)) {
+                    matched.add(cred);
+                } else {
+                    unmatched.add(cred);
+                }
+            }
+        } catch (final ResolverException e) {
+            log.error("Error resolving credentials from EncryptedKey KeyInfo", e);
+        }
+        
+        log.debug("Resolved {} key decryption credential(s) identified by EncryptedKey KeyInfo, {} other(s)",
+                matched.size(), unmatched.size());
+    }
+
     /**
      * Parse the specified input stream in a DOM DocumentFragment, owned by the specified Document.
      * 
@@ -0,0 +1,255 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opensaml.xmlsec.encryption.support;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.KeyException;
+import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.security.auth.x500.X500Principal;
+
+import org.opensaml.security.SecurityException;
+import org.opensaml.security.credential.Credential;
+import org.opensaml.security.x509.X509Credential;
+import org.opensaml.security.x509.X509Support;
+import org.opensaml.xmlsec.algorithm.AlgorithmSupport;
+import org.opensaml.xmlsec.keyinfo.KeyInfoSupport;
+import org.opensaml.xmlsec.signature.KeyInfo;
+import org.opensaml.xmlsec.signature.X509Certificate;
+import org.opensaml.xmlsec.signature.X509Data;
+import org.opensaml.xmlsec.signature.X509Digest;
+import org.opensaml.xmlsec.signature.X509IssuerName;
+import org.opensaml.xmlsec.signature.X509IssuerSerial;
+import org.opensaml.xmlsec.signature.X509SKI;
+import org.opensaml.xmlsec.signature.X509SerialNumber;
+import org.slf4j.Logger;
+
+import net.shibboleth.shared.codec.Base64Support;
+import net.shibboleth.shared.codec.DecodingException;
+import net.shibboleth.shared.primitive.LoggerFactory;
+import net.shibboleth.shared.primitive.StringSupport;
+
+/**
+ * Determines whether a candidate key decryption credential is one identified by the KeyInfo of an EncryptedKey.
+ *
+ * <p>
+ * The identifiers carried by the KeyInfo (key names, public key values, and X.509 certificates, subject key
+ * identifiers, issuer/serial pairs and digests) are extracted once on construction, so that each candidate
+ * credential may be checked without performing any private key operation. A credential which does not match is
+ * not necessarily unable to decrypt the key, since the KeyInfo may be absent or carry no usable identifier.
+ * </p>
+ */
+final class EncryptedKeyCredentialMatcher {
+
+    /** Class logger. */
+    @Nonnull private final Logger log = LoggerFactory.getLogger(EncryptedKeyCredentialMatcher.class);
+
+    /** Key names. */
+    @Nonnull private final Set<String> keyNames;
+
+    /** Public keys. */
+    @Nonnull private final List<PublicKey> publicKeys;
+
+    /** DER encodings of certificates. */
+    @Nonnull private final Set<ByteBuffer> certificates;
+
+    /** Subject key identifiers. */
+    @Nonnull private final Set<ByteBuffer> subjectKeyIdentifiers;
+
+    /** Issuer and serial number pairs. */
+    @Nonnull private final Set<IssuerSerial> issuerSerials;
+
+    /** Certificate digests, indexed by JCA digest algorithm. */
+    @Nonnull private final Map<String,Set<ByteBuffer>> digests;
+
+    /**
+     * Constructor.
+     *
+     * @param keyInfo the KeyInfo of the EncryptedKey
+     */
+    EncryptedKeyCredentialMatcher(@Nullable final KeyInfo keyInfo) {
+        keyNames = new HashSet<>(KeyInfoSupport.getKeyNames(keyInfo));
+        publicKeys = new ArrayList<>();
+        certificates = new HashSet<>();
+        subjectKeyIdentifiers = new HashSet<>();
+        issuerSerials = new HashSet<>();
+        digests = new HashMap<>();
+
+        if (keyInfo == null) {
+            return;
+        }
+
+        try {
+            publicKeys.addAll(KeyInfoSupport.getPublicKeys(keyInfo));
+        } catch (final KeyException e) {
+            log.debug("Unable to extract public keys from EncryptedKey KeyInfo", e);
+        }
+
+        for (final X509Data x509Data : keyInfo.getX509Datas()) {
+            for (final X509Certificate cert : x509Data.getX509Certificates()) {
+                addDecoded(certificates, cert.getValue());
+            }
+            for (final X509SKI ski : x509Data.getX509SKIs()) {
+                addDecoded(subjectKeyIdentifiers, ski.getValue());
+            }
+            for (final X509IssuerSerial issuerSerial : x509Data.getX509IssuerSerials()) {
+                addIssuerSerial(issuerSerial);
+            }
+            for (final X509Digest digest : x509Data.getX509Digests()) {
+                final String digestAlg = StringSupport.trimOrNull(digest.getAlgorithm());
+                final String jcaAlg = digestAlg != null ? AlgorithmSupport.getAlgorithmID(digestAlg) : null;
+                if (jcaAlg != null) {
+                    addDecoded(digests.computeIfAbsent(jcaAlg, a -> new HashSet<>()), digest.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get whether the KeyInfo carried any identifier against which credentials may be matched.
+     *
+     * @return true if no identifiers are available
+     */
+    boolean isEmpty() {
+        return keyNames.isEmpty() && publicKeys.isEmpty() && certificates.isEmpty()
+                && subjectKeyIdentifiers.isEmpty() && issuerSerials.isEmpty() && digests.isEmpty();
+    }
+
+    /**
+     * Check whether the credential is identified by the KeyInfo.
+     *
+     * @param credential the candidate key decryption credential
+     *
+     * @return true if any identifier in the KeyInfo identifies the credential
+     */
+    boolean matches(@Nonnull final Credential credential) {
+        for (final String name : credential.getKeyNames()) {
+            if (keyNames.contains(name)) {
+                return true;
+            }
+        }
+
+        final PublicKey publicKey = credential.getPublicKey();
+        if (publicKey != null && publicKeys.contains(publicKey)) {
+            return true;
+        }
+
+        if (credential instanceof X509Credential) {
+            return matches(((X509Credential) credential).getEntityCertificate());
+        }
+
+        return false;
+    }
+
+    /**
+     * Check whether the certificate is identified by the KeyInfo.
+     *
+     * @param cert the entity certificate of the candidate credential
+     *
+     * @return true if any X.509 identifier in the KeyInfo identifies the certificate
+     */
+    private boolean matches(@Nonnull final java.security.cert.X509Certificate cert) {
+        if (!certificates.isEmpty()) {
+            try {
+                if (certificates.contains(ByteBuffer.wrap(cert.getEncoded()))) {
+                    return true;
+                }
+            } catch (final CertificateEncodingException e) {
+                log.debug("Unable to encode candidate certificate", e);
+            }
+        }
+
+        if (!subjectKeyIdentifiers.isEmpty()) {
+            final byte[] ski = X509Support.getSubjectKeyIdentifier(cert);
+            if (ski != null && subjectKeyIdentifiers.contains(ByteBuffer.wrap(ski))) {
+                return true;
+            }
+        }
+
+        if (issuerSerials.contains(new IssuerSerial(cert.getIssuerX500Principal(), cert.getSerialNumber()))) {
+            return true;
+        }
+
+        for (final Map.Entry<String,Set<ByteBuffer>> entry : digests.entrySet()) {
+            try {
+                if (entry.getValue().contains(ByteBuffer.wrap(X509Support.getX509Digest(cert, entry.getKey())))) {
+                    return true;
+                }
+            } catch (final SecurityException e) {
+                log.debug("Unable to compute {} digest of candidate certificate", entry.getKey(), e);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Base64-decode a value and add it to a set.
+     *
+     * @param values the set to add to
+     * @param base64Value the encoded value
+     */
+    private void addDecoded(@Nonnull final Set<ByteBuffer> values, @Nullable final String base64Value) {
+        final String trimmed = StringSupport.trimOrNull(base64Value);
+        if (trimmed == null) {
+            return;
+        }
+        try {
+            values.add(ByteBuffer.wrap(Base64Support.decode(trimmed)));
+        } catch (final DecodingException e) {
+            log.debug("Unable to base64 decode EncryptedKey KeyInfo value", e);
+        }
+    }
+
+    /**
+     * Add an issuer and serial number pair.
+     *
+     * @param issuerSerial the issuer and serial number element
+     */
+    private void addIssuerSerial(@Nonnull final X509IssuerSerial issuerSerial) {
+        final X509IssuerName issuerName = issuerSerial.getX509IssuerName();
+        final X509SerialNumber serialNumber = issuerSerial.getX509SerialNumber();
+        final String name = issuerName != null ? StringSupport.trimOrNull(issuerName.getValue()) : null;
+        final BigInteger serial = serialNumber != null ? serialNumber.getValue() : null;
+        if (name == null || serial == null) {
+            return;
+        }
+        try {
+            issuerSerials.add(new IssuerSerial(new X500Principal(name), serial));
+        } catch (final IllegalArgumentException e) {
+            log.debug("Unable to parse X.509 issuer name '{}'", name, e);
+        }
+    }
+
+    /**
+     * Issuer and serial number pair.
+     *
+     * @param issuer the issuer name
+     * @param serial the serial number
+     */
+    private record IssuerSerial(@Nonnull X500Principal issuer, @Nonnull BigInteger serial) {
+    }
+
+}
@@ -58,6 +58,7 @@ import org.opensaml.security.credential.Credential;
 import org.opensaml.security.crypto.JCAConstants;
 import org.opensaml.security.crypto.dh.DHSupport;
 import org.opensaml.security.crypto.ec.ECSupport;
+import org.opensaml.security.x509.X509CertificateCache;
 import org.opensaml.security.x509.X509Support;
 import org.opensaml.xmlsec.algorithm.AlgorithmSupport;
 import org.opensaml.xmlsec.encryption.DHKeyValue;
@@ -215,6 +216,9 @@ public final class KeyInfoSupport {
     /**
      * Convert an {@link org.opensaml.xmlsec.signature.X509Certificate} into a native Java representation.
      * 
+     * <p>Decoded certificates are obtained from the shared {@link X509CertificateCache}, so a certificate seen
+     * repeatedly is only parsed once.</p>
+     * 
      * @param xmlCert an {@link org.opensaml.xmlsec.signature.X509Certificate}
      * 
      * @return a {@link java.security.cert.X509Certificate}
@@ -230,7 +234,11 @@ public final class KeyInfoSupport {
             return null;
         }
 
-        return X509Support.decodeCertificate(certVal);
+        try {
+            return X509CertificateCache.getDefault().decodeCertificate(Base64Support.decode(certVal));
+        } catch (final DecodingException e) {
+            throw new CertificateException(e);
+        }
     }
 
     /**
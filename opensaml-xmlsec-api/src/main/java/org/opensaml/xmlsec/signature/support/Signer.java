@@ -14,15 +14,22 @@
 
 package org.opensaml.xmlsec.signature.support;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.opensaml.xmlsec.signature.Signature;
 import org.slf4j.Logger;
+import org.w3c.dom.Element;
 
 import net.shibboleth.shared.primitive.LoggerFactory;
 
@@ -65,6 +72,84 @@ public final class Signer {
         }
     }
 
+    /**
+     * Signs the given XMLObjects, signing those in different DOM documents concurrently using the supplied executor.
+     * 
+     * <p>
+     * A DOM document may not safely be accessed by multiple threads, and signatures within the same document may
+     * depend on one another (e.g. an enclosing signature covers those of its children), so signatures are grouped
+     * by the document which owns their DOM. Each group is signed in the order provided, on a single thread, and
+     * independent groups are signed in parallel. This is of benefit when signing many independently marshalled
+     * objects, such as a batch of metadata documents or responses.
+     * </p>
+     * 
+     * <p>
+     * If no executor is supplied, or all signatures are owned by a single document, this is equivalent to
+     * {@link #signObjects(List)}.
+     * </p>
+     * 
+     * @param signatures an ordered list of XMLObject to be signed
+     * @param executor executor with which to sign independent groups of signatures, or null
+     * @throws SignatureException  thrown if there is an error computing any signature
+     */
+    public static void signObjects(@Nonnull final List<Signature> signatures, @Nullable final Executor executor)
+            throws SignatureException {
+        if (executor == null || signatures.size() < 2) {
+            signObjects(signatures);
+            return;
+        }
+
+        final Map<Object,List<Signature>> groups = new IdentityHashMap<>();
+        final List<List<Signature>> orderedGroups = new ArrayList<>();
+        for (final Signature signature : signatures) {
+            assert signature != null;
+            final Element dom = signature.getDOM();
+            final Object owner = dom != null ? dom.getOwnerDocument() : signature;
+            groups.computeIfAbsent(owner, k -> {
+                final List<Signature> group = new ArrayList<>();
+                orderedGroups.add(group);
+                return group;
+            }).add(signature);
+        }
+
+        if (orderedGroups.size() < 2) {
+            signObjects(signatures);
+            return;
+        }
+
+        final SignerProvider signer = getSignerProvider();
+        LOG.debug("Using a signer of implementation: {} to sign {} independent groups of signatures",
+                signer.getClass().getName(), orderedGroups.size());
+
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(orderedGroups.size());
+        for (final List<Signature> group : orderedGroups) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    for (final Signature signature : group) {
+                        assert signature != null;
+                        signer.signObject(signature);
+                    }
+                } catch (final SignatureException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SignatureException) {
+                throw (SignatureException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SignatureException("Signature computation error", e);
+        }
+    }
+
     /**
      * Signs a single XMLObject.
      * 
@@ -20,10 +20,13 @@ import javax.annotation.Nullable;
 import net.shibboleth.shared.logic.Constraint;
 import net.shibboleth.shared.primitive.LoggerFactory;
 import net.shibboleth.shared.resolver.CriteriaSet;
+import net.shibboleth.shared.resolver.Criterion;
 import net.shibboleth.shared.resolver.ResolverException;
 
 import org.opensaml.security.SecurityException;
 import org.opensaml.security.credential.Credential;
+import org.opensaml.security.trust.TrustInformationGenerationSource;
+import org.opensaml.security.trust.impl.TrustDecisionCache;
 import org.opensaml.xmlsec.SignatureValidationParameters;
 import org.opensaml.xmlsec.algorithm.AlgorithmSupport;
 import org.opensaml.xmlsec.keyinfo.KeyInfoCredentialResolver;
@@ -52,6 +55,13 @@ import com.google.common.base.Strings;
  * trust model.
  * </p>
  * 
+ * <p>
+ * An optional {@link TrustDecisionCache} may be supplied, in which case positive trust decisions about
+ * KeyInfo-derived and candidate credentials are cached against the trust basis criteria. When a credential which
+ * verifies the signature is found in the cache, resolution of the trusted information and trust evaluation are
+ * skipped. The signature itself is always cryptographically verified.
+ * </p>
+ * 
  * @param <TrustBasisType> the type of trusted information which has been resolved and which will serve as the basis for
  *            trust evaluation
  * 
@@ -64,6 +74,9 @@ public abstract class BaseSignatureTrustEngine<TrustBasisType> implements Signat
     /** KeyInfo credential resolver used to obtain the signing credential from a Signature's KeyInfo. */
     @Nonnull private final KeyInfoCredentialResolver keyInfoCredentialResolver;
 
+    /** Optional cache of positive trust decisions. */
+    @Nullable private TrustDecisionCache trustDecisionCache;
+
     /**
      * Constructor.
      * 
@@ -78,6 +91,49 @@ public abstract class BaseSignatureTrustEngine<TrustBasisType> implements Signat
     @Nonnull public KeyInfoCredentialResolver getKeyInfoResolver() {
         return keyInfoCredentialResolver;
     }
+
+    /**
+     * Get the cache of positive trust decisions.
+     * 
+     * @return the trust decision cache, or null
+     */
+    @Nullable public TrustDecisionCache getTrustDecisionCache() {
+        return trustDecisionCache;
+    }
+
+    /**
+     * Set the cache of positive trust decisions.
+     * 
+     * <p>
+     * The cache should not be shared with engines of a different type, or with engines using different
+     * trusted information.
+     * </p>
+     * 
+     * <p>
+     * If the cache has no generation supplier and the resolver of trusted information returned by
+     * {@link #getTrustInformationResolver()} is a {@link TrustInformationGenerationSource}, the cache is
+     * given a generation supplier backed by that resolver, so that a refresh of the trusted information
+     * invalidates the cached decisions.
+     * </p>
+     * 
+     * @param cache the trust decision cache, or null
+     */
+    public void setTrustDecisionCache(@Nullable final TrustDecisionCache cache) {
+        if (cache != null && cache.getGenerationSupplier() == null
+                && getTrustInformationResolver() instanceof TrustInformationGenerationSource source) {
+            cache.setGenerationSupplier(source::getTrustInformationGeneration);
+        }
+        trustDecisionCache = cache;
+    }
+
+    /**
+     * Get the resolver of the trusted information which serves as the basis for trust evaluation.
+     * 
+     * @return the resolver, or null if not applicable
+     */
+    @Nullable protected Object getTrustInformationResolver() {
+        return null;
+    }
     
     /** {@inheritDoc} */
     public final boolean validate(@Nonnull final Signature signature, @Nullable final CriteriaSet trustBasisCriteria)
@@ -99,6 +155,10 @@ public abstract class BaseSignatureTrustEngine<TrustBasisType> implements Signat
                 return false;
             }
         }
+
+        if (trustDecisionCache != null && validateFromTrustDecisionCache(signature, trustBasisCriteria)) {
+            return true;
+        }
         
         return doValidate(signature, trustBasisCriteria);
     }
@@ -184,6 +244,28 @@ public abstract class BaseSignatureTrustEngine<TrustBasisType> implements Signat
      */
     protected boolean validate(@Nonnull final Signature signature, @Nullable final TrustBasisType trustBasis)
             throws SecurityException {
+        return validate(signature, trustBasis, null);
+    }
+
+    /**
+     * Attempt to establish trust by resolving signature verification credentials from the Signature's KeyInfo. If any
+     * credentials so resolved correctly verify the signature, attempt to establish trust using subclass-specific trust
+     * logic against trusted information as implemented in {@link #evaluateTrust(Credential, Object)}.
+     * 
+     * <p>
+     * If trust is established and trust basis criteria are supplied, the decision is recorded in the
+     * {@link TrustDecisionCache}, if any.
+     * </p>
+     * 
+     * @param signature the Signature to evaluate
+     * @param trustBasis the information which serves as the basis for trust evaluation
+     * @param trustBasisCriteria the criteria from which the trust basis was resolved
+     * @return true if the signature is verified by any KeyInfo-derived credential which can be established as trusted,
+     *         otherwise false
+     * @throws SecurityException if an error occurs during signature verification or trust processing
+     */
+    protected boolean validate(@Nonnull final Signature signature, @Nullable final TrustBasisType trustBasis,
+            @Nullable final CriteriaSet trustBasisCriteria) throws SecurityException {
 
         log.debug("Attempting to verify signature and establish trust using KeyInfo-derived credentials");
 
@@ -200,6 +282,7 @@ public abstract class BaseSignatureTrustEngine<TrustBasisType> implements Signat
                         log.debug("Attempting to establish trust of KeyInfo-derived credential");
                         if (evaluateTrust(kiCred, trustBasis)) {
                             log.debug("Successfully established trust of KeyInfo-derived credential");
+                            recordTrustDecision(kiCred, trustBasisCriteria);
                             return true;
                         }
                         log.debug("Failed to establish trust of KeyInfo-derived credential");
@@ -216,6 +299,93 @@ public abstract class BaseSignatureTrustEngine<TrustBasisType> implements Signat
         return false;
     }
 
+    /**
+     * Attempt to validate the signature using KeyInfo-derived credentials previously established as trusted under
+     * the same criteria.
+     * 
+     * @param signature the Signature to evaluate
+     * @param trustBasisCriteria criteria used to describe and/or resolve the information which serves as the basis for
+     *            trust evaluation
+     * @return true if the signature is verified by a KeyInfo-derived credential with a cached positive trust decision
+     * @throws SecurityException if an error occurs resolving the KeyInfo-derived credentials
+     */
+    private boolean validateFromTrustDecisionCache(@Nonnull final Signature signature,
+            @Nonnull final CriteriaSet trustBasisCriteria) throws SecurityException {
+        
+        if (signature.getKeyInfo() == null) {
+            return false;
+        }
+
+        final CriteriaSet keyInfoCriteriaSet = new CriteriaSet(new KeyInfoCriterion(signature.getKeyInfo()));
+        try {
+            for (final Credential kiCred : getKeyInfoResolver().resolve(keyInfoCriteriaSet)) {
+                assert kiCred != null;
+                if (isTrustDecisionCached(kiCred, trustBasisCriteria) && verifySignature(signature, kiCred)) {
+                    log.debug("Verified signature using KeyInfo-derived credential with cached trust decision");
+                    return true;
+                }
+            }
+        } catch (final ResolverException e) {
+            throw new SecurityException("Error resolving KeyInfo from KeyInfoResolver", e);
+        }
+        
+        return false;
+    }
+
+    /**
+     * Check whether a positive trust decision about the credential under the supplied criteria is cached.
+     * 
+     * @param untrustedCredential the untrusted credential
+     * @param trustBasisCriteria the trust basis criteria
+     * @return true if a positive decision is cached, otherwise false
+     */
+    protected boolean isTrustDecisionCached(@Nonnull final Credential untrustedCredential,
+            @Nullable final CriteriaSet trustBasisCriteria) {
+        final TrustDecisionCache cache = trustDecisionCache;
+        if (cache == null || trustBasisCriteria == null) {
+            return false;
+        }
+        return cache.isTrusted(untrustedCredential, getTrustDecisionCacheCriteria(trustBasisCriteria));
+    }
+
+    /**
+     * Record a positive trust decision about the credential under the supplied criteria, if a cache is configured.
+     * 
+     * @param untrustedCredential the credential established as trusted
+     * @param trustBasisCriteria the trust basis criteria
+     */
+    protected void recordTrustDecision(@Nonnull final Credential untrustedCredential,
+            @Nullable final CriteriaSet trustBasisCriteria) {
+        final TrustDecisionCache cache = trustDecisionCache;
+        if (cache != null && trustBasisCriteria != null) {
+            cache.recordTrusted(untrustedCredential, getTrustDecisionCacheCriteria(trustBasisCriteria));
+        }
+    }
+
+    /**
+     * Get the subset of the trust basis criteria which identifies a cached trust decision.
+     * 
+     * <p>
+     * The signature validation parameters are excluded, since they govern only the signature algorithm checks
+     * which are applied to every signature before trust is evaluated.
+     * </p>
+     * 
+     * @param trustBasisCriteria the trust basis criteria
+     * @return the criteria used in the cache key
+     */
+    @Nonnull private CriteriaSet getTrustDecisionCacheCriteria(@Nonnull final CriteriaSet trustBasisCriteria) {
+        if (!trustBasisCriteria.contains(SignatureValidationParametersCriterion.class)) {
+            return trustBasisCriteria;
+        }
+        final CriteriaSet criteria = new CriteriaSet();
+        for (final Criterion criterion : trustBasisCriteria) {
+            if (!(criterion instanceof SignatureValidationParametersCriterion)) {
+                criteria.add(criterion);
+            }
+        }
+        return criteria;
+    }
+
     /**
      * Evaluate the untrusted KeyInfo-derived credential with respect to the specified trusted information.
      * 
@@ -82,6 +82,11 @@ public class ExplicitKeySignatureTrustEngine extends BaseSignatureTrustEngine<It
         return credentialResolver;
     }
 
+    /** {@inheritDoc} */
+    @Override @Nullable protected Object getTrustInformationResolver() {
+        return credentialResolver;
+    }
+
     /** {@inheritDoc} */
     @Override protected boolean doValidate(@Nonnull final Signature signature,
             @Nullable final CriteriaSet trustBasisCriteria) throws SecurityException {
@@ -106,7 +111,7 @@ public class ExplicitKeySignatureTrustEngine extends BaseSignatureTrustEngine<It
             throw new SecurityException("Error resolving trusted credentials", e);
         }
 
-        if (validate(signature, trustedCredentials)) {
+        if (validate(signature, trustedCredentials, trustBasisCriteria)) {
             return true;
         }
 
@@ -132,6 +137,17 @@ public class ExplicitKeySignatureTrustEngine extends BaseSignatureTrustEngine<It
             @Nonnull final String algorithmURI, @Nullable final CriteriaSet trustBasisCriteria,
             @Nullable final Credential candidateCredential) throws SecurityException {
 
+        if (candidateCredential != null && isTrustDecisionCached(candidateCredential, trustBasisCriteria)) {
+            try {
+                if (XMLSigningUtil.verifyWithURI(candidateCredential, algorithmURI, signature, content)) {
+                    log.debug("Verified raw signature using candidate credential with cached trust decision");
+                    return true;
+                }
+            } catch (final SecurityException e) {
+                log.debug("Saw fatal error attempting to verify raw signature with supplied candidate credential", e);
+            }
+        }
+
         final CriteriaSet criteriaSet = new CriteriaSet();
         criteriaSet.addAll(trustBasisCriteria);
         if (!criteriaSet.contains(UsageCriterion.class)) {
@@ -159,6 +175,7 @@ public class ExplicitKeySignatureTrustEngine extends BaseSignatureTrustEngine<It
                     log.debug("Attempting to establish trust of supplied candidate credential");
                     if (evaluateTrust(candidateCredential, trustedCredentials)) {
                         log.debug("Successfully established trust of supplied candidate credential");
+                        recordTrustDecision(candidateCredential, trustBasisCriteria);
                         return true;
                     }
                     log.debug("Failed to establish trust of supplied candidate credential");
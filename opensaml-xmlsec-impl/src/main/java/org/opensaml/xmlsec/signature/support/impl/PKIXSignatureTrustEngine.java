@@ -149,6 +149,11 @@ public class PKIXSignatureTrustEngine extends
         return pkixResolver;
     }
 
+    /** {@inheritDoc} */
+    @Override @Nullable protected Object getTrustInformationResolver() {
+        return pkixResolver;
+    }
+
     /** {@inheritDoc} */
     @Override protected boolean doValidate(@Nonnull final Signature signature,
             @Nullable final CriteriaSet trustBasisCriteria) throws SecurityException {
@@ -156,7 +161,7 @@ public class PKIXSignatureTrustEngine extends
         final Pair<Set<String>, Iterable<PKIXValidationInformation>> validationPair =
                 resolveValidationInfo(trustBasisCriteria);
 
-        if (validate(signature, validationPair)) {
+        if (validate(signature, validationPair, trustBasisCriteria)) {
             return true;
         }
 
@@ -175,6 +180,19 @@ public class PKIXSignatureTrustEngine extends
             return false;
         }
 
+        if (isTrustDecisionCached(candidateCredential, trustBasisCriteria)) {
+            try {
+                if (XMLSigningUtil.verifyWithURI(candidateCredential, algorithmURI, signature, content)) {
+                    log.debug("Verified raw signature using candidate credential with cached trust decision");
+                    return true;
+                }
+            } catch (final SecurityException e) {
+                // Swallow this, it's logged by the verifyWithURI method already.
+            }
+            log.debug("Cryptographic verification of raw signature failed with candidate credential");
+            return false;
+        }
+
         final Pair<Set<String>, Iterable<PKIXValidationInformation>> validationPair =
                 resolveValidationInfo(trustBasisCriteria);
 
@@ -184,6 +202,7 @@ public class PKIXSignatureTrustEngine extends
                 log.debug("Attempting to establish trust of supplied candidate credential");
                 if (evaluateTrust(candidateCredential, validationPair)) {
                     log.debug("Successfully established trust of supplied candidate credential");
+                    recordTrustDecision(candidateCredential, trustBasisCriteria);
                     return true;
                 }
                 log.debug("Failed to establish trust of supplied candidate credential");
@@ -27,6 +27,7 @@ import org.opensaml.xmlsec.algorithm.AlgorithmRegistry;
 import org.opensaml.xmlsec.algorithm.AlgorithmSupport;
 import org.opensaml.xmlsec.algorithm.SignatureAlgorithm;
 import org.opensaml.xmlsec.algorithm.AlgorithmDescriptor.AlgorithmType;
+import org.opensaml.xmlsec.algorithm.descriptors.BlockEncryptionAES128CBC;
 import org.opensaml.xmlsec.algorithm.descriptors.DigestSHA256;
 import org.opensaml.xmlsec.algorithm.descriptors.SignatureRSASHA256;
 import org.opensaml.xmlsec.algorithm.descriptors.SignatureRSASSA_PSS_SHA256_MGF1;
@@ -163,6 +164,43 @@ public class AlgorithmRegistryTest extends OpenSAMLInitBaseTestCase {
         Assert.assertNull(registry.getDigestAlgorithm(JCAConstants.DIGEST_SHA256));
     }
     
+    @Test
+    public void testSnapshot() {
+        AlgorithmRegistry registry = new AlgorithmRegistry();
+        final AlgorithmRegistry.Snapshot empty = registry.getSnapshot();
+        Assert.assertNull(empty.get(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128));
+        
+        registry.register(new BlockEncryptionAES128CBC());
+        registry.register(new DigestSHA256());
+        
+        final AlgorithmRegistry.Snapshot snapshot = registry.getSnapshot();
+        Assert.assertNotSame(snapshot, empty);
+        Assert.assertNull(empty.get(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128));
+        Assert.assertTrue(empty.getRegisteredURIsByType(AlgorithmType.BlockEncryption).isEmpty());
+        
+        final AlgorithmRegistry.Snapshot.Entry entry =
+                snapshot.getEntry(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128);
+        Assert.assertNotNull(entry);
+        Assert.assertTrue(entry.descriptor() instanceof BlockEncryptionAES128CBC);
+        Assert.assertEquals(entry.type(), AlgorithmType.BlockEncryption);
+        Assert.assertEquals(entry.keyLength(), Integer.valueOf(128));
+        Assert.assertTrue(entry.runtimeSupported());
+        Assert.assertNull(snapshot.getEntry(SignatureConstants.ALGO_ID_DIGEST_SHA256).keyLength());
+        
+        Assert.assertSame(snapshot.get(" " + EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128 + " "),
+                entry.descriptor());
+        Assert.assertTrue(snapshot.isRuntimeSupported(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128));
+        Assert.assertFalse(snapshot.isRuntimeSupported(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES256));
+        Assert.assertFalse(snapshot.isRuntimeSupported(null));
+        Assert.assertNotNull(snapshot.getDigestAlgorithm(JCAConstants.DIGEST_SHA256));
+        Assert.assertEquals(snapshot.getRegisteredByType(AlgorithmType.MessageDigest).size(), 1);
+        
+        registry.clear();
+        Assert.assertNull(registry.get(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128));
+        Assert.assertTrue(registry.getRegisteredURIsByType(AlgorithmType.BlockEncryption).isEmpty());
+        Assert.assertNotNull(snapshot.get(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES128));
+    }
+    
     @Test
     public void testGlobalRegistryPresence() {
         AlgorithmRegistry registry = AlgorithmSupport.getGlobalAlgorithmRegistry();
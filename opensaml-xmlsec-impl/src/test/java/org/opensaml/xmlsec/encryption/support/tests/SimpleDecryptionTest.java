@@ -19,7 +19,9 @@ import java.security.KeyException;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import javax.crypto.SecretKey;
 
@@ -45,7 +47,9 @@ import org.opensaml.xmlsec.encryption.support.InlineEncryptedKeyResolver;
 import org.opensaml.xmlsec.encryption.support.KeyEncryptionParameters;
 import org.opensaml.xmlsec.encryption.support.RSAOAEPParameters;
 import org.opensaml.xmlsec.keyinfo.KeyInfoCredentialResolver;
+import org.opensaml.xmlsec.keyinfo.KeyInfoSupport;
 import org.opensaml.xmlsec.keyinfo.impl.StaticKeyInfoCredentialResolver;
+import org.opensaml.xmlsec.keyinfo.impl.StaticKeyInfoGenerator;
 import org.opensaml.xmlsec.mock.SignableSimpleXMLObject;
 import org.opensaml.xmlsec.signature.KeyInfo;
 import org.opensaml.xmlsec.signature.support.SignatureConstants;
@@ -485,6 +489,62 @@ public class SimpleDecryptionTest extends XMLObjectBaseTestCase {
         
     }
     
+    /**
+     *  Test that during key rollover only the key decryption credential identified by the EncryptedKey's KeyInfo is
+     *  used, even when it is not the first one resolved.
+     *  
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testEncryptedKeyMatchedCredential() throws Exception {
+        final BasicCredential oldCred = (BasicCredential) AlgorithmSupport.generateKeyPairAndCredential(kekURI, 1024,
+                true);
+        oldCred.getKeyNames().add("old");
+        final BasicCredential newCred = (BasicCredential) AlgorithmSupport.generateKeyPairAndCredential(kekURI, 1024,
+                true);
+        newCred.getKeyNames().add("new");
+        
+        final KeyInfo kekKeyInfo = (KeyInfo) buildXMLObject(KeyInfo.DEFAULT_ELEMENT_NAME);
+        KeyInfoSupport.addKeyName(kekKeyInfo, "new");
+        final KeyEncryptionParameters newKEKParams = new KeyEncryptionParameters();
+        newKEKParams.setAlgorithm(kekURI);
+        newKEKParams.setEncryptionCredential(newCred);
+        newKEKParams.setKeyInfoGenerator(new StaticKeyInfoGenerator(kekKeyInfo));
+        
+        final EncryptedKey newEncryptedKey =
+                new Encrypter().encryptKey(encKey, newKEKParams, parserPool.newDocument());
+        final KeyInfo keyInfo = (KeyInfo) buildXMLObject(KeyInfo.DEFAULT_ELEMENT_NAME);
+        keyInfo.getEncryptedKeys().add(newEncryptedKey);
+        encryptedData.setKeyInfo(keyInfo);
+        
+        final CountingDecrypter decrypter = new CountingDecrypter(new StaticKeyInfoCredentialResolver(
+                CollectionSupport.listOf(oldCred, newCred)), new InlineEncryptedKeyResolver());
+        assertXMLEquals(targetDOM, decrypter.decryptData(encryptedData));
+        Assert.assertEquals(decrypter.keks, CollectionSupport.singletonList(newCred.getPrivateKey()));
+        Assert.assertEquals(decrypter.kekCredentials, CollectionSupport.singletonList(newCred));
+    }
+    
+    /**
+     *  Test that credentials not identified by the EncryptedKey's KeyInfo are still used as a fallback.
+     *  
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testEncryptedKeyUnmatchedCredential() throws Exception {
+        final Credential otherCred = AlgorithmSupport.generateKeyPairAndCredential(kekURI, 1024, true);
+        
+        final KeyInfo keyInfo = (KeyInfo) buildXMLObject(KeyInfo.DEFAULT_ELEMENT_NAME);
+        keyInfo.getEncryptedKeys().add(encryptedKey);
+        encryptedData.setKeyInfo(keyInfo);
+        
+        final CountingDecrypter decrypter = new CountingDecrypter(new StaticKeyInfoCredentialResolver(
+                CollectionSupport.listOf(otherCred, kekCred)), new InlineEncryptedKeyResolver());
+        assertXMLEquals(targetDOM, decrypter.decryptData(encryptedData));
+        Assert.assertEquals(decrypter.keks.size(), 2);
+        Assert.assertEquals(decrypter.keks.get(1), kekCred.getPrivateKey());
+        Assert.assertEquals(decrypter.kekCredentials.size(), 2);
+    }
+    
     /**
      *  Test error condition of no resolvers configured.
      */
@@ -566,4 +626,32 @@ public class SimpleDecryptionTest extends XMLObjectBaseTestCase {
         
     }
     
+    /** Decrypter which records the key decryption keys with which decryption is attempted. */
+    private class CountingDecrypter extends Decrypter {
+        
+        private final List<Key> keks = new ArrayList<>();
+        
+        private final List<Credential> kekCredentials = new ArrayList<>();
+        
+        public CountingDecrypter(final KeyInfoCredentialResolver kekRes, final EncryptedKeyResolver encKeyRes) {
+            super(null, kekRes, encKeyRes);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        protected void preProcessEncryptedKey(final EncryptedKey key, final String algorithm, final Key kek)
+                throws DecryptionException {
+            keks.add(kek);
+            super.preProcessEncryptedKey(key, algorithm, kek);
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        protected Key decryptKey(final EncryptedKey key, final String algorithm, final Credential kekCredential)
+                throws DecryptionException {
+            kekCredentials.add(kekCredential);
+            return super.decryptKey(key, algorithm, kekCredential);
+        }
+    }
+
 }
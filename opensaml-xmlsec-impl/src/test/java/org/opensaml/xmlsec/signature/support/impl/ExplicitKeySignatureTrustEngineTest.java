@@ -19,6 +19,7 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.opensaml.core.criterion.EntityIdCriterion;
 import org.opensaml.core.testing.XMLObjectBaseTestCase;
@@ -28,6 +29,8 @@ import org.opensaml.security.SecurityException;
 import org.opensaml.security.credential.Credential;
 import org.opensaml.security.credential.impl.CollectionCredentialResolver;
 import org.opensaml.security.crypto.KeySupport;
+import org.opensaml.security.trust.TrustInformationGenerationSource;
+import org.opensaml.security.trust.impl.TrustDecisionCache;
 import org.opensaml.security.x509.BasicX509Credential;
 import org.opensaml.security.x509.X509Support;
 import org.opensaml.xmlsec.SignatureValidationParameters;
@@ -381,6 +384,72 @@ public class ExplicitKeySignatureTrustEngineTest extends XMLObjectBaseTestCase {
                 "Raw Signature was invalid with blacklisted algorithms");
     }
     
+    /**
+     * Test that cached trust decisions survive removal of the trusted credential, but never bypass verification.
+     * 
+     * @throws SecurityException ...
+     */
+    @Test
+    public void testTrustDecisionCache() throws SecurityException {
+        final AtomicInteger generation = new AtomicInteger();
+        final TrustDecisionCache cache = new TrustDecisionCache();
+        cache.setGenerationSupplier(generation::get);
+        engine.setTrustDecisionCache(cache);
+        trustedCredentials.add(signingX509Cred);
+        
+        final Signature signature = getValidSignedObject().getSignature();
+        assert signature != null;
+        Assert.assertTrue(engine.validate(signature, criteriaSet));
+        Assert.assertTrue(engine.validate(rawControlSignature, rawData.getBytes(), rawAlgorithmURI, 
+                criteriaSet, signingX509Cred));
+        Assert.assertEquals(cache.size(), 1);
+        
+        trustedCredentials.remove(signingX509Cred);
+        Assert.assertTrue(engine.validate(signature, criteriaSet), "Trust decision should have been cached");
+        Assert.assertTrue(engine.validate(rawControlSignature, rawData.getBytes(), rawAlgorithmURI, 
+                criteriaSet, signingX509Cred), "Trust decision should have been cached");
+        
+        final Signature invalid = getInvalidSignedObject().getSignature();
+        assert invalid != null;
+        Assert.assertFalse(engine.validate(invalid, criteriaSet), "Signature must still be verified");
+        Assert.assertFalse(engine.validate(rawControlSignature, (rawData + "tampered").getBytes(), rawAlgorithmURI, 
+                criteriaSet, signingX509Cred), "Signature must still be verified");
+        
+        final CriteriaSet otherCriteria = new CriteriaSet(new EntityIdCriterion("other-entity"));
+        Assert.assertFalse(engine.validate(signature, otherCriteria), "Decision is specific to the criteria");
+        
+        generation.incrementAndGet();
+        Assert.assertFalse(engine.validate(signature, criteriaSet), "Decision should have been invalidated");
+    }
+    
+    /**
+     * Test that a trust decision cache is invalidated by a generation change in the trusted credential resolver.
+     * 
+     * @throws SecurityException ...
+     */
+    @Test
+    public void testTrustDecisionCacheResolverGeneration() throws SecurityException {
+        final AtomicInteger generation = new AtomicInteger();
+        final GenerationCredentialResolver resolver = new GenerationCredentialResolver(trustedCredentials, generation);
+        final KeyInfoCredentialResolver kiResolver = XMLSecurityTestingSupport.buildBasicInlineKeyInfoResolver();
+        final ExplicitKeySignatureTrustEngine generationEngine =
+                new ExplicitKeySignatureTrustEngine(resolver, kiResolver);
+        final TrustDecisionCache cache = new TrustDecisionCache();
+        generationEngine.setTrustDecisionCache(cache);
+        Assert.assertNotNull(cache.getGenerationSupplier());
+        trustedCredentials.add(signingX509Cred);
+        
+        final Signature signature = getValidSignedObject().getSignature();
+        assert signature != null;
+        Assert.assertTrue(generationEngine.validate(signature, criteriaSet));
+        
+        trustedCredentials.remove(signingX509Cred);
+        Assert.assertTrue(generationEngine.validate(signature, criteriaSet), "Trust decision should have been cached");
+        
+        generation.incrementAndGet();
+        Assert.assertFalse(generationEngine.validate(signature, criteriaSet), "Decision should have been invalidated");
+    }
+    
     /**
      * Get a signed object containing the signature to be validated.
      * 
@@ -461,4 +530,20 @@ public class ExplicitKeySignatureTrustEngineTest extends XMLObjectBaseTestCase {
         return sxo;
     }
     
+    /** Credential resolver reporting a generation for its trusted credentials. */
+    private static class GenerationCredentialResolver extends CollectionCredentialResolver
+            implements TrustInformationGenerationSource {
+        
+        private final AtomicInteger generation;
+        
+        GenerationCredentialResolver(final List<Credential> credentials, final AtomicInteger gen) {
+            super(credentials);
+            generation = gen;
+        }
+        
+        public Object getTrustInformationGeneration() {
+            return generation.get();
+        }
+    }
+    
 }
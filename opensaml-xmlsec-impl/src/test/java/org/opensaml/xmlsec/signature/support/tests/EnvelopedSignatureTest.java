@@ -18,6 +18,10 @@ import java.io.InputStream;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.annotation.Nonnull;
 
@@ -120,6 +124,33 @@ public class EnvelopedSignatureTest extends XMLObjectBaseTestCase {
         }
     }
 
+    /**
+     * Tests signing independently marshalled objects concurrently and then verifying them.
+     * 
+     * @throws MarshallingException thrown if the XMLObject tree can not be marshalled
+     * @throws SignatureException ...
+     */
+    @Test
+    public void testParallelSigningAndVerification() throws MarshallingException, SignatureException {
+        final List<Signature> signatures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final SignableSimpleXMLObject sxo = getXMLObjectWithSignature();
+            XMLObjectProviderRegistrySupport.getMarshallerFactory().ensureMarshaller(sxo).marshall(sxo);
+            signatures.add(sxo.getSignature());
+        }
+        
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Signer.signObjects(signatures, executor);
+        } finally {
+            executor.shutdown();
+        }
+        
+        for (final Signature signature : signatures) {
+            SignatureValidator.validate(signature, goodCredential);
+        }
+    }
+
     /**
      * Tests unmarshalling an enveloped signature.
      * 